@@ -0,0 +1,194 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.sdk.LDAPConnection;
+import com.unboundid.ops.models.Status;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for status evaluation, meant to be run with the GC profiler so
+ * that the bytes allocated per operation are reported next to the
+ * throughput:
+ * <pre>
+ *   mvn -P jmh verify
+ * </pre>
+ * Deciding whether an evaluated status is available or degraded, comparing
+ * it with the previous status, and publishing it when it has not changed
+ * should allocate little or nothing; only the evaluation itself, which reads
+ * the monitor entries, should allocate in proportion to their size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class StatusBenchmark
+{
+  private InMemoryDirectoryServer ds;
+  private LDAPConnection connection;
+  private StatusClient client;
+  private Status status;
+  private Status unchangedStatus;
+  private StatusSnapshot snapshot;
+
+
+  /**
+   * Starts an in-memory server with a typical set of monitor entries, and
+   * evaluates its status twice.
+   *
+   * @throws Exception
+   *           If the server cannot be started.
+   */
+  @Setup
+  public void setup() throws Exception
+  {
+    InMemoryDirectoryServerConfig config =
+        new InMemoryDirectoryServerConfig("cn=monitor");
+    config.setEnforceSingleStructuralObjectClass(false);
+    config.setEnforceAttributeSyntaxCompliance(false);
+    config.setSchema(null);
+    ds = new InMemoryDirectoryServer(config);
+    ds.add("dn: cn=monitor",
+           "objectClass: top",
+           "objectClass: ds-monitor-entry",
+           "objectClass: ds-general-monitor-entry",
+           "cn: monitor");
+    ds.add("dn: cn=Http Servlet Configuration,cn=monitor",
+           "objectClass: top",
+           "objectClass: ds-monitor-entry",
+           "objectClass: ds-http-servlet-config-monitor-entry",
+           "cn: Http Servlet Configuration",
+           "enabled-servlet-and-path: Status Servlet https://localhost/status",
+           "enabled-servlet-and-path: SCIM2 https://localhost/scim/v2");
+    ds.add("dn: cn=Example Monitor,cn=monitor",
+           "objectClass: top",
+           "objectClass: ds-monitor-entry",
+           "cn: Example Monitor",
+           "state: ready");
+    for (int i = 0; i < 4; i++)
+    {
+      ds.add("dn: cn=Store Adapter Store" + i + ",cn=monitor",
+             "objectClass: top",
+             "objectClass: ds-monitor-entry",
+             "objectClass: ds-store-adapter-monitor-entry",
+             "cn: Store Adapter Store" + i,
+             "store-adapter-name: Store" + i,
+             "store-adapter-status: AVAILABLE");
+      ds.add("dn: cn=load-balancing algorithm LBA" + i + ",cn=monitor",
+             "objectClass: top",
+             "objectClass: ds-monitor-entry",
+             "objectClass: ds-load-balancing-algorithm-monitor-entry",
+             "cn: load-balancing algorithm LBA" + i,
+             "algorithm-name: LBA" + i,
+             "health-check-state: AVAILABLE",
+             "num-available-servers: 2",
+             "num-degraded-servers: 0",
+             "num-unavailable-servers: 0");
+    }
+    ds.startListening();
+
+    connection = ds.getConnection();
+    client = new StatusClient(
+        connection, Arrays.asList("Status Servlet", "SCIM2"),
+        Collections.singletonList(
+            MonitorAvailabilityCriteria.create("Example Monitor:state:ready")));
+    status = client.getStatus();
+    unchangedStatus = client.getStatus();
+    snapshot = StatusSnapshot.create(status);
+  }
+
+
+  /**
+   * Shuts down the in-memory server.
+   */
+  @TearDown
+  public void tearDown()
+  {
+    connection.close();
+    ds.shutDown(true);
+  }
+
+
+  /**
+   * Evaluates the server's status from its monitor entries.
+   *
+   * @return The status.
+   */
+  @Benchmark
+  public Status evaluate()
+  {
+    return client.getStatus();
+  }
+
+
+  /**
+   * Decides whether an evaluated status is available and whether it is
+   * degraded.
+   *
+   * @return The status's availability flags.
+   */
+  @Benchmark
+  public int availability()
+  {
+    return (status.isOK() ? 1 : 0) | (status.isDegraded() ? 2 : 0) |
+        status.getAvailability() << 2;
+  }
+
+
+  /**
+   * Compares a status with an equal status from a later evaluation.
+   *
+   * @return Whether the statuses are equal.
+   */
+  @Benchmark
+  public boolean compare()
+  {
+    return status.equals(unchangedStatus);
+  }
+
+
+  /**
+   * Publishes a status that has not changed since the previous snapshot,
+   * which reuses the previous snapshot's serialized bodies.
+   *
+   * @return The new snapshot.
+   * @throws Exception
+   *           If the status cannot be serialized.
+   */
+  @Benchmark
+  public StatusSnapshot publishUnchanged() throws Exception
+  {
+    return StatusSnapshot.create(unchangedStatus, snapshot);
+  }
+}
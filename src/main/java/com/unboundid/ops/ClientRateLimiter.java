@@ -0,0 +1,297 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.ResultCode;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the rate at which each client address may request a fresh status
+ * evaluation, using a token bucket per client. A bucket holds up to a burst
+ * of tokens and is refilled at a steady rate; each request takes a token, and
+ * a request that finds the bucket empty is over the limit.
+ * <p>
+ * The buckets are divided among a fixed number of stripes by client address,
+ * each with its own lock, so that requests from different clients rarely
+ * contend. Each stripe holds a bounded number of buckets in least recently
+ * used order. A bucket that has been idle long enough to refill completely
+ * is indistinguishable from a new one, so idle buckets are evicted as
+ * requests pass through their stripe, and the least recently used bucket is
+ * evicted when a stripe is full.
+ */
+@JsonPropertyOrder({ "clients", "limitedRequests" })
+public class ClientRateLimiter
+{
+  /**
+   * What to do with a request that is over the limit.
+   */
+  public enum OverLimitAction
+  {
+    /**
+     * Serve the most recent snapshot without evaluating the status, or
+     * reject the request if there is none.
+     */
+    CACHED("cached"),
+
+    /** Reject the request with a 429 TOO MANY REQUESTS response code. */
+    REJECT("reject");
+
+    private final String name;
+
+
+    OverLimitAction(String name)
+    {
+      this.name = name;
+    }
+
+
+    /**
+     * Gets the action's name.
+     *
+     * @return The action name.
+     */
+    public String getName()
+    {
+      return name;
+    }
+
+
+    /**
+     * Gets the action with a name.
+     *
+     * @param name
+     *          The action name.
+     * @return The action.
+     * @throws LDAPException
+     *           If there is no action with the name.
+     */
+    public static OverLimitAction forName(String name) throws LDAPException
+    {
+      for (OverLimitAction action : values())
+      {
+        if (action.name.equalsIgnoreCase(name))
+        {
+          return action;
+        }
+      }
+      throw new LDAPException(ResultCode.PARAM_ERROR, String.format(
+          "Unknown rate limit action '%s'", name));
+    }
+  }
+
+  /** The default number of client addresses that are tracked. */
+  public static final int DEFAULT_MAX_CLIENTS = 10000;
+
+  private static final int STRIPES = 16;
+
+  private final double tokensPerNano;
+  private final double burst;
+  private final long idleNanos;
+  private final Stripe[] stripes = new Stripe[STRIPES];
+  private final AtomicLong limitedRequests = new AtomicLong();
+
+
+  /**
+   * Constructs a rate limiter.
+   *
+   * @param requestsPerSecond
+   *          The steady rate at which each client may make requests.
+   * @param burst
+   *          The number of requests that a client may make at once after it
+   *          has been idle.
+   * @param maxClients
+   *          The largest number of client addresses that are tracked.
+   */
+  public ClientRateLimiter(double requestsPerSecond, int burst,
+                           int maxClients)
+  {
+    this.tokensPerNano = requestsPerSecond / TimeUnit.SECONDS.toNanos(1L);
+    this.burst = Math.max(1, burst);
+    this.idleNanos = (long) Math.ceil(this.burst / tokensPerNano);
+    int maxBucketsPerStripe = Math.max(1, (maxClients + STRIPES - 1) / STRIPES);
+    for (int i = 0; i < STRIPES; i++)
+    {
+      stripes[i] = new Stripe(maxBucketsPerStripe);
+    }
+  }
+
+
+  /**
+   * Takes a token for a request from a client, if one is available.
+   *
+   * @param clientAddress
+   *          The client's address.
+   * @return {@code true} if the request is within the limit, or
+   *         {@code false} if it is over the limit.
+   */
+  public boolean tryAcquire(String clientAddress)
+  {
+    return tryAcquire(clientAddress, System.nanoTime());
+  }
+
+
+  boolean tryAcquire(String clientAddress, long nowNanos)
+  {
+    Stripe stripe = stripes[(clientAddress.hashCode() & 0x7fffffff) % STRIPES];
+    boolean acquired;
+    synchronized (stripe)
+    {
+      stripe.evictIdle(nowNanos);
+      Bucket bucket = stripe.get(clientAddress);
+      if (bucket == null)
+      {
+        bucket = new Bucket(burst, nowNanos);
+        stripe.put(clientAddress, bucket);
+      }
+      acquired = bucket.tryAcquire(nowNanos);
+    }
+    if (!acquired)
+    {
+      limitedRequests.incrementAndGet();
+    }
+    return acquired;
+  }
+
+
+  /**
+   * Gets the number of seconds after which a client that is over the limit
+   * will have a token, which is sent as the Retry-After header of a rejected
+   * request.
+   *
+   * @return The retry delay in seconds.
+   */
+  public long getRetryAfterSeconds()
+  {
+    return Math.max(1L, (long) Math.ceil(
+        1.0 / (tokensPerNano * TimeUnit.SECONDS.toNanos(1L))));
+  }
+
+
+  /**
+   * Gets the number of client addresses that are being tracked.
+   *
+   * @return The number of clients.
+   */
+  @JsonProperty("clients")
+  public int getClientCount()
+  {
+    int count = 0;
+    for (Stripe stripe : stripes)
+    {
+      synchronized (stripe)
+      {
+        count += stripe.size();
+      }
+    }
+    return count;
+  }
+
+
+  /**
+   * Gets the number of requests that have been over the limit.
+   *
+   * @return The number of limited requests.
+   */
+  @JsonProperty("limitedRequests")
+  public long getLimitedRequests()
+  {
+    return limitedRequests.get();
+  }
+
+
+  /**
+   * The buckets for a subset of the client addresses, in least recently used
+   * order. Instances are guarded by their own monitor.
+   */
+  private final class Stripe extends LinkedHashMap<String, Bucket>
+  {
+    private static final long serialVersionUID = 6917532480357265841L;
+
+    private final int maxBuckets;
+
+
+    Stripe(int maxBuckets)
+    {
+      super(16, 0.75f, true);
+      this.maxBuckets = maxBuckets;
+    }
+
+
+    /**
+     * Evicts the least recently used buckets that have been idle long enough
+     * to refill completely.
+     */
+    void evictIdle(long nowNanos)
+    {
+      Iterator<Bucket> iterator = values().iterator();
+      while (iterator.hasNext())
+      {
+        if (nowNanos - iterator.next().lastNanos < idleNanos)
+        {
+          break;
+        }
+        iterator.remove();
+      }
+    }
+
+
+    /** {@inheritDoc} */
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest)
+    {
+      return size() > maxBuckets;
+    }
+  }
+
+
+  /**
+   * A single client's token bucket. Instances are guarded by their stripe's
+   * monitor.
+   */
+  private final class Bucket
+  {
+    private double tokens;
+    private long lastNanos;
+
+
+    Bucket(double tokens, long nowNanos)
+    {
+      this.tokens = tokens;
+      this.lastNanos = nowNanos;
+    }
+
+
+    boolean tryAcquire(long nowNanos)
+    {
+      tokens = Math.min(burst, tokens + (nowNanos - lastNanos) * tokensPerNano);
+      lastNanos = nowNanos;
+      if (tokens < 1.0)
+      {
+        return false;
+      }
+      tokens -= 1.0;
+      return true;
+    }
+  }
+}
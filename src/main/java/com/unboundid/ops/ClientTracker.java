@@ -0,0 +1,220 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tracks which client addresses and User-Agents make the most status
+ * requests, so that misbehaving load balancers, monitoring agents, and
+ * scripts can be found. The heaviest clients are served as JSON at the
+ * {@value #CLIENTS_PATH} sub-path of the status path, and are included in
+ * the metrics.
+ * <p>
+ * Requests are counted in fixed windows, and the most recently completed
+ * window is reported, or the current window until one has completed. A
+ * window is completed by the first request or report after it expires, and
+ * its rates are computed from the time until then. A completed window is no
+ * longer reported once another full window has passed since it ended.
+ * Recording a request never blocks, and the memory used is the same no
+ * matter how many distinct clients make requests.
+ */
+@JsonPropertyOrder({ "windowSeconds", "clients", "userAgents" })
+public class ClientTracker
+{
+  /** The path of the heaviest clients, relative to the status path. */
+  public static final String CLIENTS_PATH = "/clients";
+
+  /** The default number of clients that are reported. */
+  public static final int DEFAULT_TOP_N = 10;
+
+  /** The default length of a counting window, in milliseconds. */
+  public static final long DEFAULT_WINDOW_MILLIS = 60000L;
+
+  private static final int MAX_USER_AGENT_LENGTH = 256;
+
+  private static final ObjectMapper mapper = new ObjectMapper();
+
+  private final int topN;
+  private final long windowMillis;
+  private final AtomicReference<Window> current;
+  private volatile Window previous;
+
+
+  /**
+   * Constructs a client tracker.
+   *
+   * @param topN
+   *          The number of client addresses and User-Agents that are
+   *          reported.
+   * @param windowMillis
+   *          The length of a counting window, in milliseconds.
+   */
+  public ClientTracker(int topN, long windowMillis)
+  {
+    this.topN = topN;
+    this.windowMillis = windowMillis;
+    this.current = new AtomicReference<>(
+        new Window(topN, System.currentTimeMillis()));
+  }
+
+
+  /**
+   * Records a status request.
+   *
+   * @param clientAddress
+   *          The client's address.
+   * @param userAgent
+   *          The value of the request's User-Agent header, or {@code null} if
+   *          it does not have one.
+   */
+  public void record(String clientAddress, String userAgent)
+  {
+    Window window = getCurrentWindow(System.currentTimeMillis());
+    window.clients.record(clientAddress);
+    if (userAgent == null)
+    {
+      userAgent = "-";
+    }
+    else if (userAgent.length() > MAX_USER_AGENT_LENGTH)
+    {
+      userAgent = userAgent.substring(0, MAX_USER_AGENT_LENGTH);
+    }
+    window.userAgents.record(userAgent);
+  }
+
+
+  /**
+   * Gets the length of the counting window.
+   *
+   * @return The window length in seconds.
+   */
+  @JsonProperty("windowSeconds")
+  public long getWindowSeconds()
+  {
+    return windowMillis / 1000L;
+  }
+
+
+  /**
+   * Gets the client addresses that made the most requests.
+   *
+   * @return The heaviest client addresses, in descending order of requests.
+   */
+  @JsonProperty("clients")
+  public List<HeavyHitters.HeavyHitter> getTopClients()
+  {
+    long now = System.currentTimeMillis();
+    Window window = getReportedWindow(now);
+    return window.clients.getTop(window.getElapsedMillis(now));
+  }
+
+
+  /**
+   * Gets the User-Agents that made the most requests.
+   *
+   * @return The heaviest User-Agents, in descending order of requests.
+   */
+  @JsonProperty("userAgents")
+  public List<HeavyHitters.HeavyHitter> getTopUserAgents()
+  {
+    long now = System.currentTimeMillis();
+    Window window = getReportedWindow(now);
+    return window.userAgents.getTop(window.getElapsedMillis(now));
+  }
+
+
+  /**
+   * Gets the heaviest clients as serialized JSON.
+   *
+   * @return The JSON bytes.
+   * @throws JsonProcessingException
+   *           If the clients cannot be serialized.
+   */
+  @JsonIgnore
+  public byte[] getJson() throws JsonProcessingException
+  {
+    return mapper.writeValueAsBytes(this);
+  }
+
+
+  /**
+   * Gets the current window, first completing it and starting a new one if
+   * it has expired.
+   */
+  private Window getCurrentWindow(long now)
+  {
+    Window window = current.get();
+    if (now - window.startMillis >= windowMillis)
+    {
+      Window next = new Window(topN, now);
+      if (current.compareAndSet(window, next))
+      {
+        window.endMillis = now;
+        previous = window;
+      }
+      window = current.get();
+    }
+    return window;
+  }
+
+
+  private Window getReportedWindow(long now)
+  {
+    Window currentWindow = getCurrentWindow(now);
+    Window window = previous;
+    return window != null && window.endMillis != 0L &&
+        now - window.endMillis <= windowMillis ? window : currentWindow;
+  }
+
+
+  /**
+   * The counts for one window.
+   */
+  private static final class Window
+  {
+    private final long startMillis;
+    private final HeavyHitters clients;
+    private final HeavyHitters userAgents;
+    private volatile long endMillis;
+
+
+    Window(int topN, long startMillis)
+    {
+      this.startMillis = startMillis;
+      this.clients = new HeavyHitters(topN);
+      this.userAgents = new HeavyHitters(topN);
+    }
+
+
+    /**
+     * Gets the time that the window has counted requests, which is until it
+     * was completed, or until now if it is still current.
+     */
+    long getElapsedMillis(long now)
+    {
+      long end = endMillis;
+      return (end != 0L ? end : now) - startMillis;
+    }
+  }
+}
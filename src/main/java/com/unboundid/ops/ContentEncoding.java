@@ -0,0 +1,164 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The HTTP content encodings in which a status response body can be sent.
+ */
+public enum ContentEncoding
+{
+  /** The body is not compressed. */
+  IDENTITY("identity"),
+
+  /** The body is compressed in the gzip format. */
+  GZIP("gzip"),
+
+  /** The body is compressed in the zlib format. */
+  DEFLATE("deflate");
+
+  private final String name;
+
+
+  ContentEncoding(String name)
+  {
+    this.name = name;
+  }
+
+
+  /**
+   * Gets the encoding's name, as used in the Accept-Encoding and
+   * Content-Encoding HTTP headers.
+   *
+   * @return The encoding name.
+   */
+  public String getName()
+  {
+    return name;
+  }
+
+
+  /**
+   * Encodes a response body.
+   *
+   * @param body
+   *          The unencoded body.
+   * @return The encoded body.
+   */
+  public byte[] encode(byte[] body)
+  {
+    if (this == IDENTITY)
+    {
+      return body;
+    }
+    try
+    {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length);
+      try (OutputStream out = this == GZIP ?
+          new GZIPOutputStream(bytes) : new DeflaterOutputStream(bytes))
+      {
+        out.write(body);
+      }
+      return bytes.toByteArray();
+    }
+    catch (IOException e)
+    {
+      // This can't happen when writing to a byte array.
+      throw new IllegalStateException(e);
+    }
+  }
+
+
+  /**
+   * Chooses the compressed encoding that a client prefers, based on the
+   * value of its Accept-Encoding request header. Of the encodings with the
+   * highest quality value, gzip is preferred to deflate.
+   *
+   * @param acceptEncoding
+   *          The Accept-Encoding header value, or {@code null} if the request
+   *          does not have one.
+   * @return The preferred encoding, or {@link #IDENTITY} if the client does
+   *         not accept a compressed encoding.
+   */
+  public static ContentEncoding negotiate(String acceptEncoding)
+  {
+    if (acceptEncoding == null)
+    {
+      return IDENTITY;
+    }
+    // A quality of -1 means the coding was not listed.
+    double gzipQuality = -1.0;
+    double deflateQuality = -1.0;
+    double wildcardQuality = -1.0;
+    for (String element : acceptEncoding.split(","))
+    {
+      String[] parts = element.split(";");
+      String coding = parts[0].trim();
+      double quality = 1.0;
+      for (int i = 1; i < parts.length; i++)
+      {
+        String parameter = parts[i].trim();
+        if (parameter.startsWith("q=") || parameter.startsWith("Q="))
+        {
+          try
+          {
+            quality = Double.parseDouble(parameter.substring(2).trim());
+          }
+          catch (NumberFormatException e)
+          {
+            quality = 0.0;
+          }
+        }
+      }
+      if (coding.equalsIgnoreCase(GZIP.name))
+      {
+        gzipQuality = quality;
+      }
+      else if (coding.equalsIgnoreCase(DEFLATE.name))
+      {
+        deflateQuality = quality;
+      }
+      else if (coding.equals("*"))
+      {
+        wildcardQuality = quality;
+      }
+    }
+    if (gzipQuality < 0.0)
+    {
+      gzipQuality = wildcardQuality;
+    }
+    if (deflateQuality < 0.0)
+    {
+      deflateQuality = wildcardQuality;
+    }
+
+    ContentEncoding preferred = IDENTITY;
+    if (gzipQuality > 0.0 && gzipQuality >= deflateQuality)
+    {
+      preferred = GZIP;
+    }
+    else if (deflateQuality > 0.0)
+    {
+      preferred = DEFLATE;
+    }
+    return preferred;
+  }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ldap.sdk.unboundidds.monitors.JEEnvironmentMonitorEntry;
+import com.unboundid.ops.models.DatabaseStatus;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The database cache and log cleaner thresholds at which a backend is
+ * considered degraded. A server whose database cache no longer holds its
+ * working set, or whose log cleaner has fallen behind, is still available,
+ * but its response times suffer, so it is reported as degraded with a
+ * reduced load balancer weight.
+ * <p>
+ * The cache hit percentage is calculated from the database environment
+ * monitor entry's fetch and fetch miss counters, as the difference between
+ * their values at two consecutive samples. The counters are only sampled by
+ * background evaluations, so that the percentage does not depend on when
+ * status requests arrive; other evaluations report the most recently
+ * calculated percentage. A backend has no hit percentage until it has been
+ * sampled twice, or after its counters were reset.
+ */
+public class DatabaseCriteria
+{
+  /** The object class of the database environment monitor entries. */
+  static final String DATABASE_ENVIRONMENT_MONITOR_OC =
+      "ds-je-environment-monitor-entry";
+
+  /** The lowest load balancer weight. */
+  static final int MIN_WEIGHT = 1;
+
+  /** The load balancer weight of a database within its thresholds. */
+  static final int MAX_WEIGHT = 100;
+
+  private static final String[] FETCH_STATS =
+      { "nLNsFetch", "nBINsFetch", "nUpperINsFetch" };
+  private static final String[] FETCH_MISS_STATS =
+      { "nLNsFetchMiss", "nBINsFetchMiss", "nUpperINsFetchMiss" };
+
+  private int minCacheHitPercent;
+  private int maxCachePercentFull;
+  private long maxCleanerBacklog;
+  private final Map<String, long[]> previousCounters = new HashMap<>();
+  private final Map<String, Double> cacheHitPercents = new HashMap<>();
+
+
+  /**
+   * Creates database criteria. A threshold of zero is not checked, but at
+   * least one threshold must be set.
+   *
+   * @param minCacheHitPercent
+   *          The cache hit percentage below which a backend is degraded.
+   * @param maxCachePercentFull
+   *          The cache fill percentage at which a backend is degraded.
+   * @param maxCleanerBacklog
+   *          The cleaner backlog at which a backend is degraded.
+   * @return A new database criteria instance.
+   * @throws LDAPException
+   *           If no threshold is set, or if a threshold is not valid.
+   */
+  public static DatabaseCriteria create(int minCacheHitPercent,
+                                        int maxCachePercentFull,
+                                        long maxCleanerBacklog)
+      throws LDAPException
+  {
+    if (minCacheHitPercent < 0 || minCacheHitPercent > 100 ||
+        maxCachePercentFull < 0 || maxCachePercentFull > 100 ||
+        maxCleanerBacklog < 0L)
+    {
+      throw new LDAPException(ResultCode.PARAM_ERROR, String.format(
+          "Invalid database thresholds: cache hit percent %d, " +
+              "cache percent full %d, cleaner backlog %d",
+          minCacheHitPercent, maxCachePercentFull, maxCleanerBacklog));
+    }
+    if (minCacheHitPercent == 0 && maxCachePercentFull == 0 &&
+        maxCleanerBacklog == 0L)
+    {
+      throw new LDAPException(ResultCode.PARAM_ERROR,
+          "Database checks require a cache hit percent, cache percent " +
+              "full, or cleaner backlog threshold");
+    }
+    DatabaseCriteria criteria = new DatabaseCriteria();
+    criteria.minCacheHitPercent = minCacheHitPercent;
+    criteria.maxCachePercentFull = maxCachePercentFull;
+    criteria.maxCleanerBacklog = maxCleanerBacklog;
+    return criteria;
+  }
+
+
+  /**
+   * Gets the cache hit percentage below which a backend is degraded.
+   *
+   * @return The cache hit percent threshold, or zero if it is not set.
+   */
+  public int getMinCacheHitPercent()
+  {
+    return minCacheHitPercent;
+  }
+
+
+  /**
+   * Gets the cache fill percentage at which a backend is degraded.
+   *
+   * @return The cache percent full threshold, or zero if it is not set.
+   */
+  public int getMaxCachePercentFull()
+  {
+    return maxCachePercentFull;
+  }
+
+
+  /**
+   * Gets the cleaner backlog at which a backend is degraded.
+   *
+   * @return The cleaner backlog threshold, or zero if it is not set.
+   */
+  public long getMaxCleanerBacklog()
+  {
+    return maxCleanerBacklog;
+  }
+
+
+  /**
+   * Evaluates database environment monitor entries against these criteria.
+   *
+   * @param entries
+   *          The database environment monitor entries.
+   * @param sample
+   *          Whether to calculate the cache hit percentage from the entries'
+   *          counters, and record them for the next sample, rather than
+   *          reporting the most recently calculated percentage.
+   * @return A status for each backend.
+   */
+  synchronized List<DatabaseStatus> evaluate(List<? extends Entry> entries,
+                                             boolean sample)
+  {
+    List<DatabaseStatus> databaseStatuses = new ArrayList<>(entries.size());
+    for (Entry entry : entries)
+    {
+      JEEnvironmentMonitorEntry environment =
+          new JEEnvironmentMonitorEntry(entry);
+      String backendID = environment.getBackendID() != null ?
+          environment.getBackendID() : entry.getDN();
+      Double cacheHitPercent = cacheHitPercents.get(backendID);
+      if (sample)
+      {
+        long[] counters = new long[] {
+            sum(environment, FETCH_STATS),
+            sum(environment, FETCH_MISS_STATS) };
+        long[] previous = previousCounters.put(backendID, counters);
+        cacheHitPercent = null;
+        if (previous != null)
+        {
+          long fetches = counters[0] - previous[0];
+          long misses = counters[1] - previous[1];
+          if (fetches > 0L && misses >= 0L && misses <= fetches)
+          {
+            cacheHitPercent = (fetches - misses) * 100.0 / fetches;
+          }
+        }
+        cacheHitPercents.put(backendID, cacheHitPercent);
+      }
+      Long cachePercentFull = environment.getDBCachePercentFull();
+      Long cleanerBacklog = environment.getCleanerBacklog();
+
+      boolean degraded = false;
+      double weight = MAX_WEIGHT;
+      if (minCacheHitPercent > 0 && cacheHitPercent != null &&
+          cacheHitPercent < minCacheHitPercent)
+      {
+        degraded = true;
+        weight = Math.min(weight,
+            MAX_WEIGHT * cacheHitPercent / minCacheHitPercent);
+      }
+      if (maxCachePercentFull > 0 && cachePercentFull != null &&
+          cachePercentFull >= maxCachePercentFull)
+      {
+        degraded = true;
+        weight = Math.min(weight,
+            MAX_WEIGHT * (double) maxCachePercentFull / cachePercentFull);
+      }
+      if (maxCleanerBacklog > 0L && cleanerBacklog != null &&
+          cleanerBacklog >= maxCleanerBacklog)
+      {
+        degraded = true;
+        weight = Math.min(weight,
+            MAX_WEIGHT * (double) maxCleanerBacklog / cleanerBacklog);
+      }
+      if (degraded)
+      {
+        weight = Math.min(weight, MAX_WEIGHT - 1);
+      }
+      databaseStatuses.add(new DatabaseStatus(
+          backendID,
+          degraded,
+          (int) Math.max(MIN_WEIGHT, weight),
+          cacheHitPercent,
+          cachePercentFull,
+          cleanerBacklog));
+    }
+    return databaseStatuses;
+  }
+
+
+  /**
+   * Adds up the values of a set of environment statistics, treating those
+   * that are missing as zero.
+   */
+  private static long sum(JEEnvironmentMonitorEntry environment,
+                          String[] statNames)
+  {
+    long sum = 0L;
+    for (String statName : statNames)
+    {
+      String value = environment.getEnvironmentStat(statName);
+      if (value != null)
+      {
+        try
+        {
+          sum += Long.parseLong(value.trim());
+        }
+        catch (NumberFormatException e)
+        {
+          // Ignore a value that is not a counter.
+        }
+      }
+    }
+    return sum;
+  }
+}
@@ -0,0 +1,329 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.unboundid.ops.models.Status;
+import com.unboundid.ops.models.StatusError;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The liveness, readiness, and startup checks that container orchestrators
+ * use, which are served at sub-paths of the status path. Each check has a
+ * different cost:
+ * <ul>
+ *   <li>The liveness check never searches the server. It only verifies that
+ *       background evaluation, if enabled, has published a snapshot
+ *       recently.</li>
+ *   <li>The readiness check reports its own sections of the status, which
+ *       are by default the store adapters and load balancing algorithms. It
+ *       is answered from the most recent background evaluation if one is
+ *       running.</li>
+ *   <li>The startup check reports its own sections of the status, and waits
+ *       for the first evaluation in which those sections are available, up
+ *       to a timeout. Once it has succeeded, it no longer waits.</li>
+ * </ul>
+ */
+public class HealthChecks
+{
+  /** The path of the liveness check, relative to the status path. */
+  public static final String LIVENESS_PATH = "/live";
+
+  /** The path of the readiness check, relative to the status path. */
+  public static final String READINESS_PATH = "/ready";
+
+  /** The path of the startup check, relative to the status path. */
+  public static final String STARTUP_PATH = "/startup";
+
+  /** The sections that the readiness check reports by default. */
+  public static final Set<StatusSection> DEFAULT_READINESS_SECTIONS =
+      Collections.unmodifiableSet(EnumSet.of(
+          StatusSection.STORE_ADAPTERS,
+          StatusSection.LOAD_BALANCING_ALGORITHMS));
+
+  /** The default time that the startup check waits, in milliseconds. */
+  public static final long DEFAULT_STARTUP_TIMEOUT_MILLIS = 10000L;
+
+  private static final byte[] LIVE_JSON =
+      "{\"live\":true}".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] NOT_LIVE_JSON =
+      "{\"live\":false}".getBytes(StandardCharsets.UTF_8);
+
+  private final StatusClient client;
+  private final StatusSnapshot notEvaluatedSnapshot;
+  private StatusRefresher refresher;
+  private StatusProfile readinessProfile =
+      StatusProfile.forSections(DEFAULT_READINESS_SECTIONS);
+  private StatusProfile startupProfile =
+      StatusProfile.forSections(StatusSection.ALL);
+  private long startupTimeoutMillis = DEFAULT_STARTUP_TIMEOUT_MILLIS;
+  private long livenessMaxAgeMillis;
+  private volatile boolean started;
+
+
+  /**
+   * Constructs a set of health checks.
+   *
+   * @param client
+   *          The status client.
+   */
+  public HealthChecks(StatusClient client)
+  {
+    this.client = client;
+    try
+    {
+      this.notEvaluatedSnapshot = StatusSnapshot.create(
+          Status.create(new StatusError(new IllegalStateException(
+              "The status has not been evaluated yet"))));
+    }
+    catch (JsonProcessingException e)
+    {
+      // This can't happen for a status that only has an error.
+      throw new IllegalStateException(e);
+    }
+  }
+
+
+  /**
+   * Sets the sections that the readiness check reports.
+   *
+   * @param sections
+   *          The readiness sections.
+   * @return These health checks.
+   */
+  public HealthChecks setReadinessSections(Set<StatusSection> sections)
+  {
+    readinessProfile = StatusProfile.forSections(sections);
+    return this;
+  }
+
+
+  /**
+   * Sets the sections that the startup check reports.
+   *
+   * @param sections
+   *          The startup sections.
+   * @return These health checks.
+   */
+  public HealthChecks setStartupSections(Set<StatusSection> sections)
+  {
+    startupProfile = StatusProfile.forSections(sections);
+    return this;
+  }
+
+
+  /**
+   * Sets the longest time that a startup check waits for the server to
+   * become available before it fails.
+   *
+   * @param startupTimeoutMillis
+   *          The startup timeout in milliseconds.
+   * @return These health checks.
+   */
+  public HealthChecks setStartupTimeoutMillis(long startupTimeoutMillis)
+  {
+    this.startupTimeoutMillis = startupTimeoutMillis;
+    return this;
+  }
+
+
+  /**
+   * Sets the age after which the most recent background evaluation is
+   * considered stalled, which fails the liveness check. This has no effect
+   * unless a refresher is in use. It should be several times the
+   * refresher's maximum interval.
+   *
+   * @param livenessMaxAgeMillis
+   *          The maximum snapshot age in milliseconds, or zero if the
+   *          liveness check should not consider the snapshot age.
+   * @return These health checks.
+   */
+  public HealthChecks setLivenessMaxAgeMillis(long livenessMaxAgeMillis)
+  {
+    this.livenessMaxAgeMillis = livenessMaxAgeMillis;
+    return this;
+  }
+
+
+  /**
+   * Sets the refresher whose snapshots answer the readiness and startup
+   * checks. The refresher should publish snapshots for the profiles
+   * returned by {@link #getProfiles()}.
+   *
+   * @param refresher
+   *          The status refresher, or {@code null} if the checks should
+   *          evaluate the status for each request.
+   * @return These health checks.
+   */
+  public HealthChecks setRefresher(StatusRefresher refresher)
+  {
+    this.refresher = refresher;
+    return this;
+  }
+
+
+  /**
+   * Gets the profiles that the readiness and startup checks report, for which
+   * a refresher should publish snapshots.
+   *
+   * @return The profiles.
+   */
+  public List<StatusProfile> getProfiles()
+  {
+    return Arrays.asList(readinessProfile, startupProfile);
+  }
+
+
+  /**
+   * Indicates whether the process is live. This never searches the server.
+   *
+   * @return {@code true} if the process is live.
+   */
+  public boolean isLive()
+  {
+    if (refresher == null || livenessMaxAgeMillis <= 0L)
+    {
+      return true;
+    }
+    StatusSnapshot snapshot = refresher.getSnapshot();
+    // The first evaluation is the startup check's concern.
+    return snapshot == null ||
+        System.currentTimeMillis() - snapshot.getTimestamp() <=
+            livenessMaxAgeMillis;
+  }
+
+
+  /**
+   * Gets the body of a liveness response.
+   *
+   * @param live
+   *          The result of the liveness check.
+   * @return The JSON body. The returned array must not be modified.
+   */
+  public byte[] getLivenessJson(boolean live)
+  {
+    return live ? LIVE_JSON : NOT_LIVE_JSON;
+  }
+
+
+  /**
+   * Gets the result of the readiness check.
+   *
+   * @return A snapshot of the readiness sections.
+   * @throws JsonProcessingException
+   *           If the status cannot be serialized.
+   */
+  public StatusSnapshot getReadiness() throws JsonProcessingException
+  {
+    if (refresher != null)
+    {
+      StatusSnapshot snapshot = refresher.getSnapshot(readinessProfile);
+      return snapshot != null ? snapshot : notEvaluatedSnapshot;
+    }
+    return StatusSnapshot.create(client.getStatus(readinessProfile));
+  }
+
+
+  /**
+   * Gets the result of the startup check, waiting up to the startup timeout
+   * for the startup sections to become available.
+   *
+   * @return A snapshot of the startup sections.
+   * @throws JsonProcessingException
+   *           If the status cannot be serialized.
+   * @throws InterruptedException
+   *           If the thread is interrupted while waiting.
+   */
+  public StatusSnapshot awaitStartup()
+      throws JsonProcessingException, InterruptedException
+  {
+    return awaitStartup(startupTimeoutMillis);
+  }
+
+
+  /**
+   * Gets the result of the startup check without waiting for the startup
+   * sections to become available. This never waits on a refresher.
+   *
+   * @return A snapshot of the startup sections.
+   * @throws JsonProcessingException
+   *           If the status cannot be serialized.
+   */
+  public StatusSnapshot getStartup() throws JsonProcessingException
+  {
+    try
+    {
+      return awaitStartup(0L);
+    }
+    catch (InterruptedException e)
+    {
+      // This can't happen without a wait.
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+
+  private StatusSnapshot awaitStartup(long timeoutMillis)
+      throws JsonProcessingException, InterruptedException
+  {
+    if (refresher == null)
+    {
+      StatusSnapshot snapshot =
+          StatusSnapshot.create(client.getStatus(startupProfile));
+      started |= snapshot.getHttpStatusCode() == StatusSnapshot.SC_AVAILABLE;
+      return snapshot;
+    }
+
+    long deadline = System.currentTimeMillis() + timeoutMillis;
+    StatusSnapshot latest = refresher.getSnapshot();
+    StatusSnapshot snapshot = refresher.getSnapshot(startupProfile);
+    while (!started)
+    {
+      if (snapshot != null &&
+          snapshot.getHttpStatusCode() == StatusSnapshot.SC_AVAILABLE)
+      {
+        started = true;
+        break;
+      }
+      long remaining = deadline - System.currentTimeMillis();
+      if (remaining <= 0L)
+      {
+        break;
+      }
+      latest = refresher.awaitSnapshot(latest, remaining);
+      snapshot = refresher.getSnapshot(startupProfile);
+    }
+    return snapshot != null ? snapshot : notEvaluatedSnapshot;
+  }
+
+
+  /**
+   * Indicates whether the startup check has succeeded.
+   *
+   * @return {@code true} if the server has started.
+   */
+  public boolean isStarted()
+  {
+    return started;
+  }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Finds the most frequent keys in a stream, such as the client addresses
+ * that make the most requests, in constant memory and without locks.
+ * <p>
+ * Each key's count is estimated by a Count-Min sketch: a fixed number of
+ * rows of counters, where each key increments one counter per row, and its
+ * estimate is the smallest of those counters. Estimates are never too low,
+ * and are too high only by the counts of keys that collide with it in every
+ * row. A small, fixed set of candidate slots holds the keys with the highest
+ * estimates seen so far. A key replaces the candidate with the lowest
+ * estimate when its own estimate is higher.
+ * <p>
+ * Concurrent updates may briefly place a key in two slots or replace a
+ * candidate that has just overtaken another; both only affect which keys are
+ * reported near the bottom of the list, and duplicates are removed when the
+ * list is reported.
+ */
+public class HeavyHitters
+{
+  private static final int DEPTH = 4;
+  private static final int WIDTH = 1024;
+
+  private final int topN;
+  private final AtomicLongArray counters =
+      new AtomicLongArray(DEPTH * WIDTH);
+  private final AtomicReferenceArray<String> candidates;
+
+
+  /**
+   * Constructs an empty heavy hitters tracker.
+   *
+   * @param topN
+   *          The number of keys that are reported.
+   */
+  HeavyHitters(int topN)
+  {
+    this.topN = topN;
+    this.candidates = new AtomicReferenceArray<>(Math.max(8, 2 * topN));
+  }
+
+
+  /**
+   * Records one occurrence of a key.
+   *
+   * @param key
+   *          The key.
+   */
+  void record(String key)
+  {
+    int hash = key.hashCode();
+    int step = mix(hash) | 1;
+    long estimate = Long.MAX_VALUE;
+    for (int row = 0; row < DEPTH; row++)
+    {
+      estimate = Math.min(estimate,
+          counters.incrementAndGet(index(row, hash, step)));
+    }
+
+    int minSlot = -1;
+    String minKey = null;
+    long minEstimate = Long.MAX_VALUE;
+    for (int slot = 0; slot < candidates.length(); slot++)
+    {
+      String candidate = candidates.get(slot);
+      if (candidate == null)
+      {
+        if (candidates.compareAndSet(slot, null, key))
+        {
+          return;
+        }
+        candidate = candidates.get(slot);
+      }
+      if (candidate.equals(key))
+      {
+        return;
+      }
+      long candidateEstimate = estimate(candidate);
+      if (candidateEstimate < minEstimate)
+      {
+        minSlot = slot;
+        minKey = candidate;
+        minEstimate = candidateEstimate;
+      }
+    }
+    if (estimate > minEstimate)
+    {
+      candidates.compareAndSet(minSlot, minKey, key);
+    }
+  }
+
+
+  /**
+   * Gets the estimated number of occurrences of a key.
+   *
+   * @param key
+   *          The key.
+   * @return The estimated count, which is never less than the actual count.
+   */
+  long estimate(String key)
+  {
+    int hash = key.hashCode();
+    int step = mix(hash) | 1;
+    long estimate = Long.MAX_VALUE;
+    for (int row = 0; row < DEPTH; row++)
+    {
+      estimate = Math.min(estimate, counters.get(index(row, hash, step)));
+    }
+    return estimate;
+  }
+
+
+  /**
+   * Gets the keys with the highest estimated counts.
+   *
+   * @param elapsedMillis
+   *          The length of time over which the keys were recorded, from which
+   *          their rates are calculated.
+   * @return Up to the configured number of keys, in descending order of
+   *         estimated count.
+   */
+  List<HeavyHitter> getTop(long elapsedMillis)
+  {
+    Set<String> keys = new LinkedHashSet<>();
+    for (int slot = 0; slot < candidates.length(); slot++)
+    {
+      String candidate = candidates.get(slot);
+      if (candidate != null)
+      {
+        keys.add(candidate);
+      }
+    }
+    double seconds = Math.max(1L, elapsedMillis) / 1000.0;
+    List<HeavyHitter> top = new ArrayList<>(keys.size());
+    for (String key : keys)
+    {
+      long count = estimate(key);
+      top.add(new HeavyHitter(key, count, count / seconds));
+    }
+    Collections.sort(top, new Comparator<HeavyHitter>()
+    {
+      @Override
+      public int compare(HeavyHitter o1, HeavyHitter o2)
+      {
+        return Long.compare(o2.requests, o1.requests);
+      }
+    });
+    return top.size() > topN ? top.subList(0, topN) : top;
+  }
+
+
+  private static int index(int row, int hash, int step)
+  {
+    return row * WIDTH + ((hash + row * step) & (WIDTH - 1));
+  }
+
+
+  /**
+   * Derives a second, independent hash from a key's hash code.
+   */
+  private static int mix(int hash)
+  {
+    hash ^= hash >>> 16;
+    hash *= 0x85ebca6b;
+    hash ^= hash >>> 13;
+    hash *= 0xc2b2ae35;
+    return hash ^ (hash >>> 16);
+  }
+
+
+  /**
+   * One of the most frequent keys.
+   */
+  @JsonPropertyOrder({ "key", "requests", "requestsPerSecond" })
+  public static class HeavyHitter
+  {
+    private final String key;
+    private final long requests;
+    private final double requestsPerSecond;
+
+
+    HeavyHitter(String key, long requests, double requestsPerSecond)
+    {
+      this.key = key;
+      this.requests = requests;
+      this.requestsPerSecond = requestsPerSecond;
+    }
+
+
+    /**
+     * Gets the key.
+     *
+     * @return The key.
+     */
+    @JsonProperty("key")
+    public String getKey()
+    {
+      return key;
+    }
+
+
+    /**
+     * Gets the estimated number of requests.
+     *
+     * @return The estimated request count.
+     */
+    @JsonProperty("requests")
+    public long getRequests()
+    {
+      return requests;
+    }
+
+
+    /**
+     * Gets the estimated request rate.
+     *
+     * @return The estimated number of requests per second.
+     */
+    @JsonProperty("requestsPerSecond")
+    public double getRequestsPerSecond()
+    {
+      return requestsPerSecond;
+    }
+  }
+}
@@ -0,0 +1,325 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ldap.sdk.unboundidds.monitors.MemoryUsageMonitorEntry;
+import com.unboundid.ops.models.JvmStatus;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+
+/**
+ * The garbage collection thresholds at which a server is considered
+ * degraded. Long or frequent collections make a server unresponsive for
+ * seconds at a time, so a server that crosses a threshold is reported as
+ * degraded, and load balancers move traffic away before the pauses compound.
+ * <p>
+ * The time spent in garbage collection is the difference between the
+ * collectors' total collection times at this evaluation and at the previous
+ * one, as a percentage of the time between them. The collection times and
+ * the duration of each collector's most recent collection are read from the
+ * server's memory usage monitor entry. When the status servlet runs in the
+ * server that it reports on, the collection times and the old generation's
+ * occupancy are instead sampled from the JVM's management beans, which is
+ * cheaper and more precise; the occupancy is not otherwise known.
+ * <p>
+ * Because the garbage collection time is measured between samples, these
+ * criteria are meant to be evaluated on a background schedule. Only the
+ * background evaluations sample the collection times; any other evaluation,
+ * such as a readiness check, reports the most recently sampled garbage
+ * collection time, so that it does not shorten the next sample's window.
+ */
+public class JvmCriteria
+{
+  /** The object class of the memory usage monitor entry. */
+  static final String MEMORY_USAGE_MONITOR_OC =
+      "ds-memory-usage-monitor-entry";
+
+  private double maxGcPercent;
+  private int maxOldGenPercentFull;
+  private long maxCollectionMillis;
+  private boolean sampleLocalJvm;
+  private long previousGcMillis = -1L;
+  private long previousSampleMillis;
+  private Long sampledGcMillis;
+  private Double sampledGcPercent;
+
+
+  /**
+   * Creates JVM criteria. A threshold of zero is not checked, but at least
+   * one threshold must be set.
+   *
+   * @param maxGcPercent
+   *          The percentage of time spent in garbage collection at which the
+   *          server is degraded.
+   * @param maxOldGenPercentFull
+   *          The old generation occupancy after a collection, as a percentage
+   *          of its maximum size, at which the server is degraded.
+   * @param maxCollectionMillis
+   *          The duration of a single collection, in milliseconds, at which
+   *          the server is degraded.
+   * @return A new JVM criteria instance.
+   * @throws LDAPException
+   *           If no threshold is set, or if a threshold is not valid.
+   */
+  public static JvmCriteria create(double maxGcPercent,
+                                   int maxOldGenPercentFull,
+                                   long maxCollectionMillis)
+      throws LDAPException
+  {
+    if (maxGcPercent < 0.0 || maxGcPercent > 100.0 ||
+        maxOldGenPercentFull < 0 || maxOldGenPercentFull > 100 ||
+        maxCollectionMillis < 0L)
+    {
+      throw new LDAPException(ResultCode.PARAM_ERROR, String.format(
+          "Invalid JVM thresholds: GC percent %s, old generation percent " +
+              "full %d, collection duration %d ms",
+          maxGcPercent, maxOldGenPercentFull, maxCollectionMillis));
+    }
+    if (maxGcPercent == 0.0 && maxOldGenPercentFull == 0 &&
+        maxCollectionMillis == 0L)
+    {
+      throw new LDAPException(ResultCode.PARAM_ERROR,
+          "JVM checks require a GC percent, old generation percent full, " +
+              "or collection duration threshold");
+    }
+    JvmCriteria criteria = new JvmCriteria();
+    criteria.maxGcPercent = maxGcPercent;
+    criteria.maxOldGenPercentFull = maxOldGenPercentFull;
+    criteria.maxCollectionMillis = maxCollectionMillis;
+    return criteria;
+  }
+
+
+  /**
+   * Sets whether garbage collection times and old generation occupancy are
+   * sampled from this JVM's management beans. This must only be enabled when
+   * the status is read from the server in which this code runs, and not from
+   * a remote server.
+   *
+   * @param sampleLocalJvm
+   *          Whether to sample this JVM.
+   * @return These criteria.
+   */
+  public JvmCriteria setSampleLocalJvm(boolean sampleLocalJvm)
+  {
+    this.sampleLocalJvm = sampleLocalJvm;
+    return this;
+  }
+
+
+  /**
+   * Gets the percentage of time spent in garbage collection at which the
+   * server is degraded.
+   *
+   * @return The GC percent threshold, or zero if it is not set.
+   */
+  public double getMaxGcPercent()
+  {
+    return maxGcPercent;
+  }
+
+
+  /**
+   * Gets the old generation occupancy at which the server is degraded.
+   *
+   * @return The old generation percent full threshold, or zero if it is not
+   *         set.
+   */
+  public int getMaxOldGenPercentFull()
+  {
+    return maxOldGenPercentFull;
+  }
+
+
+  /**
+   * Gets the duration of a single collection at which the server is
+   * degraded.
+   *
+   * @return The collection duration threshold in milliseconds, or zero if it
+   *         is not set.
+   */
+  public long getMaxCollectionMillis()
+  {
+    return maxCollectionMillis;
+  }
+
+
+  /**
+   * Indicates whether this JVM is sampled.
+   *
+   * @return True if this JVM's management beans are sampled.
+   */
+  public boolean isSampleLocalJvm()
+  {
+    return sampleLocalJvm;
+  }
+
+
+  /**
+   * Evaluates the memory usage monitor entry, and this JVM if it is sampled,
+   * against these criteria.
+   *
+   * @param entry
+   *          The memory usage monitor entry, or {@code null} if the server
+   *          does not have one.
+   * @param now
+   *          The current time, in milliseconds.
+   * @param sample
+   *          Whether to calculate the garbage collection time since the
+   *          previous sample, and record the total collection time for the
+   *          next one, rather than reporting the most recently calculated
+   *          garbage collection time.
+   * @return The JVM status.
+   */
+  synchronized JvmStatus evaluate(Entry entry, long now, boolean sample)
+  {
+    MemoryUsageMonitorEntry memoryUsage =
+        entry != null ? new MemoryUsageMonitorEntry(entry) : null;
+
+    Long totalGcMillis = null;
+    Integer oldGenPercentFull = null;
+    if (sampleLocalJvm)
+    {
+      totalGcMillis = getLocalCollectionMillis();
+      oldGenPercentFull = getLocalOldGenPercentFull();
+    }
+    else if (memoryUsage != null &&
+        !memoryUsage.getTotalCollectionDurations().isEmpty())
+    {
+      totalGcMillis = sum(memoryUsage.getTotalCollectionDurations().values());
+    }
+
+    if (sample)
+    {
+      sampledGcMillis = null;
+      sampledGcPercent = null;
+      if (totalGcMillis != null)
+      {
+        if (previousGcMillis >= 0L && totalGcMillis >= previousGcMillis &&
+            now > previousSampleMillis)
+        {
+          sampledGcMillis = totalGcMillis - previousGcMillis;
+          sampledGcPercent = Math.min(100.0,
+              sampledGcMillis * 100.0 / (now - previousSampleMillis));
+        }
+        previousGcMillis = totalGcMillis;
+        previousSampleMillis = now;
+      }
+    }
+    Long gcMillis = sampledGcMillis;
+    Double gcPercent = sampledGcPercent;
+
+    Long longestRecentCollection = null;
+    Long maxDetectedPause = null;
+    if (memoryUsage != null)
+    {
+      for (Long duration :
+          memoryUsage.getRecentCollectionDurations().values())
+      {
+        if (duration != null && (longestRecentCollection == null ||
+            duration > longestRecentCollection))
+        {
+          longestRecentCollection = duration;
+        }
+      }
+      maxDetectedPause = memoryUsage.getMaxDetectedPauseTimeMillis();
+    }
+
+    boolean degraded =
+        (maxGcPercent > 0.0 && gcPercent != null &&
+            gcPercent >= maxGcPercent) ||
+        (maxOldGenPercentFull > 0 && oldGenPercentFull != null &&
+            oldGenPercentFull >= maxOldGenPercentFull) ||
+        (maxCollectionMillis > 0L && longestRecentCollection != null &&
+            longestRecentCollection >= maxCollectionMillis);
+    return new JvmStatus(degraded, gcPercent, gcMillis,
+                         longestRecentCollection, oldGenPercentFull,
+                         maxDetectedPause);
+  }
+
+
+  /**
+   * Gets the total time that this JVM's collectors have spent in garbage
+   * collection.
+   */
+  private static long getLocalCollectionMillis()
+  {
+    long total = 0L;
+    for (GarbageCollectorMXBean collector :
+        ManagementFactory.getGarbageCollectorMXBeans())
+    {
+      total += Math.max(0L, collector.getCollectionTime());
+    }
+    return total;
+  }
+
+
+  /**
+   * Gets the occupancy of this JVM's old generation after its most recent
+   * collection, as a percentage of its maximum size. The old generation is
+   * the heap pool that supports a usage threshold; the young generation's
+   * pools do not. Before the first collection, its current usage is used.
+   */
+  private static Integer getLocalOldGenPercentFull()
+  {
+    MemoryPoolMXBean oldGen = null;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+    {
+      if (pool.getType() == MemoryType.HEAP && pool.isValid() &&
+          pool.isUsageThresholdSupported())
+      {
+        oldGen = pool;
+        break;
+      }
+    }
+    if (oldGen == null)
+    {
+      return null;
+    }
+    MemoryUsage usage = oldGen.getCollectionUsage();
+    if (usage == null || usage.getUsed() == 0L)
+    {
+      usage = oldGen.getUsage();
+    }
+    long max = usage.getMax() > 0L ? usage.getMax() : usage.getCommitted();
+    if (max <= 0L)
+    {
+      return null;
+    }
+    return (int) (usage.getUsed() * 100L / max);
+  }
+
+
+  private static long sum(Iterable<Long> values)
+  {
+    long sum = 0L;
+    for (Long value : values)
+    {
+      if (value != null)
+      {
+        sum += value;
+      }
+    }
+    return sum;
+  }
+}
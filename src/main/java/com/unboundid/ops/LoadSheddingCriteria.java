@@ -0,0 +1,197 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ldap.sdk.unboundidds.monitors.UnboundIDWorkQueueMonitorEntry;
+import com.unboundid.ops.models.LoadStatus;
+
+/**
+ * The thresholds at which a server's work queue is considered saturated.
+ * When either threshold is crossed, the server is reported as degraded, so
+ * that load balancers send it less traffic before its response times
+ * collapse, and clients are told how long to wait before retrying.
+ * <p>
+ * The retry delay is the time that the server needs to drain its current
+ * work queue. The drain rate is derived from the work queue monitor entry
+ * using Little's law: the recent average queue size divided by the recent
+ * average time that an operation spends in the queue is the rate at which
+ * operations leave the queue.
+ */
+public class LoadSheddingCriteria
+{
+  /** The object class of the work queue monitor entry. */
+  static final String WORK_QUEUE_MONITOR_OC =
+      "ds-unboundid-work-queue-monitor-entry";
+
+  /** The default longest retry delay, in seconds. */
+  public static final int DEFAULT_MAX_RETRY_AFTER_SECONDS = 60;
+
+  private long maxQueueSize;
+  private int maxPercentBusy;
+  private int maxRetryAfterSeconds = DEFAULT_MAX_RETRY_AFTER_SECONDS;
+
+
+  /**
+   * Creates load shedding criteria.
+   *
+   * @param maxQueueSize
+   *          The work queue size at which the server is saturated, or zero
+   *          if the queue size is not considered.
+   * @param maxPercentBusy
+   *          The percentage of busy worker threads at which the server is
+   *          saturated, or zero if the worker threads are not considered.
+   * @return A new load shedding criteria instance.
+   * @throws LDAPException
+   *           If neither threshold is set, or if a threshold is not valid.
+   */
+  public static LoadSheddingCriteria create(long maxQueueSize,
+                                            int maxPercentBusy)
+      throws LDAPException
+  {
+    if (maxQueueSize < 0L || maxPercentBusy < 0 || maxPercentBusy > 100)
+    {
+      throw new LDAPException(ResultCode.PARAM_ERROR, String.format(
+          "Invalid load shedding thresholds: queue size %d, " +
+              "percent busy %d", maxQueueSize, maxPercentBusy));
+    }
+    if (maxQueueSize == 0L && maxPercentBusy == 0)
+    {
+      throw new LDAPException(ResultCode.PARAM_ERROR,
+          "Load shedding requires a queue size or a percent busy threshold");
+    }
+    LoadSheddingCriteria criteria = new LoadSheddingCriteria();
+    criteria.maxQueueSize = maxQueueSize;
+    criteria.maxPercentBusy = maxPercentBusy;
+    return criteria;
+  }
+
+
+  /**
+   * Sets the longest retry delay that is reported for a saturated server.
+   * This is also the delay that is reported if the drain rate is not known.
+   *
+   * @param maxRetryAfterSeconds
+   *          The longest retry delay, in seconds.
+   * @return These criteria.
+   */
+  public LoadSheddingCriteria setMaxRetryAfterSeconds(int maxRetryAfterSeconds)
+  {
+    this.maxRetryAfterSeconds = Math.max(1, maxRetryAfterSeconds);
+    return this;
+  }
+
+
+  /**
+   * Gets the work queue size at which the server is saturated.
+   *
+   * @return The queue size threshold, or zero if it is not set.
+   */
+  public long getMaxQueueSize()
+  {
+    return maxQueueSize;
+  }
+
+
+  /**
+   * Gets the percentage of busy worker threads at which the server is
+   * saturated.
+   *
+   * @return The percent busy threshold, or zero if it is not set.
+   */
+  public int getMaxPercentBusy()
+  {
+    return maxPercentBusy;
+  }
+
+
+  /**
+   * Gets the longest retry delay that is reported for a saturated server.
+   *
+   * @return The longest retry delay, in seconds.
+   */
+  public int getMaxRetryAfterSeconds()
+  {
+    return maxRetryAfterSeconds;
+  }
+
+
+  /**
+   * Evaluates a work queue monitor entry against these criteria.
+   *
+   * @param entry
+   *          The work queue monitor entry.
+   * @return The server's load status.
+   */
+  LoadStatus evaluate(Entry entry)
+  {
+    UnboundIDWorkQueueMonitorEntry workQueue =
+        new UnboundIDWorkQueueMonitorEntry(entry);
+    long queueSize = valueOf(workQueue.getCurrentSize());
+    long percentBusy = valueOf(workQueue.getCurrentWorkerThreadPercentBusy());
+    Long workerThreads = workQueue.getNumWorkerThreads();
+    Long busyWorkerThreads = workQueue.getNumBusyWorkerThreads();
+    if (workQueue.getCurrentWorkerThreadPercentBusy() == null &&
+        workerThreads != null && workerThreads > 0L &&
+        busyWorkerThreads != null)
+    {
+      percentBusy = busyWorkerThreads * 100L / workerThreads;
+    }
+
+    Double drainRate = null;
+    Long averageSize = workQueue.getRecentAverageSize();
+    Long queueTimeMillis = workQueue.getRecentOperationQueueTimeMillis();
+    if (averageSize != null && averageSize > 0L &&
+        queueTimeMillis != null && queueTimeMillis > 0L)
+    {
+      drainRate = averageSize * 1000.0 / queueTimeMillis;
+    }
+
+    boolean saturated =
+        (maxQueueSize > 0L && queueSize >= maxQueueSize) ||
+            (maxPercentBusy > 0 && percentBusy >= maxPercentBusy);
+    Integer retryAfter = null;
+    if (saturated)
+    {
+      retryAfter = getRetryAfterSeconds(queueSize, drainRate);
+    }
+    return new LoadStatus(saturated, queueSize, (int) percentBusy,
+                          drainRate, retryAfter);
+  }
+
+
+  /**
+   * Gets the time needed to drain a queue, bounded by one second and the
+   * longest retry delay.
+   */
+  int getRetryAfterSeconds(long queueSize, Double drainRate)
+  {
+    if (drainRate == null)
+    {
+      return maxRetryAfterSeconds;
+    }
+    double seconds = Math.ceil(queueSize / drainRate);
+    return (int) Math.max(1.0, Math.min(maxRetryAfterSeconds, seconds));
+  }
+
+
+  private static long valueOf(Long value)
+  {
+    return value != null ? value : 0L;
+  }
+}
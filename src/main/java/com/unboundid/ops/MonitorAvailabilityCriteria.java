@@ -11,8 +11,7 @@ import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
 import java.util.regex.Matcher;
-
-import static com.unboundid.ops.StatusServletExtension.MONITOR_ARG_RX;
+import java.util.regex.Pattern;
 
 /**
  * Represents the criteria used to determine whether or not a cn=monitor entry
@@ -20,6 +19,12 @@ import static com.unboundid.ops.StatusServletExtension.MONITOR_ARG_RX;
  */
 public class MonitorAvailabilityCriteria
 {
+  /**
+   * The pattern for a monitor availability criteria argument value.
+   */
+  public static final Pattern MONITOR_ARG_RX =
+      Pattern.compile("([\\w\\s-]+):([\\w-]+):(.+)");
+
   private String monitorEntryName;
   private DN monitorEntryDN;
   private String availabilityAttribute;
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.ResultCode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * One of the searches that {@link StatusClient} uses to determine a server's
+ * status. Each probe reads one kind of monitor entry, or one monitor entry
+ * in the case of a monitor availability probe, and can be evaluated
+ * independently of the others.
+ */
+final class Probe
+{
+  /**
+   * The kinds of probe.
+   */
+  enum Type
+  {
+    /** Reads the general monitor entry's alert types. */
+    SERVER("server"),
+
+    /** Reads the list of enabled HTTP servlets. */
+    SERVLETS("servlets"),
+
+    /** Reads a monitor entry named by a monitor availability criteria. */
+    MONITOR(null),
+
+    /** Reads the store adapter monitor entries. */
+    STORE_ADAPTERS("store-adapters"),
+
+    /** Reads the load balancing algorithm monitor entries. */
+    LOAD_BALANCING_ALGORITHMS("load-balancing-algorithms"),
+
+    /** Reads the work queue monitor entry, if load shedding is enabled. */
+    LOAD("load"),
+
+    /**
+     * Reads the replication monitor entries, if replication thresholds are
+     * configured.
+     */
+    REPLICATION("replication"),
+
+    /**
+     * Reads the database environment monitor entries, if database thresholds
+     * are configured.
+     */
+    DATABASE("database"),
+
+    /**
+     * Reads the memory usage monitor entry and samples the JVM, if JVM
+     * thresholds are configured.
+     */
+    JVM("jvm");
+
+    private final String name;
+
+
+    Type(String name)
+    {
+      this.name = name;
+    }
+
+
+    /**
+     * Gets the probe type with the provided name.
+     *
+     * @param name
+     *          A probe name.
+     * @return The probe type, or {@code null} if the name does not identify
+     *         a probe type, in which case it may be the name of a monitor
+     *         entry.
+     */
+    static Type forName(String name)
+    {
+      for (Type type : values())
+      {
+        if (type.name != null && type.name.equalsIgnoreCase(name))
+        {
+          return type;
+        }
+      }
+      return null;
+    }
+  }
+
+  static final Probe SERVER = new Probe(Type.SERVER, null);
+  static final Probe SERVLETS = new Probe(Type.SERVLETS, null);
+  static final Probe STORE_ADAPTERS = new Probe(Type.STORE_ADAPTERS, null);
+  static final Probe LOAD_BALANCING_ALGORITHMS =
+      new Probe(Type.LOAD_BALANCING_ALGORITHMS, null);
+  static final Probe LOAD = new Probe(Type.LOAD, null);
+  static final Probe REPLICATION = new Probe(Type.REPLICATION, null);
+  static final Probe DATABASE = new Probe(Type.DATABASE, null);
+  static final Probe JVM = new Probe(Type.JVM, null);
+
+  private final Type type;
+  private final MonitorAvailabilityCriteria criteria;
+
+
+  private Probe(Type type, MonitorAvailabilityCriteria criteria)
+  {
+    this.type = type;
+    this.criteria = criteria;
+  }
+
+
+  /**
+   * Creates a probe for a monitor entry.
+   *
+   * @param criteria
+   *          The monitor availability criteria.
+   * @return A monitor probe.
+   */
+  static Probe forMonitor(MonitorAvailabilityCriteria criteria)
+  {
+    return new Probe(Type.MONITOR, criteria);
+  }
+
+
+  /**
+   * Selects the probes with the provided name, which is either the name of a
+   * probe type or the name of a monitor entry.
+   *
+   * @param probes
+   *          The probes to select from.
+   * @param name
+   *          The probe name.
+   * @return The matching probes, which may be empty if the name is a probe
+   *         type that is not being evaluated.
+   * @throws LDAPException
+   *           If the name is neither a probe type nor the name of one of the
+   *           monitor entries being checked.
+   */
+  static List<Probe> select(List<Probe> probes, String name)
+      throws LDAPException
+  {
+    Type type = Type.forName(name);
+    List<Probe> selected = new ArrayList<>();
+    for (Probe probe : probes)
+    {
+      if (type != null ? probe.type == type :
+          probe.type == Type.MONITOR && probe.getName().equalsIgnoreCase(name))
+      {
+        selected.add(probe);
+      }
+    }
+    if (selected.isEmpty() && type == null)
+    {
+      throw new LDAPException(ResultCode.PARAM_ERROR, String.format(
+          "'%s' is not the name of a probe type or of a monitored monitor " +
+              "entry", name));
+    }
+    return selected;
+  }
+
+
+  /**
+   * Gets the probe type.
+   *
+   * @return The probe type.
+   */
+  Type getType()
+  {
+    return type;
+  }
+
+
+  /**
+   * Gets the monitor availability criteria for a monitor probe.
+   *
+   * @return The monitor availability criteria, or {@code null} if this is
+   *         not a monitor probe.
+   */
+  MonitorAvailabilityCriteria getCriteria()
+  {
+    return criteria;
+  }
+
+
+  /**
+   * Gets the probe's name, which is the monitor entry name for a monitor
+   * probe, or the name of the probe type otherwise.
+   *
+   * @return The probe name.
+   */
+  String getName()
+  {
+    return criteria != null ? criteria.getMonitorEntryName() : type.name;
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  public boolean equals(Object o)
+  {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    Probe that = (Probe) o;
+    return type == that.type && Objects.equals(criteria, that.criteria);
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  public int hashCode()
+  {
+    return Objects.hash(type, criteria);
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString()
+  {
+    return getName();
+  }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A circuit breaker for one of the probes that determine a server's status.
+ * <p>
+ * The breaker starts out closed, and every evaluation of the probe is
+ * attempted. After a number of consecutive failures, the breaker opens, and
+ * the probe's last error is reported without searching the server again.
+ * Once a backoff delay has passed, the breaker becomes half-open and allows
+ * a single trial evaluation. If the trial succeeds, the breaker closes; if it
+ * fails, the breaker opens again and the backoff delay doubles, up to a
+ * maximum.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({ "state", "consecutiveFailures", "failures",
+    "retryInMillis", "lastError" })
+public class ProbeCircuitBreaker
+{
+  /**
+   * Circuit breaker states.
+   */
+  public enum State
+  {
+    /** Every evaluation is attempted. */
+    CLOSED,
+
+    /** Evaluations are not attempted, and the last error is reported. */
+    OPEN,
+
+    /** A single trial evaluation has been allowed. */
+    HALF_OPEN;
+
+
+    /**
+     * Gets the state's name, for example 'half-open'.
+     *
+     * @return The state name.
+     */
+    public String getName()
+    {
+      return name().toLowerCase().replace('_', '-');
+    }
+  }
+
+  private final int failureThreshold;
+  private final long minBackoffMillis;
+  private final long maxBackoffMillis;
+
+  private State state = State.CLOSED;
+  private int consecutiveFailures;
+  private long failures;
+  private long backoffMillis;
+  private long retryAtMillis;
+  private Throwable lastError;
+
+
+  /**
+   * Constructs a closed circuit breaker.
+   *
+   * @param failureThreshold
+   *          The number of consecutive failures after which the breaker
+   *          opens.
+   * @param minBackoffMillis
+   *          The delay before the first trial evaluation after the breaker
+   *          opens, in milliseconds.
+   * @param maxBackoffMillis
+   *          The longest delay between trial evaluations, in milliseconds.
+   */
+  public ProbeCircuitBreaker(int failureThreshold, long minBackoffMillis,
+                             long maxBackoffMillis)
+  {
+    this.failureThreshold = failureThreshold;
+    this.minBackoffMillis = minBackoffMillis;
+    this.maxBackoffMillis = Math.max(minBackoffMillis, maxBackoffMillis);
+    this.backoffMillis = minBackoffMillis;
+  }
+
+
+  /**
+   * Indicates whether the probe should be evaluated now. If the breaker is
+   * open and its backoff delay has passed, then it becomes half-open, and
+   * this evaluation is the trial.
+   *
+   * @return {@code true} if the probe should be evaluated, or {@code false}
+   *         if its last error should be reported instead.
+   */
+  public synchronized boolean allowAttempt()
+  {
+    switch (state)
+    {
+      case CLOSED:
+        return true;
+      case OPEN:
+        if (currentTimeMillis() >= retryAtMillis)
+        {
+          state = State.HALF_OPEN;
+          return true;
+        }
+        return false;
+      default:
+        // A trial evaluation is already in progress.
+        return false;
+    }
+  }
+
+
+  /**
+   * Records a successful evaluation, which closes the breaker.
+   */
+  public synchronized void recordSuccess()
+  {
+    state = State.CLOSED;
+    consecutiveFailures = 0;
+    backoffMillis = minBackoffMillis;
+    lastError = null;
+  }
+
+
+  /**
+   * Records a failed evaluation. This opens the breaker if the failure
+   * threshold is reached or if the failed evaluation was a trial.
+   *
+   * @param error
+   *          The cause of the failure.
+   */
+  public synchronized void recordFailure(Throwable error)
+  {
+    lastError = error;
+    consecutiveFailures++;
+    failures++;
+    if (state == State.HALF_OPEN)
+    {
+      backoffMillis = Math.min(maxBackoffMillis, backoffMillis * 2);
+      open();
+    }
+    else if (state == State.CLOSED && consecutiveFailures >= failureThreshold)
+    {
+      backoffMillis = minBackoffMillis;
+      open();
+    }
+  }
+
+
+  private void open()
+  {
+    state = State.OPEN;
+    retryAtMillis = currentTimeMillis() + backoffMillis;
+  }
+
+
+  /**
+   * Gets the breaker's state.
+   *
+   * @return The breaker state.
+   */
+  @JsonIgnore
+  public synchronized State getState()
+  {
+    return state;
+  }
+
+
+  /**
+   * Gets the name of the breaker's state.
+   *
+   * @return The breaker state name.
+   */
+  @JsonProperty("state")
+  public synchronized String getStateName()
+  {
+    return state.getName();
+  }
+
+
+  /**
+   * Gets the number of consecutive failed evaluations.
+   *
+   * @return The number of consecutive failures.
+   */
+  @JsonProperty("consecutiveFailures")
+  public synchronized int getConsecutiveFailures()
+  {
+    return consecutiveFailures;
+  }
+
+
+  /**
+   * Gets the total number of failed evaluations.
+   *
+   * @return The number of failures.
+   */
+  @JsonProperty("failures")
+  public synchronized long getFailures()
+  {
+    return failures;
+  }
+
+
+  /**
+   * Gets the length of time until the next trial evaluation, if the breaker
+   * is open.
+   *
+   * @return The time until the next trial evaluation in milliseconds, or
+   *         {@code null} if the breaker is not open.
+   */
+  @JsonProperty("retryInMillis")
+  public synchronized Long getRetryInMillis()
+  {
+    if (state != State.OPEN)
+    {
+      return null;
+    }
+    return Math.max(0L, retryAtMillis - currentTimeMillis());
+  }
+
+
+  /**
+   * Gets the cause of the most recent failure, if the last evaluation failed.
+   *
+   * @return The last error, or {@code null} if the last evaluation succeeded.
+   */
+  @JsonIgnore
+  public synchronized Throwable getLastError()
+  {
+    return lastError;
+  }
+
+
+  /**
+   * Gets the message of the most recent failure.
+   *
+   * @return The last error message, or {@code null} if the last evaluation
+   *         succeeded.
+   */
+  @JsonProperty("lastError")
+  public synchronized String getLastErrorMessage()
+  {
+    return lastError != null ? lastError.getMessage() : null;
+  }
+
+
+  private static long currentTimeMillis()
+  {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.util.args.ArgumentException;
+import com.unboundid.util.args.DurationArgument;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The refresh interval for one of the probes that determine a server's
+ * status when the status is evaluated in the background. A probe is named
+ * either by its type, which is one of 'server', 'servlets', 'store-adapters',
+ * 'load-balancing-algorithms', 'load', 'replication', 'database', or 'jvm',
+ * or by the name of a monitor entry that is checked for availability.
+ */
+public class ProbeInterval
+{
+  /**
+   * The pattern for a probe interval argument value.
+   */
+  public static final Pattern PROBE_INTERVAL_ARG_RX =
+      Pattern.compile("(.+):([^:]+)");
+
+  private String probeName;
+  private long intervalMillis;
+
+
+  /**
+   * Creates a probe interval instance.
+   *
+   * @param arg
+   *          A probe interval argument value. This should be a probe name and
+   *          a duration, separated by a colon. For example,
+   *          'load-balancing-algorithms:1s'.
+   * @return A new probe interval instance.
+   * @throws LDAPException if the duration cannot be parsed.
+   */
+  public static ProbeInterval create(String arg) throws LDAPException
+  {
+    Matcher matcher = PROBE_INTERVAL_ARG_RX.matcher(arg);
+    if (matcher.matches())
+    {
+      ProbeInterval probeInterval = new ProbeInterval();
+      probeInterval.probeName = matcher.group(1).trim();
+      try
+      {
+        probeInterval.intervalMillis = DurationArgument.parseDuration(
+            matcher.group(2).trim(), TimeUnit.MILLISECONDS);
+      }
+      catch (ArgumentException e)
+      {
+        throw new LDAPException(ResultCode.PARAM_ERROR, e.getMessage(), e);
+      }
+      if (probeInterval.intervalMillis <= 0L)
+      {
+        throw new LDAPException(ResultCode.PARAM_ERROR, String.format(
+            "The refresh interval for probe '%s' must be greater than zero",
+            probeInterval.probeName));
+      }
+      return probeInterval;
+    }
+    // This shouldn't occur, because the argument value will have been
+    // validated already by the ArgumentParser.
+    throw new IllegalArgumentException(String.format(
+        "Argument does not match regex '%s", PROBE_INTERVAL_ARG_RX));
+  }
+
+
+  /**
+   * Gets the probe name.
+   *
+   * @return The probe name.
+   */
+  public String getProbeName()
+  {
+    return probeName;
+  }
+
+
+  /**
+   * Gets the longest interval between evaluations of the probe while its
+   * result is stable.
+   *
+   * @return The interval in milliseconds.
+   */
+  public long getIntervalMillis()
+  {
+    return intervalMillis;
+  }
+}
@@ -0,0 +1,483 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.unboundid.ops.models.LoadBalancingAlgorithmStatus;
+import com.unboundid.ops.models.DatabaseStatus;
+import com.unboundid.ops.models.JvmStatus;
+import com.unboundid.ops.models.LoadStatus;
+import com.unboundid.ops.models.ReplicaStatus;
+import com.unboundid.ops.models.MonitorStatus;
+import com.unboundid.ops.models.ServerStatus;
+import com.unboundid.ops.models.ServletStatus;
+import com.unboundid.ops.models.Status;
+import com.unboundid.ops.models.StatusError;
+import com.unboundid.ops.models.StoreAdapterStatus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The latest result of each of a {@link StatusClient}'s probes, from which a
+ * {@link Status} is assembled. Probes may be evaluated together or one at a
+ * time, and each new result replaces that probe's previous result.
+ * <p>
+ * A probe's result is considered stable if it is available and is the same as
+ * its previous result. If a probe cannot be evaluated, then its previous
+ * result is discarded and an error is reported in its place, while the other
+ * probes' results are still reported. Instances are thread-safe.
+ */
+class ProbeResults
+{
+  private final List<Probe> probes;
+  private final Set<Probe> optionalProbes;
+  private final Map<Probe, ProbeCircuitBreaker> circuitBreakers;
+  private final Map<Probe, MonitorStatus> monitorStatuses =
+      new LinkedHashMap<>();
+  private final Map<Probe, Throwable> errors = new LinkedHashMap<>();
+  private final Set<Probe> stableProbes = new HashSet<>();
+
+  private ServerStatus serverStatus;
+  private List<ServletStatus> servletStatuses =
+      Collections.emptyList();
+  private List<StoreAdapterStatus> storeAdapterStatuses =
+      Collections.emptyList();
+  private List<LoadBalancingAlgorithmStatus> lbaStatuses =
+      Collections.emptyList();
+  private LoadStatus loadStatus;
+  private List<ReplicaStatus> replicaStatuses;
+  private List<DatabaseStatus> databaseStatuses;
+  private JvmStatus jvmStatus;
+
+
+  /**
+   * Constructs an empty set of results.
+   *
+   * @param probes
+   *          The probes whose results will be recorded.
+   * @param optionalProbes
+   *          The probes whose errors do not affect availability.
+   * @param circuitBreakers
+   *          The probes' circuit breakers, whose states are reported with
+   *          the probes' errors.
+   */
+  ProbeResults(List<Probe> probes, Set<Probe> optionalProbes,
+               Map<Probe, ProbeCircuitBreaker> circuitBreakers)
+  {
+    this.probes = probes;
+    this.optionalProbes = optionalProbes;
+    this.circuitBreakers = circuitBreakers;
+    for (Probe probe : probes)
+    {
+      if (probe.getType() == Probe.Type.MONITOR)
+      {
+        monitorStatuses.put(probe, null);
+      }
+    }
+  }
+
+
+  /**
+   * Gets the probes whose results are recorded.
+   *
+   * @return The probes.
+   */
+  List<Probe> getProbes()
+  {
+    return probes;
+  }
+
+
+  /**
+   * Records the result of the server probe.
+   */
+  synchronized void setServerStatus(ServerStatus serverStatus)
+  {
+    update(Probe.SERVER,
+           serverStatus.equals(this.serverStatus) &&
+               serverStatus.isAvailable());
+    this.serverStatus = reuse(this.serverStatus, serverStatus);
+  }
+
+
+  /**
+   * Records the result of the servlets probe.
+   */
+  synchronized void setServletStatuses(List<ServletStatus> servletStatuses)
+  {
+    boolean available = true;
+    for (ServletStatus servletStatus : servletStatuses)
+    {
+      available &= servletStatus.isEnabled();
+    }
+    update(Probe.SERVLETS,
+           servletStatuses.equals(this.servletStatuses) && available);
+    this.servletStatuses = reuse(this.servletStatuses, servletStatuses);
+  }
+
+
+  /**
+   * Records the result of a monitor probe.
+   */
+  synchronized void setMonitorStatus(Probe probe, MonitorStatus monitorStatus)
+  {
+    // A monitor's properties may change with every evaluation, so only its
+    // availability determines whether it is stable.
+    MonitorStatus previous = monitorStatuses.get(probe);
+    update(probe,
+           previous != null && previous.isAvailable() &&
+               monitorStatus.isAvailable());
+    monitorStatuses.put(probe, reuse(previous, monitorStatus));
+  }
+
+
+  /**
+   * Records the result of the store adapters probe.
+   */
+  synchronized void setStoreAdapterStatuses(
+      List<StoreAdapterStatus> storeAdapterStatuses)
+  {
+    boolean available = true;
+    for (StoreAdapterStatus storeAdapterStatus : storeAdapterStatuses)
+    {
+      available &= storeAdapterStatus.isAvailable();
+    }
+    update(Probe.STORE_ADAPTERS,
+           storeAdapterStatuses.equals(this.storeAdapterStatuses) &&
+               available);
+    this.storeAdapterStatuses =
+        reuse(this.storeAdapterStatuses, storeAdapterStatuses);
+  }
+
+
+  /**
+   * Records the result of the load balancing algorithms probe.
+   */
+  synchronized void setLoadBalancingAlgorithmStatuses(
+      List<LoadBalancingAlgorithmStatus> lbaStatuses)
+  {
+    boolean available = true;
+    for (LoadBalancingAlgorithmStatus lbaStatus : lbaStatuses)
+    {
+      available &= lbaStatus.isAvailable();
+    }
+    update(Probe.LOAD_BALANCING_ALGORITHMS,
+           lbaStatuses.equals(this.lbaStatuses) && available);
+    this.lbaStatuses = reuse(this.lbaStatuses, lbaStatuses);
+  }
+
+
+  /**
+   * Records the result of the load probe. A saturated result is never
+   * stable, so that the load is evaluated often while the server is shedding
+   * load.
+   */
+  synchronized void setLoadStatus(LoadStatus loadStatus)
+  {
+    update(Probe.LOAD,
+           !loadStatus.isSaturated() &&
+               this.loadStatus != null && !this.loadStatus.isSaturated());
+    this.loadStatus = reuse(this.loadStatus, loadStatus);
+  }
+
+
+  /**
+   * Records the result of the replication probe. A result in which a replica
+   * is degraded or unavailable is never stable, so that a lagging replica is
+   * evaluated often until it catches up.
+   */
+  synchronized void setReplicaStatuses(List<ReplicaStatus> replicaStatuses)
+  {
+    boolean healthy = true;
+    for (ReplicaStatus replicaStatus : replicaStatuses)
+    {
+      healthy &= replicaStatus.isAvailable() && !replicaStatus.isDegraded();
+    }
+    update(Probe.REPLICATION,
+           healthy && replicaStatuses.equals(this.replicaStatuses));
+    this.replicaStatuses = reuse(this.replicaStatuses, replicaStatuses);
+  }
+
+
+  /**
+   * Records the result of the database probe. The cache hit percentage
+   * changes with every evaluation, so a result is stable if it and the
+   * result before it are both within the database thresholds.
+   */
+  synchronized void setDatabaseStatuses(List<DatabaseStatus> databaseStatuses)
+  {
+    update(Probe.DATABASE,
+           isAvailable(databaseStatuses) &&
+               this.databaseStatuses != null &&
+               isAvailable(this.databaseStatuses));
+    this.databaseStatuses = reuse(this.databaseStatuses, databaseStatuses);
+  }
+
+
+  /**
+   * Records the result of the JVM probe. As with the load probe, a degraded
+   * result is never stable.
+   */
+  synchronized void setJvmStatus(JvmStatus jvmStatus)
+  {
+    update(Probe.JVM,
+           !jvmStatus.isDegraded() &&
+               this.jvmStatus != null && !this.jvmStatus.isDegraded());
+    this.jvmStatus = reuse(this.jvmStatus, jvmStatus);
+  }
+
+
+  /**
+   * Returns a probe's previous result if it is the same as its new result,
+   * so that an unchanged result is not retained twice and can be recognized
+   * by identity.
+   */
+  private static <T> T reuse(T previous, T current)
+  {
+    return current.equals(previous) ? previous : current;
+  }
+
+
+  /**
+   * Returns a probe's previous list of results if it is the same as its new
+   * list. Otherwise, each result in the new list that is the same as one in
+   * the previous list is replaced with the previous instance.
+   */
+  private static <T> List<T> reuse(List<T> previous, List<T> current)
+  {
+    if (current.equals(previous))
+    {
+      return previous;
+    }
+    if (previous == null || previous.isEmpty())
+    {
+      return current;
+    }
+    Map<T, T> previousResults = new HashMap<>();
+    for (T result : previous)
+    {
+      previousResults.put(result, result);
+    }
+    List<T> results = new ArrayList<>(current.size());
+    for (T result : current)
+    {
+      T previousResult = previousResults.get(result);
+      results.add(previousResult != null ? previousResult : result);
+    }
+    return results;
+  }
+
+
+  private static boolean isAvailable(List<DatabaseStatus> databaseStatuses)
+  {
+    for (DatabaseStatus databaseStatus : databaseStatuses)
+    {
+      if (!databaseStatus.isAvailable())
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+
+  /**
+   * Records that a probe could not be evaluated. The probe's previous result,
+   * if any, is discarded, and the error is reported until the probe is
+   * evaluated successfully.
+   *
+   * @param probe
+   *          The probe.
+   * @param error
+   *          The cause of the error.
+   */
+  synchronized void setError(Probe probe, Throwable error)
+  {
+    stableProbes.remove(probe);
+    errors.put(probe, error);
+    switch (probe.getType())
+    {
+      case SERVER:
+        serverStatus = null;
+        break;
+      case SERVLETS:
+        servletStatuses = Collections.emptyList();
+        break;
+      case MONITOR:
+        monitorStatuses.put(probe, null);
+        break;
+      case STORE_ADAPTERS:
+        storeAdapterStatuses = Collections.emptyList();
+        break;
+      case LOAD:
+        loadStatus = null;
+        break;
+      case REPLICATION:
+        replicaStatuses = null;
+        break;
+      case DATABASE:
+        databaseStatuses = null;
+        break;
+      case JVM:
+        jvmStatus = null;
+        break;
+      default:
+        lbaStatuses = Collections.emptyList();
+        break;
+    }
+  }
+
+
+  /**
+   * Indicates whether a probe's most recent result was available and the same
+   * as the result before it.
+   *
+   * @param probe
+   *          The probe.
+   * @return {@code true} if the probe's result is stable.
+   */
+  synchronized boolean isStable(Probe probe)
+  {
+    return stableProbes.contains(probe);
+  }
+
+
+  /**
+   * Assembles a status from the latest result of each probe, along with an
+   * error for each probe whose latest evaluation failed. If the server probe
+   * failed, then the server status is unknown.
+   *
+   * @return A status instance.
+   */
+  Status toStatus()
+  {
+    return toStatus(StatusSection.ALL);
+  }
+
+
+  /**
+   * Assembles a status from the latest result of each probe in a set of
+   * sections, along with an error for each of those probes whose latest
+   * evaluation failed.
+   *
+   * @param sections
+   *          The sections to report.
+   * @return A status instance.
+   */
+  Status toStatus(Set<StatusSection> sections)
+  {
+    return toStatus(StatusProfile.forSections(sections));
+  }
+
+
+  /**
+   * Assembles a status from the latest result of each probe that a profile
+   * includes, along with an error for each of those probes whose latest
+   * evaluation failed. The server status is omitted if the profile does not
+   * include the server section or the server probe is not among these
+   * results' probes.
+   *
+   * @param profile
+   *          The profile to report.
+   * @return A status instance.
+   */
+  synchronized Status toStatus(StatusProfile profile)
+  {
+    List<StatusError> statusErrors = new ArrayList<>();
+    for (Probe probe : probes)
+    {
+      Throwable error = errors.get(probe);
+      if (error != null && profile.includes(probe))
+      {
+        ProbeCircuitBreaker circuitBreaker = circuitBreakers.get(probe);
+        statusErrors.add(new StatusError(
+            probe.getName(), error, !optionalProbes.contains(probe),
+            circuitBreaker != null ? circuitBreaker.getStateName() : null));
+      }
+    }
+    List<ServletStatus> servlets = new ArrayList<>();
+    if (profile.includes(Probe.SERVLETS))
+    {
+      for (ServletStatus servletStatus : servletStatuses)
+      {
+        if (profile.includesServlet(servletStatus.getName()))
+        {
+          servlets.add(servletStatus);
+        }
+      }
+    }
+    List<MonitorStatus> monitors = new ArrayList<>();
+    for (Map.Entry<Probe, MonitorStatus> entry : monitorStatuses.entrySet())
+    {
+      if (entry.getValue() != null && profile.includes(entry.getKey()))
+      {
+        monitors.add(entry.getValue());
+      }
+    }
+    ServerStatus server = null;
+    if (profile.includes(Probe.SERVER) && probes.contains(Probe.SERVER))
+    {
+      server = serverStatus != null ? serverStatus : ServerStatus.UNKNOWN;
+    }
+    Status status = Status.create(
+        server,
+        servlets,
+        monitors,
+        profile.includes(Probe.STORE_ADAPTERS) ?
+            storeAdapterStatuses :
+            Collections.<StoreAdapterStatus>emptyList(),
+        profile.includes(Probe.LOAD_BALANCING_ALGORITHMS) ?
+            lbaStatuses : Collections.<LoadBalancingAlgorithmStatus>emptyList(),
+        statusErrors);
+    if (profile.includes(Probe.LOAD))
+    {
+      status.setLoadStatus(loadStatus);
+    }
+    if (profile.includes(Probe.REPLICATION))
+    {
+      status.setReplicaStatuses(replicaStatuses);
+    }
+    if (profile.includes(Probe.DATABASE))
+    {
+      status.setDatabaseStatuses(databaseStatuses);
+    }
+    if (profile.includes(Probe.JVM))
+    {
+      status.setJvmStatus(jvmStatus);
+    }
+    return status;
+  }
+
+
+  private void update(Probe probe, boolean stable)
+  {
+    errors.remove(probe);
+    if (stable)
+    {
+      stableProbes.add(probe);
+    }
+    else
+    {
+      stableProbes.remove(probe);
+    }
+  }
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.unboundid.ldap.sdk.BindRequest;
+import com.unboundid.ldap.sdk.GetEntryLDAPConnectionPoolHealthCheck;
+import com.unboundid.ldap.sdk.LDAPConnectionOptions;
+import com.unboundid.ldap.sdk.LDAPConnectionPool;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ldap.sdk.SimpleBindRequest;
+import com.unboundid.ldap.sdk.SingleServerSet;
+import com.unboundid.util.ssl.HostNameSSLSocketVerifier;
+import com.unboundid.util.ssl.SSLUtil;
+import com.unboundid.util.ssl.TrustAllTrustManager;
+
+import javax.net.SocketFactory;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Describes a remote LDAP server whose cn=monitor backend will be read by a
+ * {@link StatusClient}, along with the settings for the connection pool that
+ * is used to reach it. Connections are established once and reused, so
+ * repeated status evaluations do not pay the cost of connecting, negotiating
+ * TLS, and binding each time.
+ */
+public class RemoteServerConfig
+{
+  /**
+   * The pattern for a 'host:port' server address.
+   */
+  public static final Pattern SERVER_ADDRESS_RX =
+      Pattern.compile("(.+):(\\d{1,5})");
+
+  private String host;
+  private int port;
+  private boolean useSSL = false;
+  private boolean trustAll = false;
+  private String bindDN;
+  private String bindPassword;
+  private int initialConnections = 1;
+  private int maxConnections = 4;
+  private long maxConnectionAgeMillis = TimeUnit.MINUTES.toMillis(30);
+  private long healthCheckIntervalMillis = TimeUnit.SECONDS.toMillis(60);
+  private long connectTimeoutMillis = TimeUnit.SECONDS.toMillis(10);
+  private long responseTimeoutMillis = TimeUnit.SECONDS.toMillis(10);
+
+
+  /**
+   * Constructs a remote server configuration.
+   *
+   * @param host
+   *          The remote server's host name or IP address.
+   * @param port
+   *          The remote server's LDAP or LDAPS port.
+   */
+  public RemoteServerConfig(String host, int port)
+  {
+    this.host = host;
+    this.port = port;
+  }
+
+
+  /**
+   * Creates a remote server configuration from a server address.
+   *
+   * @param address
+   *          A server address in the form 'host:port'.
+   * @return A new remote server configuration.
+   */
+  public static RemoteServerConfig create(String address)
+  {
+    Matcher matcher = SERVER_ADDRESS_RX.matcher(address);
+    if (matcher.matches())
+    {
+      return new RemoteServerConfig(matcher.group(1),
+                                    Integer.parseInt(matcher.group(2)));
+    }
+    throw new IllegalArgumentException(String.format(
+        "Server address '%s' does not match regex '%s'",
+        address, SERVER_ADDRESS_RX));
+  }
+
+
+  /**
+   * Gets the remote server's host name or IP address.
+   *
+   * @return The remote server's host.
+   */
+  public String getHost()
+  {
+    return host;
+  }
+
+
+  /**
+   * Gets the remote server's port.
+   *
+   * @return The remote server's port.
+   */
+  public int getPort()
+  {
+    return port;
+  }
+
+
+  /**
+   * Sets whether connections should be secured using SSL/TLS.
+   *
+   * @param useSSL
+   *          True if SSL/TLS should be used.
+   * @return This instance.
+   */
+  public RemoteServerConfig setUseSSL(boolean useSSL)
+  {
+    this.useSSL = useSSL;
+    return this;
+  }
+
+
+  /**
+   * Sets whether any server certificate should be trusted. This is only
+   * appropriate for a server on the same host or in the same container
+   * network. Otherwise, the JVM's default trust store is used.
+   *
+   * @param trustAll
+   *          True if any server certificate should be trusted.
+   * @return This instance.
+   */
+  public RemoteServerConfig setTrustAll(boolean trustAll)
+  {
+    this.trustAll = trustAll;
+    return this;
+  }
+
+
+  /**
+   * Sets the credentials used to bind each pooled connection. If no bind DN
+   * is provided, connections are unauthenticated.
+   *
+   * @param bindDN
+   *          The bind DN, or {@code null} for anonymous connections.
+   * @param bindPassword
+   *          The bind password.
+   * @return This instance.
+   */
+  public RemoteServerConfig setCredentials(String bindDN, String bindPassword)
+  {
+    this.bindDN = bindDN;
+    this.bindPassword = bindPassword;
+    return this;
+  }
+
+
+  /**
+   * Sets the number of connections to establish when the pool is created, and
+   * the maximum number of connections that the pool will hold.
+   *
+   * @param initialConnections
+   *          The number of connections to establish initially.
+   * @param maxConnections
+   *          The maximum number of pooled connections.
+   * @return This instance.
+   */
+  public RemoteServerConfig setPoolSize(int initialConnections,
+                                        int maxConnections)
+  {
+    this.initialConnections = Math.min(initialConnections, maxConnections);
+    this.maxConnections = maxConnections;
+    return this;
+  }
+
+
+  /**
+   * Sets the maximum length of time that a pooled connection may be used
+   * before it is closed and replaced. Recycling connections spreads them
+   * across servers behind a load balancer and limits the effect of any
+   * connection-level leaks. A value of zero disables recycling.
+   *
+   * @param maxConnectionAgeMillis
+   *          The maximum connection age in milliseconds.
+   * @return This instance.
+   */
+  public RemoteServerConfig setMaxConnectionAgeMillis(
+      long maxConnectionAgeMillis)
+  {
+    this.maxConnectionAgeMillis = maxConnectionAgeMillis;
+    return this;
+  }
+
+
+  /**
+   * Sets the interval at which idle pooled connections are health checked.
+   *
+   * @param healthCheckIntervalMillis
+   *          The health check interval in milliseconds.
+   * @return This instance.
+   */
+  public RemoteServerConfig setHealthCheckIntervalMillis(
+      long healthCheckIntervalMillis)
+  {
+    this.healthCheckIntervalMillis = healthCheckIntervalMillis;
+    return this;
+  }
+
+
+  /**
+   * Sets the connect and response timeouts for pooled connections.
+   *
+   * @param connectTimeoutMillis
+   *          The connect timeout in milliseconds.
+   * @param responseTimeoutMillis
+   *          The response timeout in milliseconds.
+   * @return This instance.
+   */
+  public RemoteServerConfig setTimeoutMillis(long connectTimeoutMillis,
+                                             long responseTimeoutMillis)
+  {
+    this.connectTimeoutMillis = connectTimeoutMillis;
+    this.responseTimeoutMillis = responseTimeoutMillis;
+    return this;
+  }
+
+
+  /**
+   * Creates a health-checked connection pool for the remote server. Pooled
+   * connections operate in asynchronous mode, which allows a
+   * {@link StatusClient} to pipeline its monitor searches over a single
+   * connection.
+   * <p>
+   * The pool is created even if the remote server cannot be reached, so that
+   * a status endpoint can start, and report the server as unavailable, while
+   * the server is down. Connections are established when they are needed.
+   *
+   * @return A new connection pool. The caller is responsible for closing it.
+   * @throws LDAPException
+   *           If the SSL socket factory cannot be created.
+   */
+  public LDAPConnectionPool createConnectionPool() throws LDAPException
+  {
+    LDAPConnectionOptions options = new LDAPConnectionOptions();
+    options.setConnectTimeoutMillis((int) connectTimeoutMillis);
+    options.setResponseTimeoutMillis(responseTimeoutMillis);
+    options.setUseSynchronousMode(false);
+    if (useSSL && !trustAll)
+    {
+      options.setSSLSocketVerifier(new HostNameSSLSocketVerifier(true));
+    }
+
+    BindRequest bindRequest = null;
+    if (bindDN != null)
+    {
+      bindRequest = new SimpleBindRequest(bindDN, bindPassword);
+    }
+
+    LDAPConnectionPool pool = new LDAPConnectionPool(
+        new SingleServerSet(host, port, createSocketFactory(), options),
+        bindRequest, initialConnections, maxConnections, null, false);
+    pool.setConnectionPoolName(
+        String.format("status-servlet %s:%d", host, port));
+    pool.setCreateIfNecessary(true);
+    pool.setMaxWaitTimeMillis(responseTimeoutMillis);
+    pool.setMaxConnectionAgeMillis(maxConnectionAgeMillis);
+    pool.setRetryFailedOperationsDueToInvalidConnections(true);
+    // Check connections when they are created, periodically while they are
+    // idle, and after an operation fails, but not on every checkout; the
+    // status searches themselves exercise the connection.
+    pool.setHealthCheck(new GetEntryLDAPConnectionPoolHealthCheck(
+        "cn=monitor", responseTimeoutMillis,
+        true, false, false, true, true));
+    pool.setHealthCheckIntervalMillis(healthCheckIntervalMillis);
+    return pool;
+  }
+
+
+  private SocketFactory createSocketFactory() throws LDAPException
+  {
+    if (!useSSL)
+    {
+      return null;
+    }
+    try
+    {
+      SSLUtil sslUtil = trustAll ?
+          new SSLUtil(new TrustAllTrustManager()) : new SSLUtil();
+      return sslUtil.createSSLSocketFactory();
+    }
+    catch (GeneralSecurityException e)
+    {
+      throw new LDAPException(ResultCode.LOCAL_ERROR, String.format(
+          "Unable to create an SSL socket factory: %s", e.getMessage()), e);
+    }
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString()
+  {
+    return String.format("%s:%d", host, port);
+  }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ldap.sdk.unboundidds.monitors.ReplicaMonitorEntry;
+import com.unboundid.ldap.sdk.unboundidds.monitors.ReplicationSummaryMonitorEntry;
+import com.unboundid.ldap.sdk.unboundidds.monitors.ReplicationSummaryReplica;
+import com.unboundid.ops.models.ReplicaStatus;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The replication backlog thresholds at which a server's replicas are
+ * considered degraded or unavailable. A replica's backlog is the number of
+ * changes made elsewhere in the topology that it has not yet replayed, and
+ * its age is the age of the oldest of those changes. A degraded replica
+ * makes the server degraded, so that load balancers send it less traffic,
+ * and an unavailable replica makes the server unavailable, so that reads are
+ * not routed to a server that is serving stale data.
+ * <p>
+ * Backlogs are read from the replication server summary monitor entries.
+ * Only this server's own replicas, identified by its replica monitor
+ * entries, are checked against the thresholds.
+ */
+public class ReplicationCriteria
+{
+  /** The object class of the replica monitor entries. */
+  static final String REPLICA_MONITOR_OC = "ds-replica-monitor-entry";
+
+  /** The object class of the replication server summary monitor entries. */
+  static final String REPLICATION_SUMMARY_MONITOR_OC =
+      "ds-replication-server-summary-monitor-entry";
+
+  private long degradedBacklog;
+  private long degradedAgeMillis;
+  private long unavailableBacklog;
+  private long unavailableAgeMillis;
+
+
+  /**
+   * Creates replication criteria. A threshold of zero is not checked, but at
+   * least one threshold must be set.
+   *
+   * @param degradedBacklog
+   *          The backlog at which a replica is degraded.
+   * @param degradedAgeMillis
+   *          The backlog age, in milliseconds, at which a replica is degraded.
+   * @param unavailableBacklog
+   *          The backlog at which a replica is unavailable.
+   * @param unavailableAgeMillis
+   *          The backlog age, in milliseconds, at which a replica is
+   *          unavailable.
+   * @return A new replication criteria instance.
+   * @throws LDAPException
+   *           If no threshold is set, or if a threshold is negative.
+   */
+  public static ReplicationCriteria create(long degradedBacklog,
+                                           long degradedAgeMillis,
+                                           long unavailableBacklog,
+                                           long unavailableAgeMillis)
+      throws LDAPException
+  {
+    if (degradedBacklog < 0L || degradedAgeMillis < 0L ||
+        unavailableBacklog < 0L || unavailableAgeMillis < 0L)
+    {
+      throw new LDAPException(ResultCode.PARAM_ERROR,
+          "Replication thresholds must not be negative");
+    }
+    if (degradedBacklog == 0L && degradedAgeMillis == 0L &&
+        unavailableBacklog == 0L && unavailableAgeMillis == 0L)
+    {
+      throw new LDAPException(ResultCode.PARAM_ERROR,
+          "Replication checks require a backlog or a backlog age threshold");
+    }
+    ReplicationCriteria criteria = new ReplicationCriteria();
+    criteria.degradedBacklog = degradedBacklog;
+    criteria.degradedAgeMillis = degradedAgeMillis;
+    criteria.unavailableBacklog = unavailableBacklog;
+    criteria.unavailableAgeMillis = unavailableAgeMillis;
+    return criteria;
+  }
+
+
+  /**
+   * Gets the backlog at which a replica is degraded.
+   *
+   * @return The backlog threshold, or zero if it is not set.
+   */
+  public long getDegradedBacklog()
+  {
+    return degradedBacklog;
+  }
+
+
+  /**
+   * Gets the backlog age at which a replica is degraded.
+   *
+   * @return The backlog age threshold in milliseconds, or zero if it is not
+   *         set.
+   */
+  public long getDegradedAgeMillis()
+  {
+    return degradedAgeMillis;
+  }
+
+
+  /**
+   * Gets the backlog at which a replica is unavailable.
+   *
+   * @return The backlog threshold, or zero if it is not set.
+   */
+  public long getUnavailableBacklog()
+  {
+    return unavailableBacklog;
+  }
+
+
+  /**
+   * Gets the backlog age at which a replica is unavailable.
+   *
+   * @return The backlog age threshold in milliseconds, or zero if it is not
+   *         set.
+   */
+  public long getUnavailableAgeMillis()
+  {
+    return unavailableAgeMillis;
+  }
+
+
+  /**
+   * Evaluates replica and replication server summary monitor entries against
+   * these criteria. A server that is not replicated has no such entries, and
+   * has no replica statuses.
+   *
+   * @param entries
+   *          The replica and replication server summary monitor entries.
+   * @param now
+   *          The current time, from which backlog ages are calculated.
+   * @return A status for each replica in the replication summaries.
+   */
+  List<ReplicaStatus> evaluate(List<? extends Entry> entries, long now)
+  {
+    Set<String> localReplicas = new HashSet<>();
+    for (Entry entry : entries)
+    {
+      if (entry.hasObjectClass(REPLICA_MONITOR_OC))
+      {
+        ReplicaMonitorEntry replica = new ReplicaMonitorEntry(entry);
+        localReplicas.add(replicaKey(replica.getBaseDN(),
+                                     replica.getReplicaID()));
+      }
+    }
+
+    List<ReplicaStatus> replicaStatuses = new ArrayList<>();
+    for (Entry entry : entries)
+    {
+      if (!entry.hasObjectClass(REPLICATION_SUMMARY_MONITOR_OC))
+      {
+        continue;
+      }
+      ReplicationSummaryMonitorEntry summary =
+          new ReplicationSummaryMonitorEntry(entry);
+      for (ReplicationSummaryReplica replica : summary.getReplicas())
+      {
+        Long backlog = replica.getReplicationBacklog();
+        Date oldestChange = replica.getOldestBacklogChangeDate();
+        Long ageMillis = null;
+        if (oldestChange != null)
+        {
+          ageMillis = Math.max(0L, now - oldestChange.getTime());
+        }
+        else if (backlog != null && backlog == 0L)
+        {
+          ageMillis = 0L;
+        }
+        boolean local = localReplicas.contains(
+            replicaKey(summary.getBaseDN(), replica.getReplicaID()));
+        replicaStatuses.add(new ReplicaStatus(
+            summary.getBaseDN(),
+            replica.getReplicaID(),
+            getLdapServer(replica),
+            local,
+            local ? getState(backlog, ageMillis) : null,
+            backlog,
+            ageMillis));
+      }
+    }
+    return replicaStatuses;
+  }
+
+
+  private ReplicaStatus.State getState(Long backlog, Long ageMillis)
+  {
+    if (exceeds(backlog, unavailableBacklog) ||
+        exceeds(ageMillis, unavailableAgeMillis))
+    {
+      return ReplicaStatus.State.UNAVAILABLE;
+    }
+    if (exceeds(backlog, degradedBacklog) ||
+        exceeds(ageMillis, degradedAgeMillis))
+    {
+      return ReplicaStatus.State.DEGRADED;
+    }
+    return ReplicaStatus.State.AVAILABLE;
+  }
+
+
+  private static boolean exceeds(Long value, long threshold)
+  {
+    return threshold > 0L && value != null && value >= threshold;
+  }
+
+
+  private static String getLdapServer(ReplicationSummaryReplica replica)
+  {
+    String address = replica.getLDAPServerAddress();
+    Long port = replica.getLDAPServerPort();
+    if (address == null)
+    {
+      return null;
+    }
+    return port != null ? address + ":" + port : address;
+  }
+
+
+  private static String replicaKey(String baseDN, String replicaID)
+  {
+    return String.valueOf(baseDN).toLowerCase() + "#" + replicaID;
+  }
+}
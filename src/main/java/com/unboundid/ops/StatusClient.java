@@ -15,23 +15,42 @@
  */
 package com.unboundid.ops;
 
-import com.unboundid.ldap.sdk.DN;
+import com.unboundid.ldap.sdk.AsyncRequestID;
+import com.unboundid.ldap.sdk.AsyncSearchResultListener;
+import com.unboundid.ldap.sdk.Control;
 import com.unboundid.ldap.sdk.Filter;
+import com.unboundid.ldap.sdk.LDAPConnectionPool;
 import com.unboundid.ldap.sdk.LDAPException;
 import com.unboundid.ldap.sdk.LDAPInterface;
+import com.unboundid.ldap.sdk.LDAPRequest;
+import com.unboundid.ldap.sdk.LDAPResult;
+import com.unboundid.ldap.sdk.LDAPSearchException;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ldap.sdk.SearchRequest;
 import com.unboundid.ldap.sdk.SearchResult;
 import com.unboundid.ldap.sdk.SearchResultEntry;
+import com.unboundid.ldap.sdk.SearchResultReference;
 import com.unboundid.ldap.sdk.SearchScope;
+import com.unboundid.ops.models.JvmStatus;
+import com.unboundid.ops.models.LoadStatus;
 import com.unboundid.ops.models.MonitorStatus;
+import com.unboundid.ops.models.ReplicaStatus;
 import com.unboundid.ops.models.ServerStatus;
 import com.unboundid.ops.models.Status;
-import com.unboundid.ops.models.StatusError;
 import com.unboundid.ops.models.LoadBalancingAlgorithmStatus;
 import com.unboundid.ops.models.ServletStatus;
 import com.unboundid.ops.models.StoreAdapterStatus;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -40,9 +59,33 @@ import java.util.regex.Pattern;
  */
 public class StatusClient
 {
+  /**
+   * The default maximum length of time to wait for all pipelined searches to
+   * complete.
+   */
+  static final long DEFAULT_PIPELINE_TIMEOUT_MILLIS = 30000L;
+
+  /** The format of an enabled-servlet-and-path value. */
+  private static final Pattern SERVLET_AND_PATH_PATTERN =
+      Pattern.compile("^(.+) (http(.+))$");
+
+  /** The filter of a base search that returns a monitor entry. */
+  private static final Filter MATCH_ALL_FILTER =
+      Filter.createANDFilter(new ArrayList<Filter>());
+
   private final LDAPInterface connection;
   private final List<String> servletsToCheck;
   private final List<MonitorAvailabilityCriteria> monitorsToCheck;
+  private LoadSheddingCriteria loadSheddingCriteria;
+  private ReplicationCriteria replicationCriteria;
+  private DatabaseCriteria databaseCriteria;
+  private JvmCriteria jvmCriteria;
+  private List<String> optionalProbeNames = Collections.emptyList();
+  private int failureThreshold;
+  private long minBackoffMillis;
+  private long maxBackoffMillis;
+  private volatile ProbeSet probeSet;
+  private long pipelineTimeoutMillis = DEFAULT_PIPELINE_TIMEOUT_MILLIS;
 
 
   /**
@@ -81,41 +124,518 @@ public class StatusClient
 
 
   /**
-   * Gets the server status.
+   * Enables the load probe, which reads the work queue monitor entry and
+   * reports the server as degraded when it crosses a load shedding
+   * threshold.
+   *
+   * @param criteria
+   *          The load shedding criteria, or {@code null} to disable the load
+   *          probe.
+   * @return This status client.
+   */
+  public StatusClient setLoadShedding(LoadSheddingCriteria criteria)
+  {
+    this.loadSheddingCriteria = criteria;
+    this.probeSet = null;
+    return this;
+  }
+
+
+  /**
+   * Enables the replication probe, which reads the replication monitor
+   * entries and reports the server as degraded or unavailable when one of
+   * its replicas crosses a replication backlog threshold.
+   *
+   * @param criteria
+   *          The replication criteria, or {@code null} to disable the
+   *          replication probe.
+   * @return This status client.
+   */
+  public StatusClient setReplication(ReplicationCriteria criteria)
+  {
+    this.replicationCriteria = criteria;
+    this.probeSet = null;
+    return this;
+  }
+
+
+  /**
+   * Enables the database probe, which reads the database environment monitor
+   * entries and reports the server as degraded, with a reduced load balancer
+   * weight, when a backend crosses a database threshold.
+   *
+   * @param criteria
+   *          The database criteria, or {@code null} to disable the database
+   *          probe.
+   * @return This status client.
+   */
+  public StatusClient setDatabase(DatabaseCriteria criteria)
+  {
+    this.databaseCriteria = criteria;
+    this.probeSet = null;
+    return this;
+  }
+
+
+  /**
+   * Enables the JVM probe, which reads the memory usage monitor entry,
+   * samples this JVM if the criteria allow it, and reports the server as
+   * degraded when its garbage collection crosses a JVM threshold.
+   *
+   * @param criteria
+   *          The JVM criteria, or {@code null} to disable the JVM probe.
+   * @return This status client.
+   */
+  public StatusClient setJvm(JvmCriteria criteria)
+  {
+    this.jvmCriteria = criteria;
+    this.probeSet = null;
+    return this;
+  }
+
+
+  /**
+   * Sets the probes whose failures do not affect availability. If one of
+   * these probes cannot be evaluated, then its error is still reported, but
+   * the server can still be considered available. The server probe cannot be
+   * optional, because the server's status is unknown if it fails. A probe
+   * type that is not enabled when this is called is made optional if it is
+   * enabled later.
+   *
+   * @param probeNames
+   *          The probe names. Each is the name of a probe type, which is one
+   *          of 'servlets', 'store-adapters', 'load-balancing-algorithms',
+   *          'load', 'replication', 'database', or 'jvm', or the name of a
+   *          monitor entry that is checked for availability.
+   * @return This status client.
+   * @throws LDAPException
+   *           If a name does not identify an optional probe.
+   */
+  public StatusClient setOptionalProbes(List<String> probeNames)
+      throws LDAPException
+  {
+    for (String probeName : probeNames)
+    {
+      for (Probe probe : Probe.select(getProbes(), probeName))
+      {
+        if (probe.getType() == Probe.Type.SERVER)
+        {
+          throw new LDAPException(ResultCode.PARAM_ERROR,
+              "The server probe cannot be optional");
+        }
+      }
+    }
+    this.optionalProbeNames = new ArrayList<>(probeNames);
+    this.probeSet = null;
+    return this;
+  }
+
+
+  /**
+   * Enables a circuit breaker for each probe. After a probe fails the
+   * provided number of consecutive times, it is no longer searched, and its
+   * last error is reported instead. It is retried after a backoff delay that
+   * doubles after each failed retry. This must be called before the client
+   * is used. The probes that are enabled later also get circuit breakers.
+   *
+   * @param failureThreshold
+   *          The number of consecutive failures after which a probe's circuit
+   *          breaker opens. A value of zero or less disables the circuit
+   *          breakers.
+   * @param minBackoffMillis
+   *          The delay before a probe is first retried, in milliseconds.
+   * @param maxBackoffMillis
+   *          The longest delay between retries, in milliseconds.
+   * @return This status client.
+   * @see ProbeCircuitBreaker
+   */
+  public StatusClient setCircuitBreaker(int failureThreshold,
+                                        long minBackoffMillis,
+                                        long maxBackoffMillis)
+  {
+    this.failureThreshold = failureThreshold;
+    this.minBackoffMillis = minBackoffMillis;
+    this.maxBackoffMillis = maxBackoffMillis;
+    this.probeSet = null;
+    return this;
+  }
+
+
+  /**
+   * Sets the longest time to wait for all of the searches that are pipelined
+   * over a pooled connection to complete. A search that has not completed by
+   * then fails with a timeout, and only its own probe reports an error.
+   *
+   * @param pipelineTimeoutMillis
+   *          The pipeline timeout in milliseconds.
+   * @return This status client.
+   */
+  StatusClient setPipelineTimeoutMillis(long pipelineTimeoutMillis)
+  {
+    this.pipelineTimeoutMillis = pipelineTimeoutMillis;
+    return this;
+  }
+
+
+  /**
+   * Gets the circuit breaker for each probe, keyed by probe name.
+   *
+   * @return The circuit breakers, which is empty if circuit breakers are not
+   *         enabled.
+   */
+  public Map<String, ProbeCircuitBreaker> getCircuitBreakers()
+  {
+    Map<String, ProbeCircuitBreaker> byName = new LinkedHashMap<>();
+    for (Map.Entry<Probe, ProbeCircuitBreaker> entry :
+        getProbeSet().circuitBreakers.entrySet())
+    {
+      byName.put(entry.getKey().getName(), entry.getValue());
+    }
+    return byName;
+  }
+
+
+  /**
+   * Gets the server status. If the connection is an
+   * {@link LDAPConnectionPool}, then all of the monitor searches are
+   * pipelined over a single pooled connection rather than being sent one at a
+   * time.
+   * <p>
+   * If some of the probes fail, then the status reports the results of the
+   * remaining probes along with an error for each failed probe.
    *
    * @return A {@link Status} instance.
    */
   public Status getStatus()
   {
+    return getStatus(StatusSection.ALL);
+  }
+
+
+  /**
+   * Gets the server status, evaluating only the probes that produce a set of
+   * sections. The other sections are omitted from the status and do not
+   * affect it.
+   *
+   * @param sections
+   *          The sections to evaluate.
+   * @return A {@link Status} instance.
+   */
+  public Status getStatus(Set<StatusSection> sections)
+  {
+    return getStatus(StatusProfile.forSections(sections));
+  }
+
+
+  /**
+   * Gets the server status as reported by a profile, evaluating only the
+   * probes that the profile includes.
+   *
+   * @param profile
+   *          The profile to evaluate.
+   * @return A {@link Status} instance.
+   */
+  public Status getStatus(StatusProfile profile)
+  {
+    ProbeSet probeSet = getProbeSet();
+    List<Probe> probes = new ArrayList<>();
+    for (Probe probe : probeSet.probes)
+    {
+      if (profile.includes(probe))
+      {
+        probes.add(probe);
+      }
+    }
+    ProbeResults results = new ProbeResults(
+        probes, probeSet.optionalProbes, probeSet.circuitBreakers);
+    evaluate(probes, results, false);
+    return results.toStatus(profile);
+  }
+
+
+  /**
+   * Creates an empty set of results for this client's probes.
+   *
+   * @return The probe results.
+   */
+  ProbeResults createProbeResults()
+  {
+    ProbeSet probeSet = getProbeSet();
+    return new ProbeResults(
+        probeSet.probes, probeSet.optionalProbes, probeSet.circuitBreakers);
+  }
+
+
+  /**
+   * Gets the probes that determine the server status, in the order in which
+   * their results are reported. The list is built once and is shared by each
+   * evaluation.
+   *
+   * @return The probes.
+   */
+  List<Probe> getProbes()
+  {
+    return getProbeSet().probes;
+  }
+
+
+  /**
+   * Gets the probes, and the optional probes and circuit breakers among them.
+   * They are built from this client's settings when they are first needed,
+   * so that the settings may be made in any order.
+   */
+  private ProbeSet getProbeSet()
+  {
+    ProbeSet result = probeSet;
+    if (result == null)
+    {
+      result = createProbeSet();
+      probeSet = result;
+    }
+    return result;
+  }
+
+
+  private ProbeSet createProbeSet()
+  {
+    List<Probe> probes = createProbes();
+    Set<Probe> optionalProbes = new HashSet<>();
+    for (String probeName : optionalProbeNames)
+    {
+      try
+      {
+        optionalProbes.addAll(Probe.select(probes, probeName));
+      }
+      catch (LDAPException e)
+      {
+        // The names were validated when they were set, and monitor probes
+        // cannot be removed.
+      }
+    }
+    optionalProbes.remove(Probe.SERVER);
+    Map<Probe, ProbeCircuitBreaker> circuitBreakers = new LinkedHashMap<>();
+    if (failureThreshold > 0)
+    {
+      for (Probe probe : probes)
+      {
+        circuitBreakers.put(probe, new ProbeCircuitBreaker(
+            failureThreshold, minBackoffMillis, maxBackoffMillis));
+      }
+    }
+    return new ProbeSet(Collections.unmodifiableList(probes), optionalProbes,
+                        circuitBreakers);
+  }
+
+
+  private List<Probe> createProbes()
+  {
+    List<Probe> probes = new ArrayList<>();
+    probes.add(Probe.SERVER);
+    if (!servletsToCheck.isEmpty())
+    {
+      probes.add(Probe.SERVLETS);
+    }
+    for (MonitorAvailabilityCriteria criteria : monitorsToCheck)
+    {
+      probes.add(Probe.forMonitor(criteria));
+    }
+    probes.add(Probe.STORE_ADAPTERS);
+    probes.add(Probe.LOAD_BALANCING_ALGORITHMS);
+    if (loadSheddingCriteria != null)
+    {
+      probes.add(Probe.LOAD);
+    }
+    if (replicationCriteria != null)
+    {
+      probes.add(Probe.REPLICATION);
+    }
+    if (databaseCriteria != null)
+    {
+      probes.add(Probe.DATABASE);
+    }
+    if (jvmCriteria != null)
+    {
+      probes.add(Probe.JVM);
+    }
+    return probes;
+  }
+
+
+  /**
+   * Evaluates a set of probes and records their results. If the connection is
+   * an {@link LDAPConnectionPool}, then the probes' searches are pipelined
+   * over a single pooled connection. If the searches fail, then an error is
+   * recorded for each of the probes. A probe whose circuit breaker is open is
+   * not searched, and its last error is recorded instead.
+   *
+   * @param probes
+   *          The probes to evaluate.
+   * @param results
+   *          The results to update.
+   * @param sample
+   *          Whether this evaluation samples the counters from which rates,
+   *          such as the database cache hit percentage and the percentage of
+   *          time spent in garbage collection, are calculated. Only
+   *          a {@link StatusRefresher}'s evaluations sample them, so that
+   *          rates are measured over its schedule rather than over whatever
+   *          requests arrive; other evaluations report the most recently
+   *          sampled rates.
+   */
+  void evaluate(List<Probe> probes, ProbeResults results, boolean sample)
+  {
+    Map<Probe, ProbeCircuitBreaker> circuitBreakers =
+        getProbeSet().circuitBreakers;
+    List<Probe> attemptedProbes = new ArrayList<>(probes.size());
+    for (Probe probe : probes)
+    {
+      ProbeCircuitBreaker circuitBreaker = circuitBreakers.get(probe);
+      if (circuitBreaker == null || circuitBreaker.allowAttempt())
+      {
+        attemptedProbes.add(probe);
+      }
+      else
+      {
+        results.setError(probe, circuitBreaker.getLastError());
+      }
+    }
+    if (attemptedProbes.isEmpty())
+    {
+      return;
+    }
+
+    List<SearchResult> searchResults;
     try
     {
-      ServerStatus serverStatus =
-              getServerStatus();
-      List<ServletStatus> servletStatuses =
-              getServletStatuses();
-      List<MonitorStatus> monitorStatuses =
-          getMonitorStatuses();
-      List<StoreAdapterStatus> storeAdapterStatuses =
-              getStoreAdapterStatuses();
-      List<LoadBalancingAlgorithmStatus> lbaStatuses =
-              getLoadBalancingAlgorithmStatuses();
-      return Status.create(serverStatus,
-                           servletStatuses,
-                           monitorStatuses,
-                           storeAdapterStatuses,
-                           lbaStatuses);
+      List<SearchRequest> requests =
+          new ArrayList<>(attemptedProbes.size());
+      for (Probe probe : attemptedProbes)
+      {
+        requests.add(createRequest(probe));
+      }
+      searchResults = search(requests);
     }
     catch (Exception e)
     {
-      return Status.create(new StatusError(e));
+      for (Probe probe : attemptedProbes)
+      {
+        recordFailure(probe, e, results, circuitBreakers);
+      }
+      return;
+    }
+
+    Iterator<SearchResult> iterator = searchResults.iterator();
+    for (Probe probe : attemptedProbes)
+    {
+      try
+      {
+        SearchResult searchResult = iterator.next();
+        if (searchResult != null &&
+            searchResult.getResultCode() != ResultCode.SUCCESS)
+        {
+          throw new LDAPSearchException(searchResult);
+        }
+        parseResult(probe, searchResult, results, sample);
+        ProbeCircuitBreaker circuitBreaker = circuitBreakers.get(probe);
+        if (circuitBreaker != null)
+        {
+          circuitBreaker.recordSuccess();
+        }
+      }
+      catch (Exception e)
+      {
+        recordFailure(probe, e, results, circuitBreakers);
+      }
     }
   }
 
 
-  private ServerStatus getServerStatus() throws Exception
+  private void recordFailure(
+      Probe probe, Exception e, ProbeResults results,
+      Map<Probe, ProbeCircuitBreaker> circuitBreakers)
+  {
+    ProbeCircuitBreaker circuitBreaker = circuitBreakers.get(probe);
+    if (circuitBreaker != null)
+    {
+      circuitBreaker.recordFailure(e);
+    }
+    results.setError(probe, e);
+  }
+
+
+  private SearchRequest createRequest(Probe probe) throws LDAPException
+  {
+    switch (probe.getType())
+    {
+      case SERVER:
+        return createServerStatusRequest();
+      case SERVLETS:
+        return createServletStatusRequest();
+      case MONITOR:
+        return createMonitorStatusRequest(probe.getCriteria());
+      case STORE_ADAPTERS:
+        return createStoreAdapterStatusRequest();
+      case LOAD:
+        return createLoadStatusRequest();
+      case REPLICATION:
+        return createReplicationStatusRequest();
+      case DATABASE:
+        return createDatabaseStatusRequest();
+      case JVM:
+        return createJvmStatusRequest();
+      default:
+        return createLoadBalancingAlgorithmStatusRequest();
+    }
+  }
+
+
+  private void parseResult(Probe probe, SearchResult result,
+                           ProbeResults results, boolean sample)
+      throws Exception
+  {
+    switch (probe.getType())
+    {
+      case SERVER:
+        results.setServerStatus(parseServerStatus(result));
+        break;
+      case SERVLETS:
+        results.setServletStatuses(parseServletStatuses(result));
+        break;
+      case MONITOR:
+        results.setMonitorStatus(
+            probe, parseMonitorStatus(probe.getCriteria(), result));
+        break;
+      case STORE_ADAPTERS:
+        results.setStoreAdapterStatuses(parseStoreAdapterStatuses(result));
+        break;
+      case LOAD:
+        results.setLoadStatus(parseLoadStatus(result));
+        break;
+      case REPLICATION:
+        results.setReplicaStatuses(parseReplicaStatuses(result));
+        break;
+      case DATABASE:
+        results.setDatabaseStatuses(
+            databaseCriteria.evaluate(result.getSearchEntries(), sample));
+        break;
+      case JVM:
+        results.setJvmStatus(parseJvmStatus(result, sample));
+        break;
+      default:
+        results.setLoadBalancingAlgorithmStatuses(
+            parseLoadBalancingAlgorithmStatuses(result));
+        break;
+    }
+  }
+
+
+  private SearchRequest createServerStatusRequest() throws LDAPException
+  {
+    return createMonitorSearchRequest("ds-general-monitor-entry");
+  }
+
+
+  private ServerStatus parseServerStatus(SearchResult result) throws Exception
   {
-    SearchResult result =
-            findMonitorEntriesByObjectClass("ds-general-monitor-entry");
     if (result.getEntryCount() != 1)
     {
       throw new Exception(String.format(
@@ -129,15 +649,25 @@ public class StatusClient
   }
 
 
-  private List<ServletStatus> getServletStatuses() throws Exception
+  private SearchRequest createServletStatusRequest() throws LDAPException
+  {
+    if (servletsToCheck.isEmpty())
+    {
+      return null;
+    }
+    return createMonitorSearchRequest("ds-http-servlet-config-monitor-entry",
+                                      "enabled-servlet-and-path");
+  }
+
+
+  private List<ServletStatus> parseServletStatuses(SearchResult result)
+      throws Exception
   {
-    List<String> enabledServlets = new ArrayList<>();
-    List<ServletStatus> servletStatuses = new ArrayList<>();
+    Set<String> enabledServlets = new HashSet<>();
+    List<ServletStatus> servletStatuses =
+        new ArrayList<>(servletsToCheck.size());
     if (!servletsToCheck.isEmpty())
     {
-      SearchResult result =
-              findMonitorEntriesByObjectClass("ds-http-servlet-config-monitor-entry",
-                                 "enabled-servlet-and-path");
       if (result.getEntryCount() != 1)
       {
         throw new Exception(String.format(
@@ -169,49 +699,55 @@ public class StatusClient
   }
 
 
-  private List<MonitorStatus> getMonitorStatuses() throws Exception
+  private SearchRequest createMonitorStatusRequest(
+      MonitorAvailabilityCriteria criteria) throws LDAPException
   {
-    List<MonitorStatus> monitorStatuses = new ArrayList<>();
-    if (!monitorsToCheck.isEmpty())
-    {
-      for (MonitorAvailabilityCriteria criteria : monitorsToCheck)
-      {
-        MonitorStatus monitorStatus =
-            new MonitorStatus(criteria.getMonitorEntryName());
+    return new SearchRequest(
+        criteria.getMonitorEntryDN().toString(), SearchScope.BASE,
+        MATCH_ALL_FILTER);
+  }
 
-        SearchResult result =
-            findMonitorEntryByDN(criteria.getMonitorEntryDN());
-        SearchResultEntry entry =
-            result.getSearchEntry(criteria.getMonitorEntryDN().toString());
 
-        if (entry != null)
-        {
-          String availabilityValue =
-              entry.getAttributeValue(criteria.getAvailabilityAttribute());
-          if (availabilityValue != null)
-          {
-            boolean available =
-                criteria.getAvailabilityValues().contains(
-                    availabilityValue.toLowerCase());
-            monitorStatus.setAvailable(available);
-
-            monitorStatus.setMonitorProperties(entry.getAttributes());
-          }
-        }
+  private MonitorStatus parseMonitorStatus(
+      MonitorAvailabilityCriteria criteria, SearchResult result)
+      throws LDAPException
+  {
+    MonitorStatus monitorStatus =
+        new MonitorStatus(criteria.getMonitorEntryName());
 
-        monitorStatuses.add(monitorStatus);
+    SearchResultEntry entry =
+        result.getSearchEntry(criteria.getMonitorEntryDN().toString());
+
+    if (entry != null)
+    {
+      String availabilityValue =
+          entry.getAttributeValue(criteria.getAvailabilityAttribute());
+      if (availabilityValue != null)
+      {
+        boolean available =
+            criteria.getAvailabilityValues().contains(
+                availabilityValue.toLowerCase());
+        monitorStatus.setAvailable(available);
+
+        monitorStatus.setMonitorProperties(entry.getAttributes());
       }
     }
-    return monitorStatuses;
+    return monitorStatus;
+  }
+
+
+  private SearchRequest createStoreAdapterStatusRequest() throws LDAPException
+  {
+    return createMonitorSearchRequest("ds-store-adapter-monitor-entry",
+                                      "store-adapter-name",
+                                      "store-adapter-status");
   }
 
 
-  private List<StoreAdapterStatus> getStoreAdapterStatuses() throws LDAPException
+  private List<StoreAdapterStatus> parseStoreAdapterStatuses(
+      SearchResult result)
   {
     List<StoreAdapterStatus> storeAdapterStatuses = new ArrayList<>();
-    SearchResult result =
-            findMonitorEntriesByObjectClass("ds-store-adapter-monitor-entry",
-                               "store-adapter-name", "store-adapter-status");
     for (SearchResultEntry entry : result.getSearchEntries())
     {
       storeAdapterStatuses.add(new StoreAdapterStatus(
@@ -222,13 +758,18 @@ public class StatusClient
   }
 
 
-  private List<LoadBalancingAlgorithmStatus> getLoadBalancingAlgorithmStatuses()
-          throws LDAPException
+  private SearchRequest createLoadBalancingAlgorithmStatusRequest()
+      throws LDAPException
+  {
+    return createMonitorSearchRequest(
+        "ds-load-balancing-algorithm-monitor-entry", "*");
+  }
+
+
+  private List<LoadBalancingAlgorithmStatus> parseLoadBalancingAlgorithmStatuses(
+      SearchResult result)
   {
     List<LoadBalancingAlgorithmStatus> lbaStatuses = new ArrayList<>();
-    SearchResult result =
-            findMonitorEntriesByObjectClass(
-                "ds-load-balancing-algorithm-monitor-entry", "*");
     for (SearchResultEntry entry : result.getSearchEntries())
     {
       lbaStatuses.add(new LoadBalancingAlgorithmStatus(
@@ -242,28 +783,169 @@ public class StatusClient
   }
 
 
-  private SearchResult findMonitorEntriesByObjectClass(
+  private SearchRequest createLoadStatusRequest() throws LDAPException
+  {
+    return createMonitorSearchRequest(
+        LoadSheddingCriteria.WORK_QUEUE_MONITOR_OC, "*");
+  }
+
+
+  private LoadStatus parseLoadStatus(SearchResult result) throws Exception
+  {
+    if (result.getEntryCount() != 1)
+    {
+      throw new Exception(String.format(
+              "Expected one and only one work queue monitor entry; " +
+                      "actual number was %d", result.getEntryCount()));
+    }
+    return loadSheddingCriteria.evaluate(result.getSearchEntries().get(0));
+  }
+
+
+  private SearchRequest createReplicationStatusRequest()
+      throws LDAPException
+  {
+    return new SearchRequest(
+            "cn=monitor", SearchScope.SUB,
+            Filter.createORFilter(
+                Filter.createEqualityFilter(
+                    "objectClass", ReplicationCriteria.REPLICA_MONITOR_OC),
+                Filter.createEqualityFilter(
+                    "objectClass",
+                    ReplicationCriteria.REPLICATION_SUMMARY_MONITOR_OC)),
+            "*");
+  }
+
+
+  private List<ReplicaStatus> parseReplicaStatuses(SearchResult result)
+  {
+    return replicationCriteria.evaluate(result.getSearchEntries(),
+                                        System.currentTimeMillis());
+  }
+
+
+  private SearchRequest createDatabaseStatusRequest() throws LDAPException
+  {
+    return createMonitorSearchRequest(
+        DatabaseCriteria.DATABASE_ENVIRONMENT_MONITOR_OC, "*");
+  }
+
+
+  private SearchRequest createJvmStatusRequest() throws LDAPException
+  {
+    return createMonitorSearchRequest(
+        JvmCriteria.MEMORY_USAGE_MONITOR_OC, "*");
+  }
+
+
+  private JvmStatus parseJvmStatus(SearchResult result, boolean sample)
+      throws Exception
+  {
+    if (result.getEntryCount() > 1 ||
+        (result.getEntryCount() == 0 && !jvmCriteria.isSampleLocalJvm()))
+    {
+      throw new Exception(String.format(
+              "Expected one and only one memory usage monitor entry; " +
+                      "actual number was %d", result.getEntryCount()));
+    }
+    return jvmCriteria.evaluate(
+        result.getEntryCount() == 1 ? result.getSearchEntries().get(0) : null,
+        System.currentTimeMillis(), sample);
+  }
+
+
+  private SearchRequest createMonitorSearchRequest(
       String objectClass, String... attributes) throws LDAPException
   {
-    return connection.search(
+    return new SearchRequest(
             "cn=monitor", SearchScope.SUB,
             Filter.createEqualityFilter("objectClass", objectClass),
             attributes);
   }
 
 
-  private SearchResult findMonitorEntryByDN(DN dn) throws LDAPException
+  /**
+   * Processes a list of search requests, returning a result for each one in
+   * the same order. A {@code null} request yields a {@code null} result. A
+   * search that fails yields its unsuccessful result rather than preventing
+   * the other searches' results from being returned.
+   */
+  private List<SearchResult> search(List<SearchRequest> requests)
+      throws LDAPException
   {
-    return connection.search(
-        dn.toString(), SearchScope.BASE,
-        Filter.createANDFilter(new ArrayList<Filter>()));
+    if (connection instanceof LDAPConnectionPool)
+    {
+      return searchPipelined((LDAPConnectionPool) connection, requests);
+    }
+    List<SearchResult> results = new ArrayList<>(requests.size());
+    for (SearchRequest request : requests)
+    {
+      try
+      {
+        results.add(request != null ? connection.search(request) : null);
+      }
+      catch (LDAPSearchException e)
+      {
+        results.add(e.getSearchResult());
+      }
+    }
+    return results;
+  }
+
+
+  /**
+   * Sends all of the search requests over a single pooled connection without
+   * waiting for each response before sending the next request, and then
+   * waits for all of the responses. The pool cancels the searches that have
+   * not completed within the pipeline timeout, and those searches yield a
+   * timeout result.
+   */
+  private List<SearchResult> searchPipelined(LDAPConnectionPool pool,
+                                             List<SearchRequest> requests)
+      throws LDAPException
+  {
+    List<LDAPRequest> asyncRequests = new ArrayList<>(requests.size());
+    List<CollectingSearchListener> listeners =
+        new ArrayList<>(requests.size());
+    for (SearchRequest request : requests)
+    {
+      if (request != null)
+      {
+        CollectingSearchListener listener = new CollectingSearchListener();
+        asyncRequests.add(new SearchRequest(
+            listener, request.getControls(), request.getBaseDN(),
+            request.getScope(), request.getDereferencePolicy(),
+            request.getSizeLimit(), request.getTimeLimitSeconds(),
+            request.typesOnly(), request.getFilter(),
+            request.getAttributes()));
+        listeners.add(listener);
+      }
+      else
+      {
+        listeners.add(null);
+      }
+    }
+
+    // Every request is complete when this returns. A request that was not
+    // sent, or that timed out, only has its result set on its request ID,
+    // and its listener is never told.
+    Iterator<AsyncRequestID> requestIDs =
+        pool.processRequestsAsync(asyncRequests, pipelineTimeoutMillis)
+            .iterator();
+
+    List<SearchResult> results = new ArrayList<>(requests.size());
+    for (CollectingSearchListener listener : listeners)
+    {
+      results.add(listener != null ?
+          listener.getSearchResult(requestIDs.next()) : null);
+    }
+    return results;
   }
 
 
   private String parseServletName(String monitorAttributeValue)
   {
-    Pattern pattern = Pattern.compile("^(.+) (http(.+))$");
-    Matcher matcher = pattern.matcher(monitorAttributeValue);
+    Matcher matcher = SERVLET_AND_PATH_PATTERN.matcher(monitorAttributeValue);
     if (matcher.matches())
     {
       return matcher.group(1);
@@ -276,4 +958,113 @@ public class StatusClient
   {
     return availabilityString.equalsIgnoreCase("AVAILABLE");
   }
+
+
+  /**
+   * Collects the entries returned by an asynchronous search. The final result
+   * is read from the search's request ID.
+   */
+  private static class CollectingSearchListener
+      implements AsyncSearchResultListener
+  {
+    private static final long serialVersionUID = -3524095728245839475L;
+
+    private final List<SearchResultEntry> entries = new ArrayList<>();
+    private final List<SearchResultReference> references = new ArrayList<>();
+
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized void searchEntryReturned(SearchResultEntry entry)
+    {
+      entries.add(entry);
+    }
+
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized void searchReferenceReturned(
+        SearchResultReference reference)
+    {
+      references.add(reference);
+    }
+
+
+    /** {@inheritDoc} */
+    @Override
+    public void searchResultReceived(AsyncRequestID requestID,
+                                     SearchResult searchResult)
+    {
+      // The same result is set on the request ID afterwards.
+    }
+
+
+    /**
+     * Gets the complete search result of a completed search, including any
+     * returned entries. This does not wait.
+     *
+     * @param requestID
+     *          The search's request ID.
+     * @return The search result, which may not be successful.
+     */
+    SearchResult getSearchResult(AsyncRequestID requestID)
+    {
+      LDAPResult result;
+      try
+      {
+        result = requestID.get(0L, TimeUnit.MILLISECONDS);
+      }
+      catch (InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+        result = new LDAPResult(requestID.getMessageID(),
+                                ResultCode.LOCAL_ERROR, e.getMessage(), null,
+                                (String[]) null, (Control[]) null);
+      }
+      catch (TimeoutException e)
+      {
+        result = new LDAPResult(requestID.getMessageID(), ResultCode.TIMEOUT,
+            "Timed out waiting for a pipelined monitor search to complete",
+            null, (String[]) null, (Control[]) null);
+      }
+      if (result.getResultCode() != ResultCode.SUCCESS)
+      {
+        // The entries of a failed search are not used.
+        return new SearchResult(
+            result.getMessageID(), result.getResultCode(),
+            result.getDiagnosticMessage(), result.getMatchedDN(),
+            result.getReferralURLs(), 0, 0, result.getResponseControls());
+      }
+      synchronized (this)
+      {
+        return new SearchResult(
+            result.getMessageID(), result.getResultCode(),
+            result.getDiagnosticMessage(), result.getMatchedDN(),
+            result.getReferralURLs(), new ArrayList<>(entries),
+            new ArrayList<>(references), entries.size(), references.size(),
+            result.getResponseControls());
+      }
+    }
+  }
+
+
+  /**
+   * The probes that a client evaluates, and the optional probes and circuit
+   * breakers among them.
+   */
+  private static final class ProbeSet
+  {
+    private final List<Probe> probes;
+    private final Set<Probe> optionalProbes;
+    private final Map<Probe, ProbeCircuitBreaker> circuitBreakers;
+
+
+    ProbeSet(List<Probe> probes, Set<Probe> optionalProbes,
+             Map<Probe, ProbeCircuitBreaker> circuitBreakers)
+    {
+      this.probes = probes;
+      this.optionalProbes = optionalProbes;
+      this.circuitBreakers = circuitBreakers;
+    }
+  }
 }
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * The media types in which a status response body can be sent. JSON is the
+ * default; Smile and CBOR are binary encodings of the same model that are
+ * smaller and cheaper to parse, and are sent to clients that ask for them in
+ * the Accept header.
+ */
+public enum StatusFormat
+{
+  /** The status is serialized as JSON. */
+  JSON("application/json", new JsonFactory()),
+
+  /** The status is serialized in the binary Smile format. */
+  SMILE("application/x-jackson-smile", new SmileFactory()),
+
+  /** The status is serialized in the binary CBOR format. */
+  CBOR("application/cbor", new CBORFactory());
+
+  private final String mediaType;
+  private final ObjectMapper mapper;
+
+
+  StatusFormat(String mediaType, JsonFactory factory)
+  {
+    this.mediaType = mediaType;
+    this.mapper = new ObjectMapper(factory);
+  }
+
+
+  /**
+   * Gets the format's media type, as used in the Accept and Content-Type
+   * HTTP headers.
+   *
+   * @return The media type.
+   */
+  public String getMediaType()
+  {
+    return mediaType;
+  }
+
+
+  /**
+   * Gets an object mapper that reads and writes this format.
+   *
+   * @return The object mapper.
+   */
+  public ObjectMapper getObjectMapper()
+  {
+    return mapper;
+  }
+
+
+  /**
+   * Serializes a value in this format.
+   *
+   * @param value
+   *          The value to serialize.
+   * @return The serialized value.
+   * @throws JsonProcessingException
+   *           If the value cannot be serialized.
+   */
+  public byte[] serialize(Object value) throws JsonProcessingException
+  {
+    return mapper.writeValueAsBytes(value);
+  }
+
+
+  /**
+   * Chooses the format that a client prefers, based on the value of its
+   * Accept request header. A media type that is named explicitly takes
+   * precedence over a wildcard, and of the explicitly named types with the
+   * highest quality value, the first listed is preferred.
+   *
+   * @param accept
+   *          The Accept header value, or {@code null} if the request does not
+   *          have one.
+   * @return The preferred format, or {@link #JSON} if the client does not
+   *         accept one of the binary formats.
+   */
+  public static StatusFormat negotiate(String accept)
+  {
+    if (accept == null)
+    {
+      return JSON;
+    }
+    StatusFormat preferred = null;
+    double preferredQuality = 0.0;
+    double wildcardQuality = -1.0;
+    for (String element : accept.split(","))
+    {
+      String[] parts = element.split(";");
+      String range = parts[0].trim();
+      double quality = 1.0;
+      for (int i = 1; i < parts.length; i++)
+      {
+        String parameter = parts[i].trim();
+        if (parameter.startsWith("q=") || parameter.startsWith("Q="))
+        {
+          try
+          {
+            quality = Double.parseDouble(parameter.substring(2).trim());
+          }
+          catch (NumberFormatException e)
+          {
+            quality = 0.0;
+          }
+        }
+      }
+      if (range.equals("*/*") || range.equalsIgnoreCase("application/*"))
+      {
+        wildcardQuality = Math.max(wildcardQuality, quality);
+        continue;
+      }
+      for (StatusFormat format : values())
+      {
+        if (range.equalsIgnoreCase(format.mediaType)
+            && quality > preferredQuality)
+        {
+          preferred = format;
+          preferredQuality = quality;
+        }
+      }
+    }
+    if (preferred == null || wildcardQuality > preferredQuality)
+    {
+      // Clients that accept nothing we offer still get JSON, which is what
+      // every earlier version of this endpoint returned.
+      return JSON;
+    }
+    return preferred;
+  }
+}
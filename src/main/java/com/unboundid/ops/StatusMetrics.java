@@ -0,0 +1,161 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Map;
+
+/**
+ * Operational metrics about the status endpoint itself, as opposed to the
+ * server whose status it reports. The metrics are served as JSON at the
+ * {@value #METRICS_PATH} sub-path of the status path.
+ */
+public class StatusMetrics
+{
+  /**
+   * The path of the metrics, relative to the status path.
+   */
+  public static final String METRICS_PATH = "/metrics";
+
+  private static final ObjectMapper mapper = new ObjectMapper();
+
+  private final StatusClient client;
+  private volatile StatusWarmUp warmUp;
+  private volatile ClientRateLimiter rateLimiter;
+  private volatile ClientTracker clientTracker;
+  private volatile StatusWebhookNotifier webhookNotifier;
+
+
+  /**
+   * Constructs a metrics instance.
+   *
+   * @param client
+   *          The status client whose probes are reported.
+   */
+  public StatusMetrics(StatusClient client)
+  {
+    this.client = client;
+  }
+
+
+  /**
+   * Sets the warm-up whose progress and duration are reported.
+   *
+   * @param warmUp
+   *          The warm-up, or {@code null} if there is none.
+   * @return These metrics.
+   */
+  public StatusMetrics setWarmUp(StatusWarmUp warmUp)
+  {
+    this.warmUp = warmUp;
+    return this;
+  }
+
+
+  /**
+   * Sets the rate limiter whose tracked clients and limited requests are
+   * reported.
+   *
+   * @param rateLimiter
+   *          The rate limiter, or {@code null} if there is none.
+   * @return These metrics.
+   */
+  public StatusMetrics setRateLimiter(ClientRateLimiter rateLimiter)
+  {
+    this.rateLimiter = rateLimiter;
+    return this;
+  }
+
+
+  /**
+   * Sets the client tracker whose heaviest clients are reported.
+   *
+   * @param clientTracker
+   *          The client tracker, or {@code null} if there is none.
+   * @return These metrics.
+   */
+  public StatusMetrics setClientTracker(ClientTracker clientTracker)
+  {
+    this.clientTracker = clientTracker;
+    return this;
+  }
+
+
+  /**
+   * Sets the webhook notifier whose deliveries are reported.
+   *
+   * @param webhookNotifier
+   *          The webhook notifier, or {@code null} if there is none.
+   * @return These metrics.
+   */
+  public StatusMetrics setWebhookNotifier(
+      StatusWebhookNotifier webhookNotifier)
+  {
+    this.webhookNotifier = webhookNotifier;
+    return this;
+  }
+
+
+  /**
+   * Gets the current metrics as a JSON object.
+   *
+   * @return The metrics.
+   */
+  public ObjectNode toJsonNode()
+  {
+    ObjectNode root = mapper.createObjectNode();
+    ObjectNode circuitBreakers = root.putObject("circuitBreakers");
+    for (Map.Entry<String, ProbeCircuitBreaker> entry :
+        client.getCircuitBreakers().entrySet())
+    {
+      circuitBreakers.set(entry.getKey(),
+                          mapper.valueToTree(entry.getValue()));
+    }
+    if (warmUp != null)
+    {
+      root.set("warmUp", mapper.valueToTree(warmUp));
+    }
+    if (rateLimiter != null)
+    {
+      root.set("rateLimiter", mapper.valueToTree(rateLimiter));
+    }
+    if (clientTracker != null)
+    {
+      root.set("topClients", mapper.valueToTree(clientTracker));
+    }
+    if (webhookNotifier != null)
+    {
+      root.set("webhooks", mapper.valueToTree(webhookNotifier));
+    }
+    return root;
+  }
+
+
+  /**
+   * Gets the current metrics as serialized JSON.
+   *
+   * @return The JSON bytes.
+   * @throws JsonProcessingException
+   *           If the metrics cannot be serialized.
+   */
+  public byte[] getJson() throws JsonProcessingException
+  {
+    return mapper.writeValueAsBytes(toJsonNode());
+  }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.ResultCode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A named view of a server's status, served at its own sub-path of the
+ * status path. A profile selects the sections that it reports, and may
+ * restrict the monitored servlets and monitor entries that it reports to its
+ * own subset of those that the {@link StatusClient} checks. Every profile is
+ * evaluated from the same probe results, so a probe that several profiles
+ * share is evaluated only once.
+ */
+public class StatusProfile
+{
+  /**
+   * The pattern for a profile argument value.
+   */
+  public static final Pattern PROFILE_ARG_RX =
+      Pattern.compile("([\\w-]+)(?::(.+))?");
+
+  /**
+   * The pattern for an argument value that applies to a profile, such as a
+   * profile's monitored servlet.
+   */
+  public static final Pattern PROFILE_VALUE_ARG_RX =
+      Pattern.compile("([\\w-]+):(.+)");
+
+  private static final Set<String> RESERVED_PATHS = new HashSet<>(
+      Arrays.asList(StatusMetrics.METRICS_PATH, HealthChecks.LIVENESS_PATH,
+                    HealthChecks.READINESS_PATH, HealthChecks.STARTUP_PATH,
+                    ClientTracker.CLIENTS_PATH));
+
+  private final String name;
+  private final Set<StatusSection> sections;
+  private List<String> servlets;
+  private List<MonitorAvailabilityCriteria> monitors;
+
+
+  private StatusProfile(String name, Set<StatusSection> sections,
+                        List<String> servlets,
+                        List<MonitorAvailabilityCriteria> monitors)
+  {
+    this.name = name;
+    this.sections = sections;
+    this.servlets = servlets;
+    this.monitors = monitors;
+  }
+
+
+  /**
+   * Creates a profile instance. The profile reports no servlets or monitor
+   * entries until they are added.
+   *
+   * @param arg
+   *          A profile argument value. This should be the profile name,
+   *          optionally followed by a colon and a comma-separated list of
+   *          the sections that it reports. For example,
+   *          'ldap:server,loadBalancingAlgorithms'. By default, every
+   *          section is reported.
+   * @return A new profile instance.
+   * @throws LDAPException if a section name is not valid.
+   */
+  public static StatusProfile create(String arg) throws LDAPException
+  {
+    Matcher matcher = PROFILE_ARG_RX.matcher(arg);
+    if (matcher.matches())
+    {
+      String name = matcher.group(1);
+      if (RESERVED_PATHS.contains("/" + name))
+      {
+        throw new LDAPException(ResultCode.PARAM_ERROR, String.format(
+            "The profile name '%s' is reserved", name));
+      }
+      Set<StatusSection> sections = StatusSection.ALL;
+      if (matcher.group(2) != null)
+      {
+        try
+        {
+          sections = StatusSection.parse(matcher.group(2));
+        }
+        catch (IllegalArgumentException e)
+        {
+          throw new LDAPException(ResultCode.PARAM_ERROR, String.format(
+              "Invalid sections for profile '%s': %s", name, e.getMessage()),
+              e);
+        }
+      }
+      return new StatusProfile(name, sections, new ArrayList<String>(),
+                               new ArrayList<MonitorAvailabilityCriteria>());
+    }
+    // This shouldn't occur, because the argument value will have been
+    // validated already by the ArgumentParser.
+    throw new IllegalArgumentException(String.format(
+        "Argument does not match regex '%s", PROFILE_ARG_RX));
+  }
+
+
+  /**
+   * Creates an unnamed profile that reports a set of sections for every
+   * servlet and monitor entry that the status client checks.
+   *
+   * @param sections
+   *          The sections to report.
+   * @return A new profile instance.
+   */
+  public static StatusProfile forSections(Set<StatusSection> sections)
+  {
+    return new StatusProfile(null, sections, null, null);
+  }
+
+
+  /**
+   * Creates an unnamed profile that reports every section for a subset of
+   * the servlets and monitor entries that the status client checks. This is
+   * used for the status path itself when the client also checks servlets or
+   * monitor entries that only named profiles report.
+   *
+   * @param servlets
+   *          The servlets to report.
+   * @param monitors
+   *          The monitor entries to report.
+   * @return A new profile instance.
+   */
+  public static StatusProfile createDefault(
+      List<String> servlets, List<MonitorAvailabilityCriteria> monitors)
+  {
+    return new StatusProfile(null, StatusSection.ALL,
+                             new ArrayList<>(servlets),
+                             new ArrayList<>(monitors));
+  }
+
+
+  /**
+   * Adds a servlet that this profile reports. The servlet must also be
+   * checked by the status client.
+   *
+   * @param servletName
+   *          The servlet name.
+   * @return This profile.
+   */
+  public StatusProfile addMonitoredServlet(String servletName)
+  {
+    if (servlets == null)
+    {
+      servlets = new ArrayList<>();
+    }
+    servlets.add(servletName);
+    return this;
+  }
+
+
+  /**
+   * Adds a monitor entry that this profile reports. The entry must also be
+   * checked by the status client with the same criteria.
+   *
+   * @param criteria
+   *          The monitor availability criteria.
+   * @return This profile.
+   */
+  public StatusProfile addMonitor(MonitorAvailabilityCriteria criteria)
+  {
+    if (monitors == null)
+    {
+      monitors = new ArrayList<>();
+    }
+    monitors.add(criteria);
+    return this;
+  }
+
+
+  /**
+   * Creates a copy of this profile that reports only those of its sections
+   * that are also in another set of sections.
+   *
+   * @param selected
+   *          The sections to select.
+   * @return A new profile instance.
+   */
+  public StatusProfile select(Set<StatusSection> selected)
+  {
+    Set<StatusSection> intersection = EnumSet.noneOf(StatusSection.class);
+    intersection.addAll(sections);
+    intersection.retainAll(selected);
+    return new StatusProfile(name, intersection, servlets, monitors);
+  }
+
+
+  /**
+   * Gets the profile's name, which is also its path relative to the status
+   * path.
+   *
+   * @return The profile name, or {@code null} for an unnamed profile.
+   */
+  public String getName()
+  {
+    return name;
+  }
+
+
+  /**
+   * Gets the sections that this profile reports.
+   *
+   * @return The sections.
+   */
+  public Set<StatusSection> getSections()
+  {
+    return sections;
+  }
+
+
+  /**
+   * Gets the servlets that this profile reports.
+   *
+   * @return The servlet names, or {@code null} if the profile reports every
+   *         servlet that the status client checks.
+   */
+  public List<String> getMonitoredServlets()
+  {
+    return servlets != null ? Collections.unmodifiableList(servlets) : null;
+  }
+
+
+  /**
+   * Gets the monitor entries that this profile reports.
+   *
+   * @return The monitor availability criteria, or {@code null} if the
+   *         profile reports every monitor entry that the status client
+   *         checks.
+   */
+  public List<MonitorAvailabilityCriteria> getMonitors()
+  {
+    return monitors != null ? Collections.unmodifiableList(monitors) : null;
+  }
+
+
+  /**
+   * Indicates whether this profile needs a probe's result.
+   */
+  boolean includes(Probe probe)
+  {
+    if (!sections.contains(StatusSection.forProbe(probe)))
+    {
+      return false;
+    }
+    switch (probe.getType())
+    {
+      case SERVLETS:
+        return servlets == null || !servlets.isEmpty();
+      case MONITOR:
+        return monitors == null || monitors.contains(probe.getCriteria());
+      default:
+        return true;
+    }
+  }
+
+
+  /**
+   * Indicates whether this profile reports a servlet.
+   */
+  boolean includesServlet(String servletName)
+  {
+    return servlets == null || servlets.contains(servletName);
+  }
+
+}
@@ -0,0 +1,484 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.unboundid.ldap.sdk.LDAPException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluates a {@link StatusClient} on a background schedule and publishes the
+ * result as a {@link StatusSnapshot}. Readers always get the most recently
+ * published snapshot without waiting on LDAP.
+ * <p>
+ * Each of the client's probes is evaluated on its own schedule, in a single
+ * shared scheduler thread. This allows cheap, volatile probes to be refreshed
+ * often while expensive or mostly static probes are refreshed rarely. The
+ * probes that are due at about the same time, within the range of their
+ * jitter, are evaluated together, so that their searches are pipelined, and a
+ * new snapshot is assembled from the latest result of every probe once for
+ * each such batch.
+ * <p>
+ * Each probe's schedule adapts to its result. While the probe's result is
+ * not available, or immediately after it changes, the probe is re-evaluated
+ * at the minimum interval. Each evaluation that finds the same available
+ * result doubles the interval, up to the probe's maximum interval, which is
+ * either the interval set for that probe with
+ * {@link #setProbeIntervals(List)} or the refresher's maximum interval. Every
+ * delay is randomized by up to {@value #JITTER_PERCENT} percent in either
+ * direction, so that many servers sharing the same backend infrastructure do
+ * not evaluate their status in lockstep.
+ */
+public class StatusRefresher
+{
+  /**
+   * The maximum percentage by which a delay is randomly shortened or
+   * lengthened.
+   */
+  static final int JITTER_PERCENT = 20;
+
+  private final StatusClient client;
+  private final long minIntervalMillis;
+  private final long maxIntervalMillis;
+  private final ProbeResults results;
+  private final Map<Probe, Long> maxProbeIntervals = new HashMap<>();
+  private final ConcurrentMap<Probe, Long> probeIntervals =
+      new ConcurrentHashMap<>();
+  private final Map<Probe, Long> dueNanos = new HashMap<>();
+
+  private List<StatusProfile> profiles = Collections.emptyList();
+
+  private volatile StatusSnapshot snapshot;
+  private volatile Map<StatusProfile, StatusSnapshot> profileSnapshots =
+      Collections.emptyMap();
+  private StatusWebhookNotifier notifier;
+  private ScheduledExecutorService executor;
+
+
+  /**
+   * Constructs a status refresher that evaluates the status at a fixed
+   * interval.
+   *
+   * @param client
+   *          The status client to evaluate.
+   * @param intervalMillis
+   *          The delay between the end of one evaluation and the start of the
+   *          next, in milliseconds.
+   */
+  public StatusRefresher(StatusClient client, long intervalMillis)
+  {
+    this(client, intervalMillis, intervalMillis);
+  }
+
+
+  /**
+   * Constructs a status refresher with an adaptive interval.
+   *
+   * @param client
+   *          The status client to evaluate.
+   * @param minIntervalMillis
+   *          The delay between evaluations of a probe while its result is not
+   *          available or has just changed, in milliseconds.
+   * @param maxIntervalMillis
+   *          The longest delay between evaluations of a probe while its
+   *          result is stable, in milliseconds, unless a different interval
+   *          is set for the probe. If this is less than the minimum interval,
+   *          the minimum interval is used.
+   */
+  public StatusRefresher(StatusClient client, long minIntervalMillis,
+                         long maxIntervalMillis)
+  {
+    this.client = client;
+    this.minIntervalMillis = minIntervalMillis;
+    this.maxIntervalMillis = Math.max(minIntervalMillis, maxIntervalMillis);
+    this.results = client.createProbeResults();
+    for (Probe probe : results.getProbes())
+    {
+      probeIntervals.put(probe, minIntervalMillis);
+    }
+  }
+
+
+  /**
+   * Sets the maximum refresh interval for individual probes. A probe whose
+   * maximum interval is less than the refresher's minimum interval is
+   * evaluated at its maximum interval regardless of its result. This must be
+   * called before the refresher is started.
+   *
+   * @param intervals
+   *          The probe intervals.
+   * @return This status refresher.
+   * @throws LDAPException
+   *           If an interval names a probe that does not exist.
+   */
+  public StatusRefresher setProbeIntervals(List<ProbeInterval> intervals)
+      throws LDAPException
+  {
+    for (ProbeInterval interval : intervals)
+    {
+      for (Probe probe :
+          Probe.select(results.getProbes(), interval.getProbeName()))
+      {
+        maxProbeIntervals.put(probe, interval.getIntervalMillis());
+        probeIntervals.put(probe, getMinIntervalMillis(probe));
+      }
+    }
+    return this;
+  }
+
+
+  /**
+   * Sets the profiles for which a snapshot is published after every
+   * evaluation, alongside the snapshot of the full status. All of the
+   * profiles are assembled from the same probe results. This must be called
+   * before the refresher is started.
+   *
+   * @param profiles
+   *          The profiles.
+   * @return This status refresher.
+   */
+  public StatusRefresher setProfiles(List<StatusProfile> profiles)
+  {
+    this.profiles = new ArrayList<>(profiles);
+    return this;
+  }
+
+
+  /**
+   * Sets the webhook notifier to which every published snapshot of the full
+   * status is passed, so that transitions can be posted to its URLs. This
+   * must be called before the refresher is started.
+   *
+   * @param notifier
+   *          The webhook notifier, or {@code null} if there is none.
+   * @return This status refresher.
+   */
+  public StatusRefresher setNotifier(StatusWebhookNotifier notifier)
+  {
+    this.notifier = notifier;
+    return this;
+  }
+
+
+  /**
+   * Starts evaluating the status in the background. The first evaluation
+   * begins immediately and evaluates every probe, after which each probe
+   * follows its own schedule.
+   */
+  public synchronized void start()
+  {
+    if (executor != null)
+    {
+      return;
+    }
+    executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+    {
+      @Override
+      public Thread newThread(Runnable runnable)
+      {
+        Thread thread = new Thread(runnable, "Status Refresher");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    executor.execute(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        long now = System.nanoTime();
+        for (Probe probe : results.getProbes())
+        {
+          dueNanos.put(probe, now);
+        }
+        evaluateDueProbes();
+      }
+    });
+  }
+
+
+  /**
+   * Stops evaluating the status in the background.
+   */
+  public synchronized void stop()
+  {
+    if (executor != null)
+    {
+      executor.shutdownNow();
+      executor = null;
+    }
+  }
+
+
+  /**
+   * Evaluates every probe immediately and publishes the result. This samples
+   * the server's counters, so it must only be called from the scheduler
+   * thread, or by tests while the refresher is not started.
+   *
+   * @return The new snapshot.
+   * @throws JsonProcessingException
+   *           If the status cannot be serialized.
+   */
+  StatusSnapshot refresh() throws JsonProcessingException
+  {
+    return evaluate(results.getProbes());
+  }
+
+
+  /**
+   * Gets the most recently published snapshot.
+   *
+   * @return The most recent snapshot, or {@code null} if the status has not
+   *         been evaluated yet.
+   */
+  public StatusSnapshot getSnapshot()
+  {
+    return snapshot;
+  }
+
+
+  /**
+   * Gets a snapshot of the most recent results as reported by a profile. A
+   * snapshot is published for each of the refresher's profiles whenever a
+   * batch of probes completes; for any other profile, the snapshot is
+   * assembled from the probes' latest results, so no probes are evaluated.
+   *
+   * @param profile
+   *          The profile to report.
+   * @return A snapshot of the profile, or {@code null} if the status has not
+   *         been evaluated yet.
+   * @throws JsonProcessingException
+   *           If the status cannot be serialized.
+   */
+  public StatusSnapshot getSnapshot(StatusProfile profile)
+      throws JsonProcessingException
+  {
+    if (snapshot == null)
+    {
+      return null;
+    }
+    StatusSnapshot published = profileSnapshots.get(profile);
+    if (published != null)
+    {
+      return published;
+    }
+    return StatusSnapshot.create(results.toStatus(profile));
+  }
+
+
+  /**
+   * Waits until a snapshot other than a given snapshot is published.
+   *
+   * @param current
+   *          The snapshot that the caller already has, or {@code null}.
+   * @param timeoutMillis
+   *          The longest time to wait, in milliseconds.
+   * @return The most recently published snapshot, which is the given
+   *         snapshot if the timeout expired first.
+   * @throws InterruptedException
+   *           If the thread is interrupted while waiting.
+   */
+  public synchronized StatusSnapshot awaitSnapshot(StatusSnapshot current,
+                                                   long timeoutMillis)
+      throws InterruptedException
+  {
+    long deadline = System.nanoTime() +
+        TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    long remaining = timeoutMillis;
+    while (snapshot == current && remaining > 0L)
+    {
+      wait(remaining);
+      remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+    }
+    return snapshot;
+  }
+
+
+  /**
+   * Gets the shortest current interval between evaluations of any probe,
+   * before jitter is applied.
+   *
+   * @return The current interval in milliseconds.
+   */
+  public long getIntervalMillis()
+  {
+    long interval = Long.MAX_VALUE;
+    for (long probeInterval : probeIntervals.values())
+    {
+      interval = Math.min(interval, probeInterval);
+    }
+    return interval;
+  }
+
+
+  /**
+   * Gets the current interval between evaluations of a probe, before jitter
+   * is applied.
+   */
+  long getIntervalMillis(Probe probe)
+  {
+    return probeIntervals.get(probe);
+  }
+
+
+  private long getMaxIntervalMillis(Probe probe)
+  {
+    Long interval = maxProbeIntervals.get(probe);
+    return interval != null ? interval : maxIntervalMillis;
+  }
+
+
+  private long getMinIntervalMillis(Probe probe)
+  {
+    return Math.min(minIntervalMillis, getMaxIntervalMillis(probe));
+  }
+
+
+  /**
+   * Evaluates a set of probes, updates their intervals, and publishes a new
+   * snapshot. A probe's interval is reset to the minimum whenever its result
+   * is not available or has changed, and doubles otherwise.
+   */
+  private StatusSnapshot evaluate(List<Probe> probes)
+      throws JsonProcessingException
+  {
+    client.evaluate(probes, results, true);
+    for (Probe probe : probes)
+    {
+      probeIntervals.put(probe, results.isStable(probe) ?
+          Math.min(getMaxIntervalMillis(probe), getIntervalMillis(probe) * 2) :
+          getMinIntervalMillis(probe));
+    }
+    return publish();
+  }
+
+
+  private synchronized StatusSnapshot publish() throws JsonProcessingException
+  {
+    // A status that has not changed since the previous evaluation is reused,
+    // along with its serialized and compressed bodies.
+    Map<StatusProfile, StatusSnapshot> published = new IdentityHashMap<>();
+    for (StatusProfile profile : profiles)
+    {
+      published.put(profile,
+                    StatusSnapshot.create(results.toStatus(profile),
+                                          profileSnapshots.get(profile)));
+    }
+    profileSnapshots = published;
+    snapshot = StatusSnapshot.create(results.toStatus(), snapshot);
+    if (notifier != null)
+    {
+      notifier.publish(snapshot);
+    }
+    notifyAll();
+    return snapshot;
+  }
+
+
+  /**
+   * Evaluates, in one batch, every probe that is due or that will be due
+   * within the range of its jitter, schedules the next evaluation of each of
+   * them, and schedules the next batch. This is only called from the
+   * scheduler thread.
+   */
+  private void evaluateDueProbes()
+  {
+    long now = System.nanoTime();
+    List<Probe> due = new ArrayList<>();
+    for (Probe probe : results.getProbes())
+    {
+      long jitterRangeNanos = TimeUnit.MILLISECONDS.toNanos(
+          getIntervalMillis(probe) * 2 * JITTER_PERCENT / 100);
+      if (dueNanos.get(probe) - now <= jitterRangeNanos)
+      {
+        due.add(probe);
+      }
+    }
+    if (!due.isEmpty())
+    {
+      try
+      {
+        evaluate(due);
+      }
+      catch (Exception e)
+      {
+        // Keep the previous snapshot, and try again on the next run.
+        for (Probe probe : due)
+        {
+          probeIntervals.put(probe, getMinIntervalMillis(probe));
+        }
+      }
+      now = System.nanoTime();
+      for (Probe probe : due)
+      {
+        dueNanos.put(probe, now + TimeUnit.MILLISECONDS.toNanos(
+            addJitter(getIntervalMillis(probe))));
+      }
+    }
+    scheduleNext(now);
+  }
+
+
+  private synchronized void scheduleNext(long now)
+  {
+    if (executor == null)
+    {
+      return;
+    }
+    long next = Long.MAX_VALUE;
+    for (long due : dueNanos.values())
+    {
+      next = Math.min(next, due - now);
+    }
+    executor.schedule(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        evaluateDueProbes();
+      }
+    }, Math.max(0L, next), TimeUnit.NANOSECONDS);
+  }
+
+
+  /**
+   * Randomly shortens or lengthens a delay by up to
+   * {@value #JITTER_PERCENT} percent.
+   */
+  static long addJitter(long delayMillis)
+  {
+    long maxJitter = delayMillis * JITTER_PERCENT / 100;
+    if (maxJitter <= 0)
+    {
+      return delayMillis;
+    }
+    return delayMillis - maxJitter +
+        ThreadLocalRandom.current().nextLong(2 * maxJitter + 1);
+  }
+}
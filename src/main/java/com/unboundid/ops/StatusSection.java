@@ -0,0 +1,187 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The sections of a status response that a client can select with the
+ * {@value #INCLUDE_PARAMETER} query parameter. Only the probes that produce
+ * the selected sections are evaluated, and only the selected sections
+ * determine the response's HTTP status code.
+ */
+public enum StatusSection
+{
+  /** The server's operational status and alerts. */
+  SERVER("server"),
+
+  /** The status of monitored HTTP servlets. */
+  SERVLETS("servlets"),
+
+  /** The status of monitored cn=monitor entries. */
+  MONITORS("monitors"),
+
+  /** The status of store adapters. */
+  STORE_ADAPTERS("storeAdapters"),
+
+  /** The status of LDAP load balancing algorithms. */
+  LOAD_BALANCING_ALGORITHMS("loadBalancingAlgorithms"),
+
+  /** The load on the server's work queue, if load shedding is enabled. */
+  LOAD("load"),
+
+  /**
+   * The replication backlog of the server's replicas, if replication
+   * thresholds are configured.
+   */
+  REPLICATION("replication"),
+
+  /**
+   * The efficiency of the backends' database caches and log cleaners, if
+   * database thresholds are configured.
+   */
+  DATABASE("database"),
+
+  /**
+   * The garbage collection activity and old generation occupancy of the
+   * server's JVM, if JVM thresholds are configured.
+   */
+  JVM("jvm");
+
+  /**
+   * The name of the query parameter that selects sections.
+   */
+  public static final String INCLUDE_PARAMETER = "include";
+
+  /**
+   * Every section.
+   */
+  public static final Set<StatusSection> ALL =
+      Collections.unmodifiableSet(EnumSet.allOf(StatusSection.class));
+
+  private final String name;
+
+
+  StatusSection(String name)
+  {
+    this.name = name;
+  }
+
+
+  /**
+   * Gets the section's name, which is also the name of its field in a status
+   * response.
+   *
+   * @return The section name.
+   */
+  public String getName()
+  {
+    return name;
+  }
+
+
+  /**
+   * Parses the value of the {@value #INCLUDE_PARAMETER} query parameter.
+   *
+   * @param include
+   *          A comma-separated list of section names, or {@code null} if the
+   *          request does not have the parameter.
+   * @return The selected sections. Every section is selected if the
+   *         parameter is not present.
+   * @throws IllegalArgumentException
+   *           If the parameter names an unknown section or no sections.
+   */
+  public static Set<StatusSection> parse(String include)
+  {
+    if (include == null)
+    {
+      return ALL;
+    }
+    Set<StatusSection> sections = EnumSet.noneOf(StatusSection.class);
+    for (String name : include.split(","))
+    {
+      name = name.trim();
+      if (name.isEmpty())
+      {
+        continue;
+      }
+      StatusSection section = forName(name);
+      if (section == null)
+      {
+        throw new IllegalArgumentException(
+            "Unknown status section '" + name + "'");
+      }
+      sections.add(section);
+    }
+    if (sections.isEmpty())
+    {
+      throw new IllegalArgumentException("No status sections were included");
+    }
+    return sections;
+  }
+
+
+  /**
+   * Gets the section that has a name.
+   *
+   * @param name
+   *          The section name.
+   * @return The section, or {@code null} if there is no section with the
+   *         name.
+   */
+  public static StatusSection forName(String name)
+  {
+    for (StatusSection section : values())
+    {
+      if (section.name.equals(name))
+      {
+        return section;
+      }
+    }
+    return null;
+  }
+
+
+  /**
+   * Gets the section that reports a probe's result.
+   */
+  static StatusSection forProbe(Probe probe)
+  {
+    switch (probe.getType())
+    {
+      case SERVER:
+        return SERVER;
+      case SERVLETS:
+        return SERVLETS;
+      case MONITOR:
+        return MONITORS;
+      case STORE_ADAPTERS:
+        return STORE_ADAPTERS;
+      case LOAD:
+        return LOAD;
+      case REPLICATION:
+        return REPLICATION;
+      case DATABASE:
+        return DATABASE;
+      case JVM:
+        return JVM;
+      default:
+        return LOAD_BALANCING_ALGORITHMS;
+    }
+  }
+}
@@ -15,18 +15,22 @@
  */
 package com.unboundid.ops;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.unboundid.directory.sdk.http.types.HTTPServerContext;
+import com.unboundid.ldap.sdk.LDAPConnectionPool;
 import com.unboundid.ldap.sdk.LDAPInterface;
 import com.unboundid.ops.models.Status;
+import com.unboundid.ops.models.StatusError;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * An HTTP servlet that reports the availability status of server's store
@@ -38,12 +42,37 @@ import java.util.List;
 public class StatusServlet extends HttpServlet
 {
   private static final long serialVersionUID = 4544150159114076878L;
-  private static ObjectMapper objectMapper = new ObjectMapper();
+
+  /**
+   * The default size, in bytes, below which status responses are not
+   * compressed.
+   */
+  public static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+
+  /**
+   * The longest time that a status request waits for the refresher's first
+   * snapshot, in milliseconds.
+   */
+  static final long FIRST_SNAPSHOT_TIMEOUT_MILLIS = 1000L;
 
   private final HTTPServerContext serverContext;
   private final LDAPInterface connection;
-  private final List<String> servletsToCheck;
-  private final List<MonitorAvailabilityCriteria> monitorsToCheck;
+  private final StatusClient client;
+  private final StatusRefresher refresher;
+  private final StatusMetrics metrics;
+  private final StatusSnapshot notEvaluatedSnapshot;
+  private final Map<String, StatusProfile> profiles = new LinkedHashMap<>();
+  private StatusProfile defaultProfile;
+  private HealthChecks healthChecks;
+  private StatusWarmUp warmUp;
+  private int compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
+  private ClientRateLimiter rateLimiter;
+  private ClientTracker clientTracker;
+  private StatusWebhookNotifier webhookNotifier;
+  private ClientRateLimiter.OverLimitAction overLimitAction =
+      ClientRateLimiter.OverLimitAction.CACHED;
+  private final Map<String, StatusSnapshot> lastSnapshots =
+      new ConcurrentHashMap<>();
 
 
   /**
@@ -52,7 +81,9 @@ public class StatusServlet extends HttpServlet
    * @param serverContext
    *          The server context.
    * @param connection
-   *          An LDAP connection interface.
+   *          An LDAP connection interface. If this is an
+   *          {@link LDAPConnectionPool}, then it will be closed when the
+   *          servlet is destroyed.
    * @param servletsToCheck
    *          The HTTP servlets that must be enabled for the server to be
    *          considered available.
@@ -63,11 +94,198 @@ public class StatusServlet extends HttpServlet
                        LDAPInterface connection,
                        List<String> servletsToCheck,
                        List<MonitorAvailabilityCriteria> monitorsToCheck)
+  {
+    this(serverContext, connection,
+         new StatusClient(connection, servletsToCheck, monitorsToCheck),
+         null);
+  }
+
+
+  /**
+   * Constructs a servlet instance.
+   *
+   * @param serverContext
+   *          The server context.
+   * @param connection
+   *          An LDAP connection interface. If this is an
+   *          {@link LDAPConnectionPool}, then it will be closed when the
+   *          servlet is destroyed.
+   * @param client
+   *          The status client.
+   * @param refresher
+   *          A status refresher that evaluates the status client in the
+   *          background, or {@code null} if the status should be evaluated
+   *          for each request. If a refresher is provided, then it will be
+   *          stopped when the servlet is destroyed.
+   */
+  public StatusServlet(HTTPServerContext serverContext,
+                       LDAPInterface connection,
+                       StatusClient client,
+                       StatusRefresher refresher)
   {
     this.serverContext = serverContext;
     this.connection = connection;
-    this.servletsToCheck = servletsToCheck;
-    this.monitorsToCheck = monitorsToCheck;
+    this.client = client;
+    this.refresher = refresher;
+    this.metrics = new StatusMetrics(client);
+    this.healthChecks = new HealthChecks(client).setRefresher(refresher);
+    try
+    {
+      this.notEvaluatedSnapshot = StatusSnapshot.create(
+          Status.create(new StatusError(new IllegalStateException(
+              "The status has not been evaluated yet"))));
+    }
+    catch (JsonProcessingException e)
+    {
+      // This can't happen for a status that only has an error.
+      throw new IllegalStateException(e);
+    }
+  }
+
+
+  /**
+   * Sets the size below which status responses are not compressed. Larger
+   * responses are compressed if the client accepts the gzip or deflate
+   * content encodings.
+   *
+   * @param compressionThreshold
+   *          The compression threshold in bytes.
+   * @return This servlet.
+   */
+  public StatusServlet setCompressionThreshold(int compressionThreshold)
+  {
+    this.compressionThreshold = compressionThreshold;
+    return this;
+  }
+
+
+  /**
+   * Sets the named profiles that are served at sub-paths of the servlet's
+   * path. The status client must check every servlet and monitor entry that
+   * the profiles report. If a refresher is in use, then it should publish
+   * snapshots for the same profiles.
+   *
+   * @param profiles
+   *          The profiles.
+   * @return This servlet.
+   */
+  public StatusServlet setProfiles(List<StatusProfile> profiles)
+  {
+    this.profiles.clear();
+    for (StatusProfile profile : profiles)
+    {
+      this.profiles.put(profile.getName(), profile);
+    }
+    return this;
+  }
+
+
+  /**
+   * Sets the profile that is served at the servlet's path. By default, the
+   * full status is served.
+   *
+   * @param defaultProfile
+   *          The default profile, or {@code null} to serve the full status.
+   * @return This servlet.
+   */
+  public StatusServlet setDefaultProfile(StatusProfile defaultProfile)
+  {
+    this.defaultProfile = defaultProfile;
+    return this;
+  }
+
+
+  /**
+   * Sets the liveness, readiness, and startup checks that are served at
+   * sub-paths of the servlet's path. By default, the checks use their
+   * default rules with this servlet's status client and refresher.
+   *
+   * @param healthChecks
+   *          The health checks.
+   * @return This servlet.
+   */
+  public StatusServlet setHealthChecks(HealthChecks healthChecks)
+  {
+    this.healthChecks = healthChecks;
+    return this;
+  }
+
+
+  /**
+   * Sets the warm-up that must complete before the status is reported. Until
+   * it completes, the status path, the profiles, and the readiness and
+   * startup checks report that the server is starting. The warm-up's
+   * duration is reported in the metrics.
+   *
+   * @param warmUp
+   *          The warm-up, or {@code null} if there is none.
+   * @return This servlet.
+   */
+  public StatusServlet setWarmUp(StatusWarmUp warmUp)
+  {
+    this.warmUp = warmUp;
+    metrics.setWarmUp(warmUp);
+    return this;
+  }
+
+
+  /**
+   * Sets the rate limiter that limits how often each client may cause the
+   * status to be evaluated. Requests that are over the limit never cause an
+   * evaluation. Depending on the action, they are answered with the most
+   * recent snapshot for the same path, or are rejected with a 429 TOO MANY
+   * REQUESTS response code and a Retry-After header. The limiter is reported
+   * in the metrics.
+   *
+   * @param rateLimiter
+   *          The rate limiter, or {@code null} if requests are not limited.
+   * @param overLimitAction
+   *          The action for requests that are over the limit.
+   * @return This servlet.
+   */
+  public StatusServlet setRateLimiter(
+      ClientRateLimiter rateLimiter,
+      ClientRateLimiter.OverLimitAction overLimitAction)
+  {
+    this.rateLimiter = rateLimiter;
+    this.overLimitAction = overLimitAction;
+    metrics.setRateLimiter(rateLimiter);
+    return this;
+  }
+
+
+  /**
+   * Sets the tracker that records which clients make the most requests. The
+   * heaviest clients are served at the {@value ClientTracker#CLIENTS_PATH}
+   * sub-path of the servlet's path, and are reported in the metrics.
+   *
+   * @param clientTracker
+   *          The client tracker, or {@code null} if clients are not tracked.
+   * @return This servlet.
+   */
+  public StatusServlet setClientTracker(ClientTracker clientTracker)
+  {
+    this.clientTracker = clientTracker;
+    metrics.setClientTracker(clientTracker);
+    return this;
+  }
+
+
+  /**
+   * Sets the notifier that posts status transitions to webhook URLs. Its
+   * deliveries are reported in the metrics, and it is stopped when the
+   * servlet is destroyed.
+   *
+   * @param webhookNotifier
+   *          The webhook notifier, or {@code null} if there is none.
+   * @return This servlet.
+   */
+  public StatusServlet setWebhookNotifier(
+      StatusWebhookNotifier webhookNotifier)
+  {
+    this.webhookNotifier = webhookNotifier;
+    metrics.setWebhookNotifier(webhookNotifier);
+    return this;
   }
 
 
@@ -77,34 +295,49 @@ public class StatusServlet extends HttpServlet
           throws ServletException, IOException
   {
     serverContext.debugVerbose("START: GET request");
+    String pathInfo = request.getPathInfo();
+    if (clientTracker != null)
+    {
+      clientTracker.record(request.getRemoteAddr(),
+                           request.getHeader("User-Agent"));
+    }
     try
     {
-      serverContext.debugVerbose("Initializing StatusClient");
-      StatusClient client =
-              new StatusClient(connection, servletsToCheck, monitorsToCheck);
-      serverContext.debugVerbose("Retrieving status");
-      Status status = client.getStatus();
-      response.setContentType("application/json");
-      if (status.isOK())
+      if (pathInfo == null || pathInfo.equals("/"))
+      {
+        writeStatus(request, response, defaultProfile);
+      }
+      else if (pathInfo.equals(StatusMetrics.METRICS_PATH))
+      {
+        writeMetrics(response);
+      }
+      else if (pathInfo.equals(ClientTracker.CLIENTS_PATH) &&
+          clientTracker != null)
+      {
+        writeClients(response);
+      }
+      else if (pathInfo.equals(HealthChecks.LIVENESS_PATH))
       {
-        serverContext.debugInfo("Server status OK");
-        response.setStatus(HttpServletResponse.SC_OK);
+        writeLiveness(response);
       }
-      else if (status.isDegraded())
+      else if (pathInfo.equals(HealthChecks.READINESS_PATH))
       {
-        // Consul considers a 429 response code to be 'warning'.
-        serverContext.debugInfo("Server status degraded");
-        response.setStatus(429); // Too many requests
+        writeSnapshot(request, response, isStarting() ?
+            warmUp.getStartingSnapshot() : healthChecks.getReadiness());
+      }
+      else if (pathInfo.equals(HealthChecks.STARTUP_PATH))
+      {
+        writeSnapshot(request, response, isStarting() ?
+            warmUp.getStartingSnapshot() : healthChecks.awaitStartup());
+      }
+      else if (profiles.containsKey(pathInfo.substring(1)))
+      {
+        writeStatus(request, response, profiles.get(pathInfo.substring(1)));
       }
       else
       {
-        // TODO: Log details when status includes errors.
-        // Note that the server will log ample detail itself.
-        serverContext.debugWarning("Server status NOT OK");
-        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.sendError(HttpServletResponse.SC_NOT_FOUND);
       }
-      PrintWriter writer = response.getWriter();
-      writer.write(objectMapper.writeValueAsString(status));
     }
     catch (Exception e)
     {
@@ -113,4 +346,216 @@ public class StatusServlet extends HttpServlet
     }
     serverContext.debugVerbose("END: GET request");
   }
+
+
+  /**
+   * Writes the status as reported by a profile, or the full status if the
+   * profile is {@code null}.
+   */
+  private void writeStatus(HttpServletRequest request,
+                           HttpServletResponse response,
+                           StatusProfile profile) throws IOException
+  {
+    String include = request.getParameter(StatusSection.INCLUDE_PARAMETER);
+    if (include != null)
+    {
+      try
+      {
+        if (profile == null)
+        {
+          profile = StatusProfile.forSections(StatusSection.ALL);
+        }
+        profile = profile.select(StatusSection.parse(include));
+      }
+      catch (IllegalArgumentException e)
+      {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                           e.getMessage());
+        return;
+      }
+    }
+    if (isStarting())
+    {
+      serverContext.debugVerbose("Warm-up has not completed");
+      writeSnapshot(request, response, warmUp.getStartingSnapshot());
+      return;
+    }
+    // Only requests without the include parameter update or use the last
+    // snapshot, so that clients cannot grow the set of cached snapshots.
+    String snapshotKey = null;
+    if (include == null)
+    {
+      snapshotKey = profile != null && profile.getName() != null ?
+          profile.getName() : "";
+    }
+    if (rateLimiter != null && !rateLimiter.tryAcquire(request.getRemoteAddr()))
+    {
+      StatusSnapshot snapshot = null;
+      if (overLimitAction == ClientRateLimiter.OverLimitAction.CACHED &&
+          snapshotKey != null)
+      {
+        snapshot = lastSnapshots.get(snapshotKey);
+      }
+      if (snapshot == null)
+      {
+        serverContext.debugVerbose("Rejecting rate limited status request");
+        response.setHeader("Retry-After",
+                           String.valueOf(rateLimiter.getRetryAfterSeconds()));
+        response.sendError(StatusSnapshot.SC_DEGRADED,
+                           "Too many status requests");
+        return;
+      }
+      serverContext.debugVerbose("Serving last status to rate limited client");
+      writeSnapshot(request, response, snapshot);
+      return;
+    }
+    serverContext.debugVerbose("Retrieving status");
+    StatusSnapshot snapshot = getSnapshot(profile);
+    if (snapshotKey != null)
+    {
+      lastSnapshots.put(snapshotKey, snapshot);
+    }
+    writeSnapshot(request, response, snapshot);
+  }
+
+
+  private boolean isStarting()
+  {
+    return warmUp != null && !warmUp.isComplete();
+  }
+
+
+  private void writeSnapshot(HttpServletRequest request,
+                             HttpServletResponse response,
+                             StatusSnapshot snapshot) throws IOException
+  {
+    StatusFormat format = StatusFormat.negotiate(request.getHeader("Accept"));
+    response.setContentType(format.getMediaType());
+    if (snapshot.getHttpStatusCode() == StatusSnapshot.SC_AVAILABLE)
+    {
+      serverContext.debugInfo("Server status OK");
+    }
+    else if (snapshot.getHttpStatusCode() == StatusSnapshot.SC_DEGRADED)
+    {
+      serverContext.debugInfo("Server status degraded");
+    }
+    else
+    {
+      // TODO: Log details when status includes errors.
+      // Note that the server will log ample detail itself.
+      serverContext.debugWarning("Server status NOT OK");
+    }
+    ContentEncoding encoding = ContentEncoding.IDENTITY;
+    if (snapshot.getBody(format, encoding).length >= compressionThreshold)
+    {
+      encoding =
+          ContentEncoding.negotiate(request.getHeader("Accept-Encoding"));
+    }
+    byte[] body = snapshot.getBody(format, encoding);
+    response.setHeader("Vary", "Accept, Accept-Encoding");
+    if (encoding != ContentEncoding.IDENTITY)
+    {
+      response.setHeader("Content-Encoding", encoding.getName());
+    }
+    if (snapshot.getRetryAfterSeconds() != null)
+    {
+      response.setHeader("Retry-After",
+                         String.valueOf(snapshot.getRetryAfterSeconds()));
+    }
+    response.setStatus(snapshot.getHttpStatusCode());
+    response.setContentLength(body.length);
+    response.getOutputStream().write(body);
+  }
+
+
+  private void writeLiveness(HttpServletResponse response) throws IOException
+  {
+    boolean live = healthChecks.isLive();
+    byte[] json = healthChecks.getLivenessJson(live);
+    response.setContentType("application/json");
+    response.setHeader("Cache-Control", "no-store");
+    response.setStatus(live ?
+        StatusSnapshot.SC_AVAILABLE : StatusSnapshot.SC_UNAVAILABLE);
+    response.setContentLength(json.length);
+    response.getOutputStream().write(json);
+  }
+
+
+  private void writeMetrics(HttpServletResponse response) throws IOException
+  {
+    byte[] json = metrics.getJson();
+    response.setContentType("application/json");
+    response.setHeader("Cache-Control", "no-store");
+    response.setContentLength(json.length);
+    response.getOutputStream().write(json);
+  }
+
+
+  private void writeClients(HttpServletResponse response) throws IOException
+  {
+    byte[] json = clientTracker.getJson();
+    response.setContentType("application/json");
+    response.setHeader("Cache-Control", "no-store");
+    response.setContentLength(json.length);
+    response.getOutputStream().write(json);
+  }
+
+
+  /**
+   * Gets the snapshot used to answer a request. This is the most recent
+   * background evaluation if a refresher is in use, or a new evaluation of
+   * the probes that the profile includes otherwise. Requests never evaluate
+   * the status while a refresher is in use; until its first snapshot is
+   * published, they wait for it briefly, and then report that the status
+   * has not been evaluated yet.
+   */
+  private StatusSnapshot getSnapshot(StatusProfile profile)
+      throws JsonProcessingException
+  {
+    if (refresher != null)
+    {
+      if (refresher.getSnapshot() == null)
+      {
+        serverContext.debugVerbose("No status evaluated yet; waiting");
+        try
+        {
+          refresher.awaitSnapshot(null, FIRST_SNAPSHOT_TIMEOUT_MILLIS);
+        }
+        catch (InterruptedException e)
+        {
+          Thread.currentThread().interrupt();
+        }
+      }
+      StatusSnapshot snapshot = profile == null ?
+          refresher.getSnapshot() : refresher.getSnapshot(profile);
+      return snapshot != null ? snapshot : notEvaluatedSnapshot;
+    }
+    return StatusSnapshot.create(profile == null ?
+        client.getStatus() : client.getStatus(profile));
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  public void destroy()
+  {
+    if (warmUp != null)
+    {
+      warmUp.stop();
+    }
+    if (refresher != null)
+    {
+      refresher.stop();
+    }
+    if (webhookNotifier != null)
+    {
+      webhookNotifier.stop();
+    }
+    if (connection instanceof LDAPConnectionPool)
+    {
+      serverContext.debugInfo("Closing remote server connection pool");
+      ((LDAPConnectionPool) connection).close();
+    }
+    super.destroy();
+  }
 }
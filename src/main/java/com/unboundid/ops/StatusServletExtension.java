@@ -18,15 +18,28 @@ package com.unboundid.ops;
 import com.unboundid.directory.sdk.http.api.HTTPServletExtension;
 import com.unboundid.directory.sdk.http.config.HTTPServletExtensionConfig;
 import com.unboundid.directory.sdk.http.types.HTTPServerContext;
+import com.unboundid.ldap.sdk.LDAPConnectionPool;
 import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.LDAPInterface;
+import com.unboundid.ldap.sdk.ResultCode;
 import com.unboundid.util.args.ArgumentException;
 import com.unboundid.util.args.ArgumentParser;
+import com.unboundid.util.args.BooleanArgument;
+import com.unboundid.util.args.DNArgument;
+import com.unboundid.util.args.DurationArgument;
+import com.unboundid.util.args.IntegerArgument;
 import com.unboundid.util.args.StringArgument;
 
 import javax.servlet.http.HttpServlet;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -37,11 +50,84 @@ import java.util.regex.Pattern;
 public class StatusServletExtension extends HTTPServletExtension
 {
   public static final Pattern MONITOR_ARG_RX =
-      Pattern.compile("([\\w\\s-]+):([\\w-]+):(.+)");
+      MonitorAvailabilityCriteria.MONITOR_ARG_RX;
 
   private static final String ARG_PATH = "path";
   private static final String ARG_MONITORED_SERVLET = "monitored-servlet";
   private static final String ARG_MONITOR = "monitor";
+  private static final String ARG_OPTIONAL_PROBE = "optional-probe";
+  private static final String ARG_LOAD_SHEDDING_QUEUE_SIZE =
+      "load-shedding-queue-size";
+  private static final String ARG_LOAD_SHEDDING_PERCENT_BUSY =
+      "load-shedding-percent-busy";
+  private static final String ARG_LOAD_SHEDDING_MAX_RETRY_AFTER =
+      "load-shedding-max-retry-after";
+  private static final String ARG_REPLICATION_DEGRADED_BACKLOG =
+      "replication-degraded-backlog";
+  private static final String ARG_REPLICATION_DEGRADED_AGE =
+      "replication-degraded-age";
+  private static final String ARG_REPLICATION_UNAVAILABLE_BACKLOG =
+      "replication-unavailable-backlog";
+  private static final String ARG_REPLICATION_UNAVAILABLE_AGE =
+      "replication-unavailable-age";
+  private static final String ARG_DATABASE_MIN_CACHE_HIT_PERCENT =
+      "database-min-cache-hit-percent";
+  private static final String ARG_DATABASE_MAX_CACHE_PERCENT_FULL =
+      "database-max-cache-percent-full";
+  private static final String ARG_DATABASE_MAX_CLEANER_BACKLOG =
+      "database-max-cleaner-backlog";
+  private static final String ARG_JVM_MAX_GC_PERCENT = "jvm-max-gc-percent";
+  private static final String ARG_JVM_MAX_OLD_GEN_PERCENT_FULL =
+      "jvm-max-old-gen-percent-full";
+  private static final String ARG_JVM_MAX_COLLECTION_DURATION =
+      "jvm-max-collection-duration";
+  private static final String ARG_PROFILE = "profile";
+  private static final String ARG_PROFILE_MONITORED_SERVLET =
+      "profile-monitored-servlet";
+  private static final String ARG_PROFILE_MONITOR = "profile-monitor";
+  private static final String ARG_READINESS_SECTIONS = "readiness-sections";
+  private static final String ARG_STARTUP_SECTIONS = "startup-sections";
+  private static final String ARG_STARTUP_TIMEOUT = "startup-timeout";
+  private static final String ARG_LIVENESS_MAX_AGE = "liveness-max-age";
+  private static final String ARG_WARM_UP_EVALUATIONS = "warm-up-evaluations";
+  private static final String ARG_RATE_LIMIT = "rate-limit";
+  private static final String ARG_RATE_LIMIT_BURST = "rate-limit-burst";
+  private static final String ARG_RATE_LIMIT_ACTION = "rate-limit-action";
+  private static final String ARG_RATE_LIMIT_MAX_CLIENTS =
+      "rate-limit-max-clients";
+  private static final String ARG_CLIENT_TRACKING_TOP_N =
+      "client-tracking-top-n";
+  private static final String ARG_CLIENT_TRACKING_WINDOW =
+      "client-tracking-window";
+  private static final String ARG_WEBHOOK_URL = "webhook-url";
+  private static final String ARG_WEBHOOK_BATCH_WINDOW =
+      "webhook-batch-window";
+  private static final String ARG_WEBHOOK_QUEUE_SIZE = "webhook-queue-size";
+  private static final String ARG_WEBHOOK_MAX_RETRIES = "webhook-max-retries";
+  private static final String ARG_COMPRESSION_THRESHOLD =
+      "compression-threshold";
+  private static final String ARG_CIRCUIT_BREAKER_FAILURE_THRESHOLD =
+      "circuit-breaker-failure-threshold";
+  private static final String ARG_CIRCUIT_BREAKER_MIN_BACKOFF =
+      "circuit-breaker-min-backoff";
+  private static final String ARG_CIRCUIT_BREAKER_MAX_BACKOFF =
+      "circuit-breaker-max-backoff";
+  private static final String ARG_REFRESH_MIN_INTERVAL =
+      "refresh-min-interval";
+  private static final String ARG_REFRESH_MAX_INTERVAL =
+      "refresh-max-interval";
+  private static final String ARG_PROBE_REFRESH_INTERVAL =
+      "probe-refresh-interval";
+  private static final String ARG_REMOTE_SERVER = "remote-server";
+  private static final String ARG_REMOTE_USE_SSL = "remote-use-ssl";
+  private static final String ARG_REMOTE_TRUST_ALL = "remote-trust-all";
+  private static final String ARG_REMOTE_BIND_DN = "remote-bind-dn";
+  private static final String ARG_REMOTE_BIND_PASSWORD = "remote-bind-password";
+  private static final String ARG_REMOTE_POOL_SIZE = "remote-pool-size";
+  private static final String ARG_REMOTE_MAX_CONNECTION_AGE =
+      "remote-max-connection-age";
+  private static final String ARG_REMOTE_HEALTH_CHECK_INTERVAL =
+      "remote-health-check-interval";
 
   private String path;
 
@@ -101,6 +187,362 @@ public class StatusServletExtension extends HTTPServletExtension
             "each separated by a colon. For example, " +
             "'Consent Service Monitor:is-available:true'");
     parser.addArgument(monitorArgument);
+    StringArgument profileArgument =
+        new StringArgument(null, ARG_PROFILE, false, 0, "{name:sections}",
+            "A named status profile, which is served at a sub-path of the " +
+            "servlet's path with the same name, and the comma-separated " +
+            "sections of the status that it reports. The sections are " +
+            "'server', 'servlets', 'monitors', 'storeAdapters', " +
+            "'loadBalancingAlgorithms', 'load', 'replication', 'database', " +
+            "and 'jvm'. By default, a profile reports every " +
+            "section. All profiles are evaluated from the same status " +
+            "searches. By default, no profiles are defined.");
+    profileArgument.setValueRegex(StatusProfile.PROFILE_ARG_RX,
+        "A profile name, optionally followed by a colon and a " +
+            "comma-separated list of sections. For example, " +
+            "'ldap:server,loadBalancingAlgorithms'");
+    parser.addArgument(profileArgument);
+    StringArgument profileServletArgument =
+        new StringArgument(null, ARG_PROFILE_MONITORED_SERVLET, false, 0,
+            "{profile:servletName}",
+            "The name of a profile and of a servlet that the profile " +
+            "reports, separated by a colon. The servlet is monitored in " +
+            "addition to any monitored-servlet values, but only affects the " +
+            "status of the profiles that report it.");
+    profileServletArgument.setValueRegex(StatusProfile.PROFILE_VALUE_ARG_RX,
+        "A profile name and a servlet name, separated by a colon. For " +
+            "example, 'scim:SCIM2'");
+    parser.addArgument(profileServletArgument);
+    StringArgument profileMonitorArgument =
+        new StringArgument(null, ARG_PROFILE_MONITOR, false, 0,
+            "{profile:monitorEntryName:availabilityAttribute:values}",
+            "The name of a profile and a monitor entry that the profile " +
+            "reports, in the format of a monitor argument, separated by a " +
+            "colon. The entry is checked in addition to any monitor values, " +
+            "but only affects the status of the profiles that report it.");
+    profileMonitorArgument.setValueRegex(StatusProfile.PROFILE_VALUE_ARG_RX,
+        "A profile name and a monitor argument value, separated by a colon. " +
+            "For example, 'consent:Consent Service Monitor:is-available:true'");
+    parser.addArgument(profileMonitorArgument);
+    parser.addArgument(new StringArgument(
+        null, ARG_OPTIONAL_PROBE, false, 0, "{probe}",
+        "The name of a status probe whose failure is reported but does not " +
+            "make the server unavailable. The probe is one of 'servlets', " +
+            "'store-adapters', 'load-balancing-algorithms', 'load', " +
+            "'replication', 'database', or 'jvm', or the name of a monitor " +
+            "entry given by a monitor argument. By default, the failure of any " +
+            "probe makes the server unavailable."));
+    parser.addArgument(new IntegerArgument(
+        null, ARG_LOAD_SHEDDING_QUEUE_SIZE, false, 1, "{count}",
+        "Enables the load probe, and sets the work queue size at which the " +
+            "server is reported as degraded with a Retry-After header, so " +
+            "that load balancers send it less traffic. By default, the work " +
+            "queue size is not considered.",
+        1, Integer.MAX_VALUE));
+    parser.addArgument(new IntegerArgument(
+        null, ARG_LOAD_SHEDDING_PERCENT_BUSY, false, 1, "{percent}",
+        "Enables the load probe, and sets the percentage of busy worker " +
+            "threads at which the server is reported as degraded with a " +
+            "Retry-After header. By default, the worker threads are not " +
+            "considered.",
+        1, 100));
+    parser.addArgument(new DurationArgument(
+        null, ARG_LOAD_SHEDDING_MAX_RETRY_AFTER, false, "{duration}",
+        "The longest delay that the Retry-After header of a saturated " +
+            "server reports. The delay is otherwise the time needed to " +
+            "drain the work queue at its recent rate. The default is " +
+            LoadSheddingCriteria.DEFAULT_MAX_RETRY_AFTER_SECONDS +
+            " seconds.",
+        (long) LoadSheddingCriteria.DEFAULT_MAX_RETRY_AFTER_SECONDS,
+        TimeUnit.SECONDS, 1L, TimeUnit.SECONDS, null, null));
+    parser.addArgument(new IntegerArgument(
+        null, ARG_REPLICATION_DEGRADED_BACKLOG, false, 1, "{count}",
+        "Enables the replication probe, and sets the number of changes " +
+            "that one of this server's replicas may have yet to replay " +
+            "before the server is reported as degraded. By default, the " +
+            "backlog size does not make the server degraded.",
+        1, Integer.MAX_VALUE));
+    parser.addArgument(new DurationArgument(
+        null, ARG_REPLICATION_DEGRADED_AGE, false, "{duration}",
+        "Enables the replication probe, and sets the age of the oldest " +
+            "change that one of this server's replicas has yet to replay " +
+            "at which the server is reported as degraded. By default, " +
+            "the backlog age does not make the server degraded."));
+    parser.addArgument(new IntegerArgument(
+        null, ARG_REPLICATION_UNAVAILABLE_BACKLOG, false, 1, "{count}",
+        "Enables the replication probe, and sets the number of changes " +
+            "that one of this server's replicas may have yet to replay " +
+            "before the server is reported as unavailable. By default, " +
+            "the backlog size does not make the server unavailable.",
+        1, Integer.MAX_VALUE));
+    parser.addArgument(new DurationArgument(
+        null, ARG_REPLICATION_UNAVAILABLE_AGE, false, "{duration}",
+        "Enables the replication probe, and sets the age of the oldest " +
+            "change that one of this server's replicas has yet to replay " +
+            "at which the server is reported as unavailable. By default, " +
+            "the backlog age does not make the server unavailable."));
+    parser.addArgument(new IntegerArgument(
+        null, ARG_DATABASE_MIN_CACHE_HIT_PERCENT, false, 1, "{percent}",
+        "Enables the database probe, and sets the percentage of database " +
+            "fetches since the previous background evaluation that must be " +
+            "served from a backend's database cache. Below it, the server " +
+            "is reported as degraded with a reduced weight. This requires " +
+            "background evaluation. By default, the cache hit percentage " +
+            "is not considered.",
+        1, 100));
+    parser.addArgument(new IntegerArgument(
+        null, ARG_DATABASE_MAX_CACHE_PERCENT_FULL, false, 1, "{percent}",
+        "Enables the database probe, and sets how full a backend's " +
+            "database cache may become, as a percentage of its maximum " +
+            "size, before the server is reported as degraded with a " +
+            "reduced weight. By default, the cache fill percentage is not " +
+            "considered.",
+        1, 100));
+    parser.addArgument(new IntegerArgument(
+        null, ARG_DATABASE_MAX_CLEANER_BACKLOG, false, 1, "{count}",
+        "Enables the database probe, and sets the number of database log " +
+            "files waiting to be cleaned at which the server is reported " +
+            "as degraded with a reduced weight. By default, the cleaner " +
+            "backlog is not considered.",
+        1, Integer.MAX_VALUE));
+    parser.addArgument(new IntegerArgument(
+        null, ARG_JVM_MAX_GC_PERCENT, false, 1, "{percent}",
+        "Enables the JVM probe, and sets the percentage of time between " +
+            "background evaluations that the JVM may spend in garbage " +
+            "collection before the server is reported as degraded. The JVM " +
+            "probe requires background evaluation. By default, the garbage " +
+            "collection time is not considered.",
+        1, 100));
+    parser.addArgument(new IntegerArgument(
+        null, ARG_JVM_MAX_OLD_GEN_PERCENT_FULL, false, 1, "{percent}",
+        "Enables the JVM probe, and sets how full the old generation may " +
+            "be after a collection, as a percentage of its maximum size, " +
+            "before the server is reported as degraded. The occupancy is " +
+            "only known when the status is not read from a remote server. " +
+            "By default, the old generation is not considered.",
+        1, 100));
+    parser.addArgument(new DurationArgument(
+        null, ARG_JVM_MAX_COLLECTION_DURATION, false, "{duration}",
+        "Enables the JVM probe, and sets the duration of a garbage " +
+            "collector's most recent collection at which the server is " +
+            "reported as degraded. By default, collection durations are " +
+            "not considered."));
+    parser.addArgument(new IntegerArgument(
+        null, ARG_CIRCUIT_BREAKER_FAILURE_THRESHOLD, false, 1, "{count}",
+        "The number of consecutive failures after which a status probe " +
+            "is no longer evaluated, and its last error is reported " +
+            "instead until it is retried. A value of zero, which is the " +
+            "default, disables this behavior.",
+        0, Integer.MAX_VALUE, 0));
+    parser.addArgument(new DurationArgument(
+        null, ARG_CIRCUIT_BREAKER_MIN_BACKOFF, false, "{duration}",
+        "The delay before a failing status probe is first retried. The " +
+            "delay doubles after each failed retry. The default is 5 " +
+            "seconds.",
+        5L, TimeUnit.SECONDS, 1L, TimeUnit.MILLISECONDS, null, null));
+    parser.addArgument(new DurationArgument(
+        null, ARG_CIRCUIT_BREAKER_MAX_BACKOFF, false, "{duration}",
+        "The longest delay between retries of a failing status probe. The " +
+            "default is 5 minutes.",
+        5L, TimeUnit.MINUTES, 1L, TimeUnit.MILLISECONDS, null, null));
+
+    parser.addArgument(new DurationArgument(
+        null, ARG_REFRESH_MIN_INTERVAL, false, "{duration}",
+        "Enables background status evaluation, and sets the interval " +
+            "between evaluations while the server is not available or its " +
+            "status has just changed. Requests are answered from the most " +
+            "recent evaluation. The default is 1 second. By default, the " +
+            "status is evaluated for each request.",
+        1L, TimeUnit.SECONDS, 1L, TimeUnit.MILLISECONDS, null, null));
+    parser.addArgument(new DurationArgument(
+        null, ARG_REFRESH_MAX_INTERVAL, false, "{duration}",
+        "Enables background status evaluation, and sets the longest " +
+            "interval between evaluations while the server's status is " +
+            "stable. The interval doubles after each evaluation that finds " +
+            "the same available status. The default is 60 seconds. By " +
+            "default, the status is evaluated for each request.",
+        60L, TimeUnit.SECONDS, 1L, TimeUnit.MILLISECONDS, null, null));
+    StringArgument probeRefreshIntervalArgument =
+        new StringArgument(null, ARG_PROBE_REFRESH_INTERVAL, false, 0,
+            "{probe:duration}",
+            "Enables background status evaluation, and sets the longest " +
+            "interval between evaluations of one probe while its result is " +
+            "stable, in place of the refresh-max-interval. The probe is one " +
+            "of 'server', 'servlets', 'store-adapters', " +
+            "'load-balancing-algorithms', 'load', 'replication', " +
+            "'database', or 'jvm', or the name of a monitor entry that is " +
+            "checked for availability.");
+    probeRefreshIntervalArgument.setValueRegex(
+        ProbeInterval.PROBE_INTERVAL_ARG_RX,
+        "A probe name and a duration, separated by a colon. For example, " +
+            "'load-balancing-algorithms:1 second' or " +
+            "'Consent Service Monitor:5 minutes'");
+    parser.addArgument(probeRefreshIntervalArgument);
+
+    parser.addArgument(new StringArgument(
+        null, ARG_READINESS_SECTIONS, false, 1, "{sections}",
+        "The comma-separated sections of the status that the readiness " +
+            "check at the 'ready' sub-path reports. The default is " +
+            "'storeAdapters,loadBalancingAlgorithms'.",
+        "storeAdapters,loadBalancingAlgorithms"));
+    parser.addArgument(new StringArgument(
+        null, ARG_STARTUP_SECTIONS, false, 1, "{sections}",
+        "The comma-separated sections of the status that the startup " +
+            "check at the 'startup' sub-path reports. By default, every " +
+            "section is reported."));
+    parser.addArgument(new DurationArgument(
+        null, ARG_STARTUP_TIMEOUT, false, "{duration}",
+        "The longest time that the startup check waits for its sections " +
+            "to become available. The default is 10 seconds.",
+        HealthChecks.DEFAULT_STARTUP_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS,
+        0L, TimeUnit.MILLISECONDS, null, null));
+    parser.addArgument(new DurationArgument(
+        null, ARG_LIVENESS_MAX_AGE, false, "{duration}",
+        "The age after which the most recent background evaluation is " +
+            "considered stalled, which fails the liveness check at the " +
+            "'live' sub-path. This should be several times the " +
+            "refresh-max-interval. A value of zero, the default, indicates " +
+            "that the liveness check always succeeds.",
+        0L, TimeUnit.MILLISECONDS, 0L, TimeUnit.MILLISECONDS, null, null));
+
+    parser.addArgument(new IntegerArgument(
+        null, ARG_WARM_UP_EVALUATIONS, false, 1, "{count}",
+        "Enables a warm-up when the servlet is created, and sets the " +
+            "number of times that the status is evaluated and serialized " +
+            "in the background before it is reported. If the status is " +
+            "refreshed in the background, any value greater than zero " +
+            "instead serializes the refresher's first evaluation. Until " +
+            "this warm-up completes, the status is reported as 'starting' " +
+            "with a 503 response code. The default is " +
+            StatusWarmUp.DEFAULT_EVALUATIONS + ", which disables the " +
+            "warm-up.",
+        0, Integer.MAX_VALUE, StatusWarmUp.DEFAULT_EVALUATIONS));
+    parser.addArgument(new IntegerArgument(
+        null, ARG_COMPRESSION_THRESHOLD, false, 1, "{bytes}",
+        "The size below which status responses are not compressed. Larger " +
+            "responses are compressed if the client accepts the gzip or " +
+            "deflate content encodings. The default is " +
+            StatusServlet.DEFAULT_COMPRESSION_THRESHOLD + " bytes.",
+        0, Integer.MAX_VALUE, StatusServlet.DEFAULT_COMPRESSION_THRESHOLD));
+
+    parser.addArgument(new IntegerArgument(
+        null, ARG_RATE_LIMIT, false, 1, "{requests-per-second}",
+        "Enables rate limiting, and sets the rate at which each client " +
+            "address may request a fresh status evaluation. Requests over " +
+            "the limit never cause an evaluation, and are handled as set by " +
+            "the rate-limit-action argument. By default, requests are not " +
+            "limited.",
+        1, Integer.MAX_VALUE));
+    parser.addArgument(new IntegerArgument(
+        null, ARG_RATE_LIMIT_BURST, false, 1, "{count}",
+        "The number of requests that a client address may make at once " +
+            "before it is rate limited. The default is 10.",
+        1, Integer.MAX_VALUE, 10));
+    StringArgument rateLimitActionArgument = new StringArgument(
+        null, ARG_RATE_LIMIT_ACTION, false, 1, "{cached|reject}",
+        "What to do with a request that is over the rate limit. 'cached', " +
+            "the default, serves the most recent status for the same path, " +
+            "or rejects the request if there is none. 'reject' rejects the " +
+            "request with a 429 response code and a Retry-After header.",
+        new LinkedHashSet<>(Arrays.asList(
+            ClientRateLimiter.OverLimitAction.CACHED.getName(),
+            ClientRateLimiter.OverLimitAction.REJECT.getName())),
+        ClientRateLimiter.OverLimitAction.CACHED.getName());
+    parser.addArgument(rateLimitActionArgument);
+    parser.addArgument(new IntegerArgument(
+        null, ARG_RATE_LIMIT_MAX_CLIENTS, false, 1, "{count}",
+        "The largest number of client addresses whose request rates are " +
+            "tracked. Clients that have been idle long enough to be within " +
+            "the limit again are forgotten first. The default is " +
+            ClientRateLimiter.DEFAULT_MAX_CLIENTS + ".",
+        1, Integer.MAX_VALUE, ClientRateLimiter.DEFAULT_MAX_CLIENTS));
+    parser.addArgument(new IntegerArgument(
+        null, ARG_CLIENT_TRACKING_TOP_N, false, 1, "{count}",
+        "Enables tracking of the client addresses and User-Agents that make " +
+            "the most status requests, and sets how many of them are " +
+            "reported at the 'clients' sub-path and in the metrics. " +
+            "Tracking uses the same small, fixed amount of memory no " +
+            "matter how many clients make requests. A value of zero, the " +
+            "default, disables tracking.",
+        0, 1000, 0));
+    parser.addArgument(new DurationArgument(
+        null, ARG_CLIENT_TRACKING_WINDOW, false, "{duration}",
+        "The length of the windows in which client requests are counted. " +
+            "The most recently completed window is reported. The default " +
+            "is 60 seconds.",
+        ClientTracker.DEFAULT_WINDOW_MILLIS, TimeUnit.MILLISECONDS,
+        1L, TimeUnit.SECONDS, null, null));
+    parser.addArgument(new StringArgument(
+        null, ARG_WEBHOOK_URL, false, 0, "{url}",
+        "An HTTP or HTTPS URL to which status transitions are posted as " +
+            "JSON. Each transition of the overall status or of one of its " +
+            "components is posted, along with the complete current status. " +
+            "Webhooks require background evaluation."));
+    parser.addArgument(new DurationArgument(
+        null, ARG_WEBHOOK_BATCH_WINDOW, false, "{duration}",
+        "How long to wait after a status transition before it is posted, so " +
+            "that further transitions are posted with it, and a component " +
+            "that changes back is not posted at all. The default is 1 " +
+            "second.",
+        StatusWebhookNotifier.DEFAULT_BATCH_WINDOW_MILLIS,
+        TimeUnit.MILLISECONDS, 0L, TimeUnit.MILLISECONDS, null, null));
+    parser.addArgument(new IntegerArgument(
+        null, ARG_WEBHOOK_QUEUE_SIZE, false, 1, "{count}",
+        "The number of notifications that are queued for each webhook URL. " +
+            "When a queue is full, its oldest notification is dropped. The " +
+            "default is " + StatusWebhookNotifier.DEFAULT_QUEUE_SIZE + ".",
+        1, Integer.MAX_VALUE, StatusWebhookNotifier.DEFAULT_QUEUE_SIZE));
+    parser.addArgument(new IntegerArgument(
+        null, ARG_WEBHOOK_MAX_RETRIES, false, 1, "{count}",
+        "The number of times that a failed webhook delivery is retried, " +
+            "with a delay that starts at one second and doubles with each " +
+            "retry. The default is " +
+            StatusWebhookNotifier.DEFAULT_MAX_RETRIES + ".",
+        0, Integer.MAX_VALUE, StatusWebhookNotifier.DEFAULT_MAX_RETRIES));
+
+    StringArgument remoteServerArgument =
+        new StringArgument(null, ARG_REMOTE_SERVER, false, 1, "{host:port}",
+            "The address of a remote server whose status should be reported " +
+            "instead of this server's status. Status searches are sent to " +
+            "the remote server over a pool of persistent, health-checked " +
+            "connections. By default, this server's own status is reported.");
+    remoteServerArgument.setValueRegex(RemoteServerConfig.SERVER_ADDRESS_RX,
+        "A host name or IP address and a port, separated by a colon. For " +
+            "example, 'ds1.example.com:636'");
+    parser.addArgument(remoteServerArgument);
+    parser.addArgument(new BooleanArgument(
+        null, ARG_REMOTE_USE_SSL,
+        "Indicates that connections to the remote server should use SSL."));
+    parser.addArgument(new BooleanArgument(
+        null, ARG_REMOTE_TRUST_ALL,
+        "Indicates that any certificate presented by the remote server " +
+            "should be trusted. By default, the JVM's trust store is used."));
+    parser.addArgument(new DNArgument(
+        null, ARG_REMOTE_BIND_DN, false, 1, "{dn}",
+        "The DN used to bind connections to the remote server. By default, " +
+            "connections are unauthenticated."));
+    StringArgument remoteBindPasswordArgument = new StringArgument(
+        null, ARG_REMOTE_BIND_PASSWORD, false, 1, "{password}",
+        "The password used to bind connections to the remote server.");
+    remoteBindPasswordArgument.setSensitive(true);
+    parser.addArgument(remoteBindPasswordArgument);
+    parser.addArgument(new IntegerArgument(
+        null, ARG_REMOTE_POOL_SIZE, false, 1, "{count}",
+        "The maximum number of connections to the remote server. The " +
+            "default is 4.",
+        1, Integer.MAX_VALUE, 4));
+    parser.addArgument(new DurationArgument(
+        null, ARG_REMOTE_MAX_CONNECTION_AGE, false, "{duration}",
+        "The maximum length of time that a connection to the remote server " +
+            "may be used before it is replaced. A value of zero indicates " +
+            "that connections are never replaced due to age. The default " +
+            "is 30 minutes.",
+        30L, TimeUnit.MINUTES, 0L, TimeUnit.MILLISECONDS, null, null));
+    parser.addArgument(new DurationArgument(
+        null, ARG_REMOTE_HEALTH_CHECK_INTERVAL, false, "{duration}",
+        "The interval at which idle connections to the remote server are " +
+            "health checked. The default is 60 seconds.",
+        60L, TimeUnit.SECONDS, 1L, TimeUnit.SECONDS, null, null));
   }
 
 
@@ -125,10 +567,559 @@ public class StatusServletExtension extends HTTPServletExtension
       monitorAvailabilityCriteria.add(
           MonitorAvailabilityCriteria.create(monitorArgValue));
     }
-    return new StatusServlet(httpServerContext,
-                             httpServerContext.getInternalRootConnection(),
-                             monitoredServlets.getValues(),
-                             monitorAvailabilityCriteria);
+    List<StatusProfile> profiles = createProfiles(argumentParser);
+    Set<String> servletsToCheck =
+        new LinkedHashSet<>(monitoredServlets.getValues());
+    Set<MonitorAvailabilityCriteria> monitorsToCheck =
+        new LinkedHashSet<>(monitorAvailabilityCriteria);
+    for (StatusProfile profile : profiles)
+    {
+      servletsToCheck.addAll(profile.getMonitoredServlets());
+      monitorsToCheck.addAll(profile.getMonitors());
+    }
+    // The status path reports only its own servlets and monitor entries, and
+    // not those that were added for named profiles.
+    StatusProfile defaultProfile = null;
+    if (!profiles.isEmpty())
+    {
+      defaultProfile = StatusProfile.createDefault(
+          monitoredServlets.getValues(), monitorAvailabilityCriteria);
+    }
+    StringArgument optionalProbes =
+        (StringArgument) argumentParser.getNamedArgument(ARG_OPTIONAL_PROBE);
+    IntegerArgument failureThreshold =
+        (IntegerArgument) argumentParser.getNamedArgument(
+            ARG_CIRCUIT_BREAKER_FAILURE_THRESHOLD);
+    DurationArgument minBackoff =
+        (DurationArgument) argumentParser.getNamedArgument(
+            ARG_CIRCUIT_BREAKER_MIN_BACKOFF);
+    DurationArgument maxBackoff =
+        (DurationArgument) argumentParser.getNamedArgument(
+            ARG_CIRCUIT_BREAKER_MAX_BACKOFF);
+    IntegerArgument compressionThreshold =
+        (IntegerArgument) argumentParser.getNamedArgument(
+            ARG_COMPRESSION_THRESHOLD);
+    StringArgument rateLimitAction =
+        (StringArgument) argumentParser.getNamedArgument(
+            ARG_RATE_LIMIT_ACTION);
+    IntegerArgument warmUpEvaluations =
+        (IntegerArgument) argumentParser.getNamedArgument(
+            ARG_WARM_UP_EVALUATIONS);
+    DurationArgument startupTimeout =
+        (DurationArgument) argumentParser.getNamedArgument(
+            ARG_STARTUP_TIMEOUT);
+    DurationArgument livenessMaxAge =
+        (DurationArgument) argumentParser.getNamedArgument(
+            ARG_LIVENESS_MAX_AGE);
+    Set<StatusSection> readinessSections = parseSections(
+        argumentParser, ARG_READINESS_SECTIONS,
+        HealthChecks.DEFAULT_READINESS_SECTIONS);
+    Set<StatusSection> startupSections = parseSections(
+        argumentParser, ARG_STARTUP_SECTIONS, StatusSection.ALL);
+    LDAPInterface connection =
+        createConnection(httpServerContext, argumentParser);
+    try
+    {
+      StatusClient client = new StatusClient(
+          connection,
+          new ArrayList<>(servletsToCheck),
+          new ArrayList<>(monitorsToCheck))
+          .setLoadShedding(createLoadSheddingCriteria(argumentParser))
+          .setReplication(createReplicationCriteria(argumentParser))
+          .setDatabase(createDatabaseCriteria(argumentParser))
+          .setJvm(createJvmCriteria(argumentParser))
+          .setOptionalProbes(optionalProbes.getValues())
+          .setCircuitBreaker(
+              failureThreshold.getValue(),
+              minBackoff.getValue(TimeUnit.MILLISECONDS),
+              maxBackoff.getValue(TimeUnit.MILLISECONDS));
+      HealthChecks healthChecks = new HealthChecks(client)
+          .setReadinessSections(readinessSections)
+          .setStartupSections(startupSections)
+          .setStartupTimeoutMillis(
+              startupTimeout.getValue(TimeUnit.MILLISECONDS))
+          .setLivenessMaxAgeMillis(
+              livenessMaxAge.getValue(TimeUnit.MILLISECONDS));
+      List<StatusProfile> publishedProfiles = new ArrayList<>(profiles);
+      if (defaultProfile != null)
+      {
+        publishedProfiles.add(defaultProfile);
+      }
+      publishedProfiles.addAll(healthChecks.getProfiles());
+      StatusWebhookNotifier webhookNotifier =
+          createWebhookNotifier(argumentParser);
+      StatusRefresher refresher = createRefresher(
+          client, publishedProfiles, webhookNotifier, argumentParser);
+      healthChecks.setRefresher(refresher);
+      StatusWarmUp warmUp = null;
+      if (warmUpEvaluations.getValue() > 0)
+      {
+        warmUp = new StatusWarmUp(client, refresher,
+                                  warmUpEvaluations.getValue());
+      }
+      StatusServlet servlet = new StatusServlet(httpServerContext,
+                                                connection,
+                                                client,
+                                                refresher)
+          .setWarmUp(warmUp)
+          .setHealthChecks(healthChecks)
+          .setProfiles(profiles)
+          .setDefaultProfile(defaultProfile)
+          .setRateLimiter(createRateLimiter(argumentParser),
+                          ClientRateLimiter.OverLimitAction.forName(
+                              rateLimitAction.getValue()))
+          .setClientTracker(createClientTracker(argumentParser))
+          .setWebhookNotifier(webhookNotifier)
+          .setCompressionThreshold(compressionThreshold.getValue());
+
+      // Nothing is started until every argument has been validated, so that
+      // a configuration that is rejected does not leave threads behind.
+      if (webhookNotifier != null)
+      {
+        webhookNotifier.start();
+      }
+      if (refresher != null)
+      {
+        refresher.start();
+      }
+      if (warmUp != null)
+      {
+        warmUp.start();
+      }
+      return servlet;
+    }
+    catch (LDAPException e)
+    {
+      if (connection instanceof LDAPConnectionPool)
+      {
+        ((LDAPConnectionPool) connection).close();
+      }
+      throw e;
+    }
+  }
+
+
+  /**
+   * Creates a status refresher if background evaluation is enabled. The
+   * refresher is not started.
+   */
+  private StatusRefresher createRefresher(
+      StatusClient client,
+      List<StatusProfile> profiles,
+      StatusWebhookNotifier webhookNotifier,
+      ArgumentParser argumentParser)
+      throws LDAPException
+  {
+    DurationArgument minIntervalArgument =
+        (DurationArgument) argumentParser.getNamedArgument(
+            ARG_REFRESH_MIN_INTERVAL);
+    DurationArgument maxIntervalArgument =
+        (DurationArgument) argumentParser.getNamedArgument(
+            ARG_REFRESH_MAX_INTERVAL);
+    StringArgument probeIntervalArgument =
+        (StringArgument) argumentParser.getNamedArgument(
+            ARG_PROBE_REFRESH_INTERVAL);
+    if (!isBackgroundEvaluationEnabled(argumentParser))
+    {
+      return null;
+    }
+    List<ProbeInterval> probeIntervals = new ArrayList<>();
+    for (String probeIntervalArgValue : probeIntervalArgument.getValues())
+    {
+      probeIntervals.add(ProbeInterval.create(probeIntervalArgValue));
+    }
+    StatusRefresher refresher = new StatusRefresher(
+        client,
+        minIntervalArgument.getValue(TimeUnit.MILLISECONDS),
+        maxIntervalArgument.getValue(TimeUnit.MILLISECONDS))
+        .setProbeIntervals(probeIntervals)
+        .setProfiles(profiles)
+        .setNotifier(webhookNotifier);
+    return refresher;
+  }
+
+
+  /**
+   * Creates the webhook notifier if any webhook URL is set. The notifier is
+   * not started.
+   */
+  private StatusWebhookNotifier createWebhookNotifier(
+      ArgumentParser argumentParser) throws LDAPException
+  {
+    StringArgument urlArgument =
+        (StringArgument) argumentParser.getNamedArgument(ARG_WEBHOOK_URL);
+    DurationArgument batchWindowArgument =
+        (DurationArgument) argumentParser.getNamedArgument(
+            ARG_WEBHOOK_BATCH_WINDOW);
+    IntegerArgument queueSizeArgument =
+        (IntegerArgument) argumentParser.getNamedArgument(
+            ARG_WEBHOOK_QUEUE_SIZE);
+    IntegerArgument maxRetriesArgument =
+        (IntegerArgument) argumentParser.getNamedArgument(
+            ARG_WEBHOOK_MAX_RETRIES);
+    if (!urlArgument.isPresent())
+    {
+      return null;
+    }
+    if (!isBackgroundEvaluationEnabled(argumentParser))
+    {
+      throw new LDAPException(ResultCode.PARAM_ERROR,
+          "Webhooks require background evaluation, which is enabled by " +
+              "the " + ARG_REFRESH_MIN_INTERVAL + ", " +
+              ARG_REFRESH_MAX_INTERVAL + ", or " + ARG_PROBE_REFRESH_INTERVAL +
+              " arguments");
+    }
+    StatusWebhookNotifier webhookNotifier = new StatusWebhookNotifier(
+        urlArgument.getValues(),
+        batchWindowArgument.getValue(TimeUnit.MILLISECONDS),
+        queueSizeArgument.getValue(),
+        maxRetriesArgument.getValue(),
+        StatusWebhookNotifier.DEFAULT_RETRY_BACKOFF_MILLIS);
+    return webhookNotifier;
+  }
+
+
+  /**
+   * Indicates whether any of the arguments that enable background
+   * evaluation is present.
+   */
+  private static boolean isBackgroundEvaluationEnabled(
+      ArgumentParser argumentParser)
+  {
+    return argumentParser.getNamedArgument(ARG_REFRESH_MIN_INTERVAL)
+        .isPresent() ||
+        argumentParser.getNamedArgument(ARG_REFRESH_MAX_INTERVAL)
+            .isPresent() ||
+        argumentParser.getNamedArgument(ARG_PROBE_REFRESH_INTERVAL)
+            .isPresent();
+  }
+
+
+  /**
+   * Creates the client rate limiter if rate limiting is enabled.
+   */
+  private ClientRateLimiter createRateLimiter(ArgumentParser argumentParser)
+  {
+    IntegerArgument rateLimitArgument =
+        (IntegerArgument) argumentParser.getNamedArgument(ARG_RATE_LIMIT);
+    IntegerArgument burstArgument =
+        (IntegerArgument) argumentParser.getNamedArgument(
+            ARG_RATE_LIMIT_BURST);
+    IntegerArgument maxClientsArgument =
+        (IntegerArgument) argumentParser.getNamedArgument(
+            ARG_RATE_LIMIT_MAX_CLIENTS);
+    if (!rateLimitArgument.isPresent())
+    {
+      return null;
+    }
+    return new ClientRateLimiter(rateLimitArgument.getValue(),
+                                 burstArgument.getValue(),
+                                 maxClientsArgument.getValue());
+  }
+
+
+  /**
+   * Creates the client tracker if client tracking is enabled.
+   */
+  private ClientTracker createClientTracker(ArgumentParser argumentParser)
+  {
+    IntegerArgument topNArgument =
+        (IntegerArgument) argumentParser.getNamedArgument(
+            ARG_CLIENT_TRACKING_TOP_N);
+    DurationArgument windowArgument =
+        (DurationArgument) argumentParser.getNamedArgument(
+            ARG_CLIENT_TRACKING_WINDOW);
+    if (topNArgument.getValue() == 0)
+    {
+      return null;
+    }
+    return new ClientTracker(topNArgument.getValue(),
+                             windowArgument.getValue(TimeUnit.MILLISECONDS));
+  }
+
+
+  /**
+   * Creates the load shedding criteria if either load shedding threshold is
+   * set.
+   */
+  private LoadSheddingCriteria createLoadSheddingCriteria(
+      ArgumentParser argumentParser) throws LDAPException
+  {
+    IntegerArgument queueSizeArgument =
+        (IntegerArgument) argumentParser.getNamedArgument(
+            ARG_LOAD_SHEDDING_QUEUE_SIZE);
+    IntegerArgument percentBusyArgument =
+        (IntegerArgument) argumentParser.getNamedArgument(
+            ARG_LOAD_SHEDDING_PERCENT_BUSY);
+    DurationArgument maxRetryAfterArgument =
+        (DurationArgument) argumentParser.getNamedArgument(
+            ARG_LOAD_SHEDDING_MAX_RETRY_AFTER);
+    if (!queueSizeArgument.isPresent() && !percentBusyArgument.isPresent())
+    {
+      return null;
+    }
+    return LoadSheddingCriteria.create(
+        queueSizeArgument.isPresent() ? queueSizeArgument.getValue() : 0,
+        percentBusyArgument.isPresent() ? percentBusyArgument.getValue() : 0)
+        .setMaxRetryAfterSeconds(
+            maxRetryAfterArgument.getValue(TimeUnit.SECONDS).intValue());
+  }
+
+
+  /**
+   * Creates the replication criteria if any replication threshold is set.
+   */
+  private ReplicationCriteria createReplicationCriteria(
+      ArgumentParser argumentParser) throws LDAPException
+  {
+    IntegerArgument degradedBacklogArgument =
+        (IntegerArgument) argumentParser.getNamedArgument(
+            ARG_REPLICATION_DEGRADED_BACKLOG);
+    DurationArgument degradedAgeArgument =
+        (DurationArgument) argumentParser.getNamedArgument(
+            ARG_REPLICATION_DEGRADED_AGE);
+    IntegerArgument unavailableBacklogArgument =
+        (IntegerArgument) argumentParser.getNamedArgument(
+            ARG_REPLICATION_UNAVAILABLE_BACKLOG);
+    DurationArgument unavailableAgeArgument =
+        (DurationArgument) argumentParser.getNamedArgument(
+            ARG_REPLICATION_UNAVAILABLE_AGE);
+    if (!degradedBacklogArgument.isPresent() &&
+        !degradedAgeArgument.isPresent() &&
+        !unavailableBacklogArgument.isPresent() &&
+        !unavailableAgeArgument.isPresent())
+    {
+      return null;
+    }
+    return ReplicationCriteria.create(
+        degradedBacklogArgument.isPresent() ?
+            degradedBacklogArgument.getValue() : 0L,
+        degradedAgeArgument.isPresent() ?
+            degradedAgeArgument.getValue(TimeUnit.MILLISECONDS) : 0L,
+        unavailableBacklogArgument.isPresent() ?
+            unavailableBacklogArgument.getValue() : 0L,
+        unavailableAgeArgument.isPresent() ?
+            unavailableAgeArgument.getValue(TimeUnit.MILLISECONDS) : 0L);
+  }
+
+
+  /**
+   * Creates the database criteria if any database threshold is set.
+   */
+  private DatabaseCriteria createDatabaseCriteria(
+      ArgumentParser argumentParser) throws LDAPException
+  {
+    IntegerArgument cacheHitArgument =
+        (IntegerArgument) argumentParser.getNamedArgument(
+            ARG_DATABASE_MIN_CACHE_HIT_PERCENT);
+    IntegerArgument cacheFullArgument =
+        (IntegerArgument) argumentParser.getNamedArgument(
+            ARG_DATABASE_MAX_CACHE_PERCENT_FULL);
+    IntegerArgument cleanerBacklogArgument =
+        (IntegerArgument) argumentParser.getNamedArgument(
+            ARG_DATABASE_MAX_CLEANER_BACKLOG);
+    if (!cacheHitArgument.isPresent() && !cacheFullArgument.isPresent() &&
+        !cleanerBacklogArgument.isPresent())
+    {
+      return null;
+    }
+    if (cacheHitArgument.isPresent() &&
+        !isBackgroundEvaluationEnabled(argumentParser))
+    {
+      throw new LDAPException(ResultCode.PARAM_ERROR,
+          "The " + ARG_DATABASE_MIN_CACHE_HIT_PERCENT + " argument " +
+              "requires background evaluation, which is enabled by the " +
+              ARG_REFRESH_MIN_INTERVAL + ", " + ARG_REFRESH_MAX_INTERVAL +
+              ", or " + ARG_PROBE_REFRESH_INTERVAL + " arguments");
+    }
+    return DatabaseCriteria.create(
+        cacheHitArgument.isPresent() ? cacheHitArgument.getValue() : 0,
+        cacheFullArgument.isPresent() ? cacheFullArgument.getValue() : 0,
+        cleanerBacklogArgument.isPresent() ?
+            cleanerBacklogArgument.getValue() : 0L);
+  }
+
+
+  /**
+   * Creates the JVM criteria if any JVM threshold is set. This JVM is sampled
+   * unless the status is read from a remote server.
+   */
+  private JvmCriteria createJvmCriteria(ArgumentParser argumentParser)
+      throws LDAPException
+  {
+    IntegerArgument gcPercentArgument =
+        (IntegerArgument) argumentParser.getNamedArgument(
+            ARG_JVM_MAX_GC_PERCENT);
+    IntegerArgument oldGenArgument =
+        (IntegerArgument) argumentParser.getNamedArgument(
+            ARG_JVM_MAX_OLD_GEN_PERCENT_FULL);
+    DurationArgument collectionDurationArgument =
+        (DurationArgument) argumentParser.getNamedArgument(
+            ARG_JVM_MAX_COLLECTION_DURATION);
+    if (!gcPercentArgument.isPresent() && !oldGenArgument.isPresent() &&
+        !collectionDurationArgument.isPresent())
+    {
+      return null;
+    }
+    if (!isBackgroundEvaluationEnabled(argumentParser))
+    {
+      throw new LDAPException(ResultCode.PARAM_ERROR,
+          "The JVM probe requires background evaluation, which is " +
+              "enabled by the " + ARG_REFRESH_MIN_INTERVAL + ", " +
+              ARG_REFRESH_MAX_INTERVAL + ", or " + ARG_PROBE_REFRESH_INTERVAL +
+              " arguments");
+    }
+    return JvmCriteria.create(
+        gcPercentArgument.isPresent() ? gcPercentArgument.getValue() : 0,
+        oldGenArgument.isPresent() ? oldGenArgument.getValue() : 0,
+        collectionDurationArgument.isPresent() ?
+            collectionDurationArgument.getValue(TimeUnit.MILLISECONDS) : 0L)
+        .setSampleLocalJvm(
+            !argumentParser.getNamedArgument(ARG_REMOTE_SERVER).isPresent());
+  }
+
+
+  /**
+   * Creates the named status profiles, along with the servlets and monitor
+   * entries that each of them reports.
+   */
+  private List<StatusProfile> createProfiles(ArgumentParser argumentParser)
+      throws LDAPException
+  {
+    StringArgument profileArgument =
+        (StringArgument) argumentParser.getNamedArgument(ARG_PROFILE);
+    StringArgument profileServletArgument =
+        (StringArgument) argumentParser.getNamedArgument(
+            ARG_PROFILE_MONITORED_SERVLET);
+    StringArgument profileMonitorArgument =
+        (StringArgument) argumentParser.getNamedArgument(ARG_PROFILE_MONITOR);
+    Map<String, StatusProfile> profiles = new LinkedHashMap<>();
+    for (String profileArgValue : profileArgument.getValues())
+    {
+      StatusProfile profile = StatusProfile.create(profileArgValue);
+      profiles.put(profile.getName(), profile);
+    }
+    for (String profileServletArgValue : profileServletArgument.getValues())
+    {
+      Matcher matcher =
+          StatusProfile.PROFILE_VALUE_ARG_RX.matcher(profileServletArgValue);
+      if (matcher.matches())
+      {
+        getProfile(profiles, matcher.group(1))
+            .addMonitoredServlet(matcher.group(2));
+      }
+    }
+    for (String profileMonitorArgValue : profileMonitorArgument.getValues())
+    {
+      Matcher matcher =
+          StatusProfile.PROFILE_VALUE_ARG_RX.matcher(profileMonitorArgValue);
+      if (matcher.matches())
+      {
+        if (!MONITOR_ARG_RX.matcher(matcher.group(2)).matches())
+        {
+          throw new LDAPException(ResultCode.PARAM_ERROR, String.format(
+              "Invalid monitor '%s' for profile '%s'",
+              matcher.group(2), matcher.group(1)));
+        }
+        getProfile(profiles, matcher.group(1)).addMonitor(
+            MonitorAvailabilityCriteria.create(matcher.group(2)));
+      }
+    }
+    return new ArrayList<>(profiles.values());
+  }
+
+
+  /**
+   * Parses an argument whose value is a comma-separated list of status
+   * sections.
+   */
+  private Set<StatusSection> parseSections(ArgumentParser argumentParser,
+                                           String argName,
+                                           Set<StatusSection> defaultSections)
+      throws LDAPException
+  {
+    StringArgument argument =
+        (StringArgument) argumentParser.getNamedArgument(argName);
+    if (argument.getValue() == null)
+    {
+      return defaultSections;
+    }
+    try
+    {
+      return StatusSection.parse(argument.getValue());
+    }
+    catch (IllegalArgumentException e)
+    {
+      throw new LDAPException(ResultCode.PARAM_ERROR, String.format(
+          "Invalid %s value: %s", argName, e.getMessage()), e);
+    }
+  }
+
+
+  private StatusProfile getProfile(Map<String, StatusProfile> profiles,
+                                   String name)
+      throws LDAPException
+  {
+    StatusProfile profile = profiles.get(name);
+    if (profile == null)
+    {
+      throw new LDAPException(ResultCode.PARAM_ERROR, String.format(
+          "No profile named '%s' is defined by a %s argument",
+          name, ARG_PROFILE));
+    }
+    return profile;
+  }
+
+
+  /**
+   * Creates the connection used to read status information, which is either
+   * this server's internal root connection or a pool of connections to a
+   * remote server.
+   */
+  private LDAPInterface createConnection(HTTPServerContext httpServerContext,
+                                         ArgumentParser argumentParser)
+      throws LDAPException
+  {
+    StringArgument remoteServerArgument =
+        (StringArgument) argumentParser.getNamedArgument(ARG_REMOTE_SERVER);
+    if (!remoteServerArgument.isPresent())
+    {
+      return httpServerContext.getInternalRootConnection();
+    }
+
+    DNArgument bindDNArgument =
+        (DNArgument) argumentParser.getNamedArgument(ARG_REMOTE_BIND_DN);
+    StringArgument bindPasswordArgument =
+        (StringArgument) argumentParser.getNamedArgument(
+            ARG_REMOTE_BIND_PASSWORD);
+    IntegerArgument poolSizeArgument =
+        (IntegerArgument) argumentParser.getNamedArgument(ARG_REMOTE_POOL_SIZE);
+    DurationArgument maxConnectionAgeArgument =
+        (DurationArgument) argumentParser.getNamedArgument(
+            ARG_REMOTE_MAX_CONNECTION_AGE);
+    DurationArgument healthCheckIntervalArgument =
+        (DurationArgument) argumentParser.getNamedArgument(
+            ARG_REMOTE_HEALTH_CHECK_INTERVAL);
+
+    RemoteServerConfig remoteServerConfig =
+        RemoteServerConfig.create(remoteServerArgument.getValue())
+            .setUseSSL(argumentParser.getNamedArgument(ARG_REMOTE_USE_SSL)
+                           .isPresent())
+            .setTrustAll(argumentParser.getNamedArgument(ARG_REMOTE_TRUST_ALL)
+                             .isPresent())
+            .setPoolSize(1, poolSizeArgument.getValue())
+            .setMaxConnectionAgeMillis(
+                maxConnectionAgeArgument.getValue(TimeUnit.MILLISECONDS))
+            .setHealthCheckIntervalMillis(
+                healthCheckIntervalArgument.getValue(TimeUnit.MILLISECONDS));
+    if (bindDNArgument.isPresent())
+    {
+      remoteServerConfig.setCredentials(bindDNArgument.getValue().toString(),
+                                        bindPasswordArgument.getValue());
+    }
+    httpServerContext.debugInfo(
+        "Reporting status for remote server " + remoteServerConfig);
+    return remoteServerConfig.createConnectionPool();
   }
 
 
@@ -136,6 +1127,6 @@ public class StatusServletExtension extends HTTPServletExtension
   @Override
   public List<String> getServletPaths()
   {
-    return Collections.singletonList(path);
+    return Arrays.asList(path, path + "/*");
   }
 }
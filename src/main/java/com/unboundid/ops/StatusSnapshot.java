@@ -0,0 +1,270 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.unboundid.ops.models.Status;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An immutable, serialized view of a single status evaluation. A snapshot
+ * carries everything needed to answer a status request, so that it can be
+ * served any number of times without repeating the evaluation or the
+ * serialization. The JSON body is created with the snapshot; binary formats
+ * and compressed forms of the body are created the first time they are
+ * requested, and are then kept with the snapshot, so that the cost of
+ * serialization and compression does not grow with the request rate.
+ */
+public class StatusSnapshot
+{
+  /** The HTTP status code for a degraded server. */
+  public static final int SC_DEGRADED = 429;
+
+  /** The HTTP status code for an available server. */
+  public static final int SC_AVAILABLE = 200;
+
+  /** The HTTP status code for an unavailable server. */
+  public static final int SC_UNAVAILABLE = 503;
+
+  private final Status status;
+  private final long timestamp;
+  private final byte[] json;
+  private final int httpStatusCode;
+  private final AtomicReferenceArray<byte[]> bodies;
+
+
+  private StatusSnapshot(Status status, long timestamp, byte[] json)
+  {
+    this.status = status;
+    this.timestamp = timestamp;
+    this.json = json;
+    this.httpStatusCode = getHttpStatusCode(status);
+    this.bodies = new AtomicReferenceArray<byte[]>(
+        StatusFormat.values().length * ContentEncoding.values().length);
+    bodies.set(index(StatusFormat.JSON, ContentEncoding.IDENTITY), json);
+  }
+
+
+  private StatusSnapshot(StatusSnapshot previous, long timestamp)
+  {
+    this.status = previous.status;
+    this.timestamp = timestamp;
+    this.json = previous.json;
+    this.httpStatusCode = previous.httpStatusCode;
+    this.bodies = previous.bodies;
+  }
+
+
+  /**
+   * Creates a snapshot of the provided status.
+   *
+   * @param status
+   *          The evaluated status.
+   * @return A new snapshot.
+   * @throws JsonProcessingException
+   *           If the status cannot be serialized.
+   */
+  public static StatusSnapshot create(Status status)
+      throws JsonProcessingException
+  {
+    return new StatusSnapshot(status, System.currentTimeMillis(),
+                              StatusFormat.JSON.serialize(status));
+  }
+
+
+  /**
+   * Creates a snapshot of the provided status, reusing a previous snapshot's
+   * status and serialized bodies if the status has not changed. The new
+   * snapshot has its own timestamp, but shares the previous snapshot's
+   * status instance and every body that has been serialized or compressed
+   * for it, so an unchanged status is neither serialized nor compressed
+   * again.
+   *
+   * @param status
+   *          The evaluated status.
+   * @param previous
+   *          The previous snapshot of the same status, or {@code null}.
+   * @return A new snapshot.
+   * @throws JsonProcessingException
+   *           If the status cannot be serialized.
+   */
+  public static StatusSnapshot create(Status status, StatusSnapshot previous)
+      throws JsonProcessingException
+  {
+    if (previous != null && previous.status.equals(status))
+    {
+      return new StatusSnapshot(previous, System.currentTimeMillis());
+    }
+    return create(status);
+  }
+
+
+  /**
+   * Gets the HTTP status code that represents a status. A 200 OK indicates
+   * that the server's services are available, a 429 TOO MANY REQUESTS
+   * indicates that the server is degraded, and a 503 SERVICE UNAVAILABLE
+   * indicates that the server's services are unavailable.
+   *
+   * @param status
+   *          A status.
+   * @return The HTTP status code for the status.
+   */
+  public static int getHttpStatusCode(Status status)
+  {
+    if (status.isOK())
+    {
+      return SC_AVAILABLE;
+    }
+    else if (status.isDegraded())
+    {
+      // Consul considers a 429 response code to be 'warning'.
+      return SC_DEGRADED;
+    }
+    return SC_UNAVAILABLE;
+  }
+
+
+  /**
+   * Gets the evaluated status.
+   *
+   * @return The status.
+   */
+  public Status getStatus()
+  {
+    return status;
+  }
+
+
+  /**
+   * Gets the time at which this snapshot was created, in milliseconds since
+   * the epoch.
+   *
+   * @return The snapshot creation time.
+   */
+  public long getTimestamp()
+  {
+    return timestamp;
+  }
+
+
+  /**
+   * Gets the JSON representation of the status, encoded as UTF-8. The
+   * returned array must not be modified.
+   *
+   * @return The JSON representation of the status.
+   */
+  public byte[] getJson()
+  {
+    return json;
+  }
+
+
+  /**
+   * Gets the JSON representation of the status in a content encoding. The
+   * returned array must not be modified.
+   *
+   * @param encoding
+   *          The content encoding.
+   * @return The encoded JSON representation of the status.
+   */
+  public byte[] getJson(ContentEncoding encoding)
+  {
+    return getBody(StatusFormat.JSON, encoding);
+  }
+
+
+  /**
+   * Gets the representation of the status in a format and content encoding.
+   * The returned array must not be modified.
+   *
+   * @param format
+   *          The format.
+   * @param encoding
+   *          The content encoding.
+   * @return The encoded representation of the status.
+   */
+  public byte[] getBody(StatusFormat format, ContentEncoding encoding)
+  {
+    // Concurrent first requests may each serialize or compress the body, but
+    // they produce equivalent results, and only one of them is kept.
+    int index = index(format, encoding);
+    byte[] body = bodies.get(index);
+    if (body == null)
+    {
+      if (encoding == ContentEncoding.IDENTITY)
+      {
+        body = serialize(format);
+      }
+      else
+      {
+        body = encoding.encode(getBody(format, ContentEncoding.IDENTITY));
+      }
+      if (!bodies.compareAndSet(index, null, body))
+      {
+        body = bodies.get(index);
+      }
+    }
+    return body;
+  }
+
+
+  private byte[] serialize(StatusFormat format)
+  {
+    try
+    {
+      return format.serialize(status);
+    }
+    catch (JsonProcessingException e)
+    {
+      // The status was already serialized as JSON, and the binary formats
+      // share the same data model.
+      throw new IllegalStateException(e);
+    }
+  }
+
+
+  private static int index(StatusFormat format, ContentEncoding encoding)
+  {
+    return format.ordinal() * ContentEncoding.values().length
+        + encoding.ordinal();
+  }
+
+
+  /**
+   * Gets the HTTP status code that should be returned with this snapshot.
+   *
+   * @return The HTTP status code.
+   */
+  public int getHttpStatusCode()
+  {
+    return httpStatusCode;
+  }
+
+
+  /**
+   * Gets the value of the Retry-After header that should be returned with
+   * this snapshot, which is set when the server is shedding load.
+   *
+   * @return The retry delay in seconds, or {@code null} if the header should
+   *         not be returned.
+   */
+  public Integer getRetryAfterSeconds()
+  {
+    return httpStatusCode != SC_AVAILABLE ?
+        status.getRetryAfterSeconds() : null;
+  }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.unboundid.ops.models.LoadBalancingAlgorithmStatus;
+import com.unboundid.ops.models.MonitorStatus;
+import com.unboundid.ops.models.ServerStatus;
+import com.unboundid.ops.models.ServletStatus;
+import com.unboundid.ops.models.Status;
+import com.unboundid.ops.models.StoreAdapterStatus;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warms up the status servlet in the background after it is created. The
+ * first status requests after a server starts would otherwise pay for class
+ * loading, JIT compilation, Jackson's introspection of the model classes, and
+ * cold monitor providers, and load balancers could see inconsistent answers
+ * while that happens.
+ * <p>
+ * If the status is evaluated for each request, then the warm-up evaluates and
+ * serializes the status a number of times, in every format and content
+ * encoding. If a refresher is in use, then the warm-up does not evaluate the
+ * status itself, so that the only evaluations that advance the probes' rate
+ * baselines are the refresher's; it waits for the refresher's first snapshot
+ * and serializes that instead. Until it completes, the status is reported as
+ * 'starting', with a 503 SERVICE UNAVAILABLE response code.
+ * <p>
+ * The warm-up is disabled by default.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({ "complete", "evaluations", "durationMillis",
+    "lastError" })
+public class StatusWarmUp
+{
+  /**
+   * The default number of warm-up evaluations, which disables the warm-up.
+   */
+  public static final int DEFAULT_EVALUATIONS = 0;
+
+  private final StatusClient client;
+  private final StatusRefresher refresher;
+  private final int evaluations;
+  private final StatusSnapshot startingSnapshot;
+  private final CountDownLatch completion = new CountDownLatch(1);
+
+  private volatile Long durationMillis;
+  private volatile Throwable lastError;
+  private Thread thread;
+
+
+  /**
+   * Constructs a warm-up.
+   *
+   * @param client
+   *          The status client.
+   * @param refresher
+   *          The status refresher whose first snapshot is primed, or
+   *          {@code null} if the status is evaluated for each request. The
+   *          refresher must be started for the warm-up to complete.
+   * @param evaluations
+   *          The number of times to evaluate and serialize the status if
+   *          there is no refresher.
+   */
+  public StatusWarmUp(StatusClient client, StatusRefresher refresher,
+                      int evaluations)
+  {
+    this.client = client;
+    this.refresher = refresher;
+    this.evaluations = evaluations;
+    try
+    {
+      this.startingSnapshot = StatusSnapshot.create(Status.create(
+          ServerStatus.STARTING,
+          Collections.<ServletStatus>emptyList(),
+          Collections.<MonitorStatus>emptyList(),
+          Collections.<StoreAdapterStatus>emptyList(),
+          Collections.<LoadBalancingAlgorithmStatus>emptyList()));
+    }
+    catch (JsonProcessingException e)
+    {
+      // This can't happen for a status without any results.
+      throw new IllegalStateException(e);
+    }
+  }
+
+
+  /**
+   * Starts the warm-up in a background thread.
+   */
+  public synchronized void start()
+  {
+    if (thread != null)
+    {
+      return;
+    }
+    thread = new Thread(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        warmUp();
+      }
+    }, "Status Warm-Up");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+
+  /**
+   * Stops the warm-up if it is still running.
+   */
+  public synchronized void stop()
+  {
+    if (thread != null)
+    {
+      thread.interrupt();
+    }
+  }
+
+
+  private void warmUp()
+  {
+    long start = System.nanoTime();
+    try
+    {
+      if (refresher != null)
+      {
+        StatusSnapshot snapshot = null;
+        while (snapshot == null)
+        {
+          snapshot = refresher.awaitSnapshot(null, 1000L);
+        }
+        prime(snapshot);
+        return;
+      }
+      for (int i = 0; i < evaluations; i++)
+      {
+        if (Thread.currentThread().isInterrupted())
+        {
+          return;
+        }
+        prime(StatusSnapshot.create(client.getStatus()));
+      }
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+    catch (JsonProcessingException | RuntimeException e)
+    {
+      // The servlet is more useful serving requests than reporting that it
+      // is starting forever.
+      lastError = e;
+    }
+    finally
+    {
+      durationMillis =
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      completion.countDown();
+    }
+  }
+
+
+  /**
+   * Serializes a snapshot in every format and content encoding.
+   */
+  private static void prime(StatusSnapshot snapshot)
+  {
+    for (StatusFormat format : StatusFormat.values())
+    {
+      for (ContentEncoding encoding : ContentEncoding.values())
+      {
+        snapshot.getBody(format, encoding);
+      }
+    }
+  }
+
+
+  /**
+   * Waits for the warm-up to complete.
+   *
+   * @param timeoutMillis
+   *          The longest time to wait, in milliseconds.
+   * @return {@code true} if the warm-up completed.
+   * @throws InterruptedException
+   *           If the thread is interrupted while waiting.
+   */
+  public boolean awaitCompletion(long timeoutMillis)
+      throws InterruptedException
+  {
+    return completion.await(timeoutMillis, TimeUnit.MILLISECONDS);
+  }
+
+
+  /**
+   * Indicates whether the warm-up has completed.
+   *
+   * @return {@code true} if the warm-up has completed.
+   */
+  @JsonProperty("complete")
+  public boolean isComplete()
+  {
+    return completion.getCount() == 0L;
+  }
+
+
+  /**
+   * Gets the number of warm-up evaluations.
+   *
+   * @return The number of evaluations.
+   */
+  @JsonProperty("evaluations")
+  public int getEvaluations()
+  {
+    return evaluations;
+  }
+
+
+  /**
+   * Gets the length of time that the warm-up took.
+   *
+   * @return The warm-up duration in milliseconds, or {@code null} if the
+   *         warm-up has not completed.
+   */
+  @JsonProperty("durationMillis")
+  public Long getDurationMillis()
+  {
+    return durationMillis;
+  }
+
+
+  /**
+   * Gets the message of the error that ended the warm-up early, if any.
+   *
+   * @return The error message, or {@code null} if there was no error.
+   */
+  @JsonProperty("lastError")
+  public String getLastErrorMessage()
+  {
+    Throwable error = lastError;
+    return error != null ? error.getMessage() : null;
+  }
+
+
+  /**
+   * Gets the snapshot that is served until the warm-up completes, which
+   * reports the server status as 'starting'.
+   *
+   * @return The starting snapshot.
+   */
+  @JsonIgnore
+  public StatusSnapshot getStartingSnapshot()
+  {
+    return startingSnapshot;
+  }
+}
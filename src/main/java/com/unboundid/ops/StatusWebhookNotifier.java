@@ -0,0 +1,672 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ops.models.DatabaseStatus;
+import com.unboundid.ops.models.LoadBalancingAlgorithmStatus;
+import com.unboundid.ops.models.MonitorStatus;
+import com.unboundid.ops.models.ReplicaStatus;
+import com.unboundid.ops.models.ServletStatus;
+import com.unboundid.ops.models.Status;
+import com.unboundid.ops.models.StoreAdapterStatus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Posts status transitions to webhook URLs, so that alerting systems learn
+ * of a change without polling the status path.
+ * <p>
+ * Each published snapshot is compared with the previous one, component by
+ * component: the overall status, the server, and each servlet, monitor
+ * entry, store adapter, load balancing algorithm, replica, and database, as
+ * well as the load, the JVM, and the probe of an error that makes the server
+ * unavailable. The first snapshot is only a baseline. A
+ * transition starts a batching window, and every transition within the
+ * window is coalesced into a single notification, in which a component that
+ * changed more than once is reported with its state before the first change
+ * and after the last; a component that changed back to where it started is
+ * not reported at all, and neither is a batch in which nothing is left.
+ * <p>
+ * Each URL has its own bounded queue and delivery thread, so a slow or
+ * failing endpoint delays neither the status evaluation nor the other
+ * endpoints. A failed delivery is retried with an exponential backoff, up to
+ * a maximum number of retries. When an endpoint's queue is full, its oldest
+ * notification is dropped, since every notification carries the complete
+ * current status.
+ */
+@JsonPropertyOrder({ "notifications", "delivered", "failed", "dropped",
+    "queued" })
+public class StatusWebhookNotifier
+{
+  /** The default batching window, in milliseconds. */
+  public static final long DEFAULT_BATCH_WINDOW_MILLIS = 1000L;
+
+  /** The default number of notifications queued for each URL. */
+  public static final int DEFAULT_QUEUE_SIZE = 100;
+
+  /** The default number of times a failed delivery is retried. */
+  public static final int DEFAULT_MAX_RETRIES = 3;
+
+  /** The default delay before the first retry, in milliseconds. */
+  public static final long DEFAULT_RETRY_BACKOFF_MILLIS = 1000L;
+
+  /** The longest delay between retries, in milliseconds. */
+  static final long MAX_RETRY_BACKOFF_MILLIS = 60000L;
+
+  /** The connect and read timeout of a delivery, in milliseconds. */
+  static final int TIMEOUT_MILLIS = 5000;
+
+  private static final String STATE_AVAILABLE = "available";
+  private static final String STATE_DEGRADED = "degraded";
+  private static final String STATE_UNAVAILABLE = "unavailable";
+
+  private static final ObjectMapper mapper = new ObjectMapper();
+
+  private final List<Endpoint> endpoints = new ArrayList<>();
+  private final long batchWindowMillis;
+  private final int maxRetries;
+  private final long retryBackoffMillis;
+  private final AtomicLong notifications = new AtomicLong();
+  private final AtomicLong delivered = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+
+  private Status previousStatus;
+  private Map<String, String> previousStates;
+  private final Map<String, String[]> pendingChanges = new LinkedHashMap<>();
+  private StatusSnapshot pendingSnapshot;
+  private ScheduledExecutorService batcher;
+
+
+  /**
+   * Constructs a webhook notifier.
+   *
+   * @param urls
+   *          The URLs to which transitions are posted.
+   * @param batchWindowMillis
+   *          How long to wait after a transition for further transitions to
+   *          coalesce with it, in milliseconds.
+   * @param queueSize
+   *          The number of notifications queued for each URL.
+   * @param maxRetries
+   *          The number of times a failed delivery is retried.
+   * @param retryBackoffMillis
+   *          The delay before the first retry, in milliseconds, which doubles
+   *          with each further retry.
+   * @throws LDAPException
+   *           If a URL is not a valid HTTP or HTTPS URL.
+   */
+  public StatusWebhookNotifier(List<String> urls, long batchWindowMillis,
+                               int queueSize, int maxRetries,
+                               long retryBackoffMillis)
+      throws LDAPException
+  {
+    for (String url : urls)
+    {
+      endpoints.add(new Endpoint(parseUrl(url), Math.max(1, queueSize)));
+    }
+    this.batchWindowMillis = Math.max(0L, batchWindowMillis);
+    this.maxRetries = Math.max(0, maxRetries);
+    this.retryBackoffMillis = Math.max(1L, retryBackoffMillis);
+  }
+
+
+  private static URL parseUrl(String url) throws LDAPException
+  {
+    try
+    {
+      URL parsed = new URL(url);
+      if (parsed.getProtocol().equalsIgnoreCase("http") ||
+          parsed.getProtocol().equalsIgnoreCase("https"))
+      {
+        return parsed;
+      }
+    }
+    catch (MalformedURLException e)
+    {
+      // Reported below.
+    }
+    throw new LDAPException(ResultCode.PARAM_ERROR, String.format(
+        "Invalid webhook URL '%s'", url));
+  }
+
+
+  /**
+   * Starts the delivery threads.
+   */
+  public synchronized void start()
+  {
+    if (batcher != null)
+    {
+      return;
+    }
+    batcher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+    {
+      @Override
+      public Thread newThread(Runnable runnable)
+      {
+        Thread thread = new Thread(runnable, "Status Webhook Batcher");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    for (Endpoint endpoint : endpoints)
+    {
+      endpoint.start();
+    }
+  }
+
+
+  /**
+   * Stops the delivery threads. Notifications that have not been delivered
+   * are discarded.
+   */
+  public synchronized void stop()
+  {
+    if (batcher == null)
+    {
+      return;
+    }
+    batcher.shutdownNow();
+    batcher = null;
+    for (Endpoint endpoint : endpoints)
+    {
+      endpoint.stop();
+    }
+  }
+
+
+  /**
+   * Compares a newly published snapshot with the previous one, and
+   * schedules a notification if any component changed. A snapshot that
+   * reuses the previous snapshot's status is not compared at all. This never
+   * waits on delivery.
+   *
+   * @param snapshot
+   *          The published snapshot.
+   */
+  public synchronized void publish(StatusSnapshot snapshot)
+  {
+    if (snapshot.getStatus() == previousStatus && previousStates != null)
+    {
+      return;
+    }
+    previousStatus = snapshot.getStatus();
+    Map<String, String> states = getStates(snapshot);
+    Map<String, String> previous = previousStates;
+    previousStates = states;
+    if (previous == null)
+    {
+      return;
+    }
+
+    Set<String> components = new LinkedHashSet<>(states.keySet());
+    components.addAll(previous.keySet());
+    for (String component : components)
+    {
+      String from = previous.get(component);
+      String to = states.get(component);
+      if (Objects.equals(from, to))
+      {
+        continue;
+      }
+      String[] pending = pendingChanges.get(component);
+      if (pending == null)
+      {
+        pendingChanges.put(component, new String[] { from, to });
+      }
+      else if (Objects.equals(pending[0], to))
+      {
+        pendingChanges.remove(component);
+      }
+      else
+      {
+        pending[1] = to;
+      }
+    }
+    if (pendingChanges.isEmpty() || batcher == null)
+    {
+      return;
+    }
+    if (pendingSnapshot == null)
+    {
+      batcher.schedule(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          flush();
+        }
+      }, batchWindowMillis, TimeUnit.MILLISECONDS);
+    }
+    pendingSnapshot = snapshot;
+  }
+
+
+  /**
+   * Sends the transitions of the batching window that just ended to every
+   * URL.
+   */
+  private void flush()
+  {
+    byte[] body;
+    synchronized (this)
+    {
+      if (pendingChanges.isEmpty())
+      {
+        pendingSnapshot = null;
+        return;
+      }
+      try
+      {
+        body = mapper.writeValueAsBytes(
+            createNotification(pendingChanges, pendingSnapshot));
+      }
+      catch (IOException e)
+      {
+        // The status was already serialized when the snapshot was created.
+        body = null;
+      }
+      pendingChanges.clear();
+      pendingSnapshot = null;
+    }
+    if (body == null)
+    {
+      return;
+    }
+    notifications.incrementAndGet();
+    for (Endpoint endpoint : endpoints)
+    {
+      endpoint.enqueue(body);
+    }
+  }
+
+
+  /**
+   * Creates the JSON body of a notification.
+   */
+  static ObjectNode createNotification(Map<String, String[]> changes,
+                                       StatusSnapshot snapshot)
+      throws IOException
+  {
+    ObjectNode notification = mapper.createObjectNode();
+    notification.put("timestamp", snapshot.getTimestamp());
+    notification.put("httpStatusCode", snapshot.getHttpStatusCode());
+    ArrayNode changesNode = notification.putArray("changes");
+    for (Map.Entry<String, String[]> change : changes.entrySet())
+    {
+      ObjectNode changeNode = changesNode.addObject();
+      changeNode.put("component", change.getKey());
+      changeNode.put("from", change.getValue()[0]);
+      changeNode.put("to", change.getValue()[1]);
+    }
+    notification.set("status", mapper.readTree(snapshot.getJson()));
+    return notification;
+  }
+
+
+  /**
+   * Gets the state of each of a snapshot's components. A component is named
+   * by its section and, for sections with more than one component, its name.
+   */
+  static Map<String, String> getStates(StatusSnapshot snapshot)
+  {
+    Status status = snapshot.getStatus();
+    Map<String, String> states = new LinkedHashMap<>();
+    states.put("status", getState(snapshot.getHttpStatusCode()));
+    if (status.getServerStatus() != null)
+    {
+      states.put("server", status.getServerStatus());
+    }
+    for (ServletStatus servletStatus : status.getServletStatuses())
+    {
+      states.put("servlet:" + servletStatus.getName(),
+                 servletStatus.isEnabled() ? "enabled" : "disabled");
+    }
+    for (MonitorStatus monitorStatus : status.getMonitorStatuses())
+    {
+      states.put("monitor:" + monitorStatus.getName(),
+                 getState(monitorStatus.isAvailable()));
+    }
+    for (StoreAdapterStatus storeAdapterStatus :
+        status.getStoreAdapterStatuses())
+    {
+      states.put("storeAdapter:" + storeAdapterStatus.getName(),
+                 getState(storeAdapterStatus.isAvailable()));
+    }
+    for (LoadBalancingAlgorithmStatus lbaStatus :
+        status.getLoadBalancingAlgorithmStatuses())
+    {
+      states.put("loadBalancingAlgorithm:" + lbaStatus.getName(),
+                 getState(lbaStatus.isAvailable()));
+    }
+    if (status.getLoadStatus() != null)
+    {
+      states.put("load",
+                 status.getLoadStatus().isSaturated() ? "saturated" : "ok");
+    }
+    if (status.getReplicaStatuses() != null)
+    {
+      for (ReplicaStatus replicaStatus : status.getReplicaStatuses())
+      {
+        if (replicaStatus.getState() != null)
+        {
+          states.put("replica:" + replicaStatus.getBaseDN() + "#" +
+                         replicaStatus.getReplicaID(),
+                     replicaStatus.getState());
+        }
+      }
+    }
+    if (status.getDatabaseStatuses() != null)
+    {
+      for (DatabaseStatus databaseStatus : status.getDatabaseStatuses())
+      {
+        states.put("database:" + databaseStatus.getBackendID(),
+                   databaseStatus.isDegraded() ?
+                       STATE_DEGRADED : STATE_AVAILABLE);
+      }
+    }
+    if (status.getJvmStatus() != null)
+    {
+      states.put("jvm", status.getJvmStatus().isDegraded() ?
+          STATE_DEGRADED : STATE_AVAILABLE);
+    }
+    if (status.getError() != null)
+    {
+      // The message may change between evaluations of the same error, so it
+      // is only reported in the notification's status.
+      String probe = status.getError().getProbe();
+      states.put("error", probe != null ?
+          probe + ":" + STATE_UNAVAILABLE : STATE_UNAVAILABLE);
+    }
+    return states;
+  }
+
+
+  private static String getState(int httpStatusCode)
+  {
+    switch (httpStatusCode)
+    {
+      case StatusSnapshot.SC_AVAILABLE:
+        return STATE_AVAILABLE;
+      case StatusSnapshot.SC_DEGRADED:
+        return STATE_DEGRADED;
+      default:
+        return STATE_UNAVAILABLE;
+    }
+  }
+
+
+  private static String getState(boolean available)
+  {
+    return available ? STATE_AVAILABLE : STATE_UNAVAILABLE;
+  }
+
+
+  /**
+   * Gets the number of batches of transitions that have been sent.
+   *
+   * @return The number of notifications.
+   */
+  @JsonProperty("notifications")
+  public long getNotificationCount()
+  {
+    return notifications.get();
+  }
+
+
+  /**
+   * Gets the number of notifications that were delivered to a URL.
+   *
+   * @return The number of deliveries.
+   */
+  @JsonProperty("delivered")
+  public long getDeliveredCount()
+  {
+    return delivered.get();
+  }
+
+
+  /**
+   * Gets the number of notifications that could not be delivered to a URL
+   * after every retry.
+   *
+   * @return The number of failed deliveries.
+   */
+  @JsonProperty("failed")
+  public long getFailedCount()
+  {
+    return failed.get();
+  }
+
+
+  /**
+   * Gets the number of notifications that were dropped because a URL's
+   * queue was full.
+   *
+   * @return The number of dropped notifications.
+   */
+  @JsonProperty("dropped")
+  public long getDroppedCount()
+  {
+    return dropped.get();
+  }
+
+
+  /**
+   * Gets the number of notifications waiting to be delivered, across every
+   * URL.
+   *
+   * @return The number of queued notifications.
+   */
+  @JsonProperty("queued")
+  public int getQueuedCount()
+  {
+    int queued = 0;
+    for (Endpoint endpoint : endpoints)
+    {
+      queued += endpoint.queue.size();
+    }
+    return queued;
+  }
+
+
+  /**
+   * Gets the delay before a retry.
+   *
+   * @param retry
+   *          The retry number, starting at one.
+   */
+  long getRetryBackoffMillis(int retry)
+  {
+    long backoff = retryBackoffMillis;
+    for (int i = 1; i < retry && backoff < MAX_RETRY_BACKOFF_MILLIS; i++)
+    {
+      backoff *= 2;
+    }
+    return Math.min(backoff, MAX_RETRY_BACKOFF_MILLIS);
+  }
+
+
+  /**
+   * Posts a notification to a URL.
+   *
+   * @return True if the endpoint accepted the notification with a 2xx
+   *         response code.
+   */
+  private static boolean post(URL url, byte[] body)
+  {
+    HttpURLConnection connection = null;
+    try
+    {
+      connection = (HttpURLConnection) url.openConnection();
+      connection.setConnectTimeout(TIMEOUT_MILLIS);
+      connection.setReadTimeout(TIMEOUT_MILLIS);
+      connection.setRequestMethod("POST");
+      connection.setDoOutput(true);
+      connection.setFixedLengthStreamingMode(body.length);
+      connection.setRequestProperty("Content-Type", "application/json");
+      try (OutputStream out = connection.getOutputStream())
+      {
+        out.write(body);
+      }
+      int responseCode = connection.getResponseCode();
+      InputStream in = responseCode < 400 ?
+          connection.getInputStream() : connection.getErrorStream();
+      if (in != null)
+      {
+        // Read the response so that the connection can be reused.
+        try (InputStream response = in)
+        {
+          byte[] buffer = new byte[1024];
+          while (response.read(buffer) >= 0)
+          {
+            // Discard the response body.
+          }
+        }
+      }
+      return responseCode >= 200 && responseCode < 300;
+    }
+    catch (IOException | ClassCastException e)
+    {
+      return false;
+    }
+    finally
+    {
+      if (connection != null)
+      {
+        connection.disconnect();
+      }
+    }
+  }
+
+
+  /**
+   * A webhook URL, with its queue of notifications and its delivery thread.
+   */
+  private class Endpoint implements Runnable
+  {
+    private final URL url;
+    private final BlockingQueue<byte[]> queue;
+    private Thread thread;
+
+
+    Endpoint(URL url, int queueSize)
+    {
+      this.url = url;
+      this.queue = new ArrayBlockingQueue<>(queueSize);
+    }
+
+
+    void start()
+    {
+      thread = new Thread(this, "Status Webhook " + url.getHost() + ":" +
+          url.getPort());
+      thread.setDaemon(true);
+      thread.start();
+    }
+
+
+    void stop()
+    {
+      thread.interrupt();
+      thread = null;
+      queue.clear();
+    }
+
+
+    /**
+     * Adds a notification to the queue, dropping the oldest one if the
+     * queue is full.
+     */
+    void enqueue(byte[] body)
+    {
+      while (!queue.offer(body))
+      {
+        if (queue.poll() != null)
+        {
+          dropped.incrementAndGet();
+        }
+      }
+    }
+
+
+    /** {@inheritDoc} */
+    @Override
+    public void run()
+    {
+      try
+      {
+        while (!Thread.currentThread().isInterrupted())
+        {
+          deliver(queue.take());
+        }
+      }
+      catch (InterruptedException e)
+      {
+        // The notifier was stopped.
+      }
+    }
+
+
+    private void deliver(byte[] body) throws InterruptedException
+    {
+      for (int retry = 0; ; retry++)
+      {
+        if (retry > 0)
+        {
+          Thread.sleep(getRetryBackoffMillis(retry));
+        }
+        if (post(url, body))
+        {
+          delivered.incrementAndGet();
+          return;
+        }
+        if (retry >= maxRetries)
+        {
+          failed.incrementAndGet();
+          return;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.Objects;
+
+/**
+ * The efficiency of a backend's database cache and log cleaner. The cache
+ * hit percentage is calculated from the cache misses and fetches since the
+ * previous evaluation, rather than since the server started, so that it
+ * reflects the backend's current working set.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({ "backendID", "degraded", "weight", "cacheHitPercent",
+    "cachePercentFull", "cleanerBacklog" })
+public class DatabaseStatus
+{
+  private final String backendID;
+  private final boolean degraded;
+  private final int weight;
+  private final Double cacheHitPercent;
+  private final Long cachePercentFull;
+  private final Long cleanerBacklog;
+
+
+  /**
+   * Constructs a database status instance.
+   *
+   * @param backendID
+   *          The backend ID.
+   * @param degraded
+   *          Whether the database crossed a threshold.
+   * @param weight
+   *          The suggested load balancer weight, from 1 to 100.
+   * @param cacheHitPercent
+   *          The percentage of fetches since the previous evaluation that
+   *          were served from the cache, or {@code null} if it is not known.
+   * @param cachePercentFull
+   *          How full the cache is, as a percentage of its maximum size, or
+   *          {@code null} if it is not known.
+   * @param cleanerBacklog
+   *          The number of log files waiting to be cleaned, or {@code null}
+   *          if it is not known.
+   */
+  public DatabaseStatus(String backendID, boolean degraded, int weight,
+                        Double cacheHitPercent, Long cachePercentFull,
+                        Long cleanerBacklog)
+  {
+    this.backendID = backendID;
+    this.degraded = degraded;
+    this.weight = weight;
+    this.cacheHitPercent = cacheHitPercent;
+    this.cachePercentFull = cachePercentFull;
+    this.cleanerBacklog = cleanerBacklog;
+  }
+
+
+  /**
+   * Gets the backend ID.
+   *
+   * @return The backend ID.
+   */
+  @JsonProperty("backendID")
+  public String getBackendID()
+  {
+    return backendID;
+  }
+
+
+  /**
+   * Indicates whether the database crossed a threshold.
+   *
+   * @return True if the database is degraded.
+   */
+  @JsonProperty("degraded")
+  public boolean isDegraded()
+  {
+    return degraded;
+  }
+
+
+  /**
+   * Gets the suggested load balancer weight, which is 100 for a database
+   * within its thresholds, and is reduced in proportion to how far the
+   * database is beyond them.
+   *
+   * @return The weight, from 1 to 100.
+   */
+  @JsonProperty("weight")
+  public int getWeight()
+  {
+    return weight;
+  }
+
+
+  /**
+   * Gets the percentage of fetches since the previous evaluation that were
+   * served from the cache.
+   *
+   * @return The cache hit percentage, or {@code null} if it is not known,
+   *         such as on the first evaluation.
+   */
+  @JsonProperty("cacheHitPercent")
+  public Double getCacheHitPercent()
+  {
+    return cacheHitPercent;
+  }
+
+
+  /**
+   * Gets how full the cache is, as a percentage of its maximum size.
+   *
+   * @return The cache fill percentage, or {@code null} if it is not known.
+   */
+  @JsonProperty("cachePercentFull")
+  public Long getCachePercentFull()
+  {
+    return cachePercentFull;
+  }
+
+
+  /**
+   * Gets the number of log files waiting to be cleaned.
+   *
+   * @return The cleaner backlog, or {@code null} if it is not known.
+   */
+  @JsonProperty("cleanerBacklog")
+  public Long getCleanerBacklog()
+  {
+    return cleanerBacklog;
+  }
+
+
+  /**
+   * Indicates whether the database is within its thresholds.
+   *
+   * @return True if the database is not degraded.
+   */
+  @JsonIgnore
+  public boolean isAvailable()
+  {
+    return !degraded;
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  public boolean equals(Object o)
+  {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+
+    DatabaseStatus that = (DatabaseStatus) o;
+
+    return degraded == that.degraded &&
+        weight == that.weight &&
+        Objects.equals(backendID, that.backendID) &&
+        Objects.equals(cacheHitPercent, that.cacheHitPercent) &&
+        Objects.equals(cachePercentFull, that.cachePercentFull) &&
+        Objects.equals(cleanerBacklog, that.cleanerBacklog);
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  public int hashCode()
+  {
+    return Objects.hash(backendID, degraded, weight, cacheHitPercent,
+                        cachePercentFull, cleanerBacklog);
+  }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.Objects;
+
+/**
+ * The garbage collection activity and old generation occupancy of a
+ * server's JVM, and whether they have crossed the thresholds at which the
+ * server is degraded.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({ "degraded", "gcPercent", "gcMillis",
+    "longestRecentCollectionMillis", "oldGenPercentFull",
+    "maxDetectedPauseMillis" })
+public class JvmStatus
+{
+  private final boolean degraded;
+  private final Double gcPercent;
+  private final Long gcMillis;
+  private final Long longestRecentCollectionMillis;
+  private final Integer oldGenPercentFull;
+  private final Long maxDetectedPauseMillis;
+
+
+  /**
+   * Constructs a JVM status instance.
+   *
+   * @param degraded
+   *          Whether a JVM threshold was crossed.
+   * @param gcPercent
+   *          The percentage of time since the previous evaluation that was
+   *          spent in garbage collection, or {@code null} if it is not known.
+   * @param gcMillis
+   *          The time since the previous evaluation that was spent in garbage
+   *          collection, in milliseconds, or {@code null} if it is not known.
+   * @param longestRecentCollectionMillis
+   *          The duration of the longest of each collector's most recent
+   *          collection, in milliseconds, or {@code null} if it is not known.
+   * @param oldGenPercentFull
+   *          The occupancy of the old generation after its most recent
+   *          collection, as a percentage of its maximum size, or {@code null}
+   *          if it is not known.
+   * @param maxDetectedPauseMillis
+   *          The longest JVM pause that the server has detected since it
+   *          started, in milliseconds, or {@code null} if it is not known.
+   */
+  public JvmStatus(boolean degraded, Double gcPercent, Long gcMillis,
+                   Long longestRecentCollectionMillis,
+                   Integer oldGenPercentFull, Long maxDetectedPauseMillis)
+  {
+    this.degraded = degraded;
+    this.gcPercent = gcPercent;
+    this.gcMillis = gcMillis;
+    this.longestRecentCollectionMillis = longestRecentCollectionMillis;
+    this.oldGenPercentFull = oldGenPercentFull;
+    this.maxDetectedPauseMillis = maxDetectedPauseMillis;
+  }
+
+
+  /**
+   * Indicates whether a JVM threshold was crossed.
+   *
+   * @return True if the JVM is degraded; otherwise, false.
+   */
+  @JsonProperty("degraded")
+  public boolean isDegraded()
+  {
+    return degraded;
+  }
+
+
+  /**
+   * Gets the percentage of time since the previous evaluation that was spent
+   * in garbage collection.
+   *
+   * @return The garbage collection percentage, or {@code null} if it is not
+   *         known, such as on the first evaluation.
+   */
+  @JsonProperty("gcPercent")
+  public Double getGcPercent()
+  {
+    return gcPercent;
+  }
+
+
+  /**
+   * Gets the time since the previous evaluation that was spent in garbage
+   * collection.
+   *
+   * @return The garbage collection time in milliseconds, or {@code null} if
+   *         it is not known.
+   */
+  @JsonProperty("gcMillis")
+  public Long getGcMillis()
+  {
+    return gcMillis;
+  }
+
+
+  /**
+   * Gets the duration of the longest of each garbage collector's most recent
+   * collection.
+   *
+   * @return The collection duration in milliseconds, or {@code null} if it is
+   *         not known.
+   */
+  @JsonProperty("longestRecentCollectionMillis")
+  public Long getLongestRecentCollectionMillis()
+  {
+    return longestRecentCollectionMillis;
+  }
+
+
+  /**
+   * Gets the occupancy of the old generation after its most recent
+   * collection, as a percentage of its maximum size.
+   *
+   * @return The old generation percentage, or {@code null} if it is not
+   *         known.
+   */
+  @JsonProperty("oldGenPercentFull")
+  public Integer getOldGenPercentFull()
+  {
+    return oldGenPercentFull;
+  }
+
+
+  /**
+   * Gets the longest JVM pause that the server has detected since it
+   * started.
+   *
+   * @return The pause time in milliseconds, or {@code null} if it is not
+   *         known.
+   */
+  @JsonProperty("maxDetectedPauseMillis")
+  public Long getMaxDetectedPauseMillis()
+  {
+    return maxDetectedPauseMillis;
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  public boolean equals(Object o)
+  {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+
+    JvmStatus that = (JvmStatus) o;
+
+    return degraded == that.degraded &&
+        Objects.equals(gcPercent, that.gcPercent) &&
+        Objects.equals(gcMillis, that.gcMillis) &&
+        Objects.equals(longestRecentCollectionMillis,
+                       that.longestRecentCollectionMillis) &&
+        Objects.equals(oldGenPercentFull, that.oldGenPercentFull) &&
+        Objects.equals(maxDetectedPauseMillis, that.maxDetectedPauseMillis);
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  public int hashCode()
+  {
+    return Objects.hash(degraded, gcPercent, gcMillis,
+                        longestRecentCollectionMillis, oldGenPercentFull,
+                        maxDetectedPauseMillis);
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.Objects;
+
+/**
+ * The load on a server's work queue and worker threads, and whether it has
+ * crossed the thresholds at which the server should shed load.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({ "saturated", "queueSize", "percentBusy",
+    "drainRatePerSecond", "retryAfterSeconds" })
+public class LoadStatus
+{
+  private final boolean saturated;
+  private final long queueSize;
+  private final int percentBusy;
+  private final Double drainRate;
+  private final Integer retryAfterSeconds;
+
+
+  /**
+   * Constructs a load status instance.
+   *
+   * @param saturated
+   *          Whether a load shedding threshold was crossed.
+   * @param queueSize
+   *          The number of operations in the work queue.
+   * @param percentBusy
+   *          The percentage of worker threads that are busy.
+   * @param drainRate
+   *          The rate at which operations leave the work queue, per second,
+   *          or {@code null} if it is not known.
+   * @param retryAfterSeconds
+   *          The number of seconds after which clients should retry, or
+   *          {@code null} if the server is not saturated.
+   */
+  public LoadStatus(boolean saturated, long queueSize, int percentBusy,
+                    Double drainRate, Integer retryAfterSeconds)
+  {
+    this.saturated = saturated;
+    this.queueSize = queueSize;
+    this.percentBusy = percentBusy;
+    this.drainRate = drainRate;
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+
+  /**
+   * Indicates whether a load shedding threshold was crossed.
+   *
+   * @return True if the server is saturated; otherwise, false.
+   */
+  @JsonProperty("saturated")
+  public boolean isSaturated()
+  {
+    return saturated;
+  }
+
+
+  /**
+   * Gets the number of operations in the work queue.
+   *
+   * @return The work queue size.
+   */
+  @JsonProperty("queueSize")
+  public long getQueueSize()
+  {
+    return queueSize;
+  }
+
+
+  /**
+   * Gets the percentage of worker threads that are busy.
+   *
+   * @return The busy worker thread percentage.
+   */
+  @JsonProperty("percentBusy")
+  public int getPercentBusy()
+  {
+    return percentBusy;
+  }
+
+
+  /**
+   * Gets the rate at which operations leave the work queue.
+   *
+   * @return The drain rate per second, or {@code null} if it is not known.
+   */
+  @JsonProperty("drainRatePerSecond")
+  public Double getDrainRate()
+  {
+    return drainRate;
+  }
+
+
+  /**
+   * Gets the number of seconds after which clients should retry, which is
+   * sent as the Retry-After header of a degraded response.
+   *
+   * @return The retry delay in seconds, or {@code null} if the server is not
+   *         saturated.
+   */
+  @JsonProperty("retryAfterSeconds")
+  public Integer getRetryAfterSeconds()
+  {
+    return retryAfterSeconds;
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  public boolean equals(Object o)
+  {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+
+    LoadStatus that = (LoadStatus) o;
+
+    return saturated == that.saturated &&
+        queueSize == that.queueSize &&
+        percentBusy == that.percentBusy &&
+        Objects.equals(drainRate, that.drainRate) &&
+        Objects.equals(retryAfterSeconds, that.retryAfterSeconds);
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  public int hashCode()
+  {
+    return Objects.hash(saturated, queueSize, percentBusy, drainRate,
+                        retryAfterSeconds);
+  }
+}
@@ -26,6 +26,7 @@ public class MonitorStatus
   private String name;
   private boolean available = false;
   private ObjectNode monitorProperties;
+  private int hash;
 
 
   /**
@@ -72,6 +73,7 @@ public class MonitorStatus
   public MonitorStatus setAvailable(boolean available)
   {
     this.available = available;
+    this.hash = 0;
     return this;
   }
 
@@ -119,6 +121,7 @@ public class MonitorStatus
       }
     }
     this.monitorProperties = propertiesNode;
+    this.hash = 0;
     return this;
   }
 
@@ -157,14 +160,26 @@ public class MonitorStatus
     if (o == null || getClass() != o.getClass()) return false;
     MonitorStatus that = (MonitorStatus) o;
     return available == that.available &&
-        Objects.equals(name, that.name);
+        Objects.equals(name, that.name) &&
+        Objects.equals(monitorProperties, that.monitorProperties);
   }
 
 
-  /** {@inheritDoc} */
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The hash code includes every monitor property, so it is calculated once
+   * and cached until the status is modified.
+   */
   @Override
   public int hashCode()
   {
-    return Objects.hash(name, available);
+    int result = hash;
+    if (result == 0)
+    {
+      result = Objects.hash(name, available, monitorProperties);
+      hash = result;
+    }
+    return result;
   }
 }
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.Objects;
+
+/**
+ * The replication backlog of one replica of a replicated base DN, as seen by
+ * the replication server summary. Only this server's own replicas are
+ * checked against the replication thresholds; the other replicas in the
+ * topology are reported for context, without a state.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({ "baseDN", "replicaID", "ldapServer", "local", "state",
+    "backlog", "backlogAgeMillis" })
+public class ReplicaStatus
+{
+  /**
+   * Replica states.
+   */
+  public enum State
+  {
+    /** The replica's backlog is within the thresholds. */
+    AVAILABLE,
+
+    /** The replica's backlog crossed a degraded threshold. */
+    DEGRADED,
+
+    /** The replica's backlog crossed an unavailable threshold. */
+    UNAVAILABLE
+  }
+
+  private final String baseDN;
+  private final String replicaID;
+  private final String ldapServer;
+  private final boolean local;
+  private final State state;
+  private final Long backlog;
+  private final Long backlogAgeMillis;
+
+
+  /**
+   * Constructs a replica status instance.
+   *
+   * @param baseDN
+   *          The replicated base DN.
+   * @param replicaID
+   *          The replica ID.
+   * @param ldapServer
+   *          The address of the replica's server, or {@code null} if it is
+   *          not known.
+   * @param local
+   *          Whether the replica belongs to this server.
+   * @param state
+   *          The replica's state, or {@code null} if it was not checked.
+   * @param backlog
+   *          The number of changes that the replica has not yet replayed, or
+   *          {@code null} if it is not known.
+   * @param backlogAgeMillis
+   *          The age of the oldest change that the replica has not yet
+   *          replayed, or {@code null} if it is not known.
+   */
+  public ReplicaStatus(String baseDN, String replicaID, String ldapServer,
+                       boolean local, State state, Long backlog,
+                       Long backlogAgeMillis)
+  {
+    this.baseDN = baseDN;
+    this.replicaID = replicaID;
+    this.ldapServer = ldapServer;
+    this.local = local;
+    this.state = state;
+    this.backlog = backlog;
+    this.backlogAgeMillis = backlogAgeMillis;
+  }
+
+
+  /**
+   * Gets the replicated base DN.
+   *
+   * @return The base DN.
+   */
+  @JsonProperty("baseDN")
+  public String getBaseDN()
+  {
+    return baseDN;
+  }
+
+
+  /**
+   * Gets the replica ID.
+   *
+   * @return The replica ID.
+   */
+  @JsonProperty("replicaID")
+  public String getReplicaID()
+  {
+    return replicaID;
+  }
+
+
+  /**
+   * Gets the address of the replica's server.
+   *
+   * @return The server address, or {@code null} if it is not known.
+   */
+  @JsonProperty("ldapServer")
+  public String getLdapServer()
+  {
+    return ldapServer;
+  }
+
+
+  /**
+   * Indicates whether the replica belongs to this server.
+   *
+   * @return True if this is one of this server's replicas.
+   */
+  @JsonProperty("local")
+  public boolean isLocal()
+  {
+    return local;
+  }
+
+
+  /**
+   * Gets the replica's state; one of 'available', 'degraded', or
+   * 'unavailable'.
+   *
+   * @return The state, or {@code null} if the replica was not checked.
+   */
+  @JsonProperty("state")
+  public String getState()
+  {
+    return state != null ? state.name().toLowerCase() : null;
+  }
+
+
+  /**
+   * Indicates whether the replica's backlog is within the unavailable
+   * thresholds. A replica that was not checked is available.
+   *
+   * @return True if the replica is available or degraded.
+   */
+  @JsonIgnore
+  public boolean isAvailable()
+  {
+    return state != State.UNAVAILABLE;
+  }
+
+
+  /**
+   * Indicates whether the replica's backlog crossed a degraded threshold.
+   *
+   * @return True if the replica is degraded.
+   */
+  @JsonIgnore
+  public boolean isDegraded()
+  {
+    return state == State.DEGRADED;
+  }
+
+
+  /**
+   * Gets the number of changes that the replica has not yet replayed.
+   *
+   * @return The backlog, or {@code null} if it is not known.
+   */
+  @JsonProperty("backlog")
+  public Long getBacklog()
+  {
+    return backlog;
+  }
+
+
+  /**
+   * Gets the age of the oldest change that the replica has not yet
+   * replayed.
+   *
+   * @return The backlog age in milliseconds, or {@code null} if it is not
+   *         known.
+   */
+  @JsonProperty("backlogAgeMillis")
+  public Long getBacklogAgeMillis()
+  {
+    return backlogAgeMillis;
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  public boolean equals(Object o)
+  {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+
+    ReplicaStatus that = (ReplicaStatus) o;
+
+    return local == that.local &&
+        state == that.state &&
+        Objects.equals(baseDN, that.baseDN) &&
+        Objects.equals(replicaID, that.replicaID) &&
+        Objects.equals(ldapServer, that.ldapServer) &&
+        Objects.equals(backlog, that.backlog) &&
+        Objects.equals(backlogAgeMillis, that.backlogAgeMillis);
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  public int hashCode()
+  {
+    return Objects.hash(baseDN, replicaID, ldapServer, local, state, backlog,
+                        backlogAgeMillis);
+  }
+}
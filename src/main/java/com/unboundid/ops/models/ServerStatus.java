@@ -16,18 +16,22 @@
 package com.unboundid.ops.models;
 
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 
 /**
  * Overall health of the server.
  */
 public class ServerStatus
 {
+  /** The reasons of a status that has none. */
+  private static final String[] NO_REASONS = new String[0];
 
   /** Server status is unknown. */
-  static ServerStatus UNKNOWN = new ServerStatus(Status.UNKNOWN);
+  public static final ServerStatus UNKNOWN = new ServerStatus(Status.UNKNOWN);
+
+  /** The status servlet is still warming up. */
+  public static final ServerStatus STARTING =
+      new ServerStatus(Status.STARTING);
 
 
   /**
@@ -38,6 +42,9 @@ public class ServerStatus
     /** Server status is unknown. */
     UNKNOWN,
 
+    /** Server status has not been reported yet. */
+    STARTING,
+
     /** Server status is unavailable. */
     UNAVAILABLE,
 
@@ -45,7 +52,9 @@ public class ServerStatus
     DEGRADED,
 
     /** Server status is available. */
-    AVAILABLE
+    AVAILABLE;
+
+    private final String lowerCaseName = name().toLowerCase();
   }
 
 
@@ -71,14 +80,14 @@ public class ServerStatus
 
 
   /**
-   * Status string; one of 'unknown', 'available', 'degraded', or
+   * Status string; one of 'unknown', 'starting', 'available', 'degraded', or
    * 'unavailable'.
    *
    * @return status string.
    */
   public String getStatus()
   {
-    return status.name().toLowerCase();
+    return status.lowerCaseName;
   }
 
 
@@ -116,19 +125,27 @@ public class ServerStatus
   public ServerStatus(String[] unavailableAlerts,
                       String[] degradedAlerts)
   {
-    List<String> alertList = new ArrayList<>();
-    if (unavailableAlerts != null)
+    int unavailableCount =
+        unavailableAlerts != null ? unavailableAlerts.length : 0;
+    int degradedCount = degradedAlerts != null ? degradedAlerts.length : 0;
+    if (unavailableCount + degradedCount == 0)
     {
-      alertList.addAll(Arrays.asList(unavailableAlerts));
+      this.reasons = NO_REASONS;
     }
-
-    if (degradedAlerts != null)
+    else
     {
-      alertList.addAll(Arrays.asList(degradedAlerts));
+      this.reasons = new String[unavailableCount + degradedCount];
+      if (unavailableCount > 0)
+      {
+        System.arraycopy(unavailableAlerts, 0, reasons, 0, unavailableCount);
+      }
+      if (degradedCount > 0)
+      {
+        System.arraycopy(degradedAlerts, 0, reasons, unavailableCount,
+                         degradedCount);
+      }
     }
 
-    this.reasons = alertList.toArray(new String[alertList.size()]);
-
     if (unavailableAlerts != null && unavailableAlerts.length > 0)
     {
       this.status = Status.UNAVAILABLE;
@@ -152,6 +169,27 @@ public class ServerStatus
   private ServerStatus(Status status)
   {
     this.status  = status;
-    this.reasons = new String[0];
+    this.reasons = NO_REASONS;
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  public boolean equals(Object o)
+  {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+
+    ServerStatus that = (ServerStatus) o;
+
+    return status == that.status && Arrays.equals(reasons, that.reasons);
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  public int hashCode()
+  {
+    return 31 * status.hashCode() + Arrays.hashCode(reasons);
   }
 }
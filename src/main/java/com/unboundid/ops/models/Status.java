@@ -22,6 +22,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Reports availability information for a server.
@@ -29,12 +30,68 @@ import java.util.List;
 @JsonInclude(JsonInclude.Include.NON_EMPTY)
 public class Status
 {
+  /** The server status is unavailable, unknown, or starting. */
+  public static final int UNAVAILABLE_SERVER = 1;
+
+  /** A servlet is not enabled. */
+  public static final int UNAVAILABLE_SERVLET = 1 << 1;
+
+  /** A monitor entry is not available. */
+  public static final int UNAVAILABLE_MONITOR = 1 << 2;
+
+  /** A store adapter is not available. */
+  public static final int UNAVAILABLE_STORE_ADAPTER = 1 << 3;
+
+  /** A load balancing algorithm is not available. */
+  public static final int UNAVAILABLE_LOAD_BALANCING_ALGORITHM = 1 << 4;
+
+  /** A replica is unavailable. */
+  public static final int UNAVAILABLE_REPLICA = 1 << 5;
+
+  /** An error affects availability. */
+  public static final int UNAVAILABLE_ERROR = 1 << 6;
+
+  /** The server status is degraded. */
+  public static final int DEGRADED_SERVER = 1 << 7;
+
+  /** The server's work queue is saturated. */
+  public static final int DEGRADED_LOAD = 1 << 8;
+
+  /** A replica is degraded. */
+  public static final int DEGRADED_REPLICA = 1 << 9;
+
+  /** A database is degraded. */
+  public static final int DEGRADED_DATABASE = 1 << 10;
+
+  /** The JVM is degraded. */
+  public static final int DEGRADED_JVM = 1 << 11;
+
+  /** The flags that make the server unavailable. */
+  private static final int UNAVAILABLE_MASK = UNAVAILABLE_SERVER |
+      UNAVAILABLE_SERVLET | UNAVAILABLE_MONITOR | UNAVAILABLE_STORE_ADAPTER |
+      UNAVAILABLE_LOAD_BALANCING_ALGORITHM | UNAVAILABLE_REPLICA |
+      UNAVAILABLE_ERROR;
+
+  /**
+   * The flags of the probes that make an otherwise available server
+   * degraded.
+   */
+  private static final int DEGRADED_PROBE_MASK = DEGRADED_LOAD |
+      DEGRADED_REPLICA | DEGRADED_DATABASE | DEGRADED_JVM;
+
   private ServerStatus serverStatus;
   private List<ServletStatus> servletStatuses = new ArrayList<>();
   private List<MonitorStatus> monitorStatuses = new ArrayList<>();
   private List<StoreAdapterStatus> storeAdapterStatuses = new ArrayList<>();
   private List<LoadBalancingAlgorithmStatus> lbaStatuses = new ArrayList<>();
+  private LoadStatus loadStatus;
+  private List<ReplicaStatus> replicaStatuses;
+  private List<DatabaseStatus> databaseStatuses;
+  private JvmStatus jvmStatus;
+  private List<StatusError> errors = new ArrayList<>();
   private StatusError error;
+  private int hash;
+  private int availability = -1;
 
 
   private Status()
@@ -63,6 +120,38 @@ public class Status
                               List<MonitorStatus> monitorStatuses,
                               List<StoreAdapterStatus> storeAdapterStatuses,
                               List<LoadBalancingAlgorithmStatus> lbaStatuses)
+  {
+    return create(serverStatus, servletStatuses, monitorStatuses,
+                  storeAdapterStatuses, lbaStatuses,
+                  new ArrayList<StatusError>());
+  }
+
+
+  /**
+   * Creates a status instance from partial results, for a server whose
+   * status was evaluated but for which some of the status probes failed.
+   *
+   * @param serverStatus
+   *          The server's operational status, or {@code null} if it was not
+   *          evaluated.
+   * @param servletStatuses
+   *          HTTP servlet statuses.
+   * @param monitorStatuses
+   *          Monitor entry statuses.
+   * @param storeAdapterStatuses
+   *          Store adapter statuses.
+   * @param lbaStatuses
+   *          LDAP load balancing algorithm statuses.
+   * @param errors
+   *          Errors for any status probes that could not be evaluated.
+   * @return A status instance.
+   */
+  public static Status create(ServerStatus serverStatus,
+                              List<ServletStatus> servletStatuses,
+                              List<MonitorStatus> monitorStatuses,
+                              List<StoreAdapterStatus> storeAdapterStatuses,
+                              List<LoadBalancingAlgorithmStatus> lbaStatuses,
+                              List<StatusError> errors)
   {
     Status status = new Status();
     status.serverStatus = serverStatus;
@@ -70,10 +159,80 @@ public class Status
     status.servletStatuses = servletStatuses;
     status.storeAdapterStatuses = storeAdapterStatuses;
     status.lbaStatuses = lbaStatuses;
+    status.errors = errors;
     return status;
   }
 
 
+  /**
+   * Sets the load on the server's work queue, if load shedding is enabled.
+   *
+   * @param loadStatus
+   *          The load status, or {@code null} if it was not evaluated.
+   * @return This status instance.
+   */
+  public Status setLoadStatus(LoadStatus loadStatus)
+  {
+    this.loadStatus = loadStatus;
+    this.hash = 0;
+    this.availability = -1;
+    return this;
+  }
+
+
+  /**
+   * Sets the replication backlog of the server's replicas, if replication
+   * thresholds are configured.
+   *
+   * @param replicaStatuses
+   *          The replica statuses, or {@code null} if they were not
+   *          evaluated.
+   * @return This status instance.
+   */
+  public Status setReplicaStatuses(List<ReplicaStatus> replicaStatuses)
+  {
+    this.replicaStatuses = replicaStatuses;
+    this.hash = 0;
+    this.availability = -1;
+    return this;
+  }
+
+
+  /**
+   * Sets the efficiency of the backends' database caches and log cleaners,
+   * if database thresholds are configured.
+   *
+   * @param databaseStatuses
+   *          The database statuses, or {@code null} if they were not
+   *          evaluated.
+   * @return This status instance.
+   */
+  public Status setDatabaseStatuses(List<DatabaseStatus> databaseStatuses)
+  {
+    this.databaseStatuses = databaseStatuses;
+    this.hash = 0;
+    this.availability = -1;
+    return this;
+  }
+
+
+  /**
+   * Sets the garbage collection activity of the server's JVM, if JVM
+   * thresholds are configured.
+   *
+   * @param jvmStatus
+   *          The JVM status, or {@code null} if it was not evaluated.
+   * @return This status instance.
+   */
+  public Status setJvmStatus(JvmStatus jvmStatus)
+  {
+    this.jvmStatus = jvmStatus;
+    this.hash = 0;
+    this.availability = -1;
+    return this;
+  }
+
+
   /**
    * Creates a status instance for a server that is unavailable.
    *
@@ -92,14 +251,15 @@ public class Status
 
   /**
    * Gets the overall operational status of the server; one of
-   * 'unknown', 'available', 'degraded', or 'unavailable'.
+   * 'unknown', 'starting', 'available', 'degraded', or 'unavailable'.
    *
-   * @return server operational status.
+   * @return server operational status, or {@code null} if the server
+   *         section was not included.
    */
   @JsonProperty("server")
   public String getServerStatus()
   {
-    return serverStatus.getStatus();
+    return serverStatus != null ? serverStatus.getStatus() : null;
   }
 
 
@@ -112,7 +272,7 @@ public class Status
   @JsonProperty("alertType")
   public List<String> getServerAlerts()
   {
-    return serverStatus.getAlertTypes() != null ?
+    return serverStatus != null && serverStatus.getAlertTypes() != null ?
             Arrays.asList(serverStatus.getAlertTypes()) : null;
   }
 
@@ -166,14 +326,118 @@ public class Status
 
 
   /**
-   * Gets an error status.
+   * Gets the load on the server's work queue.
+   *
+   * @return The load status, or {@code null} if load shedding is not enabled
+   *         or the load section was not included.
+   */
+  @JsonProperty("load")
+  public LoadStatus getLoadStatus()
+  {
+    return loadStatus;
+  }
+
+
+  /**
+   * Gets the replication backlog of the server's replicas, and of the other
+   * replicas in the topology.
+   *
+   * @return The replica statuses, or {@code null} if replication thresholds
+   *         are not configured or the replication section was not included.
+   */
+  @JsonProperty("replication")
+  public List<ReplicaStatus> getReplicaStatuses()
+  {
+    return replicaStatuses;
+  }
+
+
+  /**
+   * Gets the efficiency of the backends' database caches and log cleaners.
+   *
+   * @return The database statuses, or {@code null} if database thresholds
+   *         are not configured or the database section was not included.
+   */
+  @JsonProperty("database")
+  public List<DatabaseStatus> getDatabaseStatuses()
+  {
+    return databaseStatuses;
+  }
+
+
+  /**
+   * Gets the garbage collection activity and old generation occupancy of the
+   * server's JVM.
    *
-   * @return The error status.
+   * @return The JVM status, or {@code null} if JVM thresholds are not
+   *         configured or the JVM section was not included.
+   */
+  @JsonProperty("jvm")
+  public JvmStatus getJvmStatus()
+  {
+    return jvmStatus;
+  }
+
+
+  /**
+   * Gets the suggested load balancer weight of the server, which is the
+   * lowest weight of its backends' databases.
+   *
+   * @return The weight, from 1 to 100, or {@code null} if the database
+   *         section was not evaluated.
+   */
+  @JsonProperty("weight")
+  public Integer getWeight()
+  {
+    if (databaseStatuses == null || databaseStatuses.isEmpty())
+    {
+      return null;
+    }
+    int weight = Integer.MAX_VALUE;
+    for (DatabaseStatus databaseStatus : databaseStatuses)
+    {
+      weight = Math.min(weight, databaseStatus.getWeight());
+    }
+    return weight;
+  }
+
+
+  /**
+   * Gets an error status. If the status could not be evaluated at all, then
+   * this is the error that prevented it. Otherwise, this is the first status
+   * probe error that affects availability, if any.
+   *
+   * @return The error status, or {@code null} if there is no error that
+   *         affects availability.
    */
   @JsonProperty("error")
   public StatusError getError()
   {
-    return error;
+    if (error != null)
+    {
+      return error;
+    }
+    for (StatusError probeError : errors)
+    {
+      if (probeError.affectsAvailability())
+      {
+        return probeError;
+      }
+    }
+    return null;
+  }
+
+
+  /**
+   * Gets the errors for any status probes that could not be evaluated,
+   * including errors that do not affect availability.
+   *
+   * @return Status probe errors.
+   */
+  @JsonProperty("errors")
+  public List<StatusError> getErrors()
+  {
+    return errors;
   }
 
 
@@ -186,64 +450,162 @@ public class Status
   @JsonIgnore
   public boolean isOK()
   {
-    boolean ok = true;
+    return getAvailability() == 0;
+  }
+
+
+  /**
+   * Returns whether or not this server's operational status is
+   * considered degraded, which can occur, for example, if the
+   * host is low on disk space, or if, while it is otherwise available, its
+   * work queue is saturated, one of its replicas has fallen behind, one of
+   * its database caches or log cleaners crosses a threshold, or its garbage
+   * collection crosses a threshold.
+   *
+   * @return True if the server is degraded; otherwise, false.
+   */
+  @JsonIgnore
+  public boolean isDegraded()
+  {
+    int flags = getAvailability();
+    if ((flags & DEGRADED_SERVER) != 0)
+    {
+      return true;
+    }
+    return (flags & DEGRADED_PROBE_MASK) != 0 &&
+        (flags & UNAVAILABLE_MASK) == 0;
+  }
+
 
-    if (! serverStatus.isAvailable())
+  /**
+   * Gets a bit mask with a flag for each category of component that makes
+   * the server unavailable or degraded: the {@code UNAVAILABLE_*} flags for
+   * the server, servlets, monitor entries, store adapters, load balancing
+   * algorithms, replicas, and errors, and the {@code DEGRADED_*} flags for
+   * the server, load, replicas, databases, and JVM. The mask is calculated
+   * once and cached until one of the status's setters is called, so that
+   * availability and changes in availability are determined with a few bit
+   * operations.
+   *
+   * @return The availability flags, or zero if the server is available.
+   */
+  @JsonIgnore
+  public int getAvailability()
+  {
+    int flags = availability;
+    if (flags < 0)
     {
-      ok = false;
+      flags = calculateAvailability();
+      availability = flags;
     }
+    return flags;
+  }
 
-    for (ServletStatus servletStatus : servletStatuses)
+
+  private int calculateAvailability()
+  {
+    int flags = 0;
+    if (serverStatus != null)
     {
-      if (!servletStatus.isEnabled())
+      if (serverStatus.isDegraded())
+      {
+        flags |= DEGRADED_SERVER;
+      }
+      else if (!serverStatus.isAvailable())
       {
-        ok = false;
+        flags |= UNAVAILABLE_SERVER;
       }
     }
-    for (MonitorStatus monitorStatus : monitorStatuses)
+    for (int i = 0; i < servletStatuses.size(); i++)
     {
-      if (!monitorStatus.isAvailable())
+      if (!servletStatuses.get(i).isEnabled())
       {
-        ok = false;
+        flags |= UNAVAILABLE_SERVLET;
       }
     }
-    for (StoreAdapterStatus storeAdapterStatus : storeAdapterStatuses)
+    for (int i = 0; i < monitorStatuses.size(); i++)
     {
-      if (!storeAdapterStatus.isAvailable())
+      if (!monitorStatuses.get(i).isAvailable())
       {
-        ok = false;
+        flags |= UNAVAILABLE_MONITOR;
       }
     }
-    for (LoadBalancingAlgorithmStatus lbaStatus : lbaStatuses)
+    for (int i = 0; i < storeAdapterStatuses.size(); i++)
     {
-      if (!lbaStatus.isAvailable())
+      if (!storeAdapterStatuses.get(i).isAvailable())
       {
-        ok = false;
+        flags |= UNAVAILABLE_STORE_ADAPTER;
       }
     }
-    if (error != null)
+    for (int i = 0; i < lbaStatuses.size(); i++)
     {
-      ok = false;
+      if (!lbaStatuses.get(i).isAvailable())
+      {
+        flags |= UNAVAILABLE_LOAD_BALANCING_ALGORITHM;
+      }
+    }
+    if (loadStatus != null && loadStatus.isSaturated())
+    {
+      flags |= DEGRADED_LOAD;
     }
-    return ok;
+    if (replicaStatuses != null)
+    {
+      for (int i = 0; i < replicaStatuses.size(); i++)
+      {
+        ReplicaStatus replicaStatus = replicaStatuses.get(i);
+        if (!replicaStatus.isAvailable())
+        {
+          flags |= UNAVAILABLE_REPLICA;
+        }
+        else if (replicaStatus.isDegraded())
+        {
+          flags |= DEGRADED_REPLICA;
+        }
+      }
+    }
+    if (databaseStatuses != null)
+    {
+      for (int i = 0; i < databaseStatuses.size(); i++)
+      {
+        if (databaseStatuses.get(i).isDegraded())
+        {
+          flags |= DEGRADED_DATABASE;
+        }
+      }
+    }
+    if (jvmStatus != null && jvmStatus.isDegraded())
+    {
+      flags |= DEGRADED_JVM;
+    }
+    if (getError() != null)
+    {
+      flags |= UNAVAILABLE_ERROR;
+    }
+    return flags;
   }
 
 
   /**
-   * Returns whether or not this server's operational status is
-   * considered degraded, which can occur, for example, if the
-   * host is low on disk space.
+   * Gets the number of seconds after which clients should retry, if the
+   * server is shedding load.
    *
-   * @return True if the server is degraded; otherwise, false.
+   * @return The retry delay in seconds, or {@code null} if the server is not
+   *         saturated or load shedding is not enabled.
    */
   @JsonIgnore
-  public boolean isDegraded()
+  public Integer getRetryAfterSeconds()
   {
-    return serverStatus.isDegraded();
+    return loadStatus != null ? loadStatus.getRetryAfterSeconds() : null;
   }
 
 
-  /** {@inheritDoc} */
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Two statuses are equal if every section of their content is equal, so
+   * that a status that has not changed since the previous evaluation can be
+   * recognized and reused.
+   */
   @Override
   public boolean equals(Object o)
   {
@@ -252,28 +614,40 @@ public class Status
 
     Status that = (Status) o;
 
-    return !(servletStatuses != null ?
-            !servletStatuses.equals(that.servletStatuses) :
-            that.servletStatuses != null) &&
-            !(storeAdapterStatuses != null ?
-                    !storeAdapterStatuses.equals(that.storeAdapterStatuses) :
-                    that.storeAdapterStatuses != null) &&
-            !(lbaStatuses != null ? !lbaStatuses.equals(that.lbaStatuses) :
-                    that.lbaStatuses != null) && !(error != null ?
-            !error.equals(that.error) : that.error != null);
-
+    return hashCode() == that.hashCode() &&
+        Objects.equals(serverStatus, that.serverStatus) &&
+        Objects.equals(servletStatuses, that.servletStatuses) &&
+        Objects.equals(monitorStatuses, that.monitorStatuses) &&
+        Objects.equals(storeAdapterStatuses, that.storeAdapterStatuses) &&
+        Objects.equals(lbaStatuses, that.lbaStatuses) &&
+        Objects.equals(loadStatus, that.loadStatus) &&
+        Objects.equals(replicaStatuses, that.replicaStatuses) &&
+        Objects.equals(databaseStatuses, that.databaseStatuses) &&
+        Objects.equals(jvmStatus, that.jvmStatus) &&
+        Objects.equals(errors, that.errors) &&
+        Objects.equals(error, that.error);
   }
 
 
-  /** {@inheritDoc} */
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The hash code is calculated once and cached until one of the status's
+   * setters is called. The lists that a status is created with must not be
+   * modified afterwards.
+   */
   @Override
   public int hashCode()
   {
-    int result = servletStatuses != null ? servletStatuses.hashCode() : 0;
-    result = 31 * result + (storeAdapterStatuses != null ?
-            storeAdapterStatuses.hashCode() : 0);
-    result = 31 * result + (lbaStatuses != null ? lbaStatuses.hashCode() : 0);
-    result = 31 * result + (error != null ? error.hashCode() : 0);
+    int result = hash;
+    if (result == 0)
+    {
+      result = Objects.hash(serverStatus, servletStatuses, monitorStatuses,
+                            storeAdapterStatuses, lbaStatuses, loadStatus,
+                            replicaStatuses, databaseStatuses, jvmStatus,
+                            errors, error);
+      hash = result;
+    }
     return result;
   }
 }
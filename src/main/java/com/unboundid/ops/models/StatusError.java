@@ -15,15 +15,24 @@
  */
 package com.unboundid.ops.models;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Objects;
+
 /**
  * A status error.
  *
  * @author Jacob Childress
  */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class StatusError
 {
   private final Throwable cause;
   private final String message;
+  private final String probe;
+  private final boolean affectsAvailability;
+  private final String circuitBreaker;
 
 
   /**
@@ -33,9 +42,34 @@ public class StatusError
    *          The {@link Throwable} that this object represents.
    */
   public StatusError(Throwable throwable)
+  {
+    this(null, throwable, true, null);
+  }
+
+
+  /**
+   * Constructor for an error that occurred while evaluating one of the
+   * probes that determine a server's status.
+   *
+   * @param probe
+   *          The name of the probe that could not be evaluated.
+   * @param throwable
+   *          The {@link Throwable} that this object represents.
+   * @param affectsAvailability
+   *          Whether the error causes the server to be considered
+   *          unavailable.
+   * @param circuitBreaker
+   *          The state of the probe's circuit breaker, or {@code null} if the
+   *          probe does not have a circuit breaker.
+   */
+  public StatusError(String probe, Throwable throwable,
+                     boolean affectsAvailability, String circuitBreaker)
   {
     this.cause = throwable;
     this.message = throwable.getMessage();
+    this.probe = probe;
+    this.affectsAvailability = affectsAvailability;
+    this.circuitBreaker = circuitBreaker;
   }
 
 
@@ -61,6 +95,47 @@ public class StatusError
   }
 
 
+  /**
+   * Gets the name of the probe that could not be evaluated.
+   *
+   * @return The probe name, or {@code null} if the error is not specific to
+   *         one probe.
+   */
+  @JsonProperty("probe")
+  public String getProbe()
+  {
+    return probe;
+  }
+
+
+  /**
+   * Indicates whether the error causes the server to be considered
+   * unavailable.
+   *
+   * @return True if the error affects availability; otherwise, false.
+   */
+  @JsonProperty("affectsAvailability")
+  public boolean affectsAvailability()
+  {
+    return affectsAvailability;
+  }
+
+
+  /**
+   * Gets the state of the probe's circuit breaker. If the state is 'open',
+   * then the probe was not evaluated, and this is the error from its last
+   * evaluation.
+   *
+   * @return The circuit breaker state, or {@code null} if the probe does
+   *         not have a circuit breaker.
+   */
+  @JsonProperty("circuitBreaker")
+  public String getCircuitBreaker()
+  {
+    return circuitBreaker;
+  }
+
+
   /** {@inheritDoc} */
   @Override
   public boolean equals(Object o)
@@ -70,7 +145,10 @@ public class StatusError
 
     StatusError error = (StatusError) o;
 
-    return message.equals(error.message);
+    return affectsAvailability == error.affectsAvailability &&
+        Objects.equals(message, error.message) &&
+        Objects.equals(probe, error.probe) &&
+        Objects.equals(circuitBreaker, error.circuitBreaker);
   }
 
 
@@ -78,6 +156,6 @@ public class StatusError
   @Override
   public int hashCode()
   {
-    return message.hashCode();
+    return Objects.hash(message, probe, affectsAvailability, circuitBreaker);
   }
 }
@@ -0,0 +1,323 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops.tools;
+
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.LDAPInterface;
+import com.unboundid.ops.DatabaseCriteria;
+import com.unboundid.ops.JvmCriteria;
+import com.unboundid.ops.LoadSheddingCriteria;
+import com.unboundid.ops.ReplicationCriteria;
+import com.unboundid.ops.MonitorAvailabilityCriteria;
+import com.unboundid.ops.RemoteServerConfig;
+import com.unboundid.ops.StatusClient;
+import com.unboundid.util.args.ArgumentException;
+import com.unboundid.util.args.ArgumentParser;
+import com.unboundid.util.args.BooleanArgument;
+import com.unboundid.util.args.DNArgument;
+import com.unboundid.util.args.DurationArgument;
+import com.unboundid.util.args.IntegerArgument;
+import com.unboundid.util.args.StringArgument;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The arguments shared by the command-line tools that read status from a
+ * remote server: connection security and credentials, and the servlets and
+ * monitor entries that determine availability.
+ */
+class ConnectionArguments
+{
+  private BooleanArgument useSSL;
+  private BooleanArgument trustAll;
+  private DNArgument bindDN;
+  private StringArgument bindPassword;
+  private StringArgument monitoredServlet;
+  private StringArgument monitor;
+  private StringArgument optionalProbe;
+  private IntegerArgument loadSheddingQueueSize;
+  private IntegerArgument loadSheddingPercentBusy;
+  private DurationArgument maxRetryAfter;
+  private IntegerArgument replicationDegradedBacklog;
+  private DurationArgument replicationDegradedAge;
+  private IntegerArgument replicationUnavailableBacklog;
+  private DurationArgument replicationUnavailableAge;
+  private IntegerArgument databaseMinCacheHitPercent;
+  private IntegerArgument databaseMaxCachePercentFull;
+  private IntegerArgument databaseMaxCleanerBacklog;
+  private IntegerArgument jvmMaxGcPercent;
+  private DurationArgument jvmMaxCollectionDuration;
+
+
+  /**
+   * Adds the connection and availability criteria arguments to a parser.
+   *
+   * @param parser
+   *          The argument parser.
+   * @throws ArgumentException
+   *           If an argument cannot be added.
+   */
+  void addArguments(ArgumentParser parser) throws ArgumentException
+  {
+    useSSL = new BooleanArgument('Z', "useSSL",
+        "Use SSL when communicating with the directory server.");
+    parser.addArgument(useSSL);
+    trustAll = new BooleanArgument('X', "trustAll",
+        "Trust any certificate presented by the directory server.");
+    parser.addArgument(trustAll);
+    bindDN = new DNArgument('D', "bindDN", false, 1, "{dn}",
+        "The DN to use to bind to the directory server. By default, " +
+            "connections are unauthenticated.");
+    parser.addArgument(bindDN);
+    bindPassword = new StringArgument('w', "bindPassword", false, 1,
+        "{password}", "The password to use to bind to the directory server.");
+    bindPassword.setSensitive(true);
+    parser.addArgument(bindPassword);
+    parser.addDependentArgumentSet(bindDN, bindPassword);
+
+    monitoredServlet = new StringArgument(null, "monitoredServlet", false, 0,
+        "{servletName}",
+        "The name of a servlet that is expected to be enabled. " +
+            "By default, no servlets are monitored.");
+    parser.addArgument(monitoredServlet);
+    monitor = new StringArgument(null, "monitor", false, 0,
+        "{monitorEntryName:availabilityAttribute:availabilityValues}",
+        "The RDN value of an entry in cn=monitor that should be checked " +
+            "for availability, the attribute of that entry that reports " +
+            "availability, and a comma-separated list of acceptable values, " +
+            "each separated by a colon (':') character. By default, no " +
+            "monitor entries are monitored.");
+    monitor.setValueRegex(MonitorAvailabilityCriteria.MONITOR_ARG_RX,
+        "For example, 'Consent Service Monitor:is-available:true'");
+    parser.addArgument(monitor);
+    optionalProbe = new StringArgument(null, "optionalProbe", false, 0,
+        "{probe}",
+        "The name of a status probe whose failure is reported but does not " +
+            "make the server unavailable. The probe is one of 'servlets', " +
+            "'store-adapters', 'load-balancing-algorithms', 'load', " +
+            "'replication', 'database', or 'jvm', or the name of a monitor " +
+            "entry given by a --monitor argument. By default, the failure of any " +
+            "probe makes the server unavailable.");
+    parser.addArgument(optionalProbe);
+    loadSheddingQueueSize = new IntegerArgument(null, "loadSheddingQueueSize",
+        false, 1, "{count}",
+        "The work queue size at which the server is reported as degraded " +
+            "with a Retry-After header. By default, the work queue size " +
+            "is not considered.",
+        1, Integer.MAX_VALUE);
+    parser.addArgument(loadSheddingQueueSize);
+    loadSheddingPercentBusy = new IntegerArgument(null,
+        "loadSheddingPercentBusy", false, 1, "{percent}",
+        "The percentage of busy worker threads at which the server is " +
+            "reported as degraded with a Retry-After header. By default, " +
+            "the worker threads are not considered.",
+        1, 100);
+    parser.addArgument(loadSheddingPercentBusy);
+    maxRetryAfter = new DurationArgument(null, "maxRetryAfter", false,
+        "{duration}",
+        "The longest delay that the Retry-After header of a saturated " +
+            "server reports. The default is " +
+            LoadSheddingCriteria.DEFAULT_MAX_RETRY_AFTER_SECONDS +
+            " seconds.",
+        (long) LoadSheddingCriteria.DEFAULT_MAX_RETRY_AFTER_SECONDS,
+        TimeUnit.SECONDS, 1L, TimeUnit.SECONDS, null, null);
+    parser.addArgument(maxRetryAfter);
+    replicationDegradedBacklog = new IntegerArgument(null,
+        "replicationDegradedBacklog", false, 1, "{count}",
+        "The replication backlog of one of the server's replicas at which " +
+            "the server is reported as degraded.",
+        1, Integer.MAX_VALUE);
+    parser.addArgument(replicationDegradedBacklog);
+    replicationDegradedAge = new DurationArgument(null,
+        "replicationDegradedAge", false, "{duration}",
+        "The age of the oldest change in the replication backlog of one " +
+            "of the server's replicas at which the server is reported as " +
+            "degraded.");
+    parser.addArgument(replicationDegradedAge);
+    replicationUnavailableBacklog = new IntegerArgument(null,
+        "replicationUnavailableBacklog", false, 1, "{count}",
+        "The replication backlog of one of the server's replicas at which " +
+            "the server is reported as unavailable.",
+        1, Integer.MAX_VALUE);
+    parser.addArgument(replicationUnavailableBacklog);
+    replicationUnavailableAge = new DurationArgument(null,
+        "replicationUnavailableAge", false, "{duration}",
+        "The age of the oldest change in the replication backlog of one " +
+            "of the server's replicas at which the server is reported as " +
+            "unavailable.");
+    parser.addArgument(replicationUnavailableAge);
+    databaseMinCacheHitPercent = new IntegerArgument(null,
+        "databaseMinCacheHitPercent", false, 1, "{percent}",
+        "The percentage of database fetches since the previous evaluation " +
+            "that must be served from a backend's database cache for the " +
+            "server not to be reported as degraded.",
+        1, 100);
+    parser.addArgument(databaseMinCacheHitPercent);
+    databaseMaxCachePercentFull = new IntegerArgument(null,
+        "databaseMaxCachePercentFull", false, 1, "{percent}",
+        "The database cache fill percentage at which the server is " +
+            "reported as degraded.",
+        1, 100);
+    parser.addArgument(databaseMaxCachePercentFull);
+    databaseMaxCleanerBacklog = new IntegerArgument(null,
+        "databaseMaxCleanerBacklog", false, 1, "{count}",
+        "The number of database log files waiting to be cleaned at which " +
+            "the server is reported as degraded.",
+        1, Integer.MAX_VALUE);
+    parser.addArgument(databaseMaxCleanerBacklog);
+    jvmMaxGcPercent = new IntegerArgument(null, "jvmMaxGcPercent", false, 1,
+        "{percent}",
+        "The percentage of time between two evaluations of a server's " +
+            "status that its JVM may spend in garbage collection before the " +
+            "server is reported as degraded. It is only known when the " +
+            "status is evaluated repeatedly in the background.",
+        1, 100);
+    parser.addArgument(jvmMaxGcPercent);
+    jvmMaxCollectionDuration = new DurationArgument(null,
+        "jvmMaxCollectionDuration", false, "{duration}",
+        "The duration of a garbage collector's most recent collection at " +
+            "which the server is reported as degraded.");
+    parser.addArgument(jvmMaxCollectionDuration);
+  }
+
+
+  /**
+   * Creates a remote server configuration for a server, using the provided
+   * connection security and credential arguments.
+   *
+   * @param address
+   *          The server address, in the form 'host:port'.
+   * @return A remote server configuration.
+   */
+  RemoteServerConfig createRemoteServerConfig(String address)
+  {
+    RemoteServerConfig config = RemoteServerConfig.create(address)
+        .setUseSSL(useSSL.isPresent())
+        .setTrustAll(trustAll.isPresent());
+    if (bindDN.isPresent())
+    {
+      config.setCredentials(bindDN.getValue().toString(),
+                            bindPassword.getValue());
+    }
+    return config;
+  }
+
+
+  /**
+   * Creates a status client that applies the provided availability criteria.
+   *
+   * @param connection
+   *          The connection to use to read the server's status.
+   * @return A status client.
+   * @throws LDAPException
+   *           If a monitor entry DN cannot be constructed, or if an optional
+   *           probe name is not valid.
+   */
+  StatusClient createStatusClient(LDAPInterface connection)
+      throws LDAPException
+  {
+    LoadSheddingCriteria loadShedding = null;
+    if (loadSheddingQueueSize.isPresent() ||
+        loadSheddingPercentBusy.isPresent())
+    {
+      loadShedding = LoadSheddingCriteria.create(
+          loadSheddingQueueSize.isPresent() ?
+              loadSheddingQueueSize.getValue() : 0,
+          loadSheddingPercentBusy.isPresent() ?
+              loadSheddingPercentBusy.getValue() : 0)
+          .setMaxRetryAfterSeconds(
+              maxRetryAfter.getValue(TimeUnit.SECONDS).intValue());
+    }
+    ReplicationCriteria replication = null;
+    if (replicationDegradedBacklog.isPresent() ||
+        replicationDegradedAge.isPresent() ||
+        replicationUnavailableBacklog.isPresent() ||
+        replicationUnavailableAge.isPresent())
+    {
+      replication = ReplicationCriteria.create(
+          replicationDegradedBacklog.isPresent() ?
+              replicationDegradedBacklog.getValue() : 0L,
+          replicationDegradedAge.isPresent() ?
+              replicationDegradedAge.getValue(TimeUnit.MILLISECONDS) : 0L,
+          replicationUnavailableBacklog.isPresent() ?
+              replicationUnavailableBacklog.getValue() : 0L,
+          replicationUnavailableAge.isPresent() ?
+              replicationUnavailableAge.getValue(TimeUnit.MILLISECONDS) : 0L);
+    }
+    DatabaseCriteria database = null;
+    if (databaseMinCacheHitPercent.isPresent() ||
+        databaseMaxCachePercentFull.isPresent() ||
+        databaseMaxCleanerBacklog.isPresent())
+    {
+      database = DatabaseCriteria.create(
+          databaseMinCacheHitPercent.isPresent() ?
+              databaseMinCacheHitPercent.getValue() : 0,
+          databaseMaxCachePercentFull.isPresent() ?
+              databaseMaxCachePercentFull.getValue() : 0,
+          databaseMaxCleanerBacklog.isPresent() ?
+              databaseMaxCleanerBacklog.getValue() : 0L);
+    }
+    JvmCriteria jvm = null;
+    if (jvmMaxGcPercent.isPresent() || jvmMaxCollectionDuration.isPresent())
+    {
+      jvm = JvmCriteria.create(
+          jvmMaxGcPercent.isPresent() ? jvmMaxGcPercent.getValue() : 0,
+          0,
+          jvmMaxCollectionDuration.isPresent() ?
+              jvmMaxCollectionDuration.getValue(TimeUnit.MILLISECONDS) : 0L);
+    }
+    return new StatusClient(connection, getMonitoredServlets(),
+                            getMonitorAvailabilityCriteria())
+        .setLoadShedding(loadShedding)
+        .setReplication(replication)
+        .setDatabase(database)
+        .setJvm(jvm)
+        .setOptionalProbes(optionalProbe.getValues());
+  }
+
+
+  /**
+   * Gets the names of the servlets that are expected to be enabled.
+   *
+   * @return The monitored servlet names.
+   */
+  List<String> getMonitoredServlets()
+  {
+    return monitoredServlet.getValues();
+  }
+
+
+  /**
+   * Gets the criteria for the monitor entries that are checked for
+   * availability.
+   *
+   * @return The monitor availability criteria.
+   * @throws LDAPException
+   *           If a monitor entry DN cannot be constructed.
+   */
+  List<MonitorAvailabilityCriteria> getMonitorAvailabilityCriteria()
+      throws LDAPException
+  {
+    List<MonitorAvailabilityCriteria> criteria = new ArrayList<>();
+    for (String value : monitor.getValues())
+    {
+      criteria.add(MonitorAvailabilityCriteria.create(value));
+    }
+    return criteria;
+  }
+}
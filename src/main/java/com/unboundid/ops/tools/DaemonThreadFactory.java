@@ -0,0 +1,51 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops.tools;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates named daemon threads, so that worker pools never keep a tool's JVM
+ * running.
+ */
+class DaemonThreadFactory implements ThreadFactory
+{
+  private final String name;
+  private final AtomicInteger count = new AtomicInteger();
+
+
+  /**
+   * Constructs a thread factory.
+   *
+   * @param name
+   *          The prefix for thread names.
+   */
+  DaemonThreadFactory(String name)
+  {
+    this.name = name;
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  public Thread newThread(Runnable runnable)
+  {
+    Thread thread = new Thread(runnable, name + " " + count.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  }
+}
@@ -0,0 +1,558 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops.tools;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.unboundid.ldap.sdk.LDAPConnectionPool;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ops.RemoteServerConfig;
+import com.unboundid.ops.StatusClient;
+import com.unboundid.ops.StatusSnapshot;
+import com.unboundid.ops.models.LoadBalancingAlgorithmStatus;
+import com.unboundid.ops.models.MonitorStatus;
+import com.unboundid.ops.models.ServletStatus;
+import com.unboundid.ops.models.Status;
+import com.unboundid.ops.models.StatusError;
+import com.unboundid.ops.models.StoreAdapterStatus;
+import com.unboundid.util.ColumnFormatter;
+import com.unboundid.util.CommandLineTool;
+import com.unboundid.util.FormattableColumn;
+import com.unboundid.util.HorizontalAlignment;
+import com.unboundid.util.OutputFormat;
+import com.unboundid.util.args.ArgumentException;
+import com.unboundid.util.args.ArgumentParser;
+import com.unboundid.util.args.DurationArgument;
+import com.unboundid.util.args.FileArgument;
+import com.unboundid.util.args.IntegerArgument;
+import com.unboundid.util.args.StringArgument;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A command-line tool that checks the status of many directory servers at
+ * once. Servers are evaluated concurrently by a bounded number of worker
+ * threads, using the same {@link StatusClient} rules as the status servlet,
+ * and each result is written as soon as it is available, followed by a
+ * summary of availability and evaluation latency.
+ * <p>
+ * When the tool runs on Java 21 or later from the multi-release JAR, the
+ * worker threads are virtual threads (see {@link Workers}). This fan-out is
+ * the only part of the project that uses virtual threads.
+ */
+public class FleetStatus extends CommandLineTool
+{
+  private static final String FORMAT_TABLE = "table";
+  private static final String FORMAT_JSON_LINES = "json-lines";
+  private static final String FORMAT_CSV = "csv";
+
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final ConnectionArguments connectionArguments =
+      new ConnectionArguments();
+
+  private ArgumentParser parser;
+  private FileArgument endpointsFile;
+  private IntegerArgument threads;
+  private DurationArgument timeout;
+  private StringArgument outputFormat;
+
+  private List<String> endpoints;
+
+
+  /**
+   * Runs the tool.
+   *
+   * @param args
+   *          The command-line arguments.
+   */
+  public static void main(String... args)
+  {
+    ResultCode resultCode =
+        new FleetStatus(System.out, System.err).runTool(args);
+    if (resultCode != ResultCode.SUCCESS)
+    {
+      System.exit(resultCode.intValue());
+    }
+  }
+
+
+  /**
+   * Constructs the tool.
+   *
+   * @param out
+   *          The output stream for standard output, or {@code null}.
+   * @param err
+   *          The output stream for standard error, or {@code null}.
+   */
+  public FleetStatus(OutputStream out, OutputStream err)
+  {
+    super(out, err);
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  public String getToolName()
+  {
+    return "fleet-status";
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  public String getToolDescription()
+  {
+    return "Checks the status of many directory servers concurrently, using " +
+        "the same rules as the status servlet. The tool exits with a " +
+        "non-zero result code if any server is not available.";
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  public int getMaxTrailingArguments()
+  {
+    return -1;
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  public String getTrailingArgumentsPlaceholder()
+  {
+    return "{host:port} ...";
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  public void addToolArguments(ArgumentParser parser)
+      throws ArgumentException
+  {
+    this.parser = parser;
+    endpointsFile = new FileArgument('f', "endpointsFile", false, 1,
+        "{path}", "A file that lists the servers to check, one 'host:port' " +
+            "address per line. Blank lines and lines that begin with '#' " +
+            "are ignored. Servers may also be provided as trailing " +
+            "arguments.", true, true, true, false);
+    parser.addArgument(endpointsFile);
+    connectionArguments.addArguments(parser);
+    threads = new IntegerArgument('t', "threads", false, 1, "{count}",
+        "The maximum number of servers to check at the same time. The " +
+            "default is 16.", 1, Integer.MAX_VALUE, 16);
+    parser.addArgument(threads);
+    timeout = new DurationArgument(null, "timeout", false, "{duration}",
+        "The connect and response timeout for each server. The default is " +
+            "10 seconds.",
+        10L, TimeUnit.SECONDS, 1L, TimeUnit.MILLISECONDS, null, null);
+    parser.addArgument(timeout);
+    outputFormat = new StringArgument(null, "outputFormat", false, 1,
+        "{format}", "The format for results. The value may be 'table', " +
+            "'json-lines', or 'csv'. The default is 'table'.",
+        new HashSet<>(Arrays.asList(
+            FORMAT_TABLE, FORMAT_JSON_LINES, FORMAT_CSV)),
+        FORMAT_TABLE);
+    parser.addArgument(outputFormat);
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  public void doExtendedArgumentValidation() throws ArgumentException
+  {
+    endpoints = new ArrayList<>(parser.getTrailingArguments());
+    if (endpointsFile.isPresent())
+    {
+      try
+      {
+        for (String line : endpointsFile.getNonBlankFileLines())
+        {
+          if (!line.trim().startsWith("#"))
+          {
+            endpoints.add(line.trim());
+          }
+        }
+      }
+      catch (IOException e)
+      {
+        throw new ArgumentException(String.format(
+            "Unable to read endpoints file '%s': %s",
+            endpointsFile.getValue(), e.getMessage()), e);
+      }
+    }
+    if (endpoints.isEmpty())
+    {
+      throw new ArgumentException(
+          "At least one server must be provided as a trailing argument or " +
+              "in the endpoints file.");
+    }
+    for (String endpoint : endpoints)
+    {
+      if (!RemoteServerConfig.SERVER_ADDRESS_RX.matcher(endpoint).matches())
+      {
+        throw new ArgumentException(String.format(
+            "Server address '%s' is not in the form 'host:port'.",
+            endpoint));
+      }
+    }
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  public ResultCode doToolProcessing()
+  {
+    try
+    {
+      // Validate the availability criteria before checking any server.
+      connectionArguments.createStatusClient(null);
+    }
+    catch (LDAPException e)
+    {
+      err(e.getMessage());
+      return e.getResultCode();
+    }
+
+    long startTime = System.nanoTime();
+    ExecutorService workers = Workers.newExecutor(
+        "Status Check", Math.min(threads.getValue(), endpoints.size()));
+    List<EndpointResult> results = new ArrayList<>(endpoints.size());
+    try
+    {
+      CompletionService<EndpointResult> completionService =
+          new ExecutorCompletionService<>(workers);
+      for (String endpoint : endpoints)
+      {
+        completionService.submit(new EndpointCheck(endpoint));
+      }
+
+      ResultWriter writer = new ResultWriter(outputFormat.getValue());
+      writer.writeHeader();
+      for (int i = 0; i < endpoints.size(); i++)
+      {
+        EndpointResult result = completionService.take().get();
+        writer.write(result);
+        results.add(result);
+      }
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      return ResultCode.LOCAL_ERROR;
+    }
+    catch (ExecutionException e)
+    {
+      err("Unexpected error: ", e.getCause());
+      return ResultCode.LOCAL_ERROR;
+    }
+    finally
+    {
+      workers.shutdownNow();
+    }
+
+    boolean allAvailable = writeSummary(
+        results, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+    return allAvailable ? ResultCode.SUCCESS : ResultCode.UNAVAILABLE;
+  }
+
+
+  /**
+   * Writes a summary of availability and evaluation latency. The summary is
+   * written to standard output for table output, and to standard error
+   * otherwise, so that machine-readable output is not interrupted.
+   *
+   * @return True if every server was available.
+   */
+  private boolean writeSummary(List<EndpointResult> results,
+                               long elapsedMillis)
+  {
+    int available = 0;
+    int degraded = 0;
+    int unavailable = 0;
+    long[] latencies = new long[results.size()];
+    EndpointResult slowest = null;
+    for (int i = 0; i < results.size(); i++)
+    {
+      EndpointResult result = results.get(i);
+      switch (result.httpStatusCode)
+      {
+        case StatusSnapshot.SC_AVAILABLE:
+          available++;
+          break;
+        case StatusSnapshot.SC_DEGRADED:
+          degraded++;
+          break;
+        default:
+          unavailable++;
+      }
+      latencies[i] = result.latencyMillis;
+      if (slowest == null || result.latencyMillis > slowest.latencyMillis)
+      {
+        slowest = result;
+      }
+    }
+    Arrays.sort(latencies);
+
+    List<String> lines = new ArrayList<>();
+    lines.add(String.format(
+        "Checked %d servers in %d ms: %d available, %d degraded, " +
+            "%d unavailable",
+        results.size(), elapsedMillis, available, degraded, unavailable));
+    lines.add(String.format(
+        "Evaluation latency (ms): min %d, median %d, p95 %d, max %d (%s)",
+        latencies[0], percentile(latencies, 50), percentile(latencies, 95),
+        latencies[latencies.length - 1], slowest.endpoint));
+    for (String line : lines)
+    {
+      if (FORMAT_TABLE.equals(outputFormat.getValue()))
+      {
+        out(line);
+      }
+      else
+      {
+        err(line);
+      }
+    }
+    return available == results.size();
+  }
+
+
+  private static long percentile(long[] sortedValues, int percentile)
+  {
+    int index = (int) Math.ceil(percentile / 100.0 * sortedValues.length) - 1;
+    return sortedValues[Math.max(0, index)];
+  }
+
+
+  /**
+   * Summarizes why a status is not OK: its error, its alerts, and the names
+   * of any unavailable components.
+   */
+  private static String getDetails(Status status)
+  {
+    List<String> details = new ArrayList<>();
+    if (status.getError() != null)
+    {
+      details.add(status.getError().getMessage());
+    }
+    if (status.getServerAlerts() != null)
+    {
+      details.addAll(status.getServerAlerts());
+    }
+    for (ServletStatus servletStatus : status.getServletStatuses())
+    {
+      if (!servletStatus.isEnabled())
+      {
+        details.add("servlet " + servletStatus.getName());
+      }
+    }
+    for (MonitorStatus monitorStatus : status.getMonitorStatuses())
+    {
+      if (!monitorStatus.isAvailable())
+      {
+        details.add("monitor " + monitorStatus.getName());
+      }
+    }
+    for (StoreAdapterStatus storeAdapterStatus :
+        status.getStoreAdapterStatuses())
+    {
+      if (!storeAdapterStatus.isAvailable())
+      {
+        details.add("store adapter " + storeAdapterStatus.getName());
+      }
+    }
+    for (LoadBalancingAlgorithmStatus lbaStatus :
+        status.getLoadBalancingAlgorithmStatuses())
+    {
+      if (!lbaStatus.isAvailable())
+      {
+        details.add("load balancing algorithm " + lbaStatus.getName());
+      }
+    }
+    StringBuilder buffer = new StringBuilder();
+    for (String detail : details)
+    {
+      if (buffer.length() > 0)
+      {
+        buffer.append("; ");
+      }
+      buffer.append(detail);
+    }
+    return buffer.toString();
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  public LinkedHashMap<String[], String> getExampleUsages()
+  {
+    LinkedHashMap<String[], String> examples = new LinkedHashMap<>();
+    examples.put(
+        new String[] {
+            "--useSSL", "--trustAll", "--bindDN", "cn=Status Reader",
+            "--bindPassword", "password", "--endpointsFile", "servers.txt",
+            "--threads", "32", "--timeout", "5 seconds"
+        },
+        "Checks every server listed in servers.txt, 32 at a time, and " +
+            "writes a table of results.");
+    examples.put(
+        new String[] {
+            "--outputFormat", "json-lines",
+            "ds1.example.com:389", "ds2.example.com:389"
+        },
+        "Checks two servers and writes each result as a line of JSON.");
+    return examples;
+  }
+
+
+  /**
+   * Evaluates the status of a single server over its own connection.
+   */
+  private class EndpointCheck implements Callable<EndpointResult>
+  {
+    private final String endpoint;
+
+
+    EndpointCheck(String endpoint)
+    {
+      this.endpoint = endpoint;
+    }
+
+
+    /** {@inheritDoc} */
+    @Override
+    public EndpointResult call()
+    {
+      long timeoutMillis = timeout.getValue(TimeUnit.MILLISECONDS);
+      long start = System.nanoTime();
+      Status status;
+      LDAPConnectionPool pool = null;
+      try
+      {
+        pool = connectionArguments.createRemoteServerConfig(endpoint)
+            .setPoolSize(1, 1)
+            .setTimeoutMillis(timeoutMillis, timeoutMillis)
+            .createConnectionPool();
+        status = connectionArguments.createStatusClient(pool).getStatus();
+      }
+      catch (LDAPException e)
+      {
+        status = Status.create(new StatusError(e));
+      }
+      finally
+      {
+        if (pool != null)
+        {
+          pool.close();
+        }
+      }
+      return new EndpointResult(endpoint, status,
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+  }
+
+
+  /**
+   * The status of a single server, and the time taken to evaluate it.
+   */
+  private static class EndpointResult
+  {
+    private final String endpoint;
+    private final Status status;
+    private final int httpStatusCode;
+    private final long latencyMillis;
+
+
+    EndpointResult(String endpoint, Status status, long latencyMillis)
+    {
+      this.endpoint = endpoint;
+      this.status = status;
+      this.httpStatusCode = StatusSnapshot.getHttpStatusCode(status);
+      this.latencyMillis = latencyMillis;
+    }
+  }
+
+
+  /**
+   * Writes results in the selected output format.
+   */
+  private class ResultWriter
+  {
+    private final String format;
+    private final ColumnFormatter formatter;
+
+
+    ResultWriter(String format)
+    {
+      this.format = format;
+      this.formatter = new ColumnFormatter(false, null,
+          FORMAT_CSV.equals(format) ? OutputFormat.CSV : OutputFormat.COLUMNS,
+          "  ",
+          new FormattableColumn(30, HorizontalAlignment.LEFT, "Server"),
+          new FormattableColumn(11, HorizontalAlignment.LEFT, "Status"),
+          new FormattableColumn(4, HorizontalAlignment.RIGHT, "Code"),
+          new FormattableColumn(12, HorizontalAlignment.RIGHT, "Latency (ms)"),
+          new FormattableColumn(40, HorizontalAlignment.LEFT, "Details"));
+    }
+
+
+    void writeHeader()
+    {
+      if (!FORMAT_JSON_LINES.equals(format))
+      {
+        for (String line : formatter.getHeaderLines(true))
+        {
+          out(line);
+        }
+      }
+    }
+
+
+    void write(EndpointResult result)
+    {
+      if (FORMAT_JSON_LINES.equals(format))
+      {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("server", result.endpoint);
+        node.put("httpStatus", result.httpStatusCode);
+        node.put("latencyMillis", result.latencyMillis);
+        node.set("status", objectMapper.valueToTree(result.status));
+        out(node.toString());
+      }
+      else
+      {
+        out(formatter.formatRow(
+            result.endpoint, result.status.getServerStatus(),
+            result.httpStatusCode, result.latencyMillis,
+            getDetails(result.status)));
+      }
+    }
+  }
+}
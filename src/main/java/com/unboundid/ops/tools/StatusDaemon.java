@@ -0,0 +1,718 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops.tools;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.unboundid.ldap.sdk.LDAPConnectionPool;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ops.ContentEncoding;
+import com.unboundid.ops.HealthChecks;
+import com.unboundid.ops.ProbeInterval;
+import com.unboundid.ops.RemoteServerConfig;
+import com.unboundid.ops.StatusClient;
+import com.unboundid.ops.StatusFormat;
+import com.unboundid.ops.StatusMetrics;
+import com.unboundid.ops.StatusProfile;
+import com.unboundid.ops.StatusRefresher;
+import com.unboundid.ops.StatusSection;
+import com.unboundid.ops.StatusServlet;
+import com.unboundid.ops.StatusSnapshot;
+import com.unboundid.ops.models.Status;
+import com.unboundid.ops.models.StatusError;
+import com.unboundid.util.CommandLineTool;
+import com.unboundid.util.args.ArgumentException;
+import com.unboundid.util.args.ArgumentParser;
+import com.unboundid.util.args.DurationArgument;
+import com.unboundid.util.args.IntegerArgument;
+import com.unboundid.util.args.StringArgument;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A standalone status daemon that reports a directory server's status over
+ * HTTP without being installed in the server. It is intended to run as a
+ * sidecar next to the server, and it uses the same {@link StatusClient} and
+ * response codes as the {@link com.unboundid.ops.StatusServlet}.
+ * <p>
+ * The status is evaluated on a background schedule over a pooled connection,
+ * and requests are answered from the most recent snapshot by a small, fixed
+ * number of HTTP worker threads. Requests never wait on the directory server.
+ */
+public class StatusDaemon extends CommandLineTool
+{
+  private final ConnectionArguments connectionArguments =
+      new ConnectionArguments();
+  private final CountDownLatch shutdownLatch = new CountDownLatch(1);
+
+  private StringArgument hostname;
+  private IntegerArgument port;
+  private IntegerArgument poolSize;
+  private DurationArgument maxConnectionAge;
+  private IntegerArgument circuitBreakerFailureThreshold;
+  private DurationArgument circuitBreakerMinBackoff;
+  private DurationArgument circuitBreakerMaxBackoff;
+  private StringArgument listenAddress;
+  private IntegerArgument listenPort;
+  private StringArgument path;
+  private DurationArgument minRefreshInterval;
+  private DurationArgument maxRefreshInterval;
+  private StringArgument probeRefreshInterval;
+  private IntegerArgument httpThreads;
+  private IntegerArgument compressionThreshold;
+  private StringArgument readinessSections;
+  private StringArgument startupSections;
+  private DurationArgument startupTimeout;
+  private DurationArgument livenessMaxAge;
+
+  private volatile LDAPConnectionPool pool;
+  private volatile StatusRefresher refresher;
+  private volatile HttpServer httpServer;
+  private volatile ExecutorService httpExecutor;
+  private volatile ExecutorService startupExecutor;
+
+
+  /**
+   * Runs the status daemon.
+   *
+   * @param args
+   *          The command-line arguments.
+   */
+  public static void main(String... args)
+  {
+    ResultCode resultCode =
+        new StatusDaemon(System.out, System.err).runTool(args);
+    if (resultCode != ResultCode.SUCCESS)
+    {
+      System.exit(resultCode.intValue());
+    }
+  }
+
+
+  /**
+   * Constructs a status daemon.
+   *
+   * @param out
+   *          The output stream for standard output, or {@code null}.
+   * @param err
+   *          The output stream for standard error, or {@code null}.
+   */
+  public StatusDaemon(OutputStream out, OutputStream err)
+  {
+    super(out, err);
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  public String getToolName()
+  {
+    return "status-daemon";
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  public String getToolDescription()
+  {
+    return "Reports a directory server's status over HTTP. The status is " +
+        "evaluated in the background using the same rules as the status " +
+        "servlet, and is served with a 200, 429, or 503 response code.";
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  public void addToolArguments(ArgumentParser parser)
+      throws ArgumentException
+  {
+    hostname = new StringArgument('h', "hostname", false, 1, "{host}",
+        "The directory server's host name or IP address. The default is " +
+            "'localhost'.", "localhost");
+    parser.addArgument(hostname);
+    port = new IntegerArgument('p', "port", false, 1, "{port}",
+        "The directory server's LDAP or LDAPS port. The default is 389.",
+        1, 65535, 389);
+    parser.addArgument(port);
+    connectionArguments.addArguments(parser);
+    poolSize = new IntegerArgument(null, "poolSize", false, 1, "{count}",
+        "The maximum number of connections to the directory server. The " +
+            "default is 2.", 1, Integer.MAX_VALUE, 2);
+    parser.addArgument(poolSize);
+    maxConnectionAge = new DurationArgument(null, "maxConnectionAge", false,
+        "{duration}",
+        "The maximum length of time that a connection to the directory " +
+            "server may be used before it is replaced. The default is 30 " +
+            "minutes.",
+        30L, TimeUnit.MINUTES, 0L, TimeUnit.MILLISECONDS, null, null);
+    parser.addArgument(maxConnectionAge);
+    circuitBreakerFailureThreshold = new IntegerArgument(null,
+        "circuitBreakerFailureThreshold", false, 1, "{count}",
+        "The number of consecutive failures after which a status probe is " +
+            "no longer evaluated, and its last error is reported instead " +
+            "until it is retried. A value of zero, which is the default, " +
+            "disables this behavior.", 0, Integer.MAX_VALUE, 0);
+    parser.addArgument(circuitBreakerFailureThreshold);
+    circuitBreakerMinBackoff = new DurationArgument(null,
+        "circuitBreakerMinBackoff", false, "{duration}",
+        "The delay before a failing status probe is first retried. The " +
+            "delay doubles after each failed retry. The default is 5 " +
+            "seconds.",
+        5L, TimeUnit.SECONDS, 1L, TimeUnit.MILLISECONDS, null, null);
+    parser.addArgument(circuitBreakerMinBackoff);
+    circuitBreakerMaxBackoff = new DurationArgument(null,
+        "circuitBreakerMaxBackoff", false, "{duration}",
+        "The longest delay between retries of a failing status probe. The " +
+            "default is 5 minutes.",
+        5L, TimeUnit.MINUTES, 1L, TimeUnit.MILLISECONDS, null, null);
+    parser.addArgument(circuitBreakerMaxBackoff);
+
+    listenAddress = new StringArgument(null, "listenAddress", false, 1,
+        "{address}", "The address on which to accept HTTP requests. The " +
+            "default is to accept requests on all addresses.", "0.0.0.0");
+    parser.addArgument(listenAddress);
+    listenPort = new IntegerArgument(null, "listenPort", false, 1, "{port}",
+        "The port on which to accept HTTP requests. The default is 8080.",
+        1, 65535, 8080);
+    parser.addArgument(listenPort);
+    path = new StringArgument(null, "path", false, 1, "{path}",
+        "The path at which the status is served. The default is '/status'.",
+        "/status");
+    parser.addArgument(path);
+    minRefreshInterval = new DurationArgument(null, "minRefreshInterval",
+        false, "{duration}",
+        "The delay between status evaluations while the server is not " +
+            "available or its status has just changed. The default is 1 " +
+            "second.",
+        1L, TimeUnit.SECONDS, 1L, TimeUnit.MILLISECONDS, null, null);
+    parser.addArgument(minRefreshInterval);
+    maxRefreshInterval = new DurationArgument(null, "maxRefreshInterval",
+        false, "{duration}",
+        "The longest delay between status evaluations while the server's " +
+            "status is stable. The default is 30 seconds.",
+        30L, TimeUnit.SECONDS, 1L, TimeUnit.MILLISECONDS, null, null);
+    parser.addArgument(maxRefreshInterval);
+    probeRefreshInterval = new StringArgument(null, "probeRefreshInterval",
+        false, 0, "{probe:duration}",
+        "The longest delay between evaluations of one probe while its " +
+            "result is stable, in place of the maximum refresh interval. " +
+            "The probe is one of 'server', 'servlets', 'store-adapters', " +
+            "'load-balancing-algorithms', 'load', 'replication', " +
+            "'database', or 'jvm', or the name of a monitor entry " +
+            "that is checked for availability.");
+    probeRefreshInterval.setValueRegex(ProbeInterval.PROBE_INTERVAL_ARG_RX,
+        "For example, 'load-balancing-algorithms:1 second'");
+    parser.addArgument(probeRefreshInterval);
+    httpThreads = new IntegerArgument(null, "httpThreads", false, 1,
+        "{count}", "The number of threads that answer HTTP requests, and " +
+            "the largest number of startup checks that wait for the server " +
+            "to start at the same time. The default is 2.",
+        1, Integer.MAX_VALUE, 2);
+    parser.addArgument(httpThreads);
+    compressionThreshold = new IntegerArgument(null, "compressionThreshold",
+        false, 1, "{bytes}",
+        "The size below which status responses are not compressed. Larger " +
+            "responses are compressed if the client accepts the gzip or " +
+            "deflate content encodings. The default is " +
+            StatusServlet.DEFAULT_COMPRESSION_THRESHOLD + " bytes.",
+        0, Integer.MAX_VALUE, StatusServlet.DEFAULT_COMPRESSION_THRESHOLD);
+    parser.addArgument(compressionThreshold);
+    readinessSections = new StringArgument(null, "readinessSections", false,
+        1, "{sections}",
+        "The comma-separated sections of the status that the readiness " +
+            "check at the 'ready' sub-path reports. The default is " +
+            "'storeAdapters,loadBalancingAlgorithms'.",
+        "storeAdapters,loadBalancingAlgorithms");
+    parser.addArgument(readinessSections);
+    startupSections = new StringArgument(null, "startupSections", false, 1,
+        "{sections}",
+        "The comma-separated sections of the status that the startup check " +
+            "at the 'startup' sub-path reports. By default, every section " +
+            "is reported.");
+    parser.addArgument(startupSections);
+    startupTimeout = new DurationArgument(null, "startupTimeout", false,
+        "{duration}",
+        "The longest time that the startup check waits for its sections to " +
+            "become available. The default is 10 seconds.",
+        HealthChecks.DEFAULT_STARTUP_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS,
+        0L, TimeUnit.MILLISECONDS, null, null);
+    parser.addArgument(startupTimeout);
+    livenessMaxAge = new DurationArgument(null, "livenessMaxAge", false,
+        "{duration}",
+        "The age after which the most recent status evaluation is " +
+            "considered stalled, which fails the liveness check at the " +
+            "'live' sub-path. This should be several times the maximum " +
+            "refresh interval. A value of zero, the default, indicates that " +
+            "the liveness check always succeeds.",
+        0L, TimeUnit.MILLISECONDS, 0L, TimeUnit.MILLISECONDS, null, null);
+    parser.addArgument(livenessMaxAge);
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  protected boolean registerShutdownHook()
+  {
+    return true;
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  public ResultCode doToolProcessing()
+  {
+    try
+    {
+      RemoteServerConfig remoteServerConfig =
+          connectionArguments.createRemoteServerConfig(
+              hostname.getValue() + ":" + port.getValue())
+              .setPoolSize(1, poolSize.getValue())
+              .setMaxConnectionAgeMillis(
+                  maxConnectionAge.getValue(TimeUnit.MILLISECONDS));
+      pool = remoteServerConfig.createConnectionPool();
+      StatusClient client = connectionArguments.createStatusClient(pool)
+          .setCircuitBreaker(
+              circuitBreakerFailureThreshold.getValue(),
+              circuitBreakerMinBackoff.getValue(TimeUnit.MILLISECONDS),
+              circuitBreakerMaxBackoff.getValue(TimeUnit.MILLISECONDS));
+      List<ProbeInterval> probeIntervals = new ArrayList<>();
+      for (String value : probeRefreshInterval.getValues())
+      {
+        probeIntervals.add(ProbeInterval.create(value));
+      }
+      HealthChecks healthChecks = new HealthChecks(client)
+          .setReadinessSections(parseSections(
+              readinessSections, HealthChecks.DEFAULT_READINESS_SECTIONS))
+          .setStartupSections(
+              parseSections(startupSections, StatusSection.ALL))
+          .setStartupTimeoutMillis(
+              startupTimeout.getValue(TimeUnit.MILLISECONDS))
+          .setLivenessMaxAgeMillis(
+              livenessMaxAge.getValue(TimeUnit.MILLISECONDS));
+      refresher = new StatusRefresher(
+          client,
+          minRefreshInterval.getValue(TimeUnit.MILLISECONDS),
+          maxRefreshInterval.getValue(TimeUnit.MILLISECONDS))
+          .setProbeIntervals(probeIntervals)
+          .setProfiles(healthChecks.getProfiles());
+      healthChecks.setRefresher(refresher);
+      refresher.start();
+
+      httpExecutor = Executors.newFixedThreadPool(
+          httpThreads.getValue(), new DaemonThreadFactory("Status HTTP"));
+      // Startup checks wait on their own threads, so that they never hold
+      // the threads that answer the liveness and readiness checks. A startup
+      // check that finds them all busy is answered without waiting.
+      startupExecutor = new ThreadPoolExecutor(
+          0, httpThreads.getValue(), 60L, TimeUnit.SECONDS,
+          new SynchronousQueue<Runnable>(),
+          new DaemonThreadFactory("Status Startup"));
+      httpServer = HttpServer.create(
+          new InetSocketAddress(listenAddress.getValue(),
+                                listenPort.getValue()), 0);
+      httpServer.createContext(path.getValue(),
+                               new StatusHandler(path.getValue(),
+                                                 new StatusMetrics(client),
+                                                 healthChecks));
+      httpServer.setExecutor(httpExecutor);
+      httpServer.start();
+      out(String.format("Serving status for %s at http://%s:%d%s",
+                        remoteServerConfig, listenAddress.getValue(),
+                        listenPort.getValue(), path.getValue()));
+    }
+    catch (LDAPException e)
+    {
+      err("Unable to start the status daemon: ", e.getMessage());
+      shutDown();
+      return e.getResultCode();
+    }
+    catch (IOException e)
+    {
+      err("Unable to start the HTTP server: ", e.getMessage());
+      shutDown();
+      return ResultCode.LOCAL_ERROR;
+    }
+
+    try
+    {
+      shutdownLatch.await();
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+    return ResultCode.SUCCESS;
+  }
+
+
+  /**
+   * Parses an argument whose value is a comma-separated list of status
+   * sections.
+   */
+  private static Set<StatusSection> parseSections(
+      StringArgument argument, Set<StatusSection> defaultSections)
+      throws LDAPException
+  {
+    if (argument.getValue() == null)
+    {
+      return defaultSections;
+    }
+    try
+    {
+      return StatusSection.parse(argument.getValue());
+    }
+    catch (IllegalArgumentException e)
+    {
+      throw new LDAPException(ResultCode.PARAM_ERROR, String.format(
+          "Invalid --%s value: %s", argument.getLongIdentifier(),
+          e.getMessage()), e);
+    }
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  protected void doShutdownHookProcessing(ResultCode resultCode)
+  {
+    shutDown();
+  }
+
+
+  /**
+   * Stops serving requests, stops evaluating the status, and closes the
+   * connection pool.
+   */
+  public void shutDown()
+  {
+    if (httpServer != null)
+    {
+      httpServer.stop(0);
+    }
+    if (httpExecutor != null)
+    {
+      httpExecutor.shutdownNow();
+    }
+    if (startupExecutor != null)
+    {
+      startupExecutor.shutdownNow();
+    }
+    if (refresher != null)
+    {
+      refresher.stop();
+    }
+    if (pool != null)
+    {
+      pool.close();
+    }
+    shutdownLatch.countDown();
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  public LinkedHashMap<String[], String> getExampleUsages()
+  {
+    LinkedHashMap<String[], String> examples = new LinkedHashMap<>();
+    examples.put(
+        new String[] {
+            "--hostname", "localhost", "--port", "636", "--useSSL",
+            "--trustAll", "--bindDN", "cn=Status Reader",
+            "--bindPassword", "password", "--monitoredServlet", "SCIM2",
+            "--listenPort", "8080"
+        },
+        "Serves the status of the directory server on the local host at " +
+            "http://localhost:8080/status.");
+    return examples;
+  }
+
+
+  /**
+   * Answers status requests from the most recent snapshot.
+   */
+  private class StatusHandler implements HttpHandler
+  {
+    private final String contextPath;
+    private final StatusMetrics metrics;
+    private final HealthChecks healthChecks;
+    private final StatusSnapshot notEvaluatedSnapshot;
+
+
+    StatusHandler(String contextPath, StatusMetrics metrics,
+                  HealthChecks healthChecks)
+        throws IOException
+    {
+      this.contextPath = contextPath;
+      this.metrics = metrics;
+      this.healthChecks = healthChecks;
+      this.notEvaluatedSnapshot = StatusSnapshot.create(
+          Status.create(new StatusError(new IllegalStateException(
+              "The status has not been evaluated yet"))));
+    }
+
+
+    /** {@inheritDoc} */
+    @Override
+    public void handle(HttpExchange exchange) throws IOException
+    {
+      boolean close = true;
+      try
+      {
+        String method = exchange.getRequestMethod();
+        String requestPath = exchange.getRequestURI().getPath();
+        String subPath = requestPath.startsWith(contextPath) ?
+            requestPath.substring(contextPath.length()) : null;
+        if (!"".equals(subPath) &&
+            !StatusMetrics.METRICS_PATH.equals(subPath) &&
+            !HealthChecks.LIVENESS_PATH.equals(subPath) &&
+            !HealthChecks.READINESS_PATH.equals(subPath) &&
+            !HealthChecks.STARTUP_PATH.equals(subPath))
+        {
+          exchange.sendResponseHeaders(404, -1);
+          return;
+        }
+        if (!"GET".equals(method) && !"HEAD".equals(method))
+        {
+          exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+          exchange.sendResponseHeaders(405, -1);
+          return;
+        }
+        switch (subPath)
+        {
+          case StatusMetrics.METRICS_PATH:
+            sendMetrics(exchange, method);
+            return;
+          case HealthChecks.LIVENESS_PATH:
+            sendLiveness(exchange, method);
+            return;
+          case HealthChecks.READINESS_PATH:
+            sendSnapshot(exchange, method, healthChecks.getReadiness());
+            return;
+          case HealthChecks.STARTUP_PATH:
+            // A startup thread that accepts the check closes the exchange.
+            close = !awaitStartup(exchange, method);
+            if (close)
+            {
+              sendSnapshot(exchange, method, healthChecks.getStartup());
+            }
+            return;
+          default:
+            break;
+        }
+
+        Set<StatusSection> sections;
+        try
+        {
+          sections = StatusSection.parse(getQueryParameter(
+              exchange.getRequestURI().getRawQuery(),
+              StatusSection.INCLUDE_PARAMETER));
+        }
+        catch (IllegalArgumentException e)
+        {
+          exchange.sendResponseHeaders(400, -1);
+          return;
+        }
+        StatusSnapshot snapshot = sections.equals(StatusSection.ALL) ?
+            refresher.getSnapshot() :
+            refresher.getSnapshot(StatusProfile.forSections(sections));
+        sendSnapshot(exchange, method,
+                     snapshot != null ? snapshot : notEvaluatedSnapshot);
+      }
+      finally
+      {
+        if (close)
+        {
+          exchange.close();
+        }
+      }
+    }
+
+
+    /**
+     * Answers a startup check on a startup thread, which waits up to the
+     * startup timeout for the startup sections to become available, and then
+     * sends the response and closes the exchange.
+     *
+     * @return {@code false} if every startup thread is busy, in which case
+     *         the caller must answer the check without waiting.
+     */
+    private boolean awaitStartup(final HttpExchange exchange,
+                                 final String method)
+    {
+      try
+      {
+        startupExecutor.execute(new Runnable()
+        {
+          @Override
+          public void run()
+          {
+            try
+            {
+              sendSnapshot(exchange, method, healthChecks.awaitStartup());
+            }
+            catch (InterruptedException e)
+            {
+              Thread.currentThread().interrupt();
+              sendUnavailable(exchange);
+            }
+            catch (IOException e)
+            {
+              // The client has gone away.
+            }
+            finally
+            {
+              exchange.close();
+            }
+          }
+        });
+        return true;
+      }
+      catch (RejectedExecutionException e)
+      {
+        return false;
+      }
+    }
+
+
+    private void sendUnavailable(HttpExchange exchange)
+    {
+      try
+      {
+        exchange.sendResponseHeaders(503, -1);
+      }
+      catch (IOException e)
+      {
+        // The client has gone away.
+      }
+    }
+
+
+    private void sendSnapshot(HttpExchange exchange, String method,
+                              StatusSnapshot snapshot)
+        throws IOException
+    {
+      StatusFormat format = StatusFormat.negotiate(
+          exchange.getRequestHeaders().getFirst("Accept"));
+      ContentEncoding encoding = ContentEncoding.IDENTITY;
+      if (snapshot.getBody(format, encoding).length
+          >= compressionThreshold.getValue())
+      {
+        encoding = ContentEncoding.negotiate(
+            exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+      }
+      exchange.getResponseHeaders().set("Content-Type",
+                                        format.getMediaType());
+      exchange.getResponseHeaders().set("Cache-Control", "no-store");
+      exchange.getResponseHeaders().set("Vary", "Accept, Accept-Encoding");
+      if (encoding != ContentEncoding.IDENTITY)
+      {
+        exchange.getResponseHeaders().set("Content-Encoding",
+                                          encoding.getName());
+      }
+      if (snapshot.getRetryAfterSeconds() != null)
+      {
+        exchange.getResponseHeaders().set(
+            "Retry-After", String.valueOf(snapshot.getRetryAfterSeconds()));
+      }
+      if ("HEAD".equals(method))
+      {
+        exchange.sendResponseHeaders(snapshot.getHttpStatusCode(), -1);
+        return;
+      }
+      byte[] body = snapshot.getBody(format, encoding);
+      exchange.sendResponseHeaders(snapshot.getHttpStatusCode(),
+                                   body.length);
+      exchange.getResponseBody().write(body);
+    }
+
+
+    private void sendLiveness(HttpExchange exchange, String method)
+        throws IOException
+    {
+      boolean live = healthChecks.isLive();
+      int statusCode = live ?
+          StatusSnapshot.SC_AVAILABLE : StatusSnapshot.SC_UNAVAILABLE;
+      exchange.getResponseHeaders().set("Content-Type", "application/json");
+      exchange.getResponseHeaders().set("Cache-Control", "no-store");
+      if ("HEAD".equals(method))
+      {
+        exchange.sendResponseHeaders(statusCode, -1);
+        return;
+      }
+      byte[] body = healthChecks.getLivenessJson(live);
+      exchange.sendResponseHeaders(statusCode, body.length);
+      exchange.getResponseBody().write(body);
+    }
+
+
+    /**
+     * Gets the decoded value of a query parameter, or {@code null} if the
+     * query does not have the parameter.
+     */
+    private String getQueryParameter(String query, String name)
+        throws UnsupportedEncodingException
+    {
+      if (query == null)
+      {
+        return null;
+      }
+      for (String parameter : query.split("&"))
+      {
+        int equals = parameter.indexOf('=');
+        String parameterName =
+            equals < 0 ? parameter : parameter.substring(0, equals);
+        if (URLDecoder.decode(parameterName, "UTF-8").equals(name))
+        {
+          return equals < 0 ? "" :
+              URLDecoder.decode(parameter.substring(equals + 1), "UTF-8");
+        }
+      }
+      return null;
+    }
+
+
+    private void sendMetrics(HttpExchange exchange, String method)
+        throws IOException
+    {
+      exchange.getResponseHeaders().set("Content-Type", "application/json");
+      exchange.getResponseHeaders().set("Cache-Control", "no-store");
+      if ("HEAD".equals(method))
+      {
+        exchange.sendResponseHeaders(200, -1);
+        return;
+      }
+      byte[] body = metrics.getJson();
+      exchange.sendResponseHeaders(200, body.length);
+      exchange.getResponseBody().write(body);
+    }
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops.tools;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the executors on which the {@link FleetStatus} tool checks each
+ * server of a fleet. This is the only fan-out that runs on virtual threads
+ * on Java 21; the servlet extension, the status refresher and the webhook
+ * notifier create their own platform threads, and are not affected.
+ * <p>
+ * This is the baseline implementation, which runs tasks on a fixed pool of
+ * daemon platform threads. When the project is built as a multi-release JAR,
+ * a Java 21 implementation of this class in {@code META-INF/versions/21}
+ * replaces it on Java 21 and later, and runs each task on its own virtual
+ * thread instead.
+ */
+final class Workers
+{
+  private Workers()
+  {
+    // Private constructor. No implementation.
+  }
+
+
+  /**
+   * Creates an executor that runs at most a given number of tasks at the
+   * same time. Shutting the executor down with
+   * {@link ExecutorService#shutdownNow()} interrupts the running tasks.
+   *
+   * @param name
+   *          The prefix for thread names.
+   * @param maxConcurrency
+   *          The largest number of tasks that run at the same time.
+   * @return A new executor.
+   */
+  static ExecutorService newExecutor(String name, int maxConcurrency)
+  {
+    return Executors.newFixedThreadPool(maxConcurrency,
+                                        new DaemonThreadFactory(name));
+  }
+}
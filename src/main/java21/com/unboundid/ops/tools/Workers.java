@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops.tools;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates the executors on which the {@link FleetStatus} tool checks each
+ * server of a fleet. This is the only fan-out that runs on virtual threads
+ * on Java 21; the servlet extension, the status refresher and the webhook
+ * notifier create their own platform threads, and are not affected.
+ * <p>
+ * This is the Java 21 implementation, which is packaged in
+ * {@code META-INF/versions/21} of the multi-release JAR. Each task runs on
+ * its own virtual thread, so a large fan-out costs no more than the sockets
+ * it opens, and no platform thread pool has to be sized for it. The number
+ * of tasks that run at the same time is still limited, so that a large
+ * fleet is not flooded with connections all at once; tasks beyond the limit
+ * wait on a semaphore, which does not hold a carrier thread.
+ */
+final class Workers
+{
+  private Workers()
+  {
+    // Private constructor. No implementation.
+  }
+
+
+  /**
+   * Creates an executor that runs at most a given number of tasks at the
+   * same time. Shutting the executor down with
+   * {@link ExecutorService#shutdownNow()} interrupts the running tasks.
+   *
+   * @param name
+   *          The prefix for thread names.
+   * @param maxConcurrency
+   *          The largest number of tasks that run at the same time.
+   * @return A new executor.
+   */
+  static ExecutorService newExecutor(String name, int maxConcurrency)
+  {
+    ThreadFactory virtualThreads =
+        Thread.ofVirtual().name(name + " ", 1L).factory();
+    Semaphore permits = new Semaphore(maxConcurrency);
+    return Executors.newThreadPerTaskExecutor(runnable ->
+        virtualThreads.newThread(() -> {
+          boolean acquired = false;
+          try
+          {
+            permits.acquire();
+            acquired = true;
+          }
+          catch (InterruptedException e)
+          {
+            // The executor was shut down. The task must still run so that
+            // its future completes, but it sees the interrupt.
+            Thread.currentThread().interrupt();
+          }
+          try
+          {
+            runnable.run();
+          }
+          finally
+          {
+            if (acquired)
+            {
+              permits.release();
+            }
+          }
+        }));
+  }
+}
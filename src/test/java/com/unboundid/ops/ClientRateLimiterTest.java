@@ -0,0 +1,95 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.unboundid.ldap.sdk.LDAPException;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for {@link ClientRateLimiter}.
+ */
+public class ClientRateLimiterTest
+{
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1L);
+
+
+  @Test
+  public void burstAndRefillTest() throws Exception
+  {
+    ClientRateLimiter limiter = new ClientRateLimiter(2.0, 3, 100);
+    long now = 0L;
+
+    // A new client may make a burst of requests at once.
+    assertTrue(limiter.tryAcquire("10.0.0.1", now));
+    assertTrue(limiter.tryAcquire("10.0.0.1", now));
+    assertTrue(limiter.tryAcquire("10.0.0.1", now));
+    assertFalse(limiter.tryAcquire("10.0.0.1", now));
+    assertEquals(limiter.getLimitedRequests(), 1L);
+
+    // Other clients have their own buckets.
+    assertTrue(limiter.tryAcquire("10.0.0.2", now));
+
+    // Tokens are refilled at the steady rate.
+    now += SECOND / 2;
+    assertTrue(limiter.tryAcquire("10.0.0.1", now));
+    assertFalse(limiter.tryAcquire("10.0.0.1", now));
+    assertEquals(limiter.getLimitedRequests(), 2L);
+    assertEquals(limiter.getRetryAfterSeconds(), 1L);
+  }
+
+
+  @Test
+  public void evictionTest() throws Exception
+  {
+    ClientRateLimiter limiter = new ClientRateLimiter(1.0, 2, 16);
+    long now = 0L;
+    for (int i = 0; i < 1000; i++)
+    {
+      limiter.tryAcquire("10.0.0." + i, now);
+    }
+    assertTrue(limiter.getClientCount() <= 16);
+
+    // Clients that have been idle long enough to refill are forgotten as
+    // other clients' requests pass through their stripes.
+    limiter = new ClientRateLimiter(1.0, 2, 1000);
+    for (int i = 0; i < 100; i++)
+    {
+      limiter.tryAcquire("10.0.1." + i, now);
+    }
+    assertEquals(limiter.getClientCount(), 100);
+    now += 3 * SECOND;
+    for (int i = 0; i < 100; i++)
+    {
+      limiter.tryAcquire("10.0.2." + i, now);
+    }
+    assertEquals(limiter.getClientCount(), 100);
+    assertTrue(limiter.tryAcquire("10.0.2.1", now));
+    assertFalse(limiter.tryAcquire("10.0.2.1", now));
+  }
+
+
+  @Test(expectedExceptions = LDAPException.class)
+  public void unknownActionTest() throws Exception
+  {
+    ClientRateLimiter.OverLimitAction.forName("drop");
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for {@link ClientTracker} and {@link HeavyHitters}.
+ */
+public class ClientTrackerTest
+{
+  @Test
+  public void heavyHittersTest() throws Exception
+  {
+    HeavyHitters heavyHitters = new HeavyHitters(3);
+    // Many clients make a few requests each, and three make many.
+    for (int round = 0; round < 5; round++)
+    {
+      for (int i = 0; i < 10000; i++)
+      {
+        heavyHitters.record("10.1." + (i / 256) + "." + (i % 256));
+      }
+      for (int i = 0; i < 300; i++)
+      {
+        heavyHitters.record("10.0.0.1");
+        heavyHitters.record("10.0.0.1");
+        heavyHitters.record("10.0.0.2");
+        if (i % 2 == 0)
+        {
+          heavyHitters.record("10.0.0.3");
+        }
+      }
+    }
+
+    List<HeavyHitters.HeavyHitter> top = heavyHitters.getTop(10000L);
+    assertEquals(top.size(), 3);
+    assertEquals(top.get(0).getKey(), "10.0.0.1");
+    assertEquals(top.get(1).getKey(), "10.0.0.2");
+    assertEquals(top.get(2).getKey(), "10.0.0.3");
+    // Estimates are never too low.
+    assertTrue(top.get(0).getRequests() >= 3000L);
+    assertTrue(top.get(1).getRequests() >= 1500L);
+    assertTrue(top.get(2).getRequests() >= 750L);
+    assertEquals(top.get(0).getRequestsPerSecond(),
+                 top.get(0).getRequests() / 10.0, 0.001);
+  }
+
+
+  @Test
+  public void trackerTest() throws Exception
+  {
+    ClientTracker tracker = new ClientTracker(2, 60000L);
+    tracker.record("10.0.0.1", "kube-probe/1.15");
+    tracker.record("10.0.0.1", "kube-probe/1.15");
+    tracker.record("10.0.0.2", null);
+
+    JsonNode json = new ObjectMapper().readTree(tracker.getJson());
+    assertEquals(json.path("windowSeconds").asLong(), 60L);
+    assertEquals(json.path("clients").size(), 2);
+    assertEquals(json.path("clients").get(0).path("key").asText(),
+                 "10.0.0.1");
+    assertEquals(json.path("clients").get(0).path("requests").asLong(), 2L);
+    assertEquals(json.path("userAgents").get(0).path("key").asText(),
+                 "kube-probe/1.15");
+    assertEquals(json.path("userAgents").get(1).path("key").asText(), "-");
+  }
+
+
+  @Test
+  public void quietPeriodTest() throws Exception
+  {
+    ClientTracker tracker = new ClientTracker(2, 200L);
+    for (int i = 0; i < 10; i++)
+    {
+      tracker.record("10.0.0.1", null);
+    }
+
+    // After a quiet period, the completed window's rate covers the time
+    // until it was completed, not only the window length.
+    Thread.sleep(400L);
+    tracker.record("10.0.0.2", null);
+    List<HeavyHitters.HeavyHitter> clients = tracker.getTopClients();
+    assertEquals(clients.get(0).getKey(), "10.0.0.1");
+    assertEquals(clients.get(0).getRequests(), 10L);
+    assertTrue(clients.get(0).getRequestsPerSecond() <= 10 / 0.4,
+               "rate=" + clients.get(0).getRequestsPerSecond());
+
+    // Once another window has passed, the old window is no longer reported.
+    Thread.sleep(500L);
+    clients = tracker.getTopClients();
+    assertEquals(clients.size(), 1);
+    assertEquals(clients.get(0).getKey(), "10.0.0.2");
+  }
+}
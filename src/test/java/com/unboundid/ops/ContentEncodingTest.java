@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.unboundid.ops.models.Status;
+import com.unboundid.ops.models.StatusError;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for {@link ContentEncoding}.
+ */
+public class ContentEncodingTest
+{
+  @Test
+  public void negotiateTest()
+  {
+    assertEquals(ContentEncoding.negotiate(null), ContentEncoding.IDENTITY);
+    assertEquals(ContentEncoding.negotiate(""), ContentEncoding.IDENTITY);
+    assertEquals(ContentEncoding.negotiate("br"), ContentEncoding.IDENTITY);
+    assertEquals(ContentEncoding.negotiate("gzip, deflate"),
+                 ContentEncoding.GZIP);
+    assertEquals(ContentEncoding.negotiate("deflate"),
+                 ContentEncoding.DEFLATE);
+    assertEquals(ContentEncoding.negotiate("gzip;q=0.5, deflate"),
+                 ContentEncoding.DEFLATE);
+    assertEquals(ContentEncoding.negotiate("GZIP;Q=1.0"),
+                 ContentEncoding.GZIP);
+    assertEquals(ContentEncoding.negotiate("*"), ContentEncoding.GZIP);
+    assertEquals(ContentEncoding.negotiate("gzip;q=0, *"),
+                 ContentEncoding.DEFLATE);
+    assertEquals(ContentEncoding.negotiate("gzip;q=0, deflate;q=0"),
+                 ContentEncoding.IDENTITY);
+  }
+
+
+  @Test
+  public void snapshotEncodingTest() throws Exception
+  {
+    StatusSnapshot snapshot = StatusSnapshot.create(
+        Status.create(new StatusError(new Exception("test"))));
+    byte[] json = snapshot.getJson();
+    assertSame(snapshot.getJson(ContentEncoding.IDENTITY), json);
+
+    byte[] gzip = snapshot.getJson(ContentEncoding.GZIP);
+    assertSame(snapshot.getJson(ContentEncoding.GZIP), gzip);
+    assertTrue(Arrays.equals(
+        readFully(new GZIPInputStream(new ByteArrayInputStream(gzip))), json));
+
+    byte[] deflate = snapshot.getJson(ContentEncoding.DEFLATE);
+    assertSame(snapshot.getJson(ContentEncoding.DEFLATE), deflate);
+    assertTrue(Arrays.equals(
+        readFully(new InflaterInputStream(new ByteArrayInputStream(deflate))),
+        json));
+  }
+
+
+  private static byte[] readFully(InputStream in) throws Exception
+  {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    byte[] buffer = new byte[4096];
+    int count;
+    while ((count = in.read(buffer)) > 0)
+    {
+      bytes.write(buffer, 0, count);
+    }
+    in.close();
+    return bytes.toByteArray();
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.sdk.LDAPConnection;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for {@link HealthChecks}.
+ */
+public class HealthChecksTest
+{
+  private InMemoryDirectoryServer ds;
+
+
+  /**
+   * Starts an in-memory DS.
+   */
+  @BeforeClass
+  public void setup() throws Exception
+  {
+    InMemoryDirectoryServerConfig config =
+        new InMemoryDirectoryServerConfig("cn=monitor");
+    config.setSchema(null);
+    ds = new InMemoryDirectoryServer(config);
+    ds.startListening();
+    ds.add("dn: cn=monitor",
+           "objectClass: top",
+           "objectClass: ds-monitor-entry",
+           "objectClass: ds-general-monitor-entry",
+           "objectClass: extensibleObject",
+           "cn: monitor",
+           "degraded-alert-type: low-disk-space-error");
+  }
+
+
+  /**
+   * Shuts down the in-memory DS.
+   */
+  @AfterClass
+  public void cleanup() throws Exception
+  {
+    ds.shutDown(true);
+  }
+
+
+  @Test
+  public void startupTest() throws Exception
+  {
+    try (LDAPConnection connection = ds.getConnection())
+    {
+      StatusClient client = createClient(connection);
+      HealthChecks healthChecks = new HealthChecks(client)
+          .setStartupTimeoutMillis(50L);
+      StatusRefresher refresher = new StatusRefresher(client, 100L)
+          .setProfiles(healthChecks.getProfiles());
+      healthChecks.setRefresher(refresher);
+
+      // Nothing has been evaluated, so the check times out.
+      assertEquals(healthChecks.awaitStartup().getHttpStatusCode(),
+                   StatusSnapshot.SC_UNAVAILABLE);
+      assertFalse(healthChecks.isStarted());
+
+      // The degraded server is reported as not started.
+      refresher.refresh();
+      assertEquals(healthChecks.awaitStartup().getHttpStatusCode(),
+                   StatusSnapshot.SC_DEGRADED);
+      assertFalse(healthChecks.isStarted());
+
+      // The readiness sections do not include the server.
+      assertEquals(healthChecks.getReadiness().getHttpStatusCode(),
+                   StatusSnapshot.SC_AVAILABLE);
+      assertNull(healthChecks.getReadiness().getStatus().getServerStatus());
+
+      // The startup check waits for the background evaluation.
+      healthChecks.setStartupSections(Collections.singleton(
+          StatusSection.LOAD_BALANCING_ALGORITHMS))
+          .setStartupTimeoutMillis(10000L);
+      refresher = new StatusRefresher(client, 100L)
+          .setProfiles(healthChecks.getProfiles());
+      healthChecks.setRefresher(refresher);
+      refresher.start();
+      try
+      {
+        assertEquals(healthChecks.awaitStartup().getHttpStatusCode(),
+                     StatusSnapshot.SC_AVAILABLE);
+        assertTrue(healthChecks.isStarted());
+      }
+      finally
+      {
+        refresher.stop();
+      }
+    }
+  }
+
+
+  @Test
+  public void livenessTest() throws Exception
+  {
+    try (LDAPConnection connection = ds.getConnection())
+    {
+      StatusClient client = createClient(connection);
+      StatusRefresher refresher = new StatusRefresher(client, 100L);
+      HealthChecks healthChecks = new HealthChecks(client)
+          .setRefresher(refresher)
+          .setLivenessMaxAgeMillis(10L);
+      assertTrue(healthChecks.isLive());
+
+      refresher.refresh();
+      Thread.sleep(50L);
+      assertFalse(healthChecks.isLive());
+
+      healthChecks.setLivenessMaxAgeMillis(0L);
+      assertTrue(healthChecks.isLive());
+    }
+  }
+
+
+  private static StatusClient createClient(LDAPConnection connection)
+  {
+    return new StatusClient(
+        connection, Collections.<String>emptyList(),
+        Collections.<MonitorAvailabilityCriteria>emptyList());
+  }
+}
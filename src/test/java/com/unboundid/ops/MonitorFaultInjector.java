@@ -0,0 +1,337 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.unboundid.ldap.listener.interceptor.InMemoryInterceptedSearchEntry;
+import com.unboundid.ldap.listener.interceptor.InMemoryInterceptedSearchRequest;
+import com.unboundid.ldap.listener.interceptor.InMemoryInterceptedSearchResult;
+import com.unboundid.ldap.listener.interceptor.InMemoryOperationInterceptor;
+import com.unboundid.ldap.sdk.Control;
+import com.unboundid.ldap.sdk.DN;
+import com.unboundid.ldap.sdk.Entry;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.LDAPResult;
+import com.unboundid.ldap.sdk.ResultCode;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Injects faults into the monitor entries that an in-memory directory server
+ * returns, so that a status client can be tested against a server that is
+ * slow, failing, unresponsive, or unstable. Faults are keyed by the DN of a
+ * monitor entry, and apply to every search that returns the entry:
+ * <ul>
+ *   <li>Latency delays the entry by a fixed time.</li>
+ *   <li>An error suppresses the entry and fails the search with a result
+ *       code, either always or a number of times.</li>
+ *   <li>A timeout holds the entry, and the rest of the connection's
+ *       operations, until the injector is reset.</li>
+ *   <li>A flapping attribute cycles through a list of values, one for each
+ *       search.</li>
+ * </ul>
+ * The in-memory server processes one search at a time, so a slow or held
+ * entry also delays the searches of other connections.
+ * <p>
+ * The injector is registered with
+ * {@code InMemoryDirectoryServerConfig.addInMemoryOperationInterceptor}, and
+ * should be reset after each test.
+ */
+public class MonitorFaultInjector extends InMemoryOperationInterceptor
+{
+  /**
+   * The longest time that a timed-out entry is held if the injector is never
+   * reset.
+   */
+  private static final long MAX_HOLD_MILLIS = 60000L;
+
+  /** The search property that holds an injected error result. */
+  private static final String ERROR_PROPERTY =
+      MonitorFaultInjector.class.getName() + ".error";
+
+  private final ConcurrentHashMap<DN, Fault> faults =
+      new ConcurrentHashMap<>();
+  private final AtomicInteger searchCount = new AtomicInteger();
+  private volatile CountDownLatch release = new CountDownLatch(1);
+
+
+  /**
+   * Delays a monitor entry whenever it is returned.
+   *
+   * @param dn
+   *          The DN of the monitor entry.
+   * @param latencyMillis
+   *          The delay, in milliseconds.
+   * @return This injector.
+   * @throws LDAPException
+   *           If the DN is not valid.
+   */
+  public MonitorFaultInjector addLatency(String dn, long latencyMillis)
+      throws LDAPException
+  {
+    getFault(dn).latencyMillis = latencyMillis;
+    return this;
+  }
+
+
+  /**
+   * Fails the searches that would return a monitor entry.
+   *
+   * @param dn
+   *          The DN of the monitor entry.
+   * @param resultCode
+   *          The result code of the failed searches.
+   * @param count
+   *          The number of searches to fail, after which the entry is
+   *          returned normally, or zero to fail every search.
+   * @return This injector.
+   * @throws LDAPException
+   *           If the DN is not valid.
+   */
+  public MonitorFaultInjector addError(String dn, ResultCode resultCode,
+                                       int count)
+      throws LDAPException
+  {
+    Fault fault = getFault(dn);
+    fault.remainingErrors.set(count > 0 ? count : Integer.MAX_VALUE);
+    fault.resultCode = resultCode;
+    return this;
+  }
+
+
+  /**
+   * Holds a monitor entry, without answering the search that returns it,
+   * until this injector is reset. The server's later searches are also held,
+   * so a client sees each of them time out.
+   *
+   * @param dn
+   *          The DN of the monitor entry.
+   * @return This injector.
+   * @throws LDAPException
+   *           If the DN is not valid.
+   */
+  public MonitorFaultInjector addTimeout(String dn) throws LDAPException
+  {
+    getFault(dn).timeout = true;
+    return this;
+  }
+
+
+  /**
+   * Replaces an attribute of a monitor entry with the next of a list of
+   * values each time the entry is returned, starting with the first.
+   *
+   * @param dn
+   *          The DN of the monitor entry.
+   * @param attribute
+   *          The attribute name.
+   * @param values
+   *          The values to cycle through.
+   * @return This injector.
+   * @throws LDAPException
+   *           If the DN is not valid.
+   */
+  public MonitorFaultInjector addFlappingAttribute(String dn,
+                                                   String attribute,
+                                                   String... values)
+      throws LDAPException
+  {
+    Fault fault = getFault(dn);
+    fault.flaps.set(0);
+    fault.flappingValues = values.clone();
+    fault.flappingAttribute = attribute;
+    return this;
+  }
+
+
+  /**
+   * Removes every fault, and releases any entries that are held.
+   */
+  public void reset()
+  {
+    faults.clear();
+    CountDownLatch held = release;
+    release = new CountDownLatch(1);
+    held.countDown();
+  }
+
+
+  /**
+   * Gets the number of searches that the server has received.
+   *
+   * @return The number of searches.
+   */
+  public int getSearchCount()
+  {
+    return searchCount.get();
+  }
+
+
+  /**
+   * Gets the number of times that a faulty monitor entry would have been
+   * returned, whether or not it was.
+   *
+   * @param dn
+   *          The DN of the monitor entry.
+   * @return The number of times, or zero if the entry has no faults.
+   * @throws LDAPException
+   *           If the DN is not valid.
+   */
+  public int getMatchCount(String dn) throws LDAPException
+  {
+    Fault fault = faults.get(new DN(dn));
+    return fault != null ? fault.matches.get() : 0;
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  public void processSearchRequest(InMemoryInterceptedSearchRequest request)
+  {
+    searchCount.incrementAndGet();
+    request.setProperty(ERROR_PROPERTY, new AtomicReference<LDAPResult>());
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  @SuppressWarnings("unchecked")
+  public void processSearchEntry(InMemoryInterceptedSearchEntry entry)
+  {
+    Fault fault;
+    try
+    {
+      fault = faults.get(entry.getSearchEntry().getParsedDN());
+    }
+    catch (LDAPException e)
+    {
+      return;
+    }
+    if (fault == null)
+    {
+      return;
+    }
+    fault.matches.incrementAndGet();
+
+    try
+    {
+      if (fault.latencyMillis > 0L)
+      {
+        Thread.sleep(fault.latencyMillis);
+      }
+      if (fault.timeout)
+      {
+        release.await(MAX_HOLD_MILLIS, TimeUnit.MILLISECONDS);
+      }
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+
+    if (fault.resultCode != null && fault.takeError())
+    {
+      AtomicReference<LDAPResult> error = (AtomicReference<LDAPResult>)
+          entry.getProperty(ERROR_PROPERTY);
+      error.compareAndSet(null, new LDAPResult(
+          entry.getMessageID(), fault.resultCode,
+          "Injected fault for " + entry.getSearchEntry().getDN(),
+          null, (String[]) null, (Control[]) null));
+      entry.setSearchEntry(null);
+      return;
+    }
+
+    String[] values = fault.flappingValues;
+    if (fault.flappingAttribute != null && values.length > 0)
+    {
+      Entry flapped = entry.getSearchEntry().duplicate();
+      flapped.setAttribute(fault.flappingAttribute,
+          values[(fault.flaps.getAndIncrement() & Integer.MAX_VALUE) %
+              values.length]);
+      entry.setSearchEntry(flapped);
+    }
+  }
+
+
+  /** {@inheritDoc} */
+  @Override
+  @SuppressWarnings("unchecked")
+  public void processSearchResult(InMemoryInterceptedSearchResult result)
+  {
+    AtomicReference<LDAPResult> error = (AtomicReference<LDAPResult>)
+        result.getProperty(ERROR_PROPERTY);
+    if (error != null && error.get() != null)
+    {
+      result.setResult(error.get());
+    }
+  }
+
+
+  private Fault getFault(String dn) throws LDAPException
+  {
+    DN parsedDN = new DN(dn);
+    Fault fault = faults.get(parsedDN);
+    if (fault == null)
+    {
+      fault = new Fault();
+      Fault existing = faults.putIfAbsent(parsedDN, fault);
+      if (existing != null)
+      {
+        fault = existing;
+      }
+    }
+    return fault;
+  }
+
+
+  /**
+   * The faults of a single monitor entry.
+   */
+  private static final class Fault
+  {
+    private volatile long latencyMillis;
+    private volatile boolean timeout;
+    private volatile ResultCode resultCode;
+    private final AtomicInteger remainingErrors = new AtomicInteger();
+    private volatile String flappingAttribute;
+    private volatile String[] flappingValues = new String[0];
+    private final AtomicInteger flaps = new AtomicInteger();
+    private final AtomicInteger matches = new AtomicInteger();
+
+
+    /**
+     * Uses up one of this fault's errors, if any remain.
+     */
+    private boolean takeError()
+    {
+      int remaining;
+      do
+      {
+        remaining = remainingErrors.get();
+        if (remaining <= 0)
+        {
+          return false;
+        }
+      }
+      while (remaining != Integer.MAX_VALUE &&
+          !remainingErrors.compareAndSet(remaining, remaining - 1));
+      return true;
+    }
+  }
+}
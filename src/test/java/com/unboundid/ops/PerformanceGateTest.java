@@ -0,0 +1,566 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.unboundid.directory.sdk.http.types.HTTPServerContext;
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.sdk.LDAPConnection;
+import org.testng.Reporter;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+/**
+ * A performance regression gate. It runs a fixed set of benchmarks of status
+ * evaluation and of status requests against seeded monitor data, and fails if
+ * a benchmark's bytes allocated per operation are significantly worse than
+ * their baseline. Throughput and 99th percentile latency depend on the build
+ * machine and on what else it is running, so they are only reported, unless
+ * a separate timing tolerance is set for them.
+ * <p>
+ * The baselines and the tolerances are read from the
+ * {@code performance-budgets.properties} resource, or from the file named by
+ * the {@code performance.budgets} system property. A tolerance is a
+ * percentage by which a result may be worse than its baseline. The
+ * {@code tolerancePercent} setting applies to allocations, and the
+ * {@code performance.tolerance} system property overrides it. The
+ * {@code timingTolerancePercent} setting, or the
+ * {@code performance.timingTolerance} system property, makes throughput and
+ * latency fail the gate as well. A report of every result is logged with the
+ * TestNG {@link Reporter}, and is written to the file named by the
+ * {@code performance.report} system property if it is set, in the format of
+ * the budgets file so that it can be used as a new baseline.
+ * <p>
+ * These tests are in the {@code performance} group, which is only run by the
+ * {@code performance} build profile:
+ * <pre>
+ *   mvn -P performance verify
+ * </pre>
+ */
+@Test(groups = "performance")
+public class PerformanceGateTest
+{
+  /** The resource that holds the default baselines. */
+  private static final String BUDGETS_RESOURCE =
+      "performance-budgets.properties";
+
+  private static final String[] METRICS =
+      { "throughput", "p99Micros", "bytesPerOperation" };
+
+  /** The index in {@link #METRICS} of the only metric that always gates. */
+  private static final int ALLOCATION_METRIC = 2;
+
+  private InMemoryDirectoryServer ds;
+  private LDAPConnection connection;
+  private Properties budgets;
+  private final List<String[]> results = new ArrayList<>();
+
+
+  /**
+   * Starts an in-memory DS with a typical set of monitor entries, and reads
+   * the baselines.
+   */
+  @BeforeClass(alwaysRun = true)
+  public void setup() throws Exception
+  {
+    InMemoryDirectoryServerConfig config =
+        new InMemoryDirectoryServerConfig("cn=monitor");
+    config.setSchema(null);
+    ds = new InMemoryDirectoryServer(config);
+    ds.add("dn: cn=monitor",
+           "objectClass: top",
+           "objectClass: ds-monitor-entry",
+           "objectClass: ds-general-monitor-entry",
+           "cn: monitor");
+    ds.add("dn: cn=Http Servlet Configuration,cn=monitor",
+           "objectClass: top",
+           "objectClass: ds-monitor-entry",
+           "objectClass: ds-http-servlet-config-monitor-entry",
+           "cn: Http Servlet Configuration",
+           "enabled-servlet-and-path: Status Servlet https://localhost/status",
+           "enabled-servlet-and-path: SCIM2 https://localhost/scim/v2");
+    ds.add("dn: cn=Example Monitor,cn=monitor",
+           "objectClass: top",
+           "objectClass: ds-monitor-entry",
+           "cn: Example Monitor",
+           "state: ready");
+    for (int i = 0; i < 4; i++)
+    {
+      ds.add("dn: cn=Store Adapter Store" + i + ",cn=monitor",
+             "objectClass: top",
+             "objectClass: ds-monitor-entry",
+             "objectClass: ds-store-adapter-monitor-entry",
+             "cn: Store Adapter Store" + i,
+             "store-adapter-name: Store" + i,
+             "store-adapter-status: AVAILABLE");
+      ds.add("dn: cn=load-balancing algorithm LBA" + i + ",cn=monitor",
+             "objectClass: top",
+             "objectClass: ds-monitor-entry",
+             "objectClass: ds-load-balancing-algorithm-monitor-entry",
+             "cn: load-balancing algorithm LBA" + i,
+             "algorithm-name: LBA" + i,
+             "health-check-state: AVAILABLE",
+             "num-available-servers: 2",
+             "num-degraded-servers: 0",
+             "num-unavailable-servers: 0");
+    }
+    ds.startListening();
+    connection = ds.getConnection();
+    budgets = loadBudgets();
+  }
+
+
+  /**
+   * Reports every benchmark's results.
+   */
+  @AfterClass(alwaysRun = true)
+  public void report() throws Exception
+  {
+    try
+    {
+      Reporter.log(formatReport());
+      String reportFile = System.getProperty("performance.report");
+      if (reportFile != null && !reportFile.isEmpty())
+      {
+        writeBaseline(new File(reportFile));
+      }
+    }
+    finally
+    {
+      if (connection != null)
+      {
+        connection.close();
+      }
+      ds.shutDown(true);
+    }
+  }
+
+
+  @Test
+  public void clientTest() throws Exception
+  {
+    final StatusClient client = createClient();
+    measure("client.getStatus", new Operation()
+    {
+      @Override
+      public void run()
+      {
+        if (!client.getStatus().isOK())
+        {
+          throw new IllegalStateException("The seeded status is not OK");
+        }
+      }
+    });
+  }
+
+
+  @Test
+  public void servletTest() throws Exception
+  {
+    StatusServlet servlet = new StatusServlet(
+        createServerContext(), connection, createClient(), null);
+    measure("servlet.doGet", createRequestOperation(servlet));
+  }
+
+
+  @Test
+  public void refreshedServletTest() throws Exception
+  {
+    StatusClient client = createClient();
+    StatusRefresher refresher = new StatusRefresher(client, 60000L);
+    refresher.refresh();
+    StatusServlet servlet = new StatusServlet(
+        createServerContext(), connection, client, refresher);
+    measure("servlet.doGet.refreshed", createRequestOperation(servlet));
+  }
+
+
+  private StatusClient createClient() throws Exception
+  {
+    return new StatusClient(
+        connection, Arrays.asList("Status Servlet", "SCIM2"),
+        Collections.singletonList(
+            MonitorAvailabilityCriteria.create("Example Monitor:state:ready")));
+  }
+
+
+  /**
+   * Runs an operation for the configured number of warm-up operations, and
+   * then measures it for the configured number of operations, recording the
+   * results. Fails if any of the results regressed.
+   */
+  private void measure(String benchmark, Operation operation) throws Exception
+  {
+    int warmUpOperations =
+        Integer.parseInt(budgets.getProperty("warmUpOperations", "2000"));
+    int operations =
+        Integer.parseInt(budgets.getProperty("measuredOperations", "5000"));
+    for (int i = 0; i < warmUpOperations; i++)
+    {
+      operation.run();
+    }
+
+    long[] latencies = new long[operations];
+    long startBytes = getAllocatedBytes();
+    long start = System.nanoTime();
+    for (int i = 0; i < operations; i++)
+    {
+      long operationStart = System.nanoTime();
+      operation.run();
+      latencies[i] = System.nanoTime() - operationStart;
+    }
+    long elapsed = System.nanoTime() - start;
+    long endBytes = getAllocatedBytes();
+
+    Arrays.sort(latencies);
+    double[] measured = {
+        operations * 1.0e9 / elapsed,
+        latencies[(int) Math.ceil(operations * 0.99) - 1] / 1000.0,
+        startBytes < 0L ? Double.NaN :
+            (endBytes - startBytes) / (double) operations
+    };
+    double timingTolerancePercent = getTimingTolerancePercent();
+    List<String> regressions = new ArrayList<>();
+    for (int i = 0; i < METRICS.length; i++)
+    {
+      String key = benchmark + "." + METRICS[i];
+      String baselineValue = budgets.getProperty(key);
+      String limit = "";
+      String result = "ok";
+      if (Double.isNaN(measured[i]))
+      {
+        result = "not measured";
+      }
+      else if (baselineValue == null)
+      {
+        result = "no baseline";
+      }
+      else
+      {
+        // Throughput may not fall, and the other metrics may not rise, by
+        // more than the tolerance. Timing results without a tolerance are
+        // compared with the allocation tolerance, but only reported.
+        boolean gated = i == ALLOCATION_METRIC ||
+            !Double.isNaN(timingTolerancePercent);
+        double tolerance = (i == ALLOCATION_METRIC ||
+            Double.isNaN(timingTolerancePercent) ?
+            getTolerancePercent() : timingTolerancePercent) / 100.0;
+        double baseline = Double.parseDouble(baselineValue);
+        double limitValue = i == 0 ?
+            baseline * (1.0 - tolerance) : baseline * (1.0 + tolerance);
+        limit = format(limitValue);
+        if (i == 0 ? measured[i] < limitValue : measured[i] > limitValue)
+        {
+          if (gated)
+          {
+            result = "REGRESSED";
+            regressions.add(key);
+          }
+          else
+          {
+            result = "slower (not gated)";
+          }
+        }
+      }
+      results.add(new String[] {
+          benchmark, METRICS[i],
+          baselineValue != null ? baselineValue : "", limit,
+          Double.isNaN(measured[i]) ? "" : format(measured[i]), result });
+    }
+    if (!regressions.isEmpty())
+    {
+      fail("Performance regressed: " + regressions + "\n" + formatReport());
+    }
+  }
+
+
+  /**
+   * Gets the number of bytes that the current thread has allocated, or -1 if
+   * the JVM does not report it.
+   */
+  private static long getAllocatedBytes()
+  {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean)
+    {
+      com.sun.management.ThreadMXBean hotSpotThreads =
+          (com.sun.management.ThreadMXBean) threads;
+      if (hotSpotThreads.isThreadAllocatedMemorySupported() &&
+          hotSpotThreads.isThreadAllocatedMemoryEnabled())
+      {
+        return hotSpotThreads.getThreadAllocatedBytes(
+            Thread.currentThread().getId());
+      }
+    }
+    return -1L;
+  }
+
+
+  private double getTolerancePercent()
+  {
+    return Double.parseDouble(System.getProperty("performance.tolerance",
+        budgets.getProperty("tolerancePercent", "50")));
+  }
+
+
+  /**
+   * Gets the tolerance for throughput and latency, or NaN if they are only
+   * reported.
+   */
+  private double getTimingTolerancePercent()
+  {
+    String value = System.getProperty("performance.timingTolerance",
+        budgets.getProperty("timingTolerancePercent"));
+    return value == null || value.isEmpty() ?
+        Double.NaN : Double.parseDouble(value);
+  }
+
+
+  private static Properties loadBudgets() throws IOException
+  {
+    Properties properties = new Properties();
+    String budgetsFile = System.getProperty("performance.budgets");
+    try (InputStream in = budgetsFile != null && !budgetsFile.isEmpty() ?
+        new FileInputStream(budgetsFile) :
+        PerformanceGateTest.class.getClassLoader()
+            .getResourceAsStream(BUDGETS_RESOURCE))
+    {
+      if (in == null)
+      {
+        throw new IOException("Missing resource " + BUDGETS_RESOURCE);
+      }
+      properties.load(in);
+    }
+    return properties;
+  }
+
+
+  private String formatReport()
+  {
+    double timingTolerancePercent = getTimingTolerancePercent();
+    StringBuilder report = new StringBuilder(String.format(
+        "Performance gate (allocation tolerance %s%%, timing %s)%n",
+        format(getTolerancePercent()),
+        Double.isNaN(timingTolerancePercent) ? "not gated" :
+            "tolerance " + format(timingTolerancePercent) + "%"));
+    report.append(String.format("%-24s %-18s %12s %12s %12s  %s%n",
+        "benchmark", "metric", "baseline", "limit", "measured", "result"));
+    for (String[] result : results)
+    {
+      report.append(String.format("%-24s %-18s %12s %12s %12s  %s%n",
+          (Object[]) result));
+    }
+    return report.toString();
+  }
+
+
+  /**
+   * Writes the measured results in the format of the budgets file, keeping
+   * its other settings.
+   */
+  private void writeBaseline(File file) throws IOException
+  {
+    File parent = file.getAbsoluteFile().getParentFile();
+    if (parent != null && !parent.isDirectory() && !parent.mkdirs())
+    {
+      throw new IOException("Cannot create " + parent);
+    }
+    try (Writer writer = new OutputStreamWriter(
+        new FileOutputStream(file), StandardCharsets.UTF_8))
+    {
+      writer.write("# Measured by the performance gate.\n");
+      for (String key : new String[] {
+          "tolerancePercent", "timingTolerancePercent", "warmUpOperations",
+          "measuredOperations" })
+      {
+        if (budgets.getProperty(key) != null)
+        {
+          writer.write(key + "=" + budgets.getProperty(key) + "\n");
+        }
+      }
+      for (String[] result : results)
+      {
+        if (!result[4].isEmpty())
+        {
+          writer.write(result[0] + "." + result[1] + "=" + result[4] + "\n");
+        }
+      }
+    }
+  }
+
+
+  private static String format(double value)
+  {
+    return value >= 100.0 ?
+        String.valueOf(Math.round(value)) : String.format("%.2f", value);
+  }
+
+
+  /**
+   * Creates an operation that requests the status from a servlet, and checks
+   * that the server is available.
+   */
+  private static Operation createRequestOperation(final StatusServlet servlet)
+  {
+    final HttpServletRequest request = createProxy(
+        HttpServletRequest.class, new InvocationHandler()
+        {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args)
+          {
+            if (method.getName().equals("getRemoteAddr"))
+            {
+              return "127.0.0.1";
+            }
+            if (method.getName().equals("getHeader") &&
+                "Accept".equals(args[0]))
+            {
+              return "application/json";
+            }
+            return getDefaultValue(method.getReturnType());
+          }
+        });
+    final int[] status = new int[1];
+    final ServletOutputStream out = new ServletOutputStream()
+    {
+      @Override
+      public void write(int b)
+      {
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len)
+      {
+      }
+
+      @Override
+      public boolean isReady()
+      {
+        return true;
+      }
+
+      @Override
+      public void setWriteListener(WriteListener writeListener)
+      {
+      }
+    };
+    final HttpServletResponse response = createProxy(
+        HttpServletResponse.class, new InvocationHandler()
+        {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args)
+          {
+            if (method.getName().equals("setStatus") ||
+                method.getName().equals("sendError"))
+            {
+              status[0] = (Integer) args[0];
+            }
+            else if (method.getName().equals("getOutputStream"))
+            {
+              return out;
+            }
+            return getDefaultValue(method.getReturnType());
+          }
+        });
+    return new Operation()
+    {
+      @Override
+      public void run() throws Exception
+      {
+        servlet.doGet(request, response);
+        assertEquals(status[0], StatusSnapshot.SC_AVAILABLE);
+      }
+    };
+  }
+
+
+  /**
+   * Creates a server context that discards debug messages.
+   */
+  private static HTTPServerContext createServerContext()
+  {
+    return createProxy(HTTPServerContext.class, new InvocationHandler()
+    {
+      @Override
+      public Object invoke(Object proxy, Method method, Object[] args)
+      {
+        return getDefaultValue(method.getReturnType());
+      }
+    });
+  }
+
+
+  private static <T> T createProxy(Class<T> type, InvocationHandler handler)
+  {
+    return type.cast(Proxy.newProxyInstance(
+        PerformanceGateTest.class.getClassLoader(), new Class<?>[] { type },
+        handler));
+  }
+
+
+  private static Object getDefaultValue(Class<?> type)
+  {
+    if (type == boolean.class)
+    {
+      return false;
+    }
+    if (type == int.class)
+    {
+      return 0;
+    }
+    if (type == long.class)
+    {
+      return 0L;
+    }
+    return null;
+  }
+
+
+  /**
+   * A benchmarked operation.
+   */
+  private interface Operation
+  {
+    void run() throws Exception;
+  }
+}
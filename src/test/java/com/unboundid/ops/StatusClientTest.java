@@ -20,27 +20,35 @@ import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
 import com.unboundid.ldap.sdk.Entry;
 import com.unboundid.ldap.sdk.LDAPConnection;
 import com.unboundid.ldap.sdk.LDAPConnectionOptions;
+import com.unboundid.ldap.sdk.LDAPConnectionPool;
 import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ops.models.DatabaseStatus;
+import com.unboundid.ops.models.JvmStatus;
 import com.unboundid.ops.models.MonitorStatus;
+import com.unboundid.ops.models.ReplicaStatus;
 import com.unboundid.ops.models.Status;
 import com.unboundid.ops.models.LoadBalancingAlgorithmStatus;
 import com.unboundid.ops.models.ServletStatus;
 import com.unboundid.ops.models.StatusError;
 import com.unboundid.ops.models.StoreAdapterStatus;
+import com.unboundid.util.StaticUtils;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import java.io.File;
+import java.net.ServerSocket;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
 /**
@@ -497,6 +505,549 @@ public class StatusClientTest
   }
 
 
+  @Test
+  public void pooledServerOkTest() throws Exception
+  {
+    ds.clear();
+    addBaseEntry(new String[0], new String[0]);
+    ds.add(createServletEntry(
+        "Monitored Servlet https://example.com/monitoredServlet"));
+    ds.add(createMonitorEntry(MONITOR_NAME_1, "state", "running"));
+    ds.add(createMonitorEntry(MONITOR_NAME_2, "available", "true"));
+    ds.add(createLoadBalancingAlgorithmEntry(
+        "User Store LBA", "AVAILABLE", 1, 0, 0));
+    ds.add(createLoadBalancingAlgorithmEntry(
+        "Group Store LBA", "AVAILABLE", 2, 0, 0));
+    ds.add(createStoreAdapterEntry("UserStoreAdapter", "AVAILABLE"));
+
+    LDAPConnectionPool pool =
+        RemoteServerConfig.create("localhost:" + ds.getListenPort())
+            .setPoolSize(1, 2)
+            .createConnectionPool();
+    try
+    {
+      StatusClient client =
+          new StatusClient(pool, SERVLETS_TO_CHECK, MONITORS_TO_CHECK);
+      for (int i = 0; i < 5; i++)
+      {
+        Status status = client.getStatus();
+        assertTrue(status.isOK());
+        assertEquals(status.getServletStatuses().size(), 1);
+        assertEquals(status.getMonitorStatuses().size(), 2);
+        assertEquals(status.getLoadBalancingAlgorithmStatuses().size(), 2);
+        assertEquals(status.getStoreAdapterStatuses().size(), 1);
+      }
+
+      // Every evaluation reused the initial pooled connection.
+      assertEquals(pool.getConnectionPoolStatistics()
+                       .getNumSuccessfulConnectionAttempts(), 1L);
+    }
+    finally
+    {
+      pool.close();
+    }
+  }
+
+
+  @Test
+  public void pooledServerDownTest() throws Exception
+  {
+    int port;
+    try (ServerSocket socket = new ServerSocket(0))
+    {
+      port = socket.getLocalPort();
+    }
+
+    // The pool is created while the server is down, and its status is
+    // reported as unavailable rather than failing.
+    LDAPConnectionPool pool =
+        RemoteServerConfig.create("localhost:" + port)
+            .setPoolSize(1, 2)
+            .setTimeoutMillis(1000L, 1000L)
+            .createConnectionPool();
+    try
+    {
+      Status status = new StatusClient(pool).getStatus();
+      assertFalse(status.isOK());
+      assertNotNull(status.getError());
+    }
+    finally
+    {
+      pool.close();
+    }
+  }
+
+
+  @Test
+  public void pooledMissingMonitorTest() throws Exception
+  {
+    ds.clear();
+    addBaseEntry(new String[0], new String[0]);
+    ds.add(createMonitorEntry(MONITOR_NAME_1, "state", "running"));
+
+    LDAPConnectionPool pool = ds.getConnectionPool(2);
+    try
+    {
+      StatusClient client = new StatusClient(
+          pool, Collections.<String>emptyList(), MONITORS_TO_CHECK);
+      Status status = client.getStatus();
+      assertFalse(status.isOK());
+      assertNotNull(status.getError());
+
+      // The results of the probes that succeeded are still reported.
+      assertEquals(status.getServerStatus(), "available");
+      assertEquals(status.getMonitorStatuses().size(), 1);
+      assertEquals(status.getMonitorStatuses().get(0).getName(),
+                   MONITOR_NAME_1);
+      assertEquals(status.getErrors().size(), 1);
+      assertEquals(status.getErrors().get(0).getProbe(), MONITOR_NAME_2);
+      assertTrue(status.getErrors().get(0).affectsAvailability());
+    }
+    finally
+    {
+      pool.close();
+    }
+  }
+
+
+  @Test
+  public void optionalProbeTest() throws Exception
+  {
+    ds.clear();
+    addBaseEntry(new String[0], new String[0]);
+    ds.add(createMonitorEntry(MONITOR_NAME_1, "state", "running"));
+
+    try (LDAPConnection connection = ds.getConnection())
+    {
+      StatusClient client = new StatusClient(
+          connection, Collections.<String>emptyList(), MONITORS_TO_CHECK)
+          .setOptionalProbes(Collections.singletonList(MONITOR_NAME_2));
+      Status status = client.getStatus();
+      assertTrue(status.isOK());
+      assertNull(status.getError());
+      assertEquals(status.getMonitorStatuses().size(), 1);
+      assertEquals(status.getErrors().size(), 1);
+      assertEquals(status.getErrors().get(0).getProbe(), MONITOR_NAME_2);
+      assertFalse(status.getErrors().get(0).affectsAvailability());
+    }
+  }
+
+
+  @Test
+  public void circuitBreakerTest() throws Exception
+  {
+    ds.clear();
+    addBaseEntry(new String[0], new String[0]);
+    ds.add(createMonitorEntry(MONITOR_NAME_1, "state", "running"));
+
+    try (LDAPConnection connection = ds.getConnection())
+    {
+      StatusClient client = new StatusClient(
+          connection, Collections.<String>emptyList(), MONITORS_TO_CHECK)
+          .setCircuitBreaker(2, 200L, 1000L);
+      ProbeCircuitBreaker circuitBreaker =
+          client.getCircuitBreakers().get(MONITOR_NAME_2);
+
+      Status status = client.getStatus();
+      assertEquals(status.getErrors().get(0).getCircuitBreaker(), "closed");
+      status = client.getStatus();
+      assertEquals(status.getErrors().get(0).getCircuitBreaker(), "open");
+      assertEquals(circuitBreaker.getConsecutiveFailures(), 2);
+
+      // While the breaker is open, the last error is reported without
+      // searching again.
+      ds.add(createMonitorEntry(MONITOR_NAME_2, "available", "true"));
+      status = client.getStatus();
+      assertFalse(status.isOK());
+      assertEquals(status.getErrors().get(0).getCircuitBreaker(), "open");
+      assertEquals(circuitBreaker.getConsecutiveFailures(), 2);
+      assertNotNull(circuitBreaker.getRetryInMillis());
+
+      // After the backoff delay, a trial evaluation closes the breaker.
+      Thread.sleep(250L);
+      status = client.getStatus();
+      assertTrue(status.isOK());
+      assertTrue(status.getErrors().isEmpty());
+      assertEquals(circuitBreaker.getState(),
+                   ProbeCircuitBreaker.State.CLOSED);
+      assertEquals(circuitBreaker.getFailures(), 2L);
+    }
+  }
+
+
+  @Test
+  public void probeSettingOrderTest() throws Exception
+  {
+    ds.clear();
+    addBaseEntry(new String[0], new String[0]);
+
+    try (LDAPConnection connection = ds.getConnection())
+    {
+      // The load probe is enabled after it is made optional and after the
+      // circuit breakers are set, and still gets both.
+      StatusClient client = new StatusClient(connection)
+          .setOptionalProbes(Collections.singletonList("load"))
+          .setCircuitBreaker(1, 60000L, 60000L)
+          .setLoadShedding(LoadSheddingCriteria.create(100, 90));
+      assertTrue(client.getCircuitBreakers().containsKey("load"));
+
+      Status status = client.getStatus();
+      assertTrue(status.isOK());
+      assertEquals(status.getErrors().size(), 1);
+      assertEquals(status.getErrors().get(0).getProbe(), "load");
+      assertFalse(status.getErrors().get(0).affectsAvailability());
+      assertEquals(status.getErrors().get(0).getCircuitBreaker(), "open");
+    }
+  }
+
+
+  @Test
+  public void includeTest() throws Exception
+  {
+    ds.clear();
+    addBaseEntry(new String[0], new String[]{"low-disk-space-error"});
+    ds.add(createMonitorEntry(MONITOR_NAME_1, "state", "running"));
+
+    try (LDAPConnection connection = ds.getConnection())
+    {
+      StatusClient client = new StatusClient(
+          connection, Collections.<String>emptyList(), MONITORS_TO_CHECK);
+
+      // Neither the degraded server nor the missing monitor is evaluated.
+      Status status = client.getStatus(StatusSection.parse(
+          "storeAdapters,loadBalancingAlgorithms"));
+      assertTrue(status.isOK());
+      assertFalse(status.isDegraded());
+      assertNull(status.getServerStatus());
+      assertTrue(status.getMonitorStatuses().isEmpty());
+      assertTrue(status.getErrors().isEmpty());
+
+      status = client.getStatus(StatusSection.parse("monitors"));
+      assertFalse(status.isOK());
+      assertNull(status.getServerStatus());
+      assertEquals(status.getMonitorStatuses().size(), 1);
+      assertEquals(status.getErrors().size(), 1);
+      assertEquals(status.getErrors().get(0).getProbe(), MONITOR_NAME_2);
+
+      status = client.getStatus(StatusSection.parse("server"));
+      assertEquals(status.getServerStatus(), "degraded");
+      assertTrue(status.isDegraded());
+      assertTrue(status.getMonitorStatuses().isEmpty());
+    }
+  }
+
+
+  @Test
+  public void loadSheddingTest() throws Exception
+  {
+    ds.clear();
+    addBaseEntry(new String[0], new String[0]);
+    ds.add(createWorkQueueEntry(10, 50, 20, 400));
+
+    try (LDAPConnection connection = ds.getConnection())
+    {
+      StatusClient client = new StatusClient(connection)
+          .setLoadShedding(LoadSheddingCriteria.create(100, 90));
+      Status status = client.getStatus();
+      assertTrue(status.isOK());
+      assertFalse(status.getLoadStatus().isSaturated());
+      assertEquals(status.getLoadStatus().getQueueSize(), 10L);
+      assertEquals(status.getLoadStatus().getPercentBusy(), 50);
+      assertEquals(status.getLoadStatus().getDrainRate(), 50.0);
+      assertNull(StatusSnapshot.create(status).getRetryAfterSeconds());
+
+      // 200 queued operations drain in 4 seconds at 50 per second.
+      ds.delete("cn=Work Queue,cn=monitor");
+      ds.add(createWorkQueueEntry(200, 100, 20, 400));
+      status = client.getStatus();
+      assertFalse(status.isOK());
+      assertTrue(status.isDegraded());
+      assertEquals(status.getAvailability(), Status.DEGRADED_LOAD);
+      assertEquals(status.getServerStatus(), "available");
+      assertTrue(status.getLoadStatus().isSaturated());
+      StatusSnapshot snapshot = StatusSnapshot.create(status);
+      assertEquals(snapshot.getHttpStatusCode(), StatusSnapshot.SC_DEGRADED);
+      assertEquals(snapshot.getRetryAfterSeconds(), Integer.valueOf(4));
+
+      // The delay is capped, and is the cap if the drain rate is unknown.
+      client.setLoadShedding(
+          LoadSheddingCriteria.create(100, 0).setMaxRetryAfterSeconds(3));
+      assertEquals(client.getStatus().getRetryAfterSeconds(),
+                   Integer.valueOf(3));
+      ds.delete("cn=Work Queue,cn=monitor");
+      ds.add(createWorkQueueEntry(200, 100, 0, 0));
+      assertEquals(client.getStatus().getRetryAfterSeconds(),
+                   Integer.valueOf(3));
+
+      // An unavailable server is still unavailable while it sheds load.
+      ds.clear();
+      addBaseEntry(new String[]{"server-shutting-down"}, new String[0]);
+      ds.add(createWorkQueueEntry(200, 100, 20, 400));
+      status = client.getStatus();
+      assertEquals(status.getAvailability(),
+                   Status.UNAVAILABLE_SERVER | Status.DEGRADED_LOAD);
+      assertFalse(status.isDegraded());
+      assertEquals(StatusSnapshot.create(status).getHttpStatusCode(),
+                   StatusSnapshot.SC_UNAVAILABLE);
+
+      // The load section is only evaluated if it is included.
+      assertNull(client.getStatus(StatusSection.parse("server"))
+                     .getLoadStatus());
+    }
+  }
+
+
+  @Test(expectedExceptions = LDAPException.class)
+  public void loadSheddingWithoutThresholdTest() throws Exception
+  {
+    LoadSheddingCriteria.create(0, 0);
+  }
+
+
+  @Test
+  public void replicationTest() throws Exception
+  {
+    ds.clear();
+    addBaseEntry(new String[0], new String[0]);
+
+    try (LDAPConnection connection = ds.getConnection())
+    {
+      StatusClient client = new StatusClient(connection)
+          .setReplication(ReplicationCriteria.create(100L, 60000L, 0L,
+                                                     600000L));
+
+      // A server that is not replicated has no replicas to check.
+      Status status = client.getStatus();
+      assertTrue(status.isOK());
+      assertTrue(status.getReplicaStatuses().isEmpty());
+
+      long now = System.currentTimeMillis();
+      ds.add(createReplicaEntry("dc=example,dc=com", "1"));
+      ds.add(createReplicationSummaryEntry("dc=example,dc=com",
+          createSummaryReplica("1", "ds1", 10L, now - 5000L),
+          createSummaryReplica("2", "ds2", 5000L, now - 3600000L)));
+      status = client.getStatus();
+      assertTrue(status.isOK());
+      assertEquals(status.getReplicaStatuses().size(), 2);
+      ReplicaStatus local = status.getReplicaStatuses().get(0);
+      assertTrue(local.isLocal());
+      assertEquals(local.getState(), "available");
+      assertEquals(local.getLdapServer(), "ds1:389");
+      assertEquals(local.getBacklog(), Long.valueOf(10L));
+      assertTrue(local.getBacklogAgeMillis() >= 5000L);
+      // Other servers' replicas are reported but not checked.
+      ReplicaStatus remote = status.getReplicaStatuses().get(1);
+      assertFalse(remote.isLocal());
+      assertNull(remote.getState());
+
+      // A large backlog makes the server degraded.
+      ds.delete("cn=Replication Summary dc_example_dc_com,cn=monitor");
+      ds.add(createReplicationSummaryEntry("dc=example,dc=com",
+          createSummaryReplica("1", "ds1", 500L, now - 5000L)));
+      status = client.getStatus();
+      assertFalse(status.isOK());
+      assertTrue(status.isDegraded());
+      assertEquals(status.getReplicaStatuses().get(0).getState(),
+                   "degraded");
+      assertEquals(StatusSnapshot.create(status).getHttpStatusCode(),
+                   StatusSnapshot.SC_DEGRADED);
+
+      // An old backlog makes the server unavailable.
+      ds.delete("cn=Replication Summary dc_example_dc_com,cn=monitor");
+      ds.add(createReplicationSummaryEntry("dc=example,dc=com",
+          createSummaryReplica("1", "ds1", 10L, now - 3600000L)));
+      status = client.getStatus();
+      assertFalse(status.isOK());
+      assertFalse(status.isDegraded());
+      assertEquals(status.getReplicaStatuses().get(0).getState(),
+                   "unavailable");
+      assertEquals(StatusSnapshot.create(status).getHttpStatusCode(),
+                   StatusSnapshot.SC_UNAVAILABLE);
+
+      // The replication section is only evaluated if it is included.
+      assertNull(client.getStatus(StatusSection.parse("server"))
+                     .getReplicaStatuses());
+    }
+  }
+
+
+  @Test(expectedExceptions = LDAPException.class)
+  public void replicationWithoutThresholdTest() throws Exception
+  {
+    ReplicationCriteria.create(0L, 0L, 0L, 0L);
+  }
+
+
+  @Test
+  public void databaseTest() throws Exception
+  {
+    ds.clear();
+    addBaseEntry(new String[0], new String[0]);
+    ds.add(createDatabaseEntry("userRoot", 60, 0, 1000L, 10L));
+
+    try (LDAPConnection connection = ds.getConnection())
+    {
+      StatusClient client = new StatusClient(connection)
+          .setDatabase(DatabaseCriteria.create(90, 0, 10L));
+      StatusRefresher refresher = new StatusRefresher(client, 60000L);
+
+      // The first evaluation has no cache hit percentage, because the
+      // counters are only compared with those of the previous sample.
+      Status status = refresher.refresh().getStatus();
+      assertTrue(status.isOK());
+      DatabaseStatus database = status.getDatabaseStatuses().get(0);
+      assertEquals(database.getBackendID(), "userRoot");
+      assertNull(database.getCacheHitPercent());
+      assertEquals(database.getCachePercentFull(), Long.valueOf(60L));
+      assertEquals(status.getWeight(), Integer.valueOf(100));
+
+      // 1000 more fetches with 20 more misses is a 98% hit rate, even though
+      // the lifetime hit rate is 97%.
+      ds.delete("cn=userRoot Database Environment,cn=monitor");
+      ds.add(createDatabaseEntry("userRoot", 60, 0, 2000L, 30L));
+      status = refresher.refresh().getStatus();
+      assertTrue(status.isOK());
+      assertEquals(status.getDatabaseStatuses().get(0).getCacheHitPercent(),
+                   98.0, 0.001);
+
+      // An evaluation for a request reports the most recent sample, and does
+      // not sample the counters itself.
+      ds.delete("cn=userRoot Database Environment,cn=monitor");
+      ds.add(createDatabaseEntry("userRoot", 60, 0, 2500L, 230L));
+      status = client.getStatus();
+      assertEquals(status.getDatabaseStatuses().get(0).getCacheHitPercent(),
+                   98.0, 0.001);
+
+      // 1000 more fetches with 400 more misses is a 60% hit rate, which
+      // degrades the server and reduces its weight in proportion.
+      ds.delete("cn=userRoot Database Environment,cn=monitor");
+      ds.add(createDatabaseEntry("userRoot", 60, 0, 3000L, 430L));
+      status = refresher.refresh().getStatus();
+      assertFalse(status.isOK());
+      assertTrue(status.isDegraded());
+      assertTrue(status.getDatabaseStatuses().get(0).isDegraded());
+      assertEquals(status.getWeight(), Integer.valueOf(66));
+      assertEquals(StatusSnapshot.create(status).getHttpStatusCode(),
+                   StatusSnapshot.SC_DEGRADED);
+
+      // A cleaner backlog twice the threshold halves the weight.
+      ds.delete("cn=userRoot Database Environment,cn=monitor");
+      ds.add(createDatabaseEntry("userRoot", 60, 20, 4000L, 440L));
+      status = refresher.refresh().getStatus();
+      assertTrue(status.isDegraded());
+      assertEquals(status.getWeight(), Integer.valueOf(50));
+
+      // The database section is only evaluated if it is included.
+      status = client.getStatus(StatusSection.parse("server"));
+      assertNull(status.getDatabaseStatuses());
+      assertNull(status.getWeight());
+    }
+  }
+
+
+  @Test(expectedExceptions = LDAPException.class)
+  public void databaseWithoutThresholdTest() throws Exception
+  {
+    DatabaseCriteria.create(0, 0, 0L);
+  }
+
+
+  @Test
+  public void jvmTest() throws Exception
+  {
+    ds.clear();
+    addBaseEntry(new String[0], new String[0]);
+    ds.add(createMemoryUsageEntry(1000L, 50L));
+
+    try (LDAPConnection connection = ds.getConnection())
+    {
+      StatusClient client = new StatusClient(connection)
+          .setJvm(JvmCriteria.create(0, 0, 200L));
+      Status status = client.getStatus();
+      assertTrue(status.isOK());
+      assertEquals(status.getJvmStatus().getLongestRecentCollectionMillis(),
+                   Long.valueOf(50L));
+      assertEquals(status.getJvmStatus().getMaxDetectedPauseMillis(),
+                   Long.valueOf(300L));
+      // The old generation's occupancy is only known by sampling this JVM.
+      assertNull(status.getJvmStatus().getOldGenPercentFull());
+
+      // A long collection degrades the server.
+      ds.delete("cn=JVM Memory Usage,cn=monitor");
+      ds.add(createMemoryUsageEntry(1500L, 450L));
+      status = client.getStatus();
+      assertFalse(status.isOK());
+      assertTrue(status.isDegraded());
+      assertTrue(status.getJvmStatus().isDegraded());
+      assertEquals(StatusSnapshot.create(status).getHttpStatusCode(),
+                   StatusSnapshot.SC_DEGRADED);
+
+      // The JVM section is only evaluated if it is included.
+      assertNull(client.getStatus(StatusSection.parse("server"))
+                     .getJvmStatus());
+
+      // Without sampling this JVM, the memory usage entry is required.
+      ds.delete("cn=JVM Memory Usage,cn=monitor");
+      status = client.getStatus();
+      assertFalse(status.isOK());
+      assertNotNull(status.getError());
+    }
+  }
+
+
+  @Test
+  public void jvmGcPercentTest() throws Exception
+  {
+    JvmCriteria criteria = JvmCriteria.create(10.0, 0, 0L);
+
+    // The first evaluation has no previous collection time to compare with.
+    JvmStatus jvm =
+        criteria.evaluate(createMemoryUsageEntry(1000L, 5L), 0L, true);
+    assertNull(jvm.getGcPercent());
+    assertFalse(jvm.isDegraded());
+
+    // 500 ms of collection in 10 seconds is 5%.
+    jvm = criteria.evaluate(createMemoryUsageEntry(1500L, 5L), 10000L, true);
+    assertEquals(jvm.getGcMillis(), Long.valueOf(500L));
+    assertEquals(jvm.getGcPercent(), 5.0, 0.001);
+    assertFalse(jvm.isDegraded());
+
+    // An evaluation that does not sample reports the previous sample, even
+    // though 1 second of collection in the 10 ms since then would be 100%.
+    jvm = criteria.evaluate(createMemoryUsageEntry(2500L, 5L), 10010L, false);
+    assertEquals(jvm.getGcPercent(), 5.0, 0.001);
+    assertFalse(jvm.isDegraded());
+
+    // 2 seconds of collection in 10 seconds is 20%.
+    jvm = criteria.evaluate(createMemoryUsageEntry(3500L, 5L), 20000L, true);
+    assertEquals(jvm.getGcPercent(), 20.0, 0.001);
+    assertTrue(jvm.isDegraded());
+
+    // This JVM can be sampled without a memory usage entry.
+    criteria = JvmCriteria.create(0, 100, 0L).setSampleLocalJvm(true);
+    criteria.evaluate(null, 0L, true);
+    jvm = criteria.evaluate(null, 1000L, true);
+    assertNotNull(jvm.getGcMillis());
+    assertNotNull(jvm.getOldGenPercentFull());
+    assertNull(jvm.getMaxDetectedPauseMillis());
+  }
+
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void includeUnknownSectionTest() throws Exception
+  {
+    StatusSection.parse("server,unknown");
+  }
+
+
+  @Test(expectedExceptions = LDAPException.class)
+  public void optionalServerProbeTest() throws Exception
+  {
+    new StatusClient(null).setOptionalProbes(
+        Collections.singletonList("server"));
+  }
+
+
   private void addBaseEntry(String[] unavailableAlerts,
                             String[] degradedAlerts) throws Exception
   {
@@ -519,6 +1070,113 @@ public class StatusClientTest
   }
 
 
+  private Entry createWorkQueueEntry(int queueSize, int percentBusy,
+                                     int recentAverageQueueSize,
+                                     int recentQueueTimeMillis)
+  {
+    Entry entry = new Entry("cn=Work Queue,cn=monitor");
+    entry.addAttribute("objectClass", "top");
+    entry.addAttribute("objectClass", "ds-monitor-entry");
+    entry.addAttribute("objectClass", "ds-unboundid-work-queue-monitor-entry");
+    entry.addAttribute("objectClass", "extensibleObject");
+    entry.addAttribute("cn", "Work Queue");
+    entry.addAttribute("current-queue-size", String.valueOf(queueSize));
+    entry.addAttribute("current-worker-thread-percent-busy",
+                       String.valueOf(percentBusy));
+    entry.addAttribute("recent-average-queue-size",
+                       String.valueOf(recentAverageQueueSize));
+    entry.addAttribute("recent-operation-queue-time-millis",
+                       String.valueOf(recentQueueTimeMillis));
+    return entry;
+  }
+
+
+  private Entry createDatabaseEntry(String backendID, int cachePercentFull,
+                                    int cleanerBacklog, long fetches,
+                                    long fetchMisses)
+  {
+    String cn = backendID + " Database Environment";
+    Entry entry = new Entry("cn=" + cn + ",cn=monitor");
+    entry.addAttribute("objectClass", "top");
+    entry.addAttribute("objectClass", "ds-monitor-entry");
+    entry.addAttribute("objectClass", "ds-je-environment-monitor-entry");
+    entry.addAttribute("objectClass", "extensibleObject");
+    entry.addAttribute("cn", cn);
+    entry.addAttribute("backend-id", backendID);
+    entry.addAttribute("db-cache-percent-full",
+                       String.valueOf(cachePercentFull));
+    entry.addAttribute("cleaner-backlog", String.valueOf(cleanerBacklog));
+    entry.addAttribute("je-env-stat-nBINsFetch", String.valueOf(fetches));
+    entry.addAttribute("je-env-stat-nBINsFetchMiss",
+                       String.valueOf(fetchMisses));
+    return entry;
+  }
+
+
+  private Entry createMemoryUsageEntry(long totalCollectionMillis,
+                                       long recentCollectionMillis)
+  {
+    Entry entry = new Entry("cn=JVM Memory Usage,cn=monitor");
+    entry.addAttribute("objectClass", "top");
+    entry.addAttribute("objectClass", "ds-monitor-entry");
+    entry.addAttribute("objectClass", "ds-memory-usage-monitor-entry");
+    entry.addAttribute("objectClass", "extensibleObject");
+    entry.addAttribute("cn", "JVM Memory Usage");
+    entry.addAttribute("g1-young-generation-total-collection-duration",
+                       String.valueOf(totalCollectionMillis));
+    entry.addAttribute("g1-young-generation-recent-collection-duration",
+                       String.valueOf(recentCollectionMillis));
+    entry.addAttribute("max-detected-pause-time-millis", "300");
+    return entry;
+  }
+
+
+  private Entry createReplicaEntry(String baseDN, String replicaID)
+  {
+    String cn = "Replica " + baseDN.replace(',', '_').replace('=', '_');
+    Entry entry = new Entry("cn=" + cn + ",cn=monitor");
+    entry.addAttribute("objectClass", "top");
+    entry.addAttribute("objectClass", "ds-monitor-entry");
+    entry.addAttribute("objectClass", "ds-replica-monitor-entry");
+    entry.addAttribute("objectClass", "extensibleObject");
+    entry.addAttribute("cn", cn);
+    entry.addAttribute("base-dn", baseDN);
+    entry.addAttribute("replica-id", replicaID);
+    return entry;
+  }
+
+
+  private Entry createReplicationSummaryEntry(String baseDN,
+                                              String... replicas)
+  {
+    String cn = "Replication Summary " +
+        baseDN.replace(',', '_').replace('=', '_');
+    Entry entry = new Entry("cn=" + cn + ",cn=monitor");
+    entry.addAttribute("objectClass", "top");
+    entry.addAttribute("objectClass", "ds-monitor-entry");
+    entry.addAttribute("objectClass",
+                       "ds-replication-server-summary-monitor-entry");
+    entry.addAttribute("objectClass", "extensibleObject");
+    entry.addAttribute("cn", cn);
+    entry.addAttribute("base-dn", baseDN);
+    entry.addAttribute("replica", replicas);
+    return entry;
+  }
+
+
+  private String createSummaryReplica(String replicaID, String host,
+                                      long backlog, long oldestChangeMillis)
+  {
+    return String.format(
+        "replica-id=\"%s\" ldap-server=\"%s:389\" " +
+            "replication-backlog=\"%d\" " +
+            "age-of-oldest-backlog-change=\"%s (%d seconds)\"",
+        replicaID, host, backlog,
+        StaticUtils.encodeGeneralizedTime(new Date(oldestChangeMillis)),
+        (System.currentTimeMillis() - oldestChangeMillis) / 1000L);
+  }
+
+
   private Entry createServletEntry(String... enabledServlets)
   {
     Entry entry = new Entry("cn=Http Servlet Configuration,cn=monitor");
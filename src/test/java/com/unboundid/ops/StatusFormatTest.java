@@ -0,0 +1,116 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.unboundid.ops.models.Status;
+import com.unboundid.ops.models.StatusError;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for {@link StatusFormat}.
+ */
+public class StatusFormatTest
+{
+  @Test
+  public void negotiateTest()
+  {
+    assertEquals(StatusFormat.negotiate(null), StatusFormat.JSON);
+    assertEquals(StatusFormat.negotiate("*/*"), StatusFormat.JSON);
+    assertEquals(StatusFormat.negotiate("text/html"), StatusFormat.JSON);
+    assertEquals(StatusFormat.negotiate("application/cbor"),
+                 StatusFormat.CBOR);
+    assertEquals(StatusFormat.negotiate("application/x-jackson-smile, */*"),
+                 StatusFormat.SMILE);
+    assertEquals(StatusFormat.negotiate(
+        "application/cbor;q=0.5, application/x-jackson-smile"),
+                 StatusFormat.SMILE);
+    assertEquals(StatusFormat.negotiate(
+        "application/cbor, application/json"), StatusFormat.CBOR);
+    assertEquals(StatusFormat.negotiate("application/cbor;q=0.5, */*"),
+                 StatusFormat.JSON);
+  }
+
+
+  @Test
+  public void snapshotFormatTest() throws Exception
+  {
+    StatusSnapshot snapshot = StatusSnapshot.create(
+        Status.create(new StatusError(new Exception("test"))));
+    JsonNode expected =
+        StatusFormat.JSON.getObjectMapper().readTree(snapshot.getJson());
+    assertSame(snapshot.getBody(StatusFormat.JSON, ContentEncoding.IDENTITY),
+               snapshot.getJson());
+
+    for (StatusFormat format :
+        new StatusFormat[] { StatusFormat.SMILE, StatusFormat.CBOR })
+    {
+      byte[] body = snapshot.getBody(format, ContentEncoding.IDENTITY);
+      assertSame(snapshot.getBody(format, ContentEncoding.IDENTITY), body);
+      assertTrue(body.length < snapshot.getJson().length);
+      assertEquals(format.getObjectMapper().readTree(body), expected);
+
+      byte[] gzip = snapshot.getBody(format, ContentEncoding.GZIP);
+      assertSame(snapshot.getBody(format, ContentEncoding.GZIP), gzip);
+      assertEquals(format.getObjectMapper().readTree(
+          new GZIPInputStream(new ByteArrayInputStream(gzip))), expected);
+    }
+  }
+
+
+  @Test
+  public void moduleRoundTripTest() throws Exception
+  {
+    // The binary formats are from the same Jackson release as the databind
+    // that they are used with.
+    Version databind = new ObjectMapper().version();
+    for (Version version : new Version[] {
+        new SmileFactory().version(), new CBORFactory().version() })
+    {
+      assertEquals(version.getMajorVersion(), databind.getMajorVersion());
+      assertEquals(version.getMinorVersion(), databind.getMinorVersion());
+    }
+
+    // Bodies written by the status formats are read by mappers that are
+    // configured independently, as a client would.
+    StatusSnapshot snapshot = StatusSnapshot.create(
+        Status.create(new StatusError(new Exception("test"))));
+    JsonNode expected = new ObjectMapper().readTree(snapshot.getJson());
+
+    byte[] smile =
+        snapshot.getBody(StatusFormat.SMILE, ContentEncoding.IDENTITY);
+    assertEquals(new String(smile, 0, 2, "US-ASCII"), ":)");
+    assertEquals(new ObjectMapper(new SmileFactory()).readTree(smile),
+                 expected);
+
+    byte[] cbor =
+        snapshot.getBody(StatusFormat.CBOR, ContentEncoding.IDENTITY);
+    assertEquals(cbor[0] & 0xE0, 0xA0, "A CBOR map");
+    assertEquals(new ObjectMapper(new CBORFactory()).readTree(cbor),
+                 expected);
+  }
+}
@@ -0,0 +1,425 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.unboundid.directory.sdk.http.types.HTTPServerContext;
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.sdk.LDAPConnection;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.Modification;
+import com.unboundid.ldap.sdk.ModificationType;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for {@link StatusRefresher}.
+ */
+public class StatusRefresherTest
+{
+  private InMemoryDirectoryServer ds;
+
+
+  /**
+   * Starts an in-memory DS.
+   */
+  @BeforeClass
+  public void setup() throws Exception
+  {
+    InMemoryDirectoryServerConfig config =
+        new InMemoryDirectoryServerConfig("cn=monitor");
+    config.setSchema(null);
+    ds = new InMemoryDirectoryServer(config);
+    ds.startListening();
+    ds.add("dn: cn=monitor",
+           "objectClass: top",
+           "objectClass: ds-monitor-entry",
+           "objectClass: ds-general-monitor-entry",
+           "objectClass: extensibleObject",
+           "cn: monitor");
+  }
+
+
+  /**
+   * Shuts down the in-memory DS.
+   */
+  @AfterClass
+  public void cleanup() throws Exception
+  {
+    ds.shutDown(true);
+  }
+
+
+  @Test
+  public void adaptiveIntervalTest() throws Exception
+  {
+    try (LDAPConnection connection = ds.getConnection())
+    {
+      StatusClient client = new StatusClient(
+          connection, Collections.<String>emptyList(),
+          Collections.<MonitorAvailabilityCriteria>emptyList());
+      StatusRefresher refresher = new StatusRefresher(client, 100L, 500L);
+
+      // The interval doubles while the status is stable, up to the maximum.
+      refresher.refresh();
+      assertEquals(refresher.getIntervalMillis(), 100L);
+      refresher.refresh();
+      assertEquals(refresher.getIntervalMillis(), 200L);
+      refresher.refresh();
+      assertEquals(refresher.getIntervalMillis(), 400L);
+      refresher.refresh();
+      assertEquals(refresher.getIntervalMillis(), 500L);
+
+      // The interval is reset while the server is degraded.
+      ds.modify("cn=monitor", new Modification(ModificationType.ADD,
+          "degraded-alert-type", "low-disk-space-error"));
+      refresher.refresh();
+      assertEquals(refresher.getSnapshot().getHttpStatusCode(),
+                   StatusSnapshot.SC_DEGRADED);
+      assertEquals(refresher.getIntervalMillis(), 100L);
+      refresher.refresh();
+      assertEquals(refresher.getIntervalMillis(), 100L);
+
+      // The interval is reset once more when the server recovers.
+      ds.modify("cn=monitor", new Modification(ModificationType.DELETE,
+          "degraded-alert-type"));
+      refresher.refresh();
+      assertEquals(refresher.getIntervalMillis(), 100L);
+      refresher.refresh();
+      assertEquals(refresher.getIntervalMillis(), 200L);
+    }
+  }
+
+
+  @Test
+  public void probeIntervalTest() throws Exception
+  {
+    try (LDAPConnection connection = ds.getConnection())
+    {
+      StatusClient client = new StatusClient(
+          connection, Collections.<String>emptyList(),
+          Collections.<MonitorAvailabilityCriteria>emptyList());
+      StatusRefresher refresher = new StatusRefresher(client, 100L, 800L)
+          .setProbeIntervals(Arrays.asList(
+              ProbeInterval.create("server:200ms"),
+              ProbeInterval.create("load-balancing-algorithms:50ms")));
+
+      for (int i = 0; i < 4; i++)
+      {
+        refresher.refresh();
+      }
+      assertEquals(refresher.getIntervalMillis(Probe.SERVER), 200L);
+      assertEquals(refresher.getIntervalMillis(Probe.STORE_ADAPTERS), 800L);
+      assertEquals(
+          refresher.getIntervalMillis(Probe.LOAD_BALANCING_ALGORITHMS), 50L);
+      assertEquals(refresher.getIntervalMillis(), 50L);
+    }
+  }
+
+
+  @Test
+  public void batchTest() throws Exception
+  {
+    try (LDAPConnection connection = ds.getConnection())
+    {
+      StatusClient client = new StatusClient(
+          connection, Collections.<String>emptyList(),
+          Collections.<MonitorAvailabilityCriteria>emptyList());
+      StatusRefresher refresher = new StatusRefresher(client, 200L);
+      refresher.start();
+      try
+      {
+        // The probes share an interval, so they are evaluated and published
+        // together rather than once each.
+        StatusSnapshot snapshot = refresher.awaitSnapshot(null, 5000L);
+        int published = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1L);
+        while (System.nanoTime() < deadline)
+        {
+          StatusSnapshot next = refresher.awaitSnapshot(snapshot, 100L);
+          if (next != snapshot)
+          {
+            published++;
+            snapshot = next;
+          }
+        }
+        assertTrue(published >= 2 && published <= 7,
+                   "published=" + published);
+      }
+      finally
+      {
+        refresher.stop();
+      }
+    }
+  }
+
+
+  @Test
+  public void profileTest() throws Exception
+  {
+    ds.add("dn: cn=Profile Monitor,cn=monitor",
+           "objectClass: top",
+           "objectClass: ds-monitor-entry",
+           "cn: Profile Monitor",
+           "state: running");
+    MonitorAvailabilityCriteria available =
+        MonitorAvailabilityCriteria.create("Profile Monitor:state:running");
+    MonitorAvailabilityCriteria missing =
+        MonitorAvailabilityCriteria.create("Missing Monitor:state:running");
+    StatusProfile availableProfile = StatusProfile.create("available")
+        .addMonitor(available);
+    StatusProfile missingProfile =
+        StatusProfile.create("missing:monitors").addMonitor(missing);
+    StatusProfile defaultProfile = StatusProfile.createDefault(
+        Collections.<String>emptyList(),
+        Collections.<MonitorAvailabilityCriteria>emptyList());
+
+    try (LDAPConnection connection = ds.getConnection())
+    {
+      StatusClient client = new StatusClient(
+          connection, Collections.<String>emptyList(),
+          Arrays.asList(available, missing));
+      StatusRefresher refresher = new StatusRefresher(client, 100L)
+          .setProfiles(Arrays.asList(
+              availableProfile, missingProfile, defaultProfile));
+      refresher.refresh();
+
+      // Each profile is published from the same evaluation.
+      StatusSnapshot snapshot = refresher.getSnapshot(availableProfile);
+      assertSame(refresher.getSnapshot(availableProfile), snapshot);
+      assertEquals(snapshot.getHttpStatusCode(), StatusSnapshot.SC_AVAILABLE);
+      assertEquals(snapshot.getStatus().getMonitorStatuses().size(), 1);
+
+      snapshot = refresher.getSnapshot(missingProfile);
+      assertEquals(snapshot.getHttpStatusCode(),
+                   StatusSnapshot.SC_UNAVAILABLE);
+      assertNull(snapshot.getStatus().getServerStatus());
+      assertEquals(snapshot.getStatus().getErrors().size(), 1);
+
+      snapshot = refresher.getSnapshot(defaultProfile);
+      assertEquals(snapshot.getHttpStatusCode(), StatusSnapshot.SC_AVAILABLE);
+      assertTrue(snapshot.getStatus().getMonitorStatuses().isEmpty());
+
+      // The full status reports every monitor.
+      assertEquals(refresher.getSnapshot().getHttpStatusCode(),
+                   StatusSnapshot.SC_UNAVAILABLE);
+    }
+    finally
+    {
+      ds.delete("cn=Profile Monitor,cn=monitor");
+    }
+  }
+
+
+  @Test
+  public void unchangedStatusTest() throws Exception
+  {
+    ds.add("dn: cn=Shared Monitor,cn=monitor",
+           "objectClass: top",
+           "objectClass: ds-monitor-entry",
+           "objectClass: extensibleObject",
+           "cn: Shared Monitor",
+           "state: running",
+           "description: first");
+    MonitorAvailabilityCriteria criteria =
+        MonitorAvailabilityCriteria.create("Shared Monitor:state:running");
+    try (LDAPConnection connection = ds.getConnection())
+    {
+      StatusClient client = new StatusClient(
+          connection, Collections.<String>emptyList(),
+          Collections.singletonList(criteria));
+      StatusRefresher refresher = new StatusRefresher(client, 100L);
+      StatusSnapshot first = refresher.refresh();
+      byte[] gzip = first.getJson(ContentEncoding.GZIP);
+
+      // An unchanged status is reused along with its serialized bodies, but
+      // the snapshot has its own timestamp for the liveness check.
+      Thread.sleep(5L);
+      StatusSnapshot second = refresher.refresh();
+      assertNotSame(second, first);
+      assertTrue(second.getTimestamp() > first.getTimestamp());
+      assertSame(second.getStatus(), first.getStatus());
+      assertSame(second.getJson(), first.getJson());
+      assertSame(second.getJson(ContentEncoding.GZIP), gzip);
+
+      // A change to a monitor's properties alone is a new status, but the
+      // components that did not change are reused.
+      ds.modify("cn=Shared Monitor,cn=monitor", new Modification(
+          ModificationType.REPLACE, "description", "second"));
+      StatusSnapshot third = refresher.refresh();
+      assertNotSame(third.getStatus(), first.getStatus());
+      assertNotEquals(third.getStatus(), first.getStatus());
+      assertEquals(third.getStatus().getMonitorStatuses().get(0)
+                       .getMonitorProperties().get("description").asText(),
+                   "second");
+      assertSame(third.getStatus().getStoreAdapterStatuses(),
+                 first.getStatus().getStoreAdapterStatuses());
+      assertEquals(third.getHttpStatusCode(), StatusSnapshot.SC_AVAILABLE);
+    }
+    finally
+    {
+      ds.delete("cn=Shared Monitor,cn=monitor");
+    }
+  }
+
+
+  @Test
+  public void servletWaitsForFirstSnapshotTest() throws Exception
+  {
+    try (LDAPConnection connection = ds.getConnection())
+    {
+      StatusClient client = new StatusClient(connection);
+      StatusRefresher refresher = new StatusRefresher(client, 60000L);
+      StatusServlet servlet = new StatusServlet(
+          createProxy(HTTPServerContext.class), connection, client,
+          refresher);
+
+      // Until the refresher publishes a snapshot, requests do not evaluate
+      // the status themselves.
+      long start = System.nanoTime();
+      assertEquals(doGet(servlet), StatusSnapshot.SC_UNAVAILABLE);
+      assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >=
+                 StatusServlet.FIRST_SNAPSHOT_TIMEOUT_MILLIS);
+      assertNull(refresher.getSnapshot());
+
+      refresher.start();
+      try
+      {
+        assertEquals(doGet(servlet), StatusSnapshot.SC_AVAILABLE);
+      }
+      finally
+      {
+        refresher.stop();
+      }
+    }
+  }
+
+
+  @Test(expectedExceptions = LDAPException.class)
+  public void unknownProbeIntervalTest() throws Exception
+  {
+    try (LDAPConnection connection = ds.getConnection())
+    {
+      StatusClient client = new StatusClient(connection);
+      new StatusRefresher(client, 100L, 800L).setProbeIntervals(
+          Collections.singletonList(
+              ProbeInterval.create("Unknown Monitor:1s")));
+    }
+  }
+
+
+  @Test
+  public void jitterTest()
+  {
+    for (int i = 0; i < 1000; i++)
+    {
+      long delay = StatusRefresher.addJitter(1000L);
+      assertTrue(delay >= 800L && delay <= 1200L, "delay=" + delay);
+    }
+    assertEquals(StatusRefresher.addJitter(0L), 0L);
+  }
+
+
+  /**
+   * Requests the status from a servlet, and returns the response status.
+   */
+  private static int doGet(StatusServlet servlet) throws Exception
+  {
+    final int[] status = new int[1];
+    final ServletOutputStream out = new ServletOutputStream()
+    {
+      @Override
+      public void write(int b)
+      {
+      }
+
+      @Override
+      public boolean isReady()
+      {
+        return true;
+      }
+
+      @Override
+      public void setWriteListener(WriteListener writeListener)
+      {
+      }
+    };
+    HttpServletResponse response = (HttpServletResponse)
+        Proxy.newProxyInstance(
+            StatusRefresherTest.class.getClassLoader(),
+            new Class<?>[] { HttpServletResponse.class },
+            new InvocationHandler()
+            {
+              @Override
+              public Object invoke(Object proxy, Method method, Object[] args)
+              {
+                if (method.getName().equals("setStatus") ||
+                    method.getName().equals("sendError"))
+                {
+                  status[0] = (Integer) args[0];
+                }
+                else if (method.getName().equals("getOutputStream"))
+                {
+                  return out;
+                }
+                return method.getReturnType() == boolean.class ? false : null;
+              }
+            });
+    servlet.doGet(createProxy(HttpServletRequest.class), response);
+    return status[0];
+  }
+
+
+  /**
+   * Creates an object whose methods do nothing.
+   */
+  private static <T> T createProxy(Class<T> type)
+  {
+    return type.cast(Proxy.newProxyInstance(
+        StatusRefresherTest.class.getClassLoader(), new Class<?>[] { type },
+        new InvocationHandler()
+        {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args)
+          {
+            if (method.getReturnType() == boolean.class)
+            {
+              return false;
+            }
+            return method.getReturnType() == int.class ? 0 : null;
+          }
+        }));
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.unboundid.directory.sdk.http.types.HTTPServerContext;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.util.args.ArgumentParser;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.ServerSocket;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests for {@link StatusServletExtension}.
+ */
+public class StatusServletExtensionTest
+{
+  @Test
+  public void invalidConfigurationTest() throws Exception
+  {
+    int port;
+    try (ServerSocket socket = new ServerSocket(0))
+    {
+      port = socket.getLocalPort();
+    }
+    StatusServletExtension extension = new StatusServletExtension();
+    ArgumentParser parser = new ArgumentParser("status", "Status");
+    extension.defineConfigArguments(parser);
+    parser.parse(new String[] {
+        "--remote-server", "localhost:" + port,
+        "--webhook-url", "http://localhost:" + port + "/hook",
+        "--refresh-min-interval", "1 second",
+        "--probe-refresh-interval", "Unknown Monitor:1 second" });
+
+    // The unknown probe is only found after the webhook notifier would have
+    // been created, but no threads are left behind.
+    Set<String> threads = getStatusThreadNames();
+    try
+    {
+      extension.createServlet(createServerContext(), null, parser);
+      fail("An unknown probe was accepted");
+    }
+    catch (LDAPException e)
+    {
+      // Expected.
+    }
+    assertEquals(getStatusThreadNames(), threads);
+  }
+
+
+  /**
+   * Creates a server context whose methods do nothing.
+   */
+  private static HTTPServerContext createServerContext()
+  {
+    return (HTTPServerContext) Proxy.newProxyInstance(
+        StatusServletExtensionTest.class.getClassLoader(),
+        new Class<?>[] { HTTPServerContext.class },
+        new InvocationHandler()
+        {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args)
+          {
+            return method.getReturnType() == boolean.class ? false : null;
+          }
+        });
+  }
+
+
+  private static Set<String> getStatusThreadNames()
+  {
+    Set<String> names = new HashSet<>();
+    for (Thread thread : Thread.getAllStackTraces().keySet())
+    {
+      if (thread.isAlive() && thread.getName().startsWith("Status "))
+      {
+        names.add(thread.getName());
+      }
+    }
+    return names;
+  }
+}
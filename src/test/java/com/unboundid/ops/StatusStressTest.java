@@ -0,0 +1,465 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.sdk.LDAPConnection;
+import com.unboundid.ldap.sdk.LDAPConnectionOptions;
+import com.unboundid.ldap.sdk.LDAPConnectionPool;
+import com.unboundid.ldap.sdk.ResultCode;
+import com.unboundid.ops.models.Status;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests status evaluation under concurrency against a server whose monitor
+ * entries are slow, failing, unresponsive, or unstable, using a
+ * {@link MonitorFaultInjector}.
+ */
+public class StatusStressTest
+{
+  private static final String STORE_ADAPTER_DN =
+      "cn=Store Adapter Store,cn=monitor";
+  private static final String LBA_DN =
+      "cn=load-balancing algorithm LBA,cn=monitor";
+
+  private final MonitorFaultInjector faults = new MonitorFaultInjector();
+  private InMemoryDirectoryServer ds;
+
+
+  /**
+   * Starts an in-memory DS with a store adapter and a load balancing
+   * algorithm.
+   */
+  @BeforeClass
+  public void setup() throws Exception
+  {
+    InMemoryDirectoryServerConfig config =
+        new InMemoryDirectoryServerConfig("cn=monitor");
+    config.setSchema(null);
+    config.addInMemoryOperationInterceptor(faults);
+    ds = new InMemoryDirectoryServer(config);
+    ds.startListening();
+    ds.add("dn: cn=monitor",
+           "objectClass: top",
+           "objectClass: ds-monitor-entry",
+           "objectClass: ds-general-monitor-entry",
+           "cn: monitor");
+    ds.add("dn: " + STORE_ADAPTER_DN,
+           "objectClass: top",
+           "objectClass: ds-monitor-entry",
+           "objectClass: ds-store-adapter-monitor-entry",
+           "cn: Store Adapter Store",
+           "store-adapter-name: Store",
+           "store-adapter-status: AVAILABLE");
+    ds.add("dn: " + LBA_DN,
+           "objectClass: top",
+           "objectClass: ds-monitor-entry",
+           "objectClass: ds-load-balancing-algorithm-monitor-entry",
+           "cn: load-balancing algorithm LBA",
+           "algorithm-name: LBA",
+           "health-check-state: AVAILABLE",
+           "num-available-servers: 2",
+           "num-degraded-servers: 0",
+           "num-unavailable-servers: 0");
+  }
+
+
+  /**
+   * Removes the faults of the previous test.
+   */
+  @AfterMethod
+  public void resetFaults()
+  {
+    faults.reset();
+  }
+
+
+  /**
+   * Shuts down the in-memory DS.
+   */
+  @AfterClass
+  public void cleanup()
+  {
+    ds.shutDown(true);
+  }
+
+
+  @Test
+  public void concurrentEvaluationTest() throws Exception
+  {
+    final int threads = 8;
+    final int evaluations = 10;
+    faults.addLatency(STORE_ADAPTER_DN, 20L)
+        .addFlappingAttribute(LBA_DN, "num-available-servers", "1", "2");
+
+    LDAPConnectionPool pool = new LDAPConnectionPool(ds.getConnection(), 4);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try
+    {
+      final StatusClient client = new StatusClient(pool);
+      List<Future<Status>> futures = new ArrayList<>();
+      for (int i = 0; i < threads * evaluations; i++)
+      {
+        futures.add(executor.submit(new Callable<Status>()
+        {
+          @Override
+          public Status call()
+          {
+            return client.getStatus();
+          }
+        }));
+      }
+
+      // Every evaluation is complete and consistent, and sees one of the
+      // flapping values.
+      int flaps = 0;
+      for (Future<Status> future : futures)
+      {
+        Status status = future.get(30L, TimeUnit.SECONDS);
+        assertTrue(status.isOK());
+        assertTrue(status.getErrors().isEmpty());
+        assertEquals(status.getStoreAdapterStatuses().size(), 1);
+        int numAvailableServers = status.getLoadBalancingAlgorithmStatuses()
+            .get(0).getNumAvailableServers();
+        assertTrue(numAvailableServers == 1 || numAvailableServers == 2);
+        flaps += numAvailableServers == 1 ? 1 : 0;
+      }
+      assertTrue(flaps > 0 && flaps < threads * evaluations);
+      assertEquals(faults.getMatchCount(STORE_ADAPTER_DN),
+                   threads * evaluations);
+    }
+    finally
+    {
+      executor.shutdownNow();
+      pool.close();
+    }
+  }
+
+
+  @Test
+  public void cachingTest() throws Exception
+  {
+    final int threads = 8;
+    faults.addLatency(STORE_ADAPTER_DN, 200L);
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try (LDAPConnection connection = ds.getConnection())
+    {
+      final StatusRefresher refresher =
+          new StatusRefresher(new StatusClient(connection), 100L);
+      refresher.start();
+      try
+      {
+        StatusSnapshot first = refresher.awaitSnapshot(null, 5000L);
+        assertNotNull(first);
+        int searches = faults.getSearchCount();
+
+        // Requests are answered from the most recent snapshot, and never
+        // wait on the slow entry.
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++)
+        {
+          futures.add(executor.submit(new Callable<long[]>()
+          {
+            @Override
+            public long[] call()
+            {
+              long reads = 0L;
+              long slowestNanos = 0L;
+              long deadline = System.nanoTime() +
+                  TimeUnit.MILLISECONDS.toNanos(500L);
+              while (System.nanoTime() < deadline)
+              {
+                long start = System.nanoTime();
+                StatusSnapshot snapshot = refresher.getSnapshot();
+                slowestNanos =
+                    Math.max(slowestNanos, System.nanoTime() - start);
+                assertEquals(snapshot.getHttpStatusCode(),
+                             StatusSnapshot.SC_AVAILABLE);
+                reads++;
+              }
+              return new long[] { reads, slowestNanos };
+            }
+          }));
+        }
+        long reads = 0L;
+        for (Future<long[]> future : futures)
+        {
+          long[] result = future.get(30L, TimeUnit.SECONDS);
+          reads += result[0];
+          assertTrue(result[1] < TimeUnit.MILLISECONDS.toNanos(100L),
+                     "A read took " + result[1] + " ns");
+        }
+
+        // The server is searched by the refreshes alone, which are limited
+        // by the slow entry to a few in that time.
+        int refreshSearches = faults.getSearchCount() - searches;
+        assertTrue(refreshSearches <= 3 * 5,
+                   refreshSearches + " searches for " + reads + " reads");
+        assertTrue(reads > refreshSearches * 100L);
+
+        // A status that has not changed is reused.
+        assertSame(refresher.getSnapshot().getStatus(), first.getStatus());
+      }
+      finally
+      {
+        refresher.stop();
+      }
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+  }
+
+
+  @Test
+  public void timeoutTest() throws Exception
+  {
+    faults.addTimeout(LBA_DN);
+
+    LDAPConnectionOptions options = new LDAPConnectionOptions();
+    options.setResponseTimeoutMillis(500L);
+    try (LDAPConnection connection = ds.getConnection(options))
+    {
+      StatusClient client = new StatusClient(connection)
+          .setCircuitBreaker(1, 60000L, 60000L);
+
+      // Only the unresponsive probe fails, once the response timeout
+      // expires, and the other probes' results are still reported.
+      long start = System.nanoTime();
+      Status status = client.getStatus();
+      assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5L));
+      assertFalse(status.isOK());
+      assertEquals(status.getServerStatus(), "available");
+      assertEquals(status.getStoreAdapterStatuses().size(), 1);
+      assertEquals(status.getErrors().size(), 1);
+      assertEquals(status.getErrors().get(0).getProbe(),
+                   "load-balancing-algorithms");
+      assertEquals(status.getErrors().get(0).getCircuitBreaker(), "open");
+
+      // While its breaker is open, the unresponsive probe is not searched
+      // again, and its error is still reported.
+      faults.reset();
+      int searches = faults.getSearchCount();
+      status = client.getStatus();
+      assertEquals(faults.getSearchCount() - searches, 2);
+      assertEquals(status.getErrors().size(), 1);
+      assertEquals(status.getErrors().get(0).getProbe(),
+                   "load-balancing-algorithms");
+    }
+  }
+
+
+  @Test
+  public void pipelinedTimeoutTest() throws Exception
+  {
+    faults.addTimeout(LBA_DN);
+
+    LDAPConnectionOptions options = new LDAPConnectionOptions();
+    options.setResponseTimeoutMillis(500L);
+    LDAPConnectionPool pool =
+        new LDAPConnectionPool(ds.getConnection(options), 1, 2);
+    try
+    {
+      // Pipelined searches time out individually, too.
+      long start = System.nanoTime();
+      Status status = new StatusClient(pool).getStatus();
+      assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5L));
+      assertEquals(status.getServerStatus(), "available");
+      assertEquals(status.getStoreAdapterStatuses().size(), 1);
+      assertEquals(status.getErrors().size(), 1);
+      assertEquals(status.getErrors().get(0).getProbe(),
+                   "load-balancing-algorithms");
+    }
+    finally
+    {
+      faults.reset();
+      pool.close();
+    }
+  }
+
+
+  @Test
+  public void pipelineTimeoutTest() throws Exception
+  {
+    faults.addTimeout(LBA_DN);
+
+    // Without a response timeout, only the pipeline timeout ends the held
+    // search, and it fails alone.
+    LDAPConnectionOptions options = new LDAPConnectionOptions();
+    options.setResponseTimeoutMillis(0L);
+    LDAPConnectionPool pool =
+        new LDAPConnectionPool(ds.getConnection(options), 1, 2);
+    try
+    {
+      long start = System.nanoTime();
+      Status status =
+          new StatusClient(pool).setPipelineTimeoutMillis(500L).getStatus();
+      assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5L));
+      assertEquals(status.getServerStatus(), "available");
+      assertEquals(status.getStoreAdapterStatuses().size(), 1);
+      assertEquals(status.getErrors().size(), 1);
+      assertEquals(status.getErrors().get(0).getProbe(),
+                   "load-balancing-algorithms");
+    }
+    finally
+    {
+      faults.reset();
+      pool.close();
+    }
+  }
+
+
+  @Test
+  public void intermittentErrorTest() throws Exception
+  {
+    faults.addError(STORE_ADAPTER_DN, ResultCode.BUSY, 3);
+
+    try (LDAPConnection connection = ds.getConnection())
+    {
+      StatusClient client = new StatusClient(connection)
+          .setCircuitBreaker(2, 500L, 5000L);
+      ProbeCircuitBreaker circuitBreaker =
+          client.getCircuitBreakers().get("store-adapters");
+
+      assertFalse(client.getStatus().isOK());
+      assertEquals(circuitBreaker.getState(),
+                   ProbeCircuitBreaker.State.CLOSED);
+      assertFalse(client.getStatus().isOK());
+      assertEquals(circuitBreaker.getState(), ProbeCircuitBreaker.State.OPEN);
+
+      // While the breaker is open, the probe is not searched.
+      int matches = faults.getMatchCount(STORE_ADAPTER_DN);
+      assertFalse(client.getStatus().isOK());
+      assertEquals(faults.getMatchCount(STORE_ADAPTER_DN), matches);
+
+      // The trial evaluation after the backoff meets the third error, so the
+      // breaker opens again for twice as long.
+      awaitRetry(circuitBreaker);
+      assertFalse(client.getStatus().isOK());
+      assertEquals(faults.getMatchCount(STORE_ADAPTER_DN), matches + 1);
+      assertEquals(circuitBreaker.getState(), ProbeCircuitBreaker.State.OPEN);
+      assertTrue(circuitBreaker.getRetryInMillis() > 500L);
+      assertFalse(client.getStatus().isOK());
+      assertEquals(faults.getMatchCount(STORE_ADAPTER_DN), matches + 1);
+
+      // The next trial evaluation succeeds and closes the breaker.
+      awaitRetry(circuitBreaker);
+      Status status = client.getStatus();
+      assertTrue(status.isOK());
+      assertTrue(status.getErrors().isEmpty());
+      assertEquals(circuitBreaker.getState(),
+                   ProbeCircuitBreaker.State.CLOSED);
+    }
+  }
+
+
+  @Test
+  public void flappingTest() throws Exception
+  {
+    faults.addFlappingAttribute(STORE_ADAPTER_DN, "store-adapter-status",
+                                "AVAILABLE", "UNAVAILABLE");
+
+    StatusWebhookNotifier notifier = new StatusWebhookNotifier(
+        Collections.singletonList(
+            "http://127.0.0.1:" + getUnusedPort() + "/hook"),
+        1000L, 10, 0, 10L);
+    notifier.start();
+    try (LDAPConnection connection = ds.getConnection())
+    {
+      StatusRefresher refresher =
+          new StatusRefresher(new StatusClient(connection), 100L, 800L)
+              .setNotifier(notifier);
+
+      // A flapping store adapter keeps its probe at the shortest interval.
+      assertEquals(refresher.refresh().getHttpStatusCode(),
+                   StatusSnapshot.SC_AVAILABLE);
+      for (int i = 0; i < 4; i++)
+      {
+        StatusSnapshot snapshot = refresher.refresh();
+        assertEquals(snapshot.getHttpStatusCode(), i % 2 == 0 ?
+            StatusSnapshot.SC_UNAVAILABLE : StatusSnapshot.SC_AVAILABLE);
+        assertEquals(refresher.getIntervalMillis(), 100L);
+      }
+
+      // Flaps that end where they started within the webhook batching window
+      // are not posted.
+      Thread.sleep(1500L);
+      assertEquals(notifier.getNotificationCount(), 0L);
+
+      // Once the store adapter is stable, its interval backs off again.
+      faults.reset();
+      refresher.refresh();
+      assertEquals(refresher.getIntervalMillis(), 200L);
+      refresher.refresh();
+      assertEquals(refresher.getIntervalMillis(), 400L);
+      refresher.refresh();
+      assertEquals(refresher.getIntervalMillis(), 800L);
+    }
+    finally
+    {
+      notifier.stop();
+    }
+  }
+
+
+  /**
+   * Waits until an open circuit breaker allows its next trial evaluation.
+   */
+  private static void awaitRetry(ProbeCircuitBreaker circuitBreaker)
+      throws InterruptedException
+  {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30L);
+    Long retryInMillis = circuitBreaker.getRetryInMillis();
+    while (retryInMillis != null && retryInMillis > 0L)
+    {
+      assertTrue(System.nanoTime() < deadline,
+                 "The circuit breaker did not allow a retry in time");
+      Thread.sleep(retryInMillis);
+      retryInMillis = circuitBreaker.getRetryInMillis();
+    }
+  }
+
+
+  private static int getUnusedPort() throws Exception
+  {
+    try (ServerSocket socket = new ServerSocket(0))
+    {
+      return socket.getLocalPort();
+    }
+  }
+}
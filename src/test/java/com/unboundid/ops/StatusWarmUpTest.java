@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.sdk.LDAPConnection;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for {@link StatusWarmUp}.
+ */
+public class StatusWarmUpTest
+{
+  private InMemoryDirectoryServer ds;
+
+
+  /**
+   * Starts an in-memory DS.
+   */
+  @BeforeClass
+  public void setup() throws Exception
+  {
+    InMemoryDirectoryServerConfig config =
+        new InMemoryDirectoryServerConfig("cn=monitor");
+    config.setSchema(null);
+    ds = new InMemoryDirectoryServer(config);
+    ds.startListening();
+    ds.add("dn: cn=monitor",
+           "objectClass: top",
+           "objectClass: ds-monitor-entry",
+           "objectClass: ds-general-monitor-entry",
+           "objectClass: extensibleObject",
+           "cn: monitor");
+  }
+
+
+  /**
+   * Shuts down the in-memory DS.
+   */
+  @AfterClass
+  public void cleanup() throws Exception
+  {
+    ds.shutDown(true);
+  }
+
+
+  @Test
+  public void warmUpTest() throws Exception
+  {
+    try (LDAPConnection connection = ds.getConnection())
+    {
+      StatusClient client = new StatusClient(
+          connection, Collections.<String>emptyList(),
+          Collections.<MonitorAvailabilityCriteria>emptyList());
+      StatusRefresher refresher = new StatusRefresher(client, 100L);
+      StatusWarmUp warmUp = new StatusWarmUp(client, refresher, 2);
+      StatusMetrics metrics = new StatusMetrics(client).setWarmUp(warmUp);
+
+      StatusSnapshot starting = warmUp.getStartingSnapshot();
+      assertEquals(starting.getHttpStatusCode(),
+                   StatusSnapshot.SC_UNAVAILABLE);
+      assertEquals(starting.getStatus().getServerStatus(), "starting");
+      assertFalse(warmUp.isComplete());
+      assertNull(warmUp.getDurationMillis());
+
+      // The warm-up waits for the refresher's first snapshot rather than
+      // evaluating the status itself.
+      warmUp.start();
+      assertFalse(warmUp.awaitCompletion(200L));
+      refresher.start();
+      try
+      {
+        assertTrue(warmUp.awaitCompletion(10000L));
+      }
+      finally
+      {
+        refresher.stop();
+      }
+      assertTrue(warmUp.isComplete());
+      assertNotNull(warmUp.getDurationMillis());
+      assertNull(warmUp.getLastErrorMessage());
+      assertNotNull(refresher.getSnapshot());
+      assertEquals(refresher.getSnapshot().getHttpStatusCode(),
+                   StatusSnapshot.SC_AVAILABLE);
+
+      JsonNode warmUpMetrics = metrics.toJsonNode().get("warmUp");
+      assertTrue(warmUpMetrics.get("complete").asBoolean());
+      assertEquals(warmUpMetrics.get("evaluations").asInt(), 2);
+      assertTrue(warmUpMetrics.has("durationMillis"));
+    }
+  }
+
+
+  @Test
+  public void warmUpWithoutRefresherTest() throws Exception
+  {
+    try (LDAPConnection connection = ds.getConnection())
+    {
+      StatusClient client = new StatusClient(connection);
+      StatusWarmUp warmUp = new StatusWarmUp(client, null, 2);
+      warmUp.start();
+      assertTrue(warmUp.awaitCompletion(10000L));
+      assertNotNull(warmUp.getDurationMillis());
+      assertNull(warmUp.getLastErrorMessage());
+    }
+  }
+}
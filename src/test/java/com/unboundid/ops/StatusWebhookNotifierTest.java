@@ -0,0 +1,353 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.unboundid.ops.models.LoadBalancingAlgorithmStatus;
+import com.unboundid.ops.models.MonitorStatus;
+import com.unboundid.ops.models.ServerStatus;
+import com.unboundid.ops.models.ServletStatus;
+import com.unboundid.ops.models.Status;
+import com.unboundid.ops.models.StatusError;
+import com.unboundid.ops.models.StoreAdapterStatus;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for {@link StatusWebhookNotifier}, using a local HTTP server as the
+ * webhook receiver.
+ */
+public class StatusWebhookNotifierTest
+{
+  private static final ObjectMapper mapper = new ObjectMapper();
+
+  private HttpServer receiver;
+  private final BlockingQueue<JsonNode> received = new LinkedBlockingQueue<>();
+  private final AtomicInteger attempts = new AtomicInteger();
+  private volatile int failures;
+  private volatile CountDownLatch release;
+
+
+  /**
+   * Starts a webhook receiver that records each notification. It fails the
+   * first {@code failures} requests, and waits for {@code release} to be
+   * counted down before it answers, if it is set.
+   */
+  @BeforeMethod
+  public void startReceiver() throws Exception
+  {
+    received.clear();
+    attempts.set(0);
+    failures = 0;
+    release = null;
+    receiver = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    receiver.createContext("/hook", new HttpHandler()
+    {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException
+      {
+        byte[] body = readFully(exchange.getRequestBody());
+        try
+        {
+          CountDownLatch latch = release;
+          if (latch != null)
+          {
+            latch.await();
+          }
+        }
+        catch (InterruptedException e)
+        {
+          Thread.currentThread().interrupt();
+        }
+        if (attempts.incrementAndGet() <= failures)
+        {
+          exchange.sendResponseHeaders(500, -1);
+        }
+        else
+        {
+          received.add(mapper.readTree(body));
+          exchange.sendResponseHeaders(204, -1);
+        }
+        exchange.close();
+      }
+    });
+    receiver.start();
+  }
+
+
+  /**
+   * Stops the webhook receiver.
+   */
+  @AfterMethod
+  public void stopReceiver()
+  {
+    CountDownLatch latch = release;
+    if (latch != null)
+    {
+      latch.countDown();
+    }
+    receiver.stop(0);
+  }
+
+
+  @Test
+  public void transitionTest() throws Exception
+  {
+    StatusWebhookNotifier notifier = createNotifier(100L, 10, 0);
+    try
+    {
+      // The first snapshot is a baseline, and is not posted.
+      notifier.publish(createSnapshot(null, true));
+      notifier.publish(createSnapshot(null, true));
+      assertNull(received.poll(500L, TimeUnit.MILLISECONDS));
+
+      notifier.publish(createSnapshot("low-disk-space-error", true));
+      JsonNode notification = received.poll(5L, TimeUnit.SECONDS);
+      assertNotNull(notification);
+      assertEquals(notification.get("httpStatusCode").asInt(),
+                   StatusSnapshot.SC_DEGRADED);
+      assertEquals(notification.get("status").get("server").asText(),
+                   "degraded");
+      JsonNode changes = notification.get("changes");
+      assertEquals(changes.size(), 2);
+      assertChange(changes.get(0), "status", "available", "degraded");
+      assertChange(changes.get(1), "server", "available", "degraded");
+      assertEquals(notifier.getNotificationCount(), 1L);
+      awaitDeliveries(notifier, 1L, 0L);
+    }
+    finally
+    {
+      notifier.stop();
+    }
+  }
+
+
+  @Test
+  public void errorStateTest() throws Exception
+  {
+    // Only the failed probe is part of the error's state, not its message.
+    Map<String, String> first = StatusWebhookNotifier.getStates(
+        createErrorSnapshot("Connection reset"));
+    Map<String, String> second = StatusWebhookNotifier.getStates(
+        createErrorSnapshot("Connection refused"));
+    assertEquals(first.get("error"), "store-adapters:unavailable");
+    assertEquals(second, first);
+  }
+
+
+  @Test
+  public void coalescingTest() throws Exception
+  {
+    StatusWebhookNotifier notifier = createNotifier(500L, 10, 0);
+    try
+    {
+      notifier.publish(createSnapshot(null, true));
+
+      // A store adapter that goes down and comes back within the window is
+      // not posted at all.
+      notifier.publish(createSnapshot(null, false));
+      notifier.publish(createSnapshot(null, true));
+      assertNull(received.poll(1000L, TimeUnit.MILLISECONDS));
+      assertEquals(notifier.getNotificationCount(), 0L);
+
+      // Successive changes within the window are posted together, from the
+      // first state to the last.
+      notifier.publish(createSnapshot("low-disk-space-error", true));
+      notifier.publish(createSnapshot("low-disk-space-error", false));
+      notifier.publish(createSnapshot(null, false));
+      JsonNode notification = received.poll(5L, TimeUnit.SECONDS);
+      assertNotNull(notification);
+      assertEquals(notification.get("httpStatusCode").asInt(),
+                   StatusSnapshot.SC_UNAVAILABLE);
+      JsonNode changes = notification.get("changes");
+      assertEquals(changes.size(), 2);
+      assertChange(changes.get(0), "status", "available", "unavailable");
+      assertChange(changes.get(1), "storeAdapter:store",
+                   "available", "unavailable");
+      assertNull(received.poll(1000L, TimeUnit.MILLISECONDS));
+    }
+    finally
+    {
+      notifier.stop();
+    }
+  }
+
+
+  @Test
+  public void retryTest() throws Exception
+  {
+    failures = 2;
+    StatusWebhookNotifier notifier = createNotifier(0L, 10, 2);
+    try
+    {
+      notifier.publish(createSnapshot(null, true));
+      notifier.publish(createSnapshot(null, false));
+      assertNotNull(received.poll(5L, TimeUnit.SECONDS));
+      assertEquals(attempts.get(), 3);
+      awaitDeliveries(notifier, 1L, 0L);
+
+      // A delivery that fails more often than it is retried is given up.
+      attempts.set(0);
+      failures = 3;
+      notifier.publish(createSnapshot(null, true));
+      assertNull(received.poll(1000L, TimeUnit.MILLISECONDS));
+      assertEquals(attempts.get(), 3);
+      awaitDeliveries(notifier, 1L, 1L);
+    }
+    finally
+    {
+      notifier.stop();
+    }
+  }
+
+
+  @Test
+  public void slowReceiverTest() throws Exception
+  {
+    release = new CountDownLatch(1);
+    StatusWebhookNotifier notifier = createNotifier(0L, 2, 0);
+    try
+    {
+      // Publishing never waits on a receiver that does not answer, and only
+      // the most recent notifications are kept.
+      long start = System.nanoTime();
+      notifier.publish(createSnapshot(null, true));
+      for (int i = 0; i < 10; i++)
+      {
+        notifier.publish(createSnapshot(null, i % 2 != 0));
+        Thread.sleep(50L);
+      }
+      assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2L));
+      assertEquals(notifier.getNotificationCount(), 10L);
+      assertEquals(notifier.getQueuedCount(), 2);
+      assertEquals(notifier.getDroppedCount(), 7L);
+
+      release.countDown();
+      for (int i = 0; i < 3; i++)
+      {
+        assertNotNull(received.poll(5L, TimeUnit.SECONDS));
+      }
+      assertNull(received.poll(500L, TimeUnit.MILLISECONDS));
+      awaitDeliveries(notifier, 3L, 0L);
+    }
+    finally
+    {
+      notifier.stop();
+    }
+  }
+
+
+  private StatusWebhookNotifier createNotifier(long batchWindowMillis,
+                                               int queueSize, int maxRetries)
+      throws Exception
+  {
+    StatusWebhookNotifier notifier = new StatusWebhookNotifier(
+        Collections.singletonList("http://127.0.0.1:" +
+            receiver.getAddress().getPort() + "/hook"),
+        batchWindowMillis, queueSize, maxRetries, 10L);
+    notifier.start();
+    return notifier;
+  }
+
+
+  private static StatusSnapshot createSnapshot(String degradedAlert,
+                                               boolean storeAvailable)
+      throws Exception
+  {
+    ServerStatus serverStatus = new ServerStatus(
+        null, degradedAlert != null ? new String[] { degradedAlert } : null);
+    Status status = Status.create(
+        serverStatus,
+        Collections.<ServletStatus>emptyList(),
+        Collections.<MonitorStatus>emptyList(),
+        Collections.singletonList(
+            new StoreAdapterStatus("store", storeAvailable)),
+        Collections.<LoadBalancingAlgorithmStatus>emptyList());
+    return StatusSnapshot.create(status);
+  }
+
+
+  /**
+   * Waits for the notifier to count deliveries that the receiver has already
+   * seen, since it counts them only once it has read the response.
+   */
+  private static StatusSnapshot createErrorSnapshot(String message)
+      throws Exception
+  {
+    return StatusSnapshot.create(Status.create(new StatusError(
+        "store-adapters", new Exception(message), true, null)));
+  }
+
+
+  private static void awaitDeliveries(StatusWebhookNotifier notifier,
+                                      long delivered, long failed)
+      throws InterruptedException
+  {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+    while ((notifier.getDeliveredCount() != delivered ||
+        notifier.getFailedCount() != failed) &&
+        System.nanoTime() < deadline)
+    {
+      Thread.sleep(10L);
+    }
+    assertEquals(notifier.getDeliveredCount(), delivered);
+    assertEquals(notifier.getFailedCount(), failed);
+  }
+
+
+  private static void assertChange(JsonNode change, String component,
+                                   String from, String to)
+  {
+    assertEquals(change.get("component").asText(), component);
+    assertEquals(change.get("from").asText(), from);
+    assertEquals(change.get("to").asText(), to);
+  }
+
+
+  private static byte[] readFully(InputStream in) throws IOException
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    int count;
+    while ((count = in.read(buffer)) >= 0)
+    {
+      out.write(buffer, 0, count);
+    }
+    return out.toByteArray();
+  }
+}
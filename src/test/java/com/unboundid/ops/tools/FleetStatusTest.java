@@ -0,0 +1,160 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops.tools;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.sdk.ResultCode;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.net.ServerSocket;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for {@link FleetStatus}.
+ * <p>
+ * The multi-release profile runs these tests a second time on Java 21 against
+ * the packaged JAR, with the {@code fleet-status.virtual-threads} system
+ * property set, so that the Java 21 {@link Workers} is checked as well.
+ */
+public class FleetStatusTest
+{
+  private InMemoryDirectoryServer ds;
+  private String availableEndpoint;
+  private String unreachableEndpoint;
+
+
+  /**
+   * Starts an in-memory DS, and finds a port on which nothing is listening.
+   */
+  @BeforeClass
+  public void setup() throws Exception
+  {
+    InMemoryDirectoryServerConfig config =
+        new InMemoryDirectoryServerConfig("cn=monitor");
+    config.setSchema(null);
+    ds = new InMemoryDirectoryServer(config);
+    ds.startListening();
+    ds.add("dn: cn=monitor",
+           "objectClass: top",
+           "objectClass: ds-monitor-entry",
+           "objectClass: ds-general-monitor-entry",
+           "objectClass: extensibleObject",
+           "cn: monitor");
+    availableEndpoint = "localhost:" + ds.getListenPort();
+    try (ServerSocket socket = new ServerSocket(0))
+    {
+      unreachableEndpoint = "localhost:" + socket.getLocalPort();
+    }
+  }
+
+
+  /**
+   * Shuts down the in-memory DS.
+   */
+  @AfterClass
+  public void cleanup() throws Exception
+  {
+    ds.shutDown(true);
+  }
+
+
+  @Test
+  public void allAvailableTest() throws Exception
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ResultCode resultCode = new FleetStatus(out, null).runTool(
+        "--outputFormat", "csv", availableEndpoint, availableEndpoint);
+    assertEquals(resultCode, ResultCode.SUCCESS);
+
+    String[] lines = out.toString("UTF-8").trim().split("\\r?\\n");
+    assertTrue(lines[0].startsWith("Server,Status,Code"));
+    assertTrue(lines[1].startsWith(availableEndpoint + ",available,200,"));
+    assertTrue(lines[2].startsWith(availableEndpoint + ",available,200,"));
+  }
+
+
+  @Test
+  public void unreachableServerTest() throws Exception
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ByteArrayOutputStream err = new ByteArrayOutputStream();
+    ResultCode resultCode = new FleetStatus(out, err).runTool(
+        "--outputFormat", "json-lines", "--timeout", "2 seconds",
+        availableEndpoint, unreachableEndpoint);
+    assertEquals(resultCode, ResultCode.UNAVAILABLE);
+
+    String output = out.toString("UTF-8");
+    assertTrue(output.contains("\"server\":\"" + availableEndpoint +
+                               "\",\"httpStatus\":200"));
+    assertTrue(output.contains("\"server\":\"" + unreachableEndpoint +
+                               "\",\"httpStatus\":503"));
+    assertTrue(err.toString("UTF-8").contains(
+        "Checked 2 servers in"));
+    assertTrue(err.toString("UTF-8").contains(
+        "1 available, 0 degraded, 1 unavailable"));
+  }
+
+
+  @Test
+  public void workerThreadsTest() throws Exception
+  {
+    boolean virtual = Boolean.getBoolean("fleet-status.virtual-threads");
+    ExecutorService workers = Workers.newExecutor("Status Check", 2);
+    try
+    {
+      Thread thread = workers.submit(new Callable<Thread>()
+      {
+        @Override
+        public Thread call()
+        {
+          return Thread.currentThread();
+        }
+      }).get();
+      assertTrue(thread.getName().startsWith("Status Check "));
+      assertEquals(isVirtual(thread), virtual);
+      assertTrue(virtual || thread.isDaemon());
+    }
+    finally
+    {
+      workers.shutdownNow();
+    }
+  }
+
+
+  /**
+   * Returns whether a thread is a virtual thread, which is never the case
+   * before Java 21.
+   */
+  private static boolean isVirtual(Thread thread) throws Exception
+  {
+    try
+    {
+      return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+    }
+    catch (NoSuchMethodException e)
+    {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2019 Ping Identity Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.unboundid.ops.tools;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.sdk.Modification;
+import com.unboundid.ldap.sdk.ModificationType;
+import com.unboundid.ops.StatusFormat;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests for {@link StatusDaemon}.
+ */
+public class StatusDaemonTest
+{
+  private InMemoryDirectoryServer ds;
+  private StatusDaemon daemon;
+  private int listenPort;
+
+
+  /**
+   * Starts an in-memory DS and a status daemon that reports its status.
+   */
+  @BeforeClass
+  public void setup() throws Exception
+  {
+    InMemoryDirectoryServerConfig config =
+        new InMemoryDirectoryServerConfig("cn=monitor");
+    config.setSchema(null);
+    ds = new InMemoryDirectoryServer(config);
+    ds.startListening();
+    ds.add("dn: cn=monitor",
+           "objectClass: top",
+           "objectClass: ds-monitor-entry",
+           "objectClass: ds-general-monitor-entry",
+           "objectClass: extensibleObject",
+           "cn: monitor");
+
+    listenPort = getFreePort();
+    daemon = startDaemon(listenPort);
+  }
+
+
+  /**
+   * Stops the status daemon and the in-memory DS.
+   */
+  @AfterClass
+  public void cleanup() throws Exception
+  {
+    daemon.shutDown();
+    ds.shutDown(true);
+  }
+
+
+  @Test
+  public void statusTest() throws Exception
+  {
+    assertEquals(awaitStatusCode(200), 200);
+    assertTrue(get("/status").contains("\"server\":\"available\""));
+
+    ds.modify("cn=monitor", new Modification(ModificationType.ADD,
+        "degraded-alert-type", "low-disk-space-error"));
+    assertEquals(awaitStatusCode(429), 429);
+    assertTrue(get("/status").contains("low-disk-space-error"));
+
+    ds.modify("cn=monitor", new Modification(ModificationType.DELETE,
+        "degraded-alert-type"));
+    assertEquals(awaitStatusCode(200), 200);
+  }
+
+
+  @Test
+  public void metricsTest() throws Exception
+  {
+    awaitStatusCode(200);
+    assertEquals(open("/status/metrics").getResponseCode(), 200);
+    assertTrue(get("/status/metrics").contains("\"circuitBreakers\""));
+  }
+
+
+  @Test
+  public void binaryFormatTest() throws Exception
+  {
+    awaitStatusCode(200);
+    HttpURLConnection connection = open("/status");
+    connection.setRequestProperty("Accept", "application/cbor");
+    assertEquals(connection.getResponseCode(), 200);
+    assertEquals(connection.getContentType(), "application/cbor");
+    JsonNode status = StatusFormat.CBOR.getObjectMapper().readTree(
+        connection.getInputStream());
+    assertEquals(status.get("server").asText(), "available");
+  }
+
+
+  @Test
+  public void includeTest() throws Exception
+  {
+    awaitStatusCode(200);
+    String body = get("/status?include=storeAdapters,loadBalancingAlgorithms");
+    assertFalse(body.contains("\"server\""));
+    assertEquals(open("/status?include=unknown").getResponseCode(), 400);
+  }
+
+
+  @Test
+  public void healthCheckTest() throws Exception
+  {
+    assertEquals(open("/status/startup").getResponseCode(), 200);
+    assertEquals(open("/status/ready").getResponseCode(), 200);
+    assertEquals(open("/status/live").getResponseCode(), 200);
+    assertTrue(get("/status/live").contains("\"live\":true"));
+  }
+
+
+  @Test
+  public void startupWaitTest() throws Exception
+  {
+    // The server never starts, so every startup check waits for the full
+    // timeout.
+    int port = getFreePort();
+    StatusDaemon waitingDaemon = startDaemon(
+        port, "--monitoredServlet", "Missing Servlet",
+        "--startupTimeout", "5 seconds", "--httpThreads", "2");
+    ExecutorService clients = Executors.newCachedThreadPool();
+    try
+    {
+      awaitStatusCode(port, 503);
+      List<Future<Integer>> startupChecks = new ArrayList<>();
+      for (int i = 0; i < 2; i++)
+      {
+        startupChecks.add(clients.submit(
+            createRequest(port, "/status/startup")));
+      }
+      Thread.sleep(200L);
+
+      // The waiting startup checks hold neither the HTTP threads that answer
+      // the other checks, nor a startup check that finds every startup
+      // thread busy.
+      long start = System.nanoTime();
+      assertEquals(open(port, "/status/live").getResponseCode(), 200);
+      assertEquals(open(port, "/status/ready").getResponseCode(), 200);
+      assertEquals(open(port, "/status/startup").getResponseCode(), 503);
+      assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2L));
+
+      for (Future<Integer> startupCheck : startupChecks)
+      {
+        assertEquals(startupCheck.get(10L, TimeUnit.SECONDS).intValue(), 503);
+      }
+    }
+    finally
+    {
+      clients.shutdownNow();
+      waitingDaemon.shutDown();
+    }
+  }
+
+
+  @Test
+  public void unknownPathTest() throws Exception
+  {
+    assertEquals(open("/status/unknown").getResponseCode(), 404);
+  }
+
+
+  /**
+   * Starts a status daemon that reports the status of the in-memory DS.
+   */
+  private StatusDaemon startDaemon(int port, String... extraArgs)
+  {
+    final StatusDaemon statusDaemon = new StatusDaemon(null, null);
+    final List<String> args = new ArrayList<>(Arrays.asList(
+        "--hostname", "localhost",
+        "--port", String.valueOf(ds.getListenPort()),
+        "--listenAddress", "localhost",
+        "--listenPort", String.valueOf(port),
+        "--minRefreshInterval", "50ms",
+        "--maxRefreshInterval", "200ms"));
+    args.addAll(Arrays.asList(extraArgs));
+    Thread daemonThread = new Thread(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        statusDaemon.runTool(args.toArray(new String[args.size()]));
+      }
+    });
+    daemonThread.setDaemon(true);
+    daemonThread.start();
+    return statusDaemon;
+  }
+
+
+  private static int getFreePort() throws IOException
+  {
+    try (ServerSocket socket = new ServerSocket(0))
+    {
+      return socket.getLocalPort();
+    }
+  }
+
+
+  private static Callable<Integer> createRequest(final int port,
+                                                 final String path)
+  {
+    return new Callable<Integer>()
+    {
+      @Override
+      public Integer call() throws IOException
+      {
+        return open(port, path).getResponseCode();
+      }
+    };
+  }
+
+
+  private int awaitStatusCode(int expected) throws Exception
+  {
+    return awaitStatusCode(listenPort, expected);
+  }
+
+
+  private static int awaitStatusCode(int port, int expected) throws Exception
+  {
+    int actual = -1;
+    long deadline = System.currentTimeMillis() + 10000L;
+    while (System.currentTimeMillis() < deadline)
+    {
+      try
+      {
+        actual = open(port, "/status").getResponseCode();
+        if (actual == expected)
+        {
+          break;
+        }
+      }
+      catch (IOException e)
+      {
+        // The daemon may not be listening yet.
+      }
+      Thread.sleep(25L);
+    }
+    return actual;
+  }
+
+
+  private HttpURLConnection open(String path) throws IOException
+  {
+    return open(listenPort, path);
+  }
+
+
+  private static HttpURLConnection open(int port, String path)
+      throws IOException
+  {
+    return (HttpURLConnection)
+        new URL("http://localhost:" + port + path).openConnection();
+  }
+
+
+  private String get(String path) throws IOException
+  {
+    HttpURLConnection connection = open(path);
+    InputStream in = connection.getResponseCode() < 400 ?
+        connection.getInputStream() : connection.getErrorStream();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    byte[] buffer = new byte[4096];
+    int count;
+    while ((count = in.read(buffer)) > 0)
+    {
+      bytes.write(buffer, 0, count);
+    }
+    in.close();
+    return bytes.toString("UTF-8");
+  }
+}